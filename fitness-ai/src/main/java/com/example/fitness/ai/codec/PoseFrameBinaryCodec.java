@@ -0,0 +1,109 @@
+package com.example.fitness.ai.codec;
+
+import com.example.fitness.ai.model.PoseSequence;
+import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.common.result.ErrorCode;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 姿态帧二进制编解码器
+ *
+ * <p>
+ * 对应 Content-Type {@value #MEDIA_TYPE}，全部字段为小端序：
+ *
+ * <pre>
+ * uint16  moveId 字节长度 + UTF-8 字节
+ * uint16  userId 字节长度 + UTF-8 字节（长度为 0 表示未提供）
+ * int32   帧数 N
+ * float32 N × 17 × (x, y, confidence)
+ * </pre>
+ *
+ * <p>
+ * 解码时帧数据不做拷贝，直接返回请求体上的 {@link FloatBuffer} 视图。
+ */
+public final class PoseFrameBinaryCodec {
+
+    /** 二进制姿态帧的媒体类型 */
+    public static final String MEDIA_TYPE = "application/x-pose-frames";
+
+    /** 单次请求允许的最大帧数（约 60 秒 @ 30fps） */
+    public static final int MAX_FRAMES = 1800;
+
+    private PoseFrameBinaryCodec() {
+    }
+
+    /**
+     * 解码二进制请求体
+     *
+     * @param body 请求体字节
+     * @return 帧序列，{@code frames} 为 {@code body} 的零拷贝视图
+     * @throws BusinessException 格式非法时抛出 {@link ErrorCode#PARAM_ERROR}
+     */
+    public static PoseSequence decode(byte[] body) {
+        if (body == null || body.length == 0) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "姿态帧数据为空");
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+            String moveId = readString(buffer);
+            String userId = readString(buffer);
+            int frameCount = buffer.getInt();
+            if (frameCount < 0 || frameCount > MAX_FRAMES) {
+                throw new BusinessException(ErrorCode.PARAM_ERROR, "帧数非法: " + frameCount);
+            }
+
+            int floatCount = frameCount * PoseSequence.FRAME_LENGTH;
+            if (buffer.remaining() != floatCount * Float.BYTES) {
+                throw new BusinessException(ErrorCode.PARAM_ERROR, "姿态帧数据长度与帧数不一致");
+            }
+            FloatBuffer frames = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+
+            return new PoseSequence(moveId, userId.isEmpty() ? "unknown" : userId, frameCount, frames);
+        } catch (BufferUnderflowException e) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "姿态帧数据不完整");
+        }
+    }
+
+    /**
+     * 编码为二进制格式（供客户端 SDK 与测试使用）
+     *
+     * @param moveId     动作 ID
+     * @param userId     用户 ID，可为 {@code null}
+     * @param frames     帧数据，长度至少为 {@code frameCount * 51}
+     * @param frameCount 帧数
+     * @return 编码后的字节
+     */
+    public static byte[] encode(String moveId, String userId, float[] frames, int frameCount) {
+        byte[] moveBytes = moveId.getBytes(StandardCharsets.UTF_8);
+        byte[] userBytes = userId == null ? new byte[0] : userId.getBytes(StandardCharsets.UTF_8);
+        int floatCount = frameCount * PoseSequence.FRAME_LENGTH;
+
+        ByteBuffer buffer = ByteBuffer
+                .allocate(2 + moveBytes.length + 2 + userBytes.length + 4 + floatCount * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) moveBytes.length).put(moveBytes);
+        buffer.putShort((short) userBytes.length).put(userBytes);
+        buffer.putInt(frameCount);
+        buffer.asFloatBuffer().put(frames, 0, floatCount);
+        return buffer.array();
+    }
+
+    /**
+     * 读取 uint16 长度前缀的 UTF-8 字符串
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.fitness.ai.config;
+
+import com.example.fitness.ai.kernel.SimilarityKernel;
+import com.example.fitness.ai.kernel.SimilarityKernels;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 相似度内核配置类
+ * 通过 {@code app.ai.kernel}（{@code auto} / {@code vector} / {@code scalar}）选择评分使用的向量运算实现
+ */
+@Slf4j
+@Configuration
+public class SimilarityKernelConfig {
+
+    @Bean
+    public SimilarityKernel similarityKernel(@Value("${app.ai.kernel:auto}") String mode) {
+        SimilarityKernel kernel = SimilarityKernels.select(mode);
+        log.info("AI 评分相似度内核: {}（配置: {}）", kernel.name(), mode);
+        return kernel;
+    }
+}
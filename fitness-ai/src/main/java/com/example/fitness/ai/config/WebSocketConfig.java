@@ -0,0 +1,30 @@
+package com.example.fitness.ai.config;
+
+import com.example.fitness.ai.ws.JwtHandshakeInterceptor;
+import com.example.fitness.ai.ws.ScoringWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * WebSocket 配置类
+ * 注册实时流式评分端点 {@code /ws/ai/score}，鉴权在握手阶段完成
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final ScoringWebSocketHandler scoringWebSocketHandler;
+
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(scoringWebSocketHandler, "/ws/ai/score")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -1,8 +1,14 @@
 package com.example.fitness.ai.controller;
 
+import com.example.fitness.ai.codec.PoseFrameBinaryCodec;
+import com.example.fitness.api.dto.BatchScoringRequest;
+import com.example.fitness.api.dto.BatchScoringResponse;
 import com.example.fitness.api.dto.ScoringRequest;
 import com.example.fitness.api.dto.ScoringResponse;
+import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.common.result.ErrorCode;
 import com.example.fitness.common.result.Result;
+import com.example.fitness.ai.model.PoseSequence;
 import com.example.fitness.ai.service.ScoringService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,6 +23,10 @@ import java.util.Map;
 
 /**
  * AI 评分控制器 - 提供动作评分接口及模型版本管理
+ *
+ * <p>
+ * 评分事件会累加到用户积分和排行榜，因此事件一律归属登录拦截器写入的当前用户；
+ * 请求体中的 {@code userId} 仅为兼容旧客户端保留，与当前用户不一致时拒绝。
  */
 @RestController
 @RequestMapping("/api")
@@ -29,6 +39,7 @@ public class ScoringController {
      * 动作评分接口
      * 
      * @param request 包含动作ID和关键点数据
+     * @param userId  登录拦截器写入的用户 ID
      * @return 返回评分结果（分数值及建议）
      */
     @Operation(summary = "AI实时动作评分", description = "根据用户姿态关键点数据计算动作得分并返回反馈建议")
@@ -40,10 +51,67 @@ public class ScoringController {
             @ApiResponse(responseCode = "429", description = "AI服务限流")
     })
     @PostMapping("/ai/score")
-    public Result<ScoringResponse> score(@RequestBody ScoringRequest request) {
+    public Result<ScoringResponse> score(@RequestBody ScoringRequest request,
+            @RequestAttribute(value = "userId", required = false) String userId) {
+        Map<String, Object> data = request.getData();
+        if (data != null && data.get("userId") instanceof String dataUserId) {
+            bindUser(userId, dataUserId);
+        }
+        request.setUserId(bindUser(userId, request.getUserId()));
         return Result.success(scoringService.calculateScore(request));
     }
 
+    /**
+     * 二进制动作评分接口
+     *
+     * <p>
+     * 与 JSON 接口共用路径，通过 {@code Content-Type: application/x-pose-frames} 区分。
+     * 请求体格式见 {@link PoseFrameBinaryCodec}，可一次携带多帧，返回各帧平均分。
+     *
+     * @param body   小端序二进制姿态帧数据
+     * @param userId 登录拦截器写入的用户 ID
+     * @return 返回评分结果（分数值及建议）
+     */
+    @Operation(summary = "AI动作评分（二进制）", description = "以紧凑的二进制格式上传一帧或多帧姿态关键点并评分")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "操作成功"),
+            @ApiResponse(responseCode = "400", description = "参数校验失败"),
+            @ApiResponse(responseCode = "401", description = "未认证"),
+            @ApiResponse(responseCode = "429", description = "AI服务限流")
+    })
+    @PostMapping(value = "/ai/score", consumes = PoseFrameBinaryCodec.MEDIA_TYPE)
+    public Result<ScoringResponse> scoreBinary(@RequestBody byte[] body,
+            @RequestAttribute(value = "userId", required = false) String userId) {
+        PoseSequence decoded = PoseFrameBinaryCodec.decode(body);
+        PoseSequence sequence = new PoseSequence(decoded.moveId(), bindUser(userId, decoded.userId()),
+                decoded.frameCount(), decoded.frames());
+        return Result.success(scoringService.calculateSequenceScore(sequence));
+    }
+
+    /**
+     * 批量动作评分接口
+     *
+     * <p>
+     * 一次提交同一会话的多帧关键点，返回逐帧分数与汇总分，整批只产生一条评分事件。
+     *
+     * @param request 包含动作ID和按时间排列的关键点帧
+     * @param userId  登录拦截器写入的用户 ID
+     * @return 返回逐帧分数、汇总分数及建议
+     */
+    @Operation(summary = "AI批量动作评分", description = "一次上传多帧姿态关键点，返回逐帧分数及汇总结果")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "操作成功"),
+            @ApiResponse(responseCode = "400", description = "参数校验失败"),
+            @ApiResponse(responseCode = "401", description = "未认证"),
+            @ApiResponse(responseCode = "429", description = "AI服务限流")
+    })
+    @PostMapping("/ai/score/batch")
+    public Result<BatchScoringResponse> scoreBatch(@RequestBody BatchScoringRequest request,
+            @RequestAttribute(value = "userId", required = false) String userId) {
+        request.setUserId(bindUser(userId, request.getUserId()));
+        return Result.success(scoringService.calculateBatchScore(request));
+    }
+
     /**
      * 获取最新 AI 模型版本
      * 
@@ -70,4 +138,18 @@ public class ScoringController {
         response.put("data", data);
         return Result.success(response);
     }
+
+    /**
+     * 确定评分事件的归属用户：必须已登录，请求体声明的 userId 为空、{@code "unknown"} 或与当前用户一致
+     */
+    private static String bindUser(String loginUserId, String claimedUserId) {
+        if (loginUserId == null) {
+            throw new BusinessException(ErrorCode.UNAUTHORIZED);
+        }
+        if (claimedUserId != null && !claimedUserId.isEmpty() && !"unknown".equals(claimedUserId)
+                && !claimedUserId.equals(loginUserId)) {
+            throw new BusinessException(ErrorCode.FORBIDDEN, "userId 与当前登录用户不一致");
+        }
+        return loginUserId;
+    }
 }
@@ -0,0 +1,155 @@
+package com.example.fitness.ai.engine;
+
+import com.example.fitness.ai.kernel.SimilarityKernel;
+import com.example.fitness.ai.model.PoseSequence;
+import com.example.fitness.ai.template.ReferenceMotion;
+import com.example.fitness.api.dto.PoseFrame;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 带宽约束的动态时间规整（Sakoe-Chiba band DTW）
+ *
+ * <p>
+ * 将用户的一段帧序列与参考动作对齐，返回对齐路径上的平均帧间距离。
+ * 帧间距离为两帧各自减去质心后的余弦距离 {@code 1 - cos}：只比较姿态形状，
+ * 不受人在画面中位置的影响。参考帧已在加载时中心化，由于中心化后的参考帧坐标和为 0，
+ * 用户帧的点积无需中心化，只需修正其范数。
+ *
+ * <p>
+ * 每一行先把用户帧整理成与参考帧同布局的紧凑 {@code float[34]}，再用
+ * {@link SimilarityKernel#dotRows} 一次算出带宽内所有格子的点积。
+ *
+ * <p>
+ * 只保留前后两行代价，内存为 {@code O(参考帧数)}；带宽外的格子既不计算也不重置，
+ * 读取时按下标视为 {@code +INF}，时间复杂度为 {@code O(用户帧数 × 带宽)}。缓冲区在实例内复用，
+ * 因此实例<b>不是</b>线程安全的，调用方需按线程持有。
+ */
+public final class DtwAligner {
+
+    /** 带宽占参考动作长度的默认比例 */
+    public static final double DEFAULT_BAND_RATIO = 0.1;
+
+    private final SimilarityKernel kernel;
+    private final double bandRatio;
+
+    private final float[] packed = new float[ReferenceMotion.FRAME_LENGTH];
+    private double[] previous = new double[0];
+    private double[] current = new double[0];
+    private float[] rowDots = new float[0];
+
+    public DtwAligner(SimilarityKernel kernel) {
+        this(kernel, DEFAULT_BAND_RATIO);
+    }
+
+    public DtwAligner(SimilarityKernel kernel, double bandRatio) {
+        this.kernel = kernel;
+        this.bandRatio = bandRatio;
+    }
+
+    /**
+     * 计算用户帧序列与参考动作的对齐代价
+     *
+     * @param frames     用户帧缓冲区（每帧 {@link PoseSequence#FRAME_LENGTH} 个 float）
+     * @param startFrame 起始帧下标
+     * @param frameCount 参与对齐的帧数
+     * @param reference  参考动作
+     * @return 对齐路径上的平均余弦距离，范围 {@code [0, 2]}；输入为空时返回 {@code 2}
+     */
+    public double align(FloatBuffer frames, int startFrame, int frameCount, ReferenceMotion reference) {
+        int n = frameCount;
+        int m = reference.frameCount();
+        if (n == 0 || m == 0) {
+            return 2.0;
+        }
+        ensureCapacity(m);
+
+        // 按长度比例缩放对角线，带宽至少覆盖相邻两行的对角线偏移，保证路径连通
+        int band = (int) Math.ceil(bandRatio * m) + (int) Math.ceil((double) m / n);
+
+        // 只有带宽内的格子被写入；带宽外（含上一次调用残留）的读取按下标判断视为 +INF，
+        // 每行无需整行重置，保持 O(带宽)
+        int prevFrom = 0;
+        int prevTo = -1;
+        for (int i = 0; i < n; i++) {
+            int center = (int) ((long) i * (m - 1) / Math.max(1, n - 1));
+            int from = Math.max(0, center - band);
+            int to = Math.min(m - 1, center + band);
+            double queryNorm = packQuery(frames, (startFrame + i) * PoseSequence.FRAME_LENGTH);
+            kernel.dotRows(packed, 0, reference.frames(), from, to - from + 1, ReferenceMotion.FRAME_LENGTH,
+                    rowDots, 0);
+
+            for (int j = from; j <= to; j++) {
+                double cost = distance(rowDots[j - from], queryNorm, reference.norms()[j]);
+                double best;
+                if (i == 0 && j == 0) {
+                    best = 0.0;
+                } else {
+                    best = Math.min(cell(previous, j, prevFrom, prevTo), cell(previous, j - 1, prevFrom, prevTo));
+                    if (j > from) {
+                        best = Math.min(best, current[j - 1]);
+                    }
+                }
+                current[j] = cost + best;
+            }
+
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+            prevFrom = from;
+            prevTo = to;
+        }
+
+        double total = cell(previous, m - 1, prevFrom, prevTo);
+        if (Double.isInfinite(total)) {
+            return 2.0;
+        }
+        // 路径长度介于 max(n, m) 与 n + m - 1 之间，按较长序列归一化
+        return Math.min(2.0, total / Math.max(n, m));
+    }
+
+    /**
+     * 读取上一行的代价，下标在该行带宽 {@code [from, to]} 之外时为 {@code +INF}
+     */
+    private static double cell(double[] row, int j, int from, int to) {
+        return j >= from && j <= to ? row[j] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * 由点积与两侧范数得到中心化余弦距离
+     */
+    private static double distance(float dot, double queryNorm, double refNorm) {
+        if (queryNorm == 0 || refNorm == 0) {
+            return 1.0;
+        }
+        return 1.0 - dot / (queryNorm * refNorm);
+    }
+
+    /**
+     * 将用户帧的 (x, y) 整理到 {@link #packed}，并返回其中心化后的范数
+     */
+    private double packQuery(FloatBuffer frames, int offset) {
+        double sx = 0.0;
+        double sy = 0.0;
+        for (int k = 0; k < PoseFrame.KEYPOINT_COUNT; k++) {
+            float x = frames.get(offset + k * PoseFrame.STRIDE);
+            float y = frames.get(offset + k * PoseFrame.STRIDE + 1);
+            packed[k * 2] = x;
+            packed[k * 2 + 1] = y;
+            sx += x;
+            sy += y;
+        }
+        // ||q - c||² = ||q||² - n·|c|²
+        double sum = kernel.dot(packed, 0, packed, 0, ReferenceMotion.FRAME_LENGTH);
+        double centered = sum - (sx * sx + sy * sy) / PoseFrame.KEYPOINT_COUNT;
+        return Math.sqrt(Math.max(0.0, centered));
+    }
+
+    private void ensureCapacity(int m) {
+        if (previous.length < m) {
+            previous = new double[m];
+            current = new double[m];
+            rowDots = new float[m];
+        }
+    }
+}
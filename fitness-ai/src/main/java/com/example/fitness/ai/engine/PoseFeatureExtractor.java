@@ -0,0 +1,156 @@
+package com.example.fitness.ai.engine;
+
+import com.example.fitness.api.dto.PoseFrame;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 姿态特征提取器：关节角度与骨骼长度比
+ *
+ * <p>
+ * 原始坐标的余弦相似度会随人与摄像头的距离、人在画面中的位置变化，
+ * 而关节角度与平移、缩放无关，骨骼长度除以躯干长度后也与缩放无关，
+ * 更能反映动作本身。特征向量布局为 {@link #FEATURE_LENGTH} 个 double：
+ * <ul>
+ * <li>{@code [0, 8)}：左右肘、肩、髋、膝的关节角，单位弧度，范围 {@code [0, π]}</li>
+ * <li>{@code [8, 16)}：左右上臂、前臂、大腿、小腿长度与躯干长度之比</li>
+ * </ul>
+ *
+ * <p>
+ * 只读写调用方传入的数组，不分配内存，无状态，线程安全。
+ */
+public final class PoseFeatureExtractor {
+
+    /** 关节角个数 */
+    public static final int ANGLE_COUNT = 8;
+
+    /** 骨骼长度比个数 */
+    public static final int RATIO_COUNT = 8;
+
+    /** 特征向量长度 */
+    public static final int FEATURE_LENGTH = ANGLE_COUNT + RATIO_COUNT;
+
+    /** 参与计算的首个 COCO 关键点（左肩），头部关键点不参与 */
+    private static final int FIRST_BODY_KEYPOINT = 5;
+
+    /** COCO 关键点下标 */
+    private static final int L_SHOULDER = 5;
+    private static final int R_SHOULDER = 6;
+    private static final int L_ELBOW = 7;
+    private static final int R_ELBOW = 8;
+    private static final int L_WRIST = 9;
+    private static final int R_WRIST = 10;
+    private static final int L_HIP = 11;
+    private static final int R_HIP = 12;
+    private static final int L_KNEE = 13;
+    private static final int R_KNEE = 14;
+    private static final int L_ANKLE = 15;
+    private static final int R_ANKLE = 16;
+
+    /** 关节角定义：每行为 {@code (端点, 顶点, 端点)} */
+    private static final int[][] ANGLES = {
+            { L_SHOULDER, L_ELBOW, L_WRIST }, { R_SHOULDER, R_ELBOW, R_WRIST },
+            { L_HIP, L_SHOULDER, L_ELBOW }, { R_HIP, R_SHOULDER, R_ELBOW },
+            { L_SHOULDER, L_HIP, L_KNEE }, { R_SHOULDER, R_HIP, R_KNEE },
+            { L_HIP, L_KNEE, L_ANKLE }, { R_HIP, R_KNEE, R_ANKLE },
+    };
+
+    /** 骨骼定义：每行为 {@code (起点, 终点)} */
+    private static final int[][] BONES = {
+            { L_SHOULDER, L_ELBOW }, { R_SHOULDER, R_ELBOW },
+            { L_ELBOW, L_WRIST }, { R_ELBOW, R_WRIST },
+            { L_HIP, L_KNEE }, { R_HIP, R_KNEE },
+            { L_KNEE, L_ANKLE }, { R_KNEE, R_ANKLE },
+    };
+
+    /** 骨骼长度低于该值（归一化坐标）视为关键点重合，特征无定义 */
+    private static final double MIN_LENGTH = 1e-6;
+
+    private PoseFeatureExtractor() {
+    }
+
+    /**
+     * 判断一帧中参与特征计算的身体关键点（左肩至右踝）是否全部可信
+     * <p>
+     * 在整理坐标之前调用，置信度不足的帧可直接跳过。
+     *
+     * @param frames        帧缓冲区（stride 为 {@link PoseFrame#STRIDE}）
+     * @param offset        帧起始下标
+     * @param keypointCount 实际关键点个数
+     * @param minConfidence 最低置信度
+     */
+    public static boolean isConfident(FloatBuffer frames, int offset, int keypointCount, float minConfidence) {
+        if (keypointCount < PoseFrame.KEYPOINT_COUNT) {
+            return false;
+        }
+        for (int k = FIRST_BODY_KEYPOINT; k < PoseFrame.KEYPOINT_COUNT; k++) {
+            if (frames.get(offset + k * PoseFrame.STRIDE + 2) < minConfidence) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 从紧凑坐标 {@code [x0, y0, x1, y1, ...]} 提取特征
+     *
+     * @param coords 17 个关键点的紧凑坐标
+     * @param out    输出，长度至少为 {@link #FEATURE_LENGTH}
+     * @return 是否提取成功；躯干或任一骨骼长度为 0 时特征无定义，返回 {@code false}
+     */
+    public static boolean extract(double[] coords, double[] out) {
+        double torso = Math.hypot(
+                (coords[L_SHOULDER * 2] + coords[R_SHOULDER * 2] - coords[L_HIP * 2] - coords[R_HIP * 2]) / 2,
+                (coords[L_SHOULDER * 2 + 1] + coords[R_SHOULDER * 2 + 1] - coords[L_HIP * 2 + 1]
+                        - coords[R_HIP * 2 + 1]) / 2);
+        if (torso < MIN_LENGTH) {
+            return false;
+        }
+
+        for (int a = 0; a < ANGLE_COUNT; a++) {
+            int[] joint = ANGLES[a];
+            double ux = coords[joint[0] * 2] - coords[joint[1] * 2];
+            double uy = coords[joint[0] * 2 + 1] - coords[joint[1] * 2 + 1];
+            double vx = coords[joint[2] * 2] - coords[joint[1] * 2];
+            double vy = coords[joint[2] * 2 + 1] - coords[joint[1] * 2 + 1];
+            if (Math.abs(ux) + Math.abs(uy) < MIN_LENGTH || Math.abs(vx) + Math.abs(vy) < MIN_LENGTH) {
+                return false;
+            }
+            // atan2(|u × v|, u · v) 在夹角接近 0 或 π 时比 acos 更稳定
+            out[a] = Math.atan2(Math.abs(ux * vy - uy * vx), ux * vx + uy * vy);
+        }
+
+        for (int b = 0; b < RATIO_COUNT; b++) {
+            int[] bone = BONES[b];
+            double length = Math.hypot(coords[bone[1] * 2] - coords[bone[0] * 2],
+                    coords[bone[1] * 2 + 1] - coords[bone[0] * 2 + 1]);
+            out[ANGLE_COUNT + b] = length / torso;
+        }
+        return true;
+    }
+
+    /**
+     * 比较两组特征的相似度
+     * <p>
+     * 关节角误差先扣除容差，再按 90° 归一化；骨骼长度比误差直接使用（上限为 1）。
+     * 两部分误差取平均后转换为相似度。
+     *
+     * @param actual         用户特征
+     * @param reference      参考特征
+     * @param angleTolerance 关节角容差（弧度），误差在容差内视为完全一致
+     * @return 相似度，范围 {@code [0, 1]}
+     */
+    public static double similarity(double[] actual, double[] reference, double angleTolerance) {
+        double error = 0.0;
+        for (int a = 0; a < ANGLE_COUNT; a++) {
+            double excess = Math.abs(actual[a] - reference[a]) - angleTolerance;
+            if (excess > 0) {
+                error += Math.min(1.0, excess / (Math.PI / 2));
+            }
+        }
+        for (int b = ANGLE_COUNT; b < FEATURE_LENGTH; b++) {
+            error += Math.min(1.0, Math.abs(actual[b] - reference[b]));
+        }
+        return 1.0 - error / FEATURE_LENGTH;
+    }
+}
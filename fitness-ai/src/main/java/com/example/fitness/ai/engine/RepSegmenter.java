@@ -0,0 +1,157 @@
+package com.example.fitness.ai.engine;
+
+import com.example.fitness.ai.model.PoseSequence;
+import com.example.fitness.api.dto.PoseFrame;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 动作次数（rep）切分器
+ *
+ * <p>
+ * 以髋部中点的纵坐标作为运动信号（髋部关键点不可信时退化为所有可信关键点的纵坐标均值），
+ * 平滑后按滞回阈值切分：信号从静止位偏离超过振幅的 {@link #ENTER_RATIO}
+ * 视为进入一次动作，回到振幅的 {@link #EXIT_RATIO} 以内视为完成。
+ * 振幅过小（原地保持姿势）或持续帧数过短（抖动）的片段不计为一次动作。
+ *
+ * <p>
+ * 只使用调用方传入的缓冲区，无状态，线程安全。
+ */
+public final class RepSegmenter {
+
+    /** COCO 左髋、右髋关键点下标 */
+    private static final int LEFT_HIP = 11;
+    private static final int RIGHT_HIP = 12;
+
+    /** 关键点可信的最低置信度 */
+    private static final float MIN_CONFIDENCE = 0.3f;
+
+    /** 有效动作的最小振幅（归一化坐标） */
+    public static final float MIN_AMPLITUDE = 0.05f;
+
+    /** 一次动作的最少帧数（约 0.3 秒 @ 30fps） */
+    public static final int MIN_REP_FRAMES = 10;
+
+    /** 进入动作的阈值（占振幅比例） */
+    private static final float ENTER_RATIO = 0.6f;
+
+    /** 回到静止位的阈值（占振幅比例） */
+    private static final float EXIT_RATIO = 0.25f;
+
+    /** 平滑窗口（帧） */
+    private static final int SMOOTH_WINDOW = 5;
+
+    private RepSegmenter() {
+    }
+
+    /**
+     * 切分动作次数
+     *
+     * @param frames     帧缓冲区
+     * @param startFrame 起始帧下标
+     * @param frameCount 帧数
+     * @param signal     信号暂存区，长度至少为 {@code frameCount}
+     * @param bounds     输出区，第 k 次动作写入 {@code bounds[2k]}（起始帧，含）
+     *                   和 {@code bounds[2k+1]}（结束帧，不含），帧号相对 {@code startFrame}
+     * @return 切分出的动作次数（不超过 {@code bounds.length / 2}）
+     */
+    public static int segment(FloatBuffer frames, int startFrame, int frameCount, float[] signal, int[] bounds) {
+        if (frameCount < MIN_REP_FRAMES) {
+            return 0;
+        }
+        extractSignal(frames, startFrame, frameCount, signal);
+        smooth(signal, frameCount);
+
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (int i = 0; i < frameCount; i++) {
+            min = Math.min(min, signal[i]);
+            max = Math.max(max, signal[i]);
+        }
+        float amplitude = max - min;
+        if (amplitude < MIN_AMPLITUDE) {
+            return 0;
+        }
+
+        // 静止位取序列开头更靠近的一端（深蹲静止时髋部位于高处，即 y 较小的一端）
+        float rest = Math.abs(signal[0] - min) <= Math.abs(signal[0] - max) ? min : max;
+        float enter = amplitude * ENTER_RATIO;
+        float exit = amplitude * EXIT_RATIO;
+
+        int reps = 0;
+        int lastRest = 0;
+        int start = -1;
+        for (int i = 0; i < frameCount && reps * 2 + 1 < bounds.length; i++) {
+            float deviation = Math.abs(signal[i] - rest);
+            if (start < 0) {
+                if (deviation <= exit) {
+                    lastRest = i;
+                } else if (deviation >= enter) {
+                    start = lastRest;
+                }
+            } else if (deviation <= exit) {
+                if (i + 1 - start >= MIN_REP_FRAMES) {
+                    bounds[reps * 2] = start;
+                    bounds[reps * 2 + 1] = i + 1;
+                    reps++;
+                }
+                start = -1;
+                lastRest = i;
+            }
+        }
+        return reps;
+    }
+
+    /**
+     * 提取每帧的纵向运动信号
+     */
+    private static void extractSignal(FloatBuffer frames, int startFrame, int frameCount, float[] signal) {
+        float previous = 0f;
+        for (int i = 0; i < frameCount; i++) {
+            int offset = (startFrame + i) * PoseSequence.FRAME_LENGTH;
+            float value = hipCenterY(frames, offset);
+            if (Float.isNaN(value)) {
+                value = meanConfidentY(frames, offset);
+            }
+            // 整帧不可信时沿用上一帧，避免丢帧造成伪动作
+            signal[i] = Float.isNaN(value) ? previous : value;
+            previous = signal[i];
+        }
+    }
+
+    private static float hipCenterY(FloatBuffer frames, int offset) {
+        int left = offset + LEFT_HIP * PoseFrame.STRIDE;
+        int right = offset + RIGHT_HIP * PoseFrame.STRIDE;
+        if (frames.get(left + 2) < MIN_CONFIDENCE || frames.get(right + 2) < MIN_CONFIDENCE) {
+            return Float.NaN;
+        }
+        return (frames.get(left + 1) + frames.get(right + 1)) * 0.5f;
+    }
+
+    private static float meanConfidentY(FloatBuffer frames, int offset) {
+        float sum = 0f;
+        int count = 0;
+        for (int k = 0; k < PoseFrame.KEYPOINT_COUNT; k++) {
+            int base = offset + k * PoseFrame.STRIDE;
+            if (frames.get(base + 2) >= MIN_CONFIDENCE) {
+                sum += frames.get(base + 1);
+                count++;
+            }
+        }
+        return count == 0 ? Float.NaN : sum / count;
+    }
+
+    /**
+     * 原地滑动平均（只依赖已处理的前序样本，单次遍历）
+     */
+    private static void smooth(float[] signal, int length) {
+        float window = 0f;
+        float[] ring = new float[SMOOTH_WINDOW];
+        for (int i = 0; i < length; i++) {
+            float raw = signal[i];
+            window += raw - ring[i % SMOOTH_WINDOW];
+            ring[i % SMOOTH_WINDOW] = raw;
+            signal[i] = window / Math.min(i + 1, SMOOTH_WINDOW);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.fitness.ai.engine;
+
+import com.example.fitness.ai.model.PoseSequence;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 流式会话的动作次数跟踪器
+ *
+ * <p>
+ * 以固定容量的环形缓冲区保存最近 {@code capacity} 帧，每次追加后在窗口上重新切分，
+ * 只回调尚未上报过的已完成动作。单个会话的内存固定为
+ * {@code 2 × capacity × 51 × 4} 字节（环形缓冲区 + 线性化窗口），
+ * 默认 300 帧约 120KB，不随会话时长增长。
+ *
+ * <p>
+ * 非线程安全，由流式会话的评分线程串行调用。
+ */
+public final class RepTracker {
+
+    /** 默认窗口容量（10 秒 @ 30fps） */
+    public static final int DEFAULT_CAPACITY = 300;
+
+    /** 单次切分允许的最大动作次数 */
+    private static final int MAX_REPS_PER_WINDOW = 16;
+
+    /**
+     * 已完成动作的回调
+     */
+    @FunctionalInterface
+    public interface RepConsumer {
+        /**
+         * @param frames     线性化窗口缓冲区，仅在回调期间有效
+         * @param startFrame 动作起始帧（窗口内下标）
+         * @param frameCount 动作帧数
+         */
+        void accept(FloatBuffer frames, int startFrame, int frameCount);
+    }
+
+    private final int capacity;
+    private final float[] ring;
+    private final float[] window;
+    private final FloatBuffer windowView;
+    private final float[] signal;
+    private final int[] bounds = new int[MAX_REPS_PER_WINDOW * 2];
+
+    /** 累计追加的帧数 */
+    private long totalFrames;
+
+    /** 已上报动作的结束帧（绝对帧号），之前的帧不再参与切分 */
+    private long consumedFrames;
+
+    public RepTracker() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RepTracker(int capacity) {
+        this.capacity = capacity;
+        this.ring = new float[capacity * PoseSequence.FRAME_LENGTH];
+        this.window = new float[capacity * PoseSequence.FRAME_LENGTH];
+        this.windowView = FloatBuffer.wrap(window);
+        this.signal = new float[capacity];
+    }
+
+    /**
+     * 追加帧，超出容量时覆盖最旧的帧
+     *
+     * @param frames     帧数据（每帧 {@link PoseSequence#FRAME_LENGTH} 个 float）
+     * @param frameCount 帧数
+     */
+    public void append(float[] frames, int frameCount) {
+        for (int f = 0; f < frameCount; f++) {
+            int slot = (int) (totalFrames % capacity);
+            System.arraycopy(frames, f * PoseSequence.FRAME_LENGTH, ring, slot * PoseSequence.FRAME_LENGTH,
+                    PoseSequence.FRAME_LENGTH);
+            totalFrames++;
+        }
+    }
+
+    /**
+     * 切分窗口内尚未上报的帧，对每个已完成的动作回调一次
+     *
+     * @return 本次上报的动作次数
+     */
+    public int pollCompletedReps(RepConsumer consumer) {
+        long start = Math.max(consumedFrames, totalFrames - capacity);
+        int length = (int) (totalFrames - start);
+        if (length < RepSegmenter.MIN_REP_FRAMES) {
+            return 0;
+        }
+        linearize(start, length);
+
+        int reps = RepSegmenter.segment(windowView, 0, length, signal, bounds);
+        for (int k = 0; k < reps; k++) {
+            consumer.accept(windowView, bounds[k * 2], bounds[k * 2 + 1] - bounds[k * 2]);
+        }
+        if (reps > 0) {
+            consumedFrames = start + bounds[reps * 2 - 1];
+        }
+        return reps;
+    }
+
+    /** 累计追加的帧数 */
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    /**
+     * 将环形缓冲区中从绝对帧号 {@code start} 开始的 {@code length} 帧按时间顺序拷贝到窗口
+     */
+    private void linearize(long start, int length) {
+        int first = (int) (start % capacity);
+        int head = Math.min(length, capacity - first);
+        System.arraycopy(ring, first * PoseSequence.FRAME_LENGTH, window, 0, head * PoseSequence.FRAME_LENGTH);
+        if (head < length) {
+            System.arraycopy(ring, 0, window, head * PoseSequence.FRAME_LENGTH,
+                    (length - head) * PoseSequence.FRAME_LENGTH);
+        }
+    }
+}
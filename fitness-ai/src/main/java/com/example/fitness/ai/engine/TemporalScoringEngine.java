@@ -0,0 +1,68 @@
+package com.example.fitness.ai.engine;
+
+import com.example.fitness.ai.kernel.SimilarityKernel;
+import com.example.fitness.ai.model.PoseSequence;
+import com.example.fitness.ai.template.ReferenceMotion;
+import org.springframework.stereotype.Component;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 时序评分引擎
+ *
+ * <p>
+ * 先用 {@link RepSegmenter} 将帧序列切分为若干次动作，再用 {@link DtwAligner}
+ * 将每次动作与标准参考动作对齐评分。与逐帧余弦相似度不同，时序评分能区分
+ * 完整的一次动作与原地保持的姿势，也能容忍快慢节奏差异。
+ *
+ * <p>
+ * DTW 缓冲区按线程复用，引擎本身无状态，线程安全。
+ */
+@Component
+public class TemporalScoringEngine {
+
+    /** 单次批量评分最多返回的动作次数 */
+    private static final int MAX_REPS = 128;
+
+    private final ThreadLocal<DtwAligner> aligners;
+
+    public TemporalScoringEngine(SimilarityKernel similarityKernel) {
+        this.aligners = ThreadLocal.withInitial(() -> new DtwAligner(similarityKernel));
+    }
+
+    /**
+     * 切分动作次数并逐次评分
+     *
+     * @param sequence  帧序列
+     * @param reference 标准参考动作，为 {@code null} 时不做时序评分
+     * @return 每次动作的分数 (0-100)，按时间顺序；无参考动作或未检测到动作时为空数组
+     */
+    public int[] scoreReps(PoseSequence sequence, ReferenceMotion reference) {
+        if (reference == null || sequence.frameCount() < RepSegmenter.MIN_REP_FRAMES) {
+            return new int[0];
+        }
+        int[] bounds = new int[MAX_REPS * 2];
+        int reps = RepSegmenter.segment(sequence.frames(), 0, sequence.frameCount(),
+                new float[sequence.frameCount()], bounds);
+
+        int[] scores = new int[reps];
+        for (int k = 0; k < reps; k++) {
+            scores[k] = scoreRep(sequence.frames(), bounds[k * 2], bounds[k * 2 + 1] - bounds[k * 2], reference);
+        }
+        return scores;
+    }
+
+    /**
+     * 对单次动作评分
+     *
+     * @param frames     帧缓冲区
+     * @param startFrame 动作起始帧
+     * @param frameCount 动作帧数
+     * @param reference  标准参考动作
+     * @return 分数 (0-100)
+     */
+    public int scoreRep(FloatBuffer frames, int startFrame, int frameCount, ReferenceMotion reference) {
+        double cost = aligners.get().align(frames, startFrame, frameCount, reference);
+        return Math.max(0, Math.min(100, (int) ((1.0 - cost) * 100)));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.fitness.ai.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区（多生产者、单消费者）
+ *
+ * <p>
+ * 每个槽位带一个序号：序号等于写入位置时槽位可写，等于写入位置 + 1 时槽位可读。
+ * 生产者只在写指针上做一次 CAS，满时立即返回 {@code false}，从不阻塞；
+ * 消费者是唯一读取方，读指针无需 CAS。
+ *
+ * @param <E> 元素类型
+ */
+final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+
+    /** 下一个写入位置，由生产者 CAS 推进 */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** 下一个读取位置，仅由消费者写入 */
+    private volatile long head;
+
+    /**
+     * @param capacity 期望容量，向上取整为 2 的幂
+     */
+    MpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须为正数: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 追加元素，缓冲区已满时返回 {@code false}
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.set(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                // 该槽位上一轮的元素尚未被消费：缓冲区已满
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 取出最早的元素，为空时返回 {@code null}（仅允许单个消费线程调用）
+     */
+    E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.set(index, null);
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return element;
+    }
+
+    /** 当前元素个数（近似值，仅用于监控） */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    /** 实际容量 */
+    int capacity() {
+        return mask + 1;
+    }
+}
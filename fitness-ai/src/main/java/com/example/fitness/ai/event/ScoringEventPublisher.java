@@ -0,0 +1,316 @@
+package com.example.fitness.ai.event;
+
+import com.example.fitness.api.dto.ScoringResultEvent;
+import com.example.fitness.common.spill.SpillSegmentLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 评分事件异步发布器
+ *
+ * <p>
+ * 评分线程调用 {@link #publish} 只向有界无锁环形缓冲区追加一条记录，从不阻塞、从不抛出异常；
+ * 缓冲区已满时丢弃该事件并计数。后台单线程批量取出记录交给 {@link KafkaTemplate}，
+ * 同一批次的发送结果统一等待，由 Kafka 生产者在内部合并成请求。
+ *
+ * <p>
+ * 发送失败（Kafka 不可用）的记录以 JSON 追加到本地 {@link SpillSegmentLog}（{@code app.ai.event.spill-dir}），
+ * 磁盘占用不超过 {@code app.ai.event.spill-max-bytes}，写满后新事件计入丢弃；
+ * 退避期（{@code app.ai.event.retry-backoff}）内不再尝试 Kafka，新批次直接溢写。
+ * 退避期过后（包括重启后），发布线程每轮在发送新事件之外最多重放一批（{@code batch-size} 条）积压：
+ * 整批发送后统一等待确认，全部成功才提交读取进度，失败则重新进入退避期，未确认的记录留在磁盘上。
+ * 因此重放既不会长时间占用发布线程，也不会把积压读入内存。
+ * 语义为至少一次：发送超时但最终成功的记录，以及重放失败批次中已成功的记录可能被重复投递。
+ *
+ * <p>
+ * 指标：
+ * <ul>
+ * <li>{@code ai.event.queue.depth} — 缓冲区中待发送的事件数</li>
+ * <li>{@code ai.event.dropped} — 缓冲区已满被丢弃的事件数</li>
+ * <li>{@code ai.event.spilled} — 写入溢写日志的事件数</li>
+ * <li>{@code ai.event.replayed} — 从溢写日志重放到 Kafka 的事件数</li>
+ * <li>{@code ai.event.spill.backlog} — 溢写日志中尚未重放的事件数</li>
+ * <li>{@code ai.event.spill.corrupt} — 校验失败被跳过的溢写记录数</li>
+ * <li>{@code ai.event.publish.latency} — 从入队到 Kafka 确认的耗时</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ScoringEventPublisher implements InitializingBean, DisposableBean {
+
+    /** Kafka 主题名称 */
+    public static final String TOPIC = "frontend_event_stream";
+
+    /** 缓冲区为空时发布线程的休眠时间，期间到达的事件并入下一批 */
+    private static final long LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final MpscRingBuffer<PendingEvent> buffer;
+    private final int batchSize;
+    private final long sendTimeoutMillis;
+    private final long retryBackoffMillis;
+    private final SpillSegmentLog spillLog;
+
+    private final Counter droppedCounter;
+    private final Counter spilledCounter;
+    private final Counter replayedCounter;
+    private final Timer latencyTimer;
+
+    private final Thread drainThread;
+    private volatile boolean running = true;
+
+    /** 仅由发布线程读写 */
+    private long backoffUntil;
+
+    public ScoringEventPublisher(KafkaTemplate<String, Object> kafkaTemplate, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.ai.event.queue-capacity:8192}") int queueCapacity,
+            @Value("${app.ai.event.batch-size:256}") int batchSize,
+            @Value("${app.ai.event.send-timeout:5000}") long sendTimeoutMillis,
+            @Value("${app.ai.event.retry-backoff:5000}") long retryBackoffMillis,
+            @Value("${app.ai.event.spill-dir:${java.io.tmpdir}/fitness-ai/scoring-events}") String spillDir,
+            @Value("${app.ai.event.spill-segment-bytes:4194304}") int spillSegmentBytes,
+            @Value("${app.ai.event.spill-max-bytes:268435456}") long spillMaxBytes) throws IOException {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.buffer = new MpscRingBuffer<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.spillLog = new SpillSegmentLog(Path.of(spillDir), spillSegmentBytes, spillMaxBytes);
+
+        Gauge.builder("ai.event.queue.depth", buffer, MpscRingBuffer::size)
+                .description("待发送的评分事件数").register(meterRegistry);
+        this.droppedCounter = Counter.builder("ai.event.dropped")
+                .description("缓冲区已满被丢弃的评分事件数").register(meterRegistry);
+        this.spilledCounter = Counter.builder("ai.event.spilled")
+                .description("Kafka 不可用时写入本地溢写日志的评分事件数").register(meterRegistry);
+        this.replayedCounter = Counter.builder("ai.event.replayed")
+                .description("从溢写日志重放到 Kafka 的评分事件数").register(meterRegistry);
+        Gauge.builder("ai.event.spill.backlog", spillLog, SpillSegmentLog::backlogRecords)
+                .description("溢写日志中尚未重放的评分事件数").register(meterRegistry);
+        FunctionCounter.builder("ai.event.spill.corrupt", spillLog, SpillSegmentLog::corruptRecords)
+                .description("校验失败被跳过的溢写记录数").register(meterRegistry);
+        this.latencyTimer = Timer.builder("ai.event.publish.latency")
+                .description("评分事件从入队到 Kafka 确认的耗时").register(meterRegistry);
+
+        this.drainThread = Thread.ofPlatform().name("scoring-event-publisher").daemon().unstarted(this::drainLoop);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long backlog = spillLog.backlogRecords();
+        if (backlog > 0) {
+            log.info("评分事件溢写日志中有 {} 条待重放记录", backlog);
+        }
+        drainThread.start();
+    }
+
+    /**
+     * 发布评分事件（非阻塞）
+     *
+     * @return 是否已入队；缓冲区已满或发布器已关闭时返回 {@code false}
+     */
+    public boolean publish(ScoringResultEvent event) {
+        if (running && buffer.offer(new PendingEvent(event, System.nanoTime()))) {
+            return true;
+        }
+        droppedCounter.increment();
+        log.debug("评分事件缓冲区已满，丢弃事件, 动作 ID: {}", event.getMoveId());
+        return false;
+    }
+
+    /**
+     * 停止接收新事件，等待缓冲区中的事件发送或溢写完毕；未重放的积压留在磁盘上，下次启动继续
+     */
+    @Override
+    public void destroy() throws InterruptedException, IOException {
+        running = false;
+        drainThread.join(sendTimeoutMillis + 1000);
+        spillLog.close();
+    }
+
+    /** 缓冲区容量 */
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    private void drainLoop() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            PendingEvent pending;
+            while (batch.size() < batchSize && (pending = buffer.poll()) != null) {
+                batch.add(pending);
+            }
+            boolean busy = !batch.isEmpty();
+            try {
+                if (busy) {
+                    sendBatch(batch);
+                }
+                // 停机时只排空缓冲区，积压留到下次启动
+                if (running) {
+                    busy |= replaySpill();
+                }
+            } catch (Exception e) {
+                log.error("评分事件批量发送异常: {}", e.getMessage());
+            }
+            batch.clear();
+            if (!busy) {
+                LockSupport.parkNanos(LINGER_NANOS);
+            }
+        }
+    }
+
+    /**
+     * 发送一批事件；Kafka 处于退避期时直接溢写
+     */
+    private void sendBatch(List<PendingEvent> batch) {
+        if (System.currentTimeMillis() < backoffUntil) {
+            spill(batch);
+            return;
+        }
+
+        List<CompletableFuture<?>> futures = new ArrayList<>(batch.size());
+        for (PendingEvent pending : batch) {
+            futures.add(send(pending.event()));
+        }
+
+        List<PendingEvent> failed = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        for (int i = 0; i < batch.size(); i++) {
+            PendingEvent pending = batch.get(i);
+            if (await(futures.get(i), deadline)) {
+                latencyTimer.record(System.nanoTime() - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            } else {
+                failed.add(pending);
+            }
+        }
+
+        if (failed.isEmpty()) {
+            return;
+        }
+        backoffUntil = System.currentTimeMillis() + retryBackoffMillis;
+        log.warn("Kafka 发送失败 {}/{} 条，{} 毫秒内改为写入本地溢写日志", failed.size(), batch.size(),
+                retryBackoffMillis);
+        spill(failed);
+    }
+
+    private CompletableFuture<?> send(ScoringResultEvent event) {
+        try {
+            return kafkaTemplate.send(TOPIC, Objects.requireNonNull(event.getMoveId()), event);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private boolean await(CompletableFuture<?> future, long deadline) {
+        if (future == null) {
+            return true;
+        }
+        try {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // ==================== 本地溢写 ====================
+
+    /**
+     * 追加写入溢写日志；日志已满或写入失败的事件计入丢弃
+     */
+    private void spill(List<PendingEvent> events) {
+        int spilled = 0;
+        try {
+            for (PendingEvent pending : events) {
+                if (!spillLog.append(objectMapper.writeValueAsBytes(pending.event()))) {
+                    break;
+                }
+                spilled++;
+            }
+        } catch (IOException e) {
+            log.error("评分事件溢写失败: {}", e.getMessage());
+        }
+        spilledCounter.increment(spilled);
+        if (spilled < events.size()) {
+            droppedCounter.increment(events.size() - spilled);
+            log.error("评分事件溢写日志已满或不可写，丢弃 {} 条", events.size() - spilled);
+        }
+    }
+
+    /**
+     * 退避期外重放一批溢写的事件：整批发送后统一等待确认，全部成功才提交读取进度
+     *
+     * @return 是否重放了至少一条记录（即可能还有积压）
+     */
+    private boolean replaySpill() throws IOException {
+        if (System.currentTimeMillis() < backoffUntil) {
+            return false;
+        }
+        SpillSegmentLog.Batch batch = spillLog.read(batchSize);
+        if (batch.records().isEmpty()) {
+            // 可能只越过了损坏记录或已消费完的分段
+            spillLog.commit(batch);
+            return false;
+        }
+
+        List<CompletableFuture<?>> futures = new ArrayList<>(batch.records().size());
+        for (byte[] record : batch.records()) {
+            ScoringResultEvent event;
+            try {
+                event = objectMapper.readValue(record, ScoringResultEvent.class);
+            } catch (IOException e) {
+                // CRC 通过但无法解析，只可能是写入方的问题，重试无意义
+                log.warn("跳过无法解析的溢写记录: {}", e.getMessage());
+                continue;
+            }
+            futures.add(send(event));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        for (CompletableFuture<?> future : futures) {
+            if (!await(future, deadline)) {
+                backoffUntil = System.currentTimeMillis() + retryBackoffMillis;
+                log.warn("重放溢写的评分事件失败，{} 毫秒后重试，剩余 {} 条", retryBackoffMillis,
+                        spillLog.backlogRecords());
+                return false;
+            }
+        }
+        spillLog.commit(batch);
+        replayedCounter.increment(futures.size());
+        log.debug("已重放溢写的评分事件 {} 条，剩余 {} 条", futures.size(), spillLog.backlogRecords());
+        return true;
+    }
+
+    /**
+     * 缓冲区中的一条记录
+     *
+     * @param event         评分事件
+     * @param enqueuedNanos 入队时间（{@link System#nanoTime()}）
+     */
+    private record PendingEvent(ScoringResultEvent event, long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.fitness.ai.kernel;
+
+/**
+ * 标量相似度内核
+ *
+ * <p>
+ * 普通循环实现，任何 JVM 上都可用；未启用 {@code jdk.incubator.vector}
+ * 模块或 SIMD 内核自检失败时作为回退。
+ */
+public final class ScalarSimilarityKernel implements SimilarityKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0f;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.fitness.ai.kernel;
+
+/**
+ * 相似度计算内核
+ *
+ * <p>
+ * 评分链路最内层的向量运算（点积、平方和）都经由该接口完成，
+ * 以便在启动时按运行环境选择标量实现或 SIMD 实现，见 {@link SimilarityKernels}。
+ * 所有方法只读取传入数组、不保留引用，实现必须无状态、线程安全。
+ */
+public interface SimilarityKernel {
+
+    /**
+     * 内核名称（用于日志与基准测试）
+     */
+    String name();
+
+    /**
+     * float 点积 {@code Σ a[aOffset+i] * b[bOffset+i]}
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * double 点积 {@code Σ a[aOffset+i] * b[bOffset+i]}
+     */
+    double dot(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+    /**
+     * 一个查询向量与多行连续存放的向量逐行求点积（DTW 距离矩阵的一行）
+     *
+     * @param query       查询向量
+     * @param queryOffset 查询向量起始下标
+     * @param rows        按行连续存放的向量，每行 {@code length} 个元素
+     * @param firstRow    起始行
+     * @param rowCount    行数
+     * @param length      向量长度
+     * @param out         输出，{@code out[outOffset + r]} 为第 {@code firstRow + r} 行的点积
+     * @param outOffset   输出起始下标
+     */
+    default void dotRows(float[] query, int queryOffset, float[] rows, int firstRow, int rowCount, int length,
+            float[] out, int outOffset) {
+        for (int r = 0; r < rowCount; r++) {
+            out[outOffset + r] = dot(query, queryOffset, rows, (firstRow + r) * length, length);
+        }
+    }
+}
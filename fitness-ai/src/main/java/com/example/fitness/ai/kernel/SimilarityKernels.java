@@ -0,0 +1,112 @@
+package com.example.fitness.ai.kernel;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 相似度内核选择器
+ *
+ * <p>
+ * 启动时按配置选择实现：
+ * <ul>
+ * <li>{@code scalar} — 始终使用 {@link ScalarSimilarityKernel}</li>
+ * <li>{@code vector} / {@code auto} — 当 {@code jdk.incubator.vector} 模块已加载时，
+ * 通过反射实例化 {@link VectorSimilarityKernel} 并与标量实现做一次结果自检；
+ * 模块缺失、平台不支持 SIMD（首选宽度不足 4 路 float）或自检失败时回退到标量实现</li>
+ * </ul>
+ */
+@Slf4j
+public final class SimilarityKernels {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final String VECTOR_KERNEL_CLASS = "com.example.fitness.ai.kernel.VectorSimilarityKernel";
+
+    /** 自检允许的相对误差（求和顺序不同导致） */
+    private static final double TOLERANCE = 1e-4;
+
+    private SimilarityKernels() {
+    }
+
+    /**
+     * 按模式选择内核
+     *
+     * @param mode {@code auto}、{@code vector} 或 {@code scalar}，大小写不敏感
+     * @return 可用的内核，永不为 {@code null}
+     */
+    public static SimilarityKernel select(String mode) {
+        ScalarSimilarityKernel scalar = new ScalarSimilarityKernel();
+        if ("scalar".equalsIgnoreCase(mode)) {
+            return scalar;
+        }
+
+        SimilarityKernel vector = loadVectorKernel();
+        if (vector == null) {
+            if ("vector".equalsIgnoreCase(mode)) {
+                log.warn("已配置 SIMD 相似度内核，但 {} 模块不可用（需 --add-modules {}），回退到标量实现",
+                        VECTOR_MODULE, VECTOR_MODULE);
+            }
+            return scalar;
+        }
+        if (!selfCheck(vector, scalar)) {
+            log.warn("SIMD 相似度内核 {} 自检失败，回退到标量实现", vector.name());
+            return scalar;
+        }
+        return vector;
+    }
+
+    /**
+     * 反射加载 SIMD 内核，避免在模块缺失时触发类加载失败
+     */
+    private static SimilarityKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return (SimilarityKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("SIMD 相似度内核不可用: {}", cause.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 用非对齐长度的数据对比标量与 SIMD 结果，覆盖主循环与掩码尾部
+     */
+    private static boolean selfCheck(SimilarityKernel candidate, SimilarityKernel reference) {
+        int length = 37;
+        float[] fa = new float[length + 3];
+        float[] fb = new float[length * 3];
+        double[] da = new double[length];
+        double[] db = new double[length];
+        for (int i = 0; i < fa.length; i++) {
+            fa[i] = (float) Math.sin(i + 1);
+        }
+        for (int i = 0; i < fb.length; i++) {
+            fb[i] = (float) Math.cos(i * 0.7);
+        }
+        for (int i = 0; i < length; i++) {
+            da[i] = fa[i];
+            db[i] = fb[i];
+        }
+
+        if (!close(candidate.dot(fa, 3, fb, 1, length), reference.dot(fa, 3, fb, 1, length))
+                || !close(candidate.dot(da, 0, db, 0, length), reference.dot(da, 0, db, 0, length))) {
+            return false;
+        }
+        float[] expected = new float[3];
+        float[] actual = new float[3];
+        reference.dotRows(fa, 0, fb, 0, 3, length, expected, 0);
+        candidate.dotRows(fa, 0, fb, 0, 3, length, actual, 0);
+        for (int r = 0; r < 3; r++) {
+            if (!close(actual[r], expected[r])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean close(double a, double b) {
+        return Math.abs(a - b) <= TOLERANCE * Math.max(1.0, Math.abs(b));
+    }
+}
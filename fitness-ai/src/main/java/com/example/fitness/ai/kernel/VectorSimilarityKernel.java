@@ -0,0 +1,101 @@
+package com.example.fitness.ai.kernel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 Vector API（{@code jdk.incubator.vector}）的 SIMD 相似度内核
+ *
+ * <p>
+ * 使用平台首选宽度（AVX2 下 float 8 路 / double 4 路，AVX-512 下翻倍），
+ * 主循环用 FMA 累加，尾部用掩码加载，不再回落到标量循环。
+ *
+ * <p>
+ * 运行时需要 {@code --add-modules jdk.incubator.vector}。该类只由
+ * {@link SimilarityKernels} 通过反射加载，模块缺失时不会被触及。
+ */
+public final class VectorSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> FLOAT = FloatVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Double> DOUBLE = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * @throws UnsupportedOperationException 平台首选宽度不足 4 路 float，SIMD 没有收益
+     */
+    public VectorSimilarityKernel() {
+        if (FLOAT.length() < 4) {
+            throw new UnsupportedOperationException("平台 SIMD 宽度不足: " + FLOAT.vectorBitSize() + " bit");
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + FLOAT.vectorBitSize();
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(FLOAT);
+        int i = 0;
+        int upper = FLOAT.loopBound(length);
+        for (; i < upper; i += FLOAT.length()) {
+            FloatVector va = FloatVector.fromArray(FLOAT, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(FLOAT, b, bOffset + i);
+            acc = va.fma(vb, acc);
+        }
+        if (i < length) {
+            VectorMask<Float> mask = FLOAT.indexInRange(i, length);
+            FloatVector va = FloatVector.fromArray(FLOAT, a, aOffset + i, mask);
+            FloatVector vb = FloatVector.fromArray(FLOAT, b, bOffset + i, mask);
+            acc = va.fma(vb, acc);
+        }
+        return acc.reduceLanes(VectorOperators.ADD);
+    }
+
+    @Override
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        DoubleVector acc = DoubleVector.zero(DOUBLE);
+        int i = 0;
+        int upper = DOUBLE.loopBound(length);
+        for (; i < upper; i += DOUBLE.length()) {
+            DoubleVector va = DoubleVector.fromArray(DOUBLE, a, aOffset + i);
+            DoubleVector vb = DoubleVector.fromArray(DOUBLE, b, bOffset + i);
+            acc = va.fma(vb, acc);
+        }
+        if (i < length) {
+            VectorMask<Double> mask = DOUBLE.indexInRange(i, length);
+            DoubleVector va = DoubleVector.fromArray(DOUBLE, a, aOffset + i, mask);
+            DoubleVector vb = DoubleVector.fromArray(DOUBLE, b, bOffset + i, mask);
+            acc = va.fma(vb, acc);
+        }
+        return acc.reduceLanes(VectorOperators.ADD);
+    }
+
+    /**
+     * 查询向量在整个调用期间保持在寄存器中，逐行只加载参考向量
+     */
+    @Override
+    public void dotRows(float[] query, int queryOffset, float[] rows, int firstRow, int rowCount, int length,
+            float[] out, int outOffset) {
+        int upper = FLOAT.loopBound(length);
+        VectorMask<Float> tail = FLOAT.indexInRange(upper, length);
+        for (int r = 0; r < rowCount; r++) {
+            int rowOffset = (firstRow + r) * length;
+            FloatVector acc = FloatVector.zero(FLOAT);
+            int i = 0;
+            for (; i < upper; i += FLOAT.length()) {
+                acc = FloatVector.fromArray(FLOAT, query, queryOffset + i)
+                        .fma(FloatVector.fromArray(FLOAT, rows, rowOffset + i), acc);
+            }
+            if (i < length) {
+                acc = FloatVector.fromArray(FLOAT, query, queryOffset + i, tail)
+                        .fma(FloatVector.fromArray(FLOAT, rows, rowOffset + i, tail), acc);
+            }
+            out[outOffset + r] = acc.reduceLanes(VectorOperators.ADD);
+        }
+    }
+}
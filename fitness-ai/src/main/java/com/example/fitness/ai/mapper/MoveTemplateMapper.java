@@ -0,0 +1,17 @@
+package com.example.fitness.ai.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.fitness.ai.model.entity.MoveTemplate;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 动作标准模板 Mapper 接口
+ *
+ * <p>
+ * 由 {@code StandardTemplateStore} 在启动和定时增量刷新时读取。
+ *
+ * @see MoveTemplate
+ */
+@Mapper
+public interface MoveTemplateMapper extends BaseMapper<MoveTemplate> {
+}
@@ -0,0 +1,31 @@
+package com.example.fitness.ai.model;
+
+import com.example.fitness.api.dto.PoseFrame;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 连续姿态帧序列
+ *
+ * <p>
+ * 以一块连续的 {@link FloatBuffer} 保存多帧关键点，每帧占
+ * {@link PoseFrame#MAX_LENGTH} 个 float（17 × (x, y, confidence)）。
+ * 缓冲区可以是二进制请求体的零拷贝视图，也可以是堆上数组的包装。
+ *
+ * @param moveId     健身动作 ID
+ * @param userId     用户 ID（可能为 {@code "unknown"}）
+ * @param frameCount 帧数
+ * @param frames     帧数据，按帧顺序紧密排列，使用绝对下标读取
+ */
+public record PoseSequence(String moveId, String userId, int frameCount, FloatBuffer frames) {
+
+    /** 单帧占用的 float 个数 */
+    public static final int FRAME_LENGTH = PoseFrame.MAX_LENGTH;
+
+    /**
+     * 第 {@code index} 帧在缓冲区中的起始下标
+     */
+    public int frameOffset(int index) {
+        return index * FRAME_LENGTH;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.fitness.ai.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 动作标准模板实体
+ *
+ * <p>
+ * 映射 {@code move} 表中与 AI 评分相关的列，只读。
+ * 标准参考向量保存在 {@code reference_vector_json}，与 {@code scoring_config_json} 相邻。
+ */
+@Data
+@TableName("move")
+public class MoveTemplate {
+
+    /** 动作唯一标识（如 {@code "m_squat"}） */
+    @TableId(type = IdType.INPUT)
+    private String id;
+
+    /** 标准参考向量 JSON，格式为 {@code [x1, y1, x2, y2, ...]}（34 个数） */
+    private String referenceVectorJson;
+
+    /**
+     * 标准参考动作 JSON，格式为按时间排列的帧数组 {@code [[x1, y1, ...], ...]}（每帧 34 个数），
+     * 用于按次（rep）的时序评分，可为空
+     */
+    private String referenceMotionJson;
+
+    /** 评分配置 JSON */
+    private String scoringConfigJson;
+
+    /** 最后更新时间，用于增量刷新 */
+    private LocalDateTime updatedAt;
+}
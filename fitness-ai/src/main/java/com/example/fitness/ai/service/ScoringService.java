@@ -1,8 +1,13 @@
 package com.example.fitness.ai.service;
 
+import com.example.fitness.ai.model.PoseSequence;
+import com.example.fitness.api.dto.BatchScoringRequest;
+import com.example.fitness.api.dto.BatchScoringResponse;
 import com.example.fitness.api.dto.ScoringRequest;
 import com.example.fitness.api.dto.ScoringResponse;
 
+import java.util.Map;
+
 /**
  * AI 评分服务接口
  * 处理动作关键点数据，计算准确度得分。
@@ -12,4 +17,30 @@ public interface ScoringService {
      * 计算动作评分并发送异步事件到 Kafka
      */
     ScoringResponse calculateScore(ScoringRequest request);
+
+    /**
+     * 对二进制上传的连续帧评分，返回各帧平均分并发送一条评分事件
+     */
+    ScoringResponse calculateSequenceScore(PoseSequence sequence);
+
+    /**
+     * 对同一会话的多帧批量评分，返回逐帧分数与汇总分，并只发送一条合并后的评分事件
+     */
+    BatchScoringResponse calculateBatchScore(BatchScoringRequest request);
+
+    /**
+     * 对连续帧逐帧评分并按动作次数评分，只计算不发送事件
+     */
+    BatchScoringResponse evaluateSequence(PoseSequence sequence);
+
+    /**
+     * 只对连续帧逐帧评分，不切分动作次数（{@code repScores} 为 {@code null}），不发送事件；
+     * 供实时流式评分的逐消息热路径使用，按次评分由流式会话增量完成
+     */
+    BatchScoringResponse evaluateFrames(PoseSequence sequence);
+
+    /**
+     * 发送一条评分事件，用于流式会话结束时的汇总
+     */
+    void publishScoringEvent(String moveId, String userId, int score, Map<String, Object> extraData);
 }
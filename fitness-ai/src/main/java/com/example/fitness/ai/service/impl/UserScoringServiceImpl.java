@@ -1,36 +1,51 @@
 package com.example.fitness.ai.service.impl;
 
+import com.example.fitness.ai.codec.PoseFrameBinaryCodec;
+import com.example.fitness.ai.engine.PoseFeatureExtractor;
+import com.example.fitness.ai.event.ScoringEventPublisher;
+import com.example.fitness.ai.engine.TemporalScoringEngine;
+import com.example.fitness.ai.kernel.SimilarityKernel;
+import com.example.fitness.ai.model.PoseSequence;
+import com.example.fitness.api.dto.BatchScoringRequest;
+import com.example.fitness.api.dto.BatchScoringResponse;
+import com.example.fitness.api.dto.PoseFrame;
 import com.example.fitness.api.dto.ScoringRequest;
 import com.example.fitness.api.dto.ScoringResponse;
 import com.example.fitness.api.dto.ScoringResultEvent;
 import com.example.fitness.ai.service.ScoringService;
+import com.example.fitness.ai.template.ScoringConfig;
+import com.example.fitness.ai.template.StandardTemplate;
+import com.example.fitness.ai.template.StandardTemplateStore;
 import com.example.fitness.common.exception.BusinessException;
 import com.example.fitness.common.result.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.FloatBuffer;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.IntStream;
 
 /**
  * 用户运动评分服务实现类
  * 
  * <p>
  * 基于余弦相似度算法对用户动作进行评分，
- * 并将评分结果异步发送至 Kafka 消息队列。
+ * 并将评分结果经 {@link ScoringEventPublisher} 异步批量发送至 Kafka 消息队列。
  * 
  * <p>
  * 评分流程：
  * <ol>
- * <li>获取标准动作模板向量</li>
- * <li>解析用户上传的关键点数据</li>
- * <li>计算余弦相似度并转换为 0-100 分数</li>
+ * <li>从 {@link StandardTemplateStore} 获取标准动作模板</li>
+ * <li>解析用户上传的关键点数据（类型化帧或兼容的 Map 结构）</li>
+ * <li>按动作的评分配置过滤低置信度帧，计算坐标余弦相似度或关节特征相似度，并转换为 0-100 分数</li>
  * <li>生成反馈建议</li>
  * <li>异步发送评分事件到 Kafka</li>
  * </ol>
@@ -43,26 +58,38 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class UserScoringServiceImpl implements ScoringService {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ScoringEventPublisher scoringEventPublisher;
 
-    /** Kafka 主题名称 */
-    private static final String TOPIC = "frontend_event_stream";
+    private final StandardTemplateStore standardTemplateStore;
 
-    /** 标准动作模板向量长度（17 个关键点 × 2 坐标） */
-    private static final int VECTOR_LENGTH = 34;
+    private final TemporalScoringEngine temporalScoringEngine;
+
+    private final SimilarityKernel similarityKernel;
 
     /** 最大关键点数量 */
     private static final int MAX_KEYPOINTS = 17;
 
-    // ==================== 标准动作模板缓存 ====================
+    /** 单次批量评分允许的最大帧数（约 60 秒 @ 30fps） */
+    private static final int MAX_BATCH_FRAMES = PoseFrameBinaryCodec.MAX_FRAMES;
 
-    private static final Map<String, double[]> STANDARD_TEMPLATE_CACHE;
+    /** 帧数达到该阈值时并行评分，小批量时线程调度开销大于收益 */
+    private static final int PARALLEL_THRESHOLD = 256;
 
-    static {
-        double[] defaultVector = new double[VECTOR_LENGTH];
-        java.util.Arrays.fill(defaultVector, 0.5);
-        STANDARD_TEMPLATE_CACHE = Map.of("m_squat", defaultVector);
-    }
+    /** 模板向量长度（17 个关键点 × 2 坐标） */
+    private static final int VECTOR_LENGTH = StandardTemplateStore.VECTOR_LENGTH;
+
+    /** 按线程复用的紧凑坐标缓冲区，用于把 stride 为 3 的帧整理成与模板对齐的 {@code [x1, y1, ...]} */
+    private static final ThreadLocal<double[]> PACKED_FRAME = ThreadLocal.withInitial(() -> new double[VECTOR_LENGTH]);
+
+    /** 按线程复用的关节特征缓冲区 */
+    private static final ThreadLocal<double[]> FEATURES = ThreadLocal
+            .withInitial(() -> new double[PoseFeatureExtractor.FEATURE_LENGTH]);
+
+    /** 逐帧分数中表示该帧因关键点不可信被跳过 */
+    private static final int SKIPPED = -1;
+
+    /** 所有帧都被跳过时的提示 */
+    private static final String LOW_CONFIDENCE_MESSAGE = "关键点置信度不足，请确保全身都在画面中";
 
     // ==================== 核心评分方法 ====================
 
@@ -70,40 +97,175 @@ public class UserScoringServiceImpl implements ScoringService {
      * 计算用户动作评分
      */
     @Override
-    @SuppressWarnings("unchecked")
     public ScoringResponse calculateScore(ScoringRequest request) {
         // 1. 参数校验
         validateRequest(request);
 
         // 2. 获取标准模板
-        double[] standardVector = getStandardTemplate(request.getMoveId());
+        StandardTemplate template = standardTemplateStore.get(request.getMoveId());
 
-        // 3. 解析用户关键点
-        Map<String, Object> data = request.getData();
-        if (!hasKeypoints(data)) {
+        // 3. 解析用户关键点（优先使用类型化帧，兼容旧的 Map 结构）
+        PoseFrame frame = resolveFrame(request);
+        if (frame == null) {
             return buildErrorResponse("未检测到关键点数据");
         }
 
         // 4. 计算评分
-        List<Map<String, Object>> keypoints = (List<Map<String, Object>>) data.get("keypoints");
-        int score = computeScore(standardVector, keypoints);
+        int score = computeScore(template, frame);
+        if (score == SKIPPED) {
+            return buildErrorResponse(LOW_CONFIDENCE_MESSAGE);
+        }
 
         // 5. 构建响应
         ScoringResponse response = buildSuccessResponse(score);
 
         // 6. 异步发送事件
-        sendScoringEvent(request, data, score);
+        sendScoringEvent(request, score);
+
+        return response;
+    }
+
+    /**
+     * 对连续帧评分
+     * <p>
+     * 直接在帧缓冲区上逐帧计算相似度，不构造任何中间对象。
+     */
+    @Override
+    public ScoringResponse calculateSequenceScore(PoseSequence sequence) {
+        validateMoveId(sequence.moveId());
+        if (sequence.frameCount() == 0) {
+            return buildErrorResponse("未检测到关键点数据");
+        }
+
+        StandardTemplate template = standardTemplateStore.get(sequence.moveId());
+        int[] frameScores = scoreFrames(template, sequence);
+        if (countSkipped(frameScores) == frameScores.length) {
+            return buildErrorResponse(LOW_CONFIDENCE_MESSAGE);
+        }
+        int score = average(frameScores);
+
+        ScoringResponse response = buildSuccessResponse(score);
+        sendScoringEvent(sequence.moveId(), sequence.userId(), score);
+        return response;
+    }
+
+    /**
+     * 批量评分
+     * <p>
+     * 先将所有帧拷贝到一块连续的 {@code float[]}，再在其上一次遍历完成评分；
+     * 整批只发送一条 Kafka 事件，分数为各帧平均分。
+     */
+    @Override
+    public BatchScoringResponse calculateBatchScore(BatchScoringRequest request) {
+        validateMoveId(request.getMoveId());
+        List<PoseFrame> frames = request.getFrames();
+        if (frames == null) {
+            frames = List.of();
+        }
+        if (frames.size() > MAX_BATCH_FRAMES) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "单次批量评分最多 " + MAX_BATCH_FRAMES + " 帧");
+        }
+
+        String userId = request.getUserId() != null ? request.getUserId() : "unknown";
+        PoseSequence sequence = new PoseSequence(request.getMoveId(), userId, frames.size(), packFrames(frames));
+        BatchScoringResponse response = evaluateSequence(sequence);
+        if (!response.isSuccess()) {
+            return response;
+        }
 
+        Map<String, Object> extraData = new HashMap<>();
+        extraData.put("frameCount", sequence.frameCount());
+        extraData.put("minScore", response.getMinScore());
+        extraData.put("maxScore", response.getMaxScore());
+        extraData.put("repCount", response.getRepScores().length);
+        extraData.put("skippedFrames", response.getSkippedFrames());
+        if (request.getSessionId() != null) {
+            extraData.put("sessionId", request.getSessionId());
+        }
+        sendScoringEvent(sequence.moveId(), userId, response.getScore(), extraData);
         return response;
     }
 
+    /**
+     * 逐帧评分并汇总，不发送事件
+     * <p>
+     * 动作配置了参考动作时，额外切分动作次数并用 DTW 逐次评分。
+     */
+    @Override
+    public BatchScoringResponse evaluateSequence(PoseSequence sequence) {
+        return evaluate(sequence, true);
+    }
+
+    /**
+     * 逐帧评分并汇总，不切分动作次数、不发送事件
+     */
+    @Override
+    public BatchScoringResponse evaluateFrames(PoseSequence sequence) {
+        return evaluate(sequence, false);
+    }
+
+    /**
+     * @param withReps 是否切分动作次数并用 DTW 逐次评分
+     */
+    private BatchScoringResponse evaluate(PoseSequence sequence, boolean withReps) {
+        validateMoveId(sequence.moveId());
+        if (sequence.frameCount() == 0) {
+            return BatchScoringResponse.builder()
+                    .success(false)
+                    .score(0)
+                    .frameScores(new int[0])
+                    .feedback(List.of("未检测到关键点数据"))
+                    .build();
+        }
+
+        StandardTemplate template = standardTemplateStore.get(sequence.moveId());
+        int[] frameScores = scoreFrames(template, sequence);
+        int skipped = countSkipped(frameScores);
+        if (skipped == frameScores.length) {
+            return BatchScoringResponse.builder()
+                    .success(false)
+                    .score(0)
+                    .frameScores(frameScores)
+                    .skippedFrames(skipped)
+                    .feedback(List.of(LOW_CONFIDENCE_MESSAGE))
+                    .build();
+        }
+        int score = average(frameScores);
+
+        return BatchScoringResponse.builder()
+                .success(true)
+                .score(score)
+                .minScore(Arrays.stream(frameScores).filter(frameScore -> frameScore != SKIPPED).min().orElse(0))
+                .maxScore(Arrays.stream(frameScores).max().orElse(0))
+                .frameScores(frameScores)
+                .skippedFrames(skipped)
+                .repScores(withReps ? temporalScoringEngine.scoreReps(sequence, template.motion()) : null)
+                .feedback(generateFeedback(score))
+                .build();
+    }
+
+    /**
+     * 发送评分事件
+     */
+    @Override
+    public void publishScoringEvent(String moveId, String userId, int score, Map<String, Object> extraData) {
+        sendScoringEvent(moveId, userId, score, extraData);
+    }
+
     // ==================== 私有辅助方法：参数校验 ====================
 
     /**
      * 校验评分请求参数
      */
     private void validateRequest(ScoringRequest request) {
-        if (request.getMoveId() == null || request.getMoveId().isEmpty()) {
+        validateMoveId(request.getMoveId());
+    }
+
+    /**
+     * 校验动作 ID
+     */
+    private void validateMoveId(String moveId) {
+        if (moveId == null || moveId.isEmpty()) {
             throw new BusinessException(ErrorCode.PARAM_ERROR);
         }
     }
@@ -115,78 +277,178 @@ public class UserScoringServiceImpl implements ScoringService {
         return data != null && data.containsKey("keypoints");
     }
 
-    // ==================== 私有辅助方法：评分计算 ====================
+    // ==================== 私有辅助方法：关键点解析 ====================
 
     /**
-     * 计算最终评分
+     * 解析请求中的关键点帧
+     *
+     * @return 关键点帧，请求中不含关键点时返回 {@code null}
      */
-    private int computeScore(double[] standardVector, List<Map<String, Object>> keypoints) {
-        double[] userVector = normalizeKeypoints(keypoints);
-        double similarity = calculateCosineSimilarity(standardVector, userVector);
-        return Math.max(0, Math.min(100, (int) (similarity * 100)));
+    @SuppressWarnings("unchecked")
+    private PoseFrame resolveFrame(ScoringRequest request) {
+        if (request.getFrame() != null) {
+            return request.getFrame();
+        }
+        Map<String, Object> data = request.getData();
+        if (!hasKeypoints(data)) {
+            return null;
+        }
+        return toPoseFrame((List<Map<String, Object>>) data.get("keypoints"));
     }
 
     /**
-     * 获取标准动作模板向量
+     * 将旧版 {@code List<Map>} 关键点结构转换为扁平帧（兼容路径）
      */
-    private double[] getStandardTemplate(String moveId) {
-        double[] template = STANDARD_TEMPLATE_CACHE.get(moveId);
-        if (template != null) {
-            return template;
+    private PoseFrame toPoseFrame(List<Map<String, Object>> keypoints) {
+        float[] frameData = new float[PoseFrame.MAX_LENGTH];
+        int count = Math.min(keypoints.size(), MAX_KEYPOINTS);
+
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> kp = keypoints.get(i);
+            int offset = i * PoseFrame.STRIDE;
+            frameData[offset] = parseCoordinate(kp, "x", 0f);
+            frameData[offset + 1] = parseCoordinate(kp, "y", 0f);
+            frameData[offset + 2] = parseCoordinate(kp, "score", 1f);
         }
-        // 返回默认模板
-        return STANDARD_TEMPLATE_CACHE.values().iterator().next();
+
+        return new PoseFrame(frameData, count);
     }
 
     /**
-     * 将关键点列表归一化为向量
-     * <p>
-     * 格式：[x1, y1, x2, y2, ...]
+     * 解析坐标值，数值类型直接拆箱，避免字符串往返
      */
-    private double[] normalizeKeypoints(List<Map<String, Object>> keypoints) {
-        double[] vector = new double[VECTOR_LENGTH];
-        int count = Math.min(keypoints.size(), MAX_KEYPOINTS);
+    private float parseCoordinate(Map<String, Object> keypoint, String key, float defaultValue) {
+        Object value = keypoint.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number number) {
+            return number.floatValue();
+        }
+        return Float.parseFloat(String.valueOf(value));
+    }
 
-        for (int i = 0; i < count; i++) {
-            Map<String, Object> kp = keypoints.get(i);
-            vector[i * 2] = parseCoordinate(kp, "x");
-            vector[i * 2 + 1] = parseCoordinate(kp, "y");
+    // ==================== 私有辅助方法：评分计算 ====================
+
+    /**
+     * 将多帧拷贝为连续缓冲区，每帧固定占 {@link PoseSequence#FRAME_LENGTH} 个 float，缺失的关键点补 0
+     */
+    private FloatBuffer packFrames(List<PoseFrame> frames) {
+        float[] packed = new float[frames.size() * PoseSequence.FRAME_LENGTH];
+        for (int i = 0; i < frames.size(); i++) {
+            PoseFrame frame = frames.get(i);
+            if (frame != null) {
+                System.arraycopy(frame.rawData(), 0, packed, i * PoseSequence.FRAME_LENGTH,
+                        frame.getKeypointCount() * PoseFrame.STRIDE);
+            }
         }
+        return FloatBuffer.wrap(packed);
+    }
 
-        return vector;
+    /**
+     * 对序列中的每一帧评分
+     * <p>
+     * 帧数达到 {@link #PARALLEL_THRESHOLD} 时按帧并行计算；各帧只读取缓冲区的绝对下标、
+     * 写入结果数组的独立槽位，无需同步。
+     */
+    private int[] scoreFrames(StandardTemplate template, PoseSequence sequence) {
+        FloatBuffer frames = sequence.frames();
+        int[] scores = new int[sequence.frameCount()];
+        IntStream indices = IntStream.range(0, scores.length);
+        if (scores.length >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> scores[i] = computeScore(template, frames, sequence.frameOffset(i), MAX_KEYPOINTS));
+        return scores;
     }
 
     /**
-     * 解析坐标值
+     * 计算平均分，跳过的帧不计入；调用方需保证至少有一帧未被跳过
      */
-    private double parseCoordinate(Map<String, Object> keypoint, String key) {
-        Object value = keypoint.getOrDefault(key, 0);
-        return Double.parseDouble(String.valueOf(value));
+    private int average(int[] scores) {
+        long total = 0;
+        int count = 0;
+        for (int score : scores) {
+            if (score != SKIPPED) {
+                total += score;
+                count++;
+            }
+        }
+        return (int) (total / count);
     }
 
     /**
-     * 计算两个向量的余弦相似度
+     * 统计被跳过的帧数
      */
-    private double calculateCosineSimilarity(double[] v1, double[] v2) {
-        if (v1.length != v2.length) {
-            return 0.0;
+    private int countSkipped(int[] scores) {
+        int skipped = 0;
+        for (int score : scores) {
+            if (score == SKIPPED) {
+                skipped++;
+            }
         }
+        return skipped;
+    }
 
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
+    /**
+     * 计算最终评分
+     */
+    private int computeScore(StandardTemplate template, PoseFrame frame) {
+        return computeScore(template, FloatBuffer.wrap(frame.rawData()), 0, frame.getKeypointCount());
+    }
 
-        for (int i = 0; i < v1.length; i++) {
-            dotProduct += v1[i] * v2[i];
-            normA += v1[i] * v1[i];
-            normB += v2[i] * v2[i];
+    /**
+     * 计算缓冲区中从 {@code offset} 开始的一帧的评分
+     * <p>
+     * 动作配置了最低置信度时，先检查身体关键点的置信度，不可信的帧在整理坐标之前直接跳过。
+     * 随后把扁平帧（stride 为 {@link PoseFrame#STRIDE}）中的坐标整理到按线程复用的紧凑缓冲区，
+     * 缺失的关键点按 0 处理，再按模板的特征模式计算相似度。
+     *
+     * @return 0-100 的分数；帧被跳过时返回 {@link #SKIPPED}
+     */
+    private int computeScore(StandardTemplate template, FloatBuffer frames, int offset, int keypointCount) {
+        ScoringConfig config = template.config();
+        if (config.filtersConfidence()
+                && !PoseFeatureExtractor.isConfident(frames, offset, keypointCount, config.minConfidence())) {
+            return SKIPPED;
         }
 
-        if (normA == 0 || normB == 0) {
+        double[] packed = PACKED_FRAME.get();
+        int count = Math.min(keypointCount, MAX_KEYPOINTS);
+        for (int i = 0; i < count; i++) {
+            int base = offset + i * PoseFrame.STRIDE;
+            packed[i * 2] = frames.get(base);
+            packed[i * 2 + 1] = frames.get(base + 1);
+        }
+        Arrays.fill(packed, count * 2, VECTOR_LENGTH, 0.0);
+
+        double similarity;
+        if (template.usesJointFeatures()) {
+            double[] features = FEATURES.get();
+            if (!PoseFeatureExtractor.extract(packed, features)) {
+                return SKIPPED;
+            }
+            similarity = PoseFeatureExtractor.similarity(features, template.features(), config.angleTolerance());
+        } else {
+            similarity = calculateCosineSimilarity(template, packed);
+        }
+        return Math.max(0, Math.min(100, (int) (similarity * 100)));
+    }
+
+    /**
+     * 计算模板向量与紧凑坐标的余弦相似度
+     * <p>
+     * 点积交给 {@link SimilarityKernel} 计算，模板范数已在加载时预先计算。
+     */
+    private double calculateCosineSimilarity(StandardTemplate template, double[] packed) {
+        double dotProduct = similarityKernel.dot(template.vector(), 0, packed, 0, VECTOR_LENGTH);
+        double normB = similarityKernel.dot(packed, 0, packed, 0, VECTOR_LENGTH);
+
+        if (template.norm() == 0 || normB == 0) {
             return 0.0;
         }
 
-        return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
+        return dotProduct / (template.norm() * Math.sqrt(normB));
     }
 
     // ==================== 私有辅助方法：响应构建 ====================
@@ -232,32 +494,63 @@ public class UserScoringServiceImpl implements ScoringService {
 
     // ==================== 私有辅助方法：事件发送 ====================
 
+    /**
+     * 异步发送评分事件到 Kafka（经 {@link ScoringEventPublisher} 入队，不阻塞评分线程）
+     */
+    private void sendScoringEvent(ScoringRequest request, int score) {
+        sendScoringEvent(request.getMoveId(), resolveUserId(request), score);
+    }
+
     /**
      * 异步发送评分事件到 Kafka
      */
-    private void sendScoringEvent(ScoringRequest request, Map<String, Object> data, int score) {
+    private void sendScoringEvent(String moveId, String userId, int score) {
+        sendScoringEvent(moveId, userId, score, Collections.singletonMap("duration", 5));
+    }
+
+    /**
+     * 异步发送评分事件到 Kafka，附带自定义的附加数据
+     */
+    private void sendScoringEvent(String moveId, String userId, int score, Map<String, Object> extraData) {
         try {
-            ScoringResultEvent event = buildScoringEvent(request, data, score);
-            kafkaTemplate.send(TOPIC, Objects.requireNonNull(request.getMoveId()), event);
-            log.info("已将评分事件发送至 Kafka, 动作 ID: {}, 分数: {}", request.getMoveId(), score);
+            ScoringResultEvent event = buildScoringEvent(moveId, userId, score, extraData);
+            if (scoringEventPublisher.publish(event)) {
+                log.debug("评分事件已入队, 动作 ID: {}, 分数: {}", moveId, score);
+            }
         } catch (Exception e) {
             // 非核心路径，仅记录日志
-            log.error("发送 Kafka 失败: {}", e.getMessage());
+            log.error("评分事件入队失败: {}", e.getMessage());
         }
     }
 
     /**
      * 构建评分事件对象
      */
-    private ScoringResultEvent buildScoringEvent(ScoringRequest request, Map<String, Object> data, int score) {
-        String userId = (String) data.getOrDefault("userId", "unknown");
-
+    private ScoringResultEvent buildScoringEvent(String moveId, String userId, int score,
+            Map<String, Object> extraData) {
         return ScoringResultEvent.builder()
+                .eventId(UUID.randomUUID().toString())
                 .userId(userId)
-                .moveId(request.getMoveId())
+                .moveId(moveId)
                 .score(score)
                 .timestamp(LocalDateTime.now())
-                .extraData(Collections.singletonMap("duration", 5))
+                .extraData(extraData)
                 .build();
     }
+
+    /**
+     * 解析事件归属的用户 ID：优先取顶层 {@code userId}，其次取 {@code data.userId}
+     * <p>
+     * HTTP 入口由 {@code ScoringController} 预先将顶层 {@code userId} 绑定为当前登录用户。
+     */
+    private String resolveUserId(ScoringRequest request) {
+        if (request.getUserId() != null) {
+            return request.getUserId();
+        }
+        Map<String, Object> data = request.getData();
+        if (data != null && data.get("userId") instanceof String userId) {
+            return userId;
+        }
+        return "unknown";
+    }
 }
@@ -0,0 +1,59 @@
+package com.example.fitness.ai.template;
+
+/**
+ * 只读的标准参考动作（完整一次动作的关键帧序列）
+ *
+ * <p>
+ * 以扁平的 {@code float[]} 保存，每帧 {@link #FRAME_LENGTH} 个数
+ * {@code [x1, y1, ..., x17, y17]}。加载时每帧减去自身的质心（消除人在画面中的位置差异），
+ * 并预先计算中心化后的 L2 范数，DTW 对齐时无需重复计算。
+ *
+ * @param frames     中心化后的帧数据，调用方不得修改
+ * @param norms      每帧中心化后的 L2 范数
+ * @param frameCount 帧数
+ */
+public record ReferenceMotion(float[] frames, float[] norms, int frameCount) {
+
+    /** 单帧元素个数（17 个关键点 × 2 坐标） */
+    public static final int FRAME_LENGTH = StandardTemplateStore.VECTOR_LENGTH;
+
+    /** 参考动作允许的最大帧数（10 秒 @ 30fps） */
+    public static final int MAX_FRAMES = 300;
+
+    /**
+     * 由二维数组构建参考动作并预计算每帧范数
+     *
+     * @throws IllegalArgumentException 帧数为 0、超过上限或某帧长度不为 {@link #FRAME_LENGTH}
+     */
+    public static ReferenceMotion of(double[][] motion) {
+        if (motion.length == 0 || motion.length > MAX_FRAMES) {
+            throw new IllegalArgumentException("参考动作帧数非法: " + motion.length);
+        }
+        float[] frames = new float[motion.length * FRAME_LENGTH];
+        float[] norms = new float[motion.length];
+        for (int f = 0; f < motion.length; f++) {
+            if (motion[f].length != FRAME_LENGTH) {
+                throw new IllegalArgumentException("参考动作第 " + f + " 帧长度为 " + motion[f].length);
+            }
+            double cx = 0.0;
+            double cy = 0.0;
+            for (int i = 0; i < FRAME_LENGTH; i += 2) {
+                cx += motion[f][i];
+                cy += motion[f][i + 1];
+            }
+            cx /= FRAME_LENGTH / 2;
+            cy /= FRAME_LENGTH / 2;
+
+            double sum = 0.0;
+            for (int i = 0; i < FRAME_LENGTH; i += 2) {
+                float x = (float) (motion[f][i] - cx);
+                float y = (float) (motion[f][i + 1] - cy);
+                frames[f * FRAME_LENGTH + i] = x;
+                frames[f * FRAME_LENGTH + i + 1] = y;
+                sum += x * x + y * y;
+            }
+            norms[f] = (float) Math.sqrt(sum);
+        }
+        return new ReferenceMotion(frames, norms, motion.length);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.fitness.ai.template;
+
+/**
+ * 单个动作的评分配置，来自 {@code move.scoring_config_json}
+ *
+ * <p>
+ * 支持的字段（均可省略）：
+ * <ul>
+ * <li>{@code featureMode}：{@code coordinates}（默认，原始坐标余弦相似度）或
+ * {@code joint_angles}（关节角度 + 骨骼长度比）</li>
+ * <li>{@code minConfidence}：身体关键点的最低置信度，低于该值的帧不参与评分；
+ * {@code joint_angles} 模式默认 {@value #DEFAULT_MIN_CONFIDENCE}，{@code coordinates} 模式默认不过滤</li>
+ * <li>{@code angleThreshold}：关节角容差（度），误差在容差内视为完全一致，默认 0</li>
+ * </ul>
+ *
+ * @param featureMode    特征模式
+ * @param minConfidence  最低置信度，{@code 0} 表示不过滤
+ * @param angleTolerance 关节角容差（弧度）
+ */
+public record ScoringConfig(FeatureMode featureMode, float minConfidence, double angleTolerance) {
+
+    /** {@code joint_angles} 模式下默认的最低置信度 */
+    public static final float DEFAULT_MIN_CONFIDENCE = 0.3f;
+
+    /** 未配置时的默认值：原始坐标、不过滤 */
+    public static final ScoringConfig DEFAULT = new ScoringConfig(FeatureMode.COORDINATES, 0f, 0.0);
+
+    /**
+     * 评分特征模式
+     */
+    public enum FeatureMode {
+        /** 原始 (x, y) 坐标的余弦相似度 */
+        COORDINATES,
+        /** 关节角度与骨骼长度比 */
+        JOINT_ANGLES
+    }
+
+    /**
+     * 是否需要按置信度过滤帧
+     */
+    public boolean filtersConfidence() {
+        return minConfidence > 0;
+    }
+}
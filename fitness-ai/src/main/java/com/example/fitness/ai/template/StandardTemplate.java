@@ -0,0 +1,54 @@
+package com.example.fitness.ai.template;
+
+import com.example.fitness.ai.engine.PoseFeatureExtractor;
+
+/**
+ * 只读的标准动作模板
+ *
+ * @param moveId   动作 ID
+ * @param vector   参考向量 {@code [x1, y1, x2, y2, ...]}，调用方不得修改
+ * @param norm     参考向量的 L2 范数（预先计算，评分时无需重复求和）
+ * @param motion   标准参考动作，用于按次时序评分；未配置时为 {@code null}
+ * @param config   评分配置
+ * @param features 由参考向量提取的关节特征（见 {@link PoseFeatureExtractor}）；
+ *                 参考向量中关键点重合导致特征无定义时为 {@code null}
+ */
+public record StandardTemplate(String moveId, double[] vector, double norm, ReferenceMotion motion,
+        ScoringConfig config, double[] features) {
+
+    /**
+     * 由参考向量构建模板并预计算范数
+     */
+    public static StandardTemplate of(String moveId, double[] vector) {
+        return of(moveId, vector, null);
+    }
+
+    /**
+     * 由参考向量和参考动作构建模板并预计算范数
+     */
+    public static StandardTemplate of(String moveId, double[] vector, ReferenceMotion motion) {
+        return of(moveId, vector, motion, ScoringConfig.DEFAULT);
+    }
+
+    /**
+     * 由参考向量、参考动作和评分配置构建模板，预计算范数与关节特征
+     */
+    public static StandardTemplate of(String moveId, double[] vector, ReferenceMotion motion, ScoringConfig config) {
+        double sum = 0.0;
+        for (double v : vector) {
+            sum += v * v;
+        }
+        double[] features = new double[PoseFeatureExtractor.FEATURE_LENGTH];
+        if (!PoseFeatureExtractor.extract(vector, features)) {
+            features = null;
+        }
+        return new StandardTemplate(moveId, vector, Math.sqrt(sum), motion, config, features);
+    }
+
+    /**
+     * 是否按关节特征评分（配置为 {@code joint_angles} 且参考特征有效）
+     */
+    public boolean usesJointFeatures() {
+        return config.featureMode() == ScoringConfig.FeatureMode.JOINT_ANGLES && features != null;
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.fitness.ai.template;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.fitness.ai.mapper.MoveTemplateMapper;
+import com.example.fitness.ai.model.entity.MoveTemplate;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 标准动作模板仓库
+ *
+ * <p>
+ * 启动时从 {@code move.reference_vector_json} 全量加载模板（连同参考动作与
+ * {@code scoring_config_json} 中的评分配置），之后按
+ * {@code updated_at} 水位线定时增量刷新，无需重启即可生效。增量刷新中参考向量被置空或
+ * 无法解析的模板会被移除；物理删除的行不会出现在增量结果中，因此每隔
+ * {@code app.ai.template.full-reload-interval} 做一次全量对账，重建索引以剔除已删除的模板。
+ *
+ * <p>
+ * 读路径只做一次 {@code volatile} 读取和一次 {@code HashMap} 查找：
+ * 刷新线程构建新的不可变索引后整体替换引用（Copy-On-Write），
+ * 因此重载期间评分线程永远不会被阻塞。
+ *
+ * <p>
+ * 指标：
+ * <ul>
+ * <li>{@code ai.template.lookup{result=hit|fallback}} — 命中/回退次数</li>
+ * <li>{@code ai.template.size} — 当前索引中的模板数</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class StandardTemplateStore implements InitializingBean {
+
+    /** 标准模板向量长度（17 个关键点 × 2 坐标） */
+    public static final int VECTOR_LENGTH = 34;
+
+    private final MoveTemplateMapper moveTemplateMapper;
+    private final ObjectMapper objectMapper;
+    private final Counter hitCounter;
+    private final Counter fallbackCounter;
+
+    /** 回退模板所对应的动作 ID */
+    private final String defaultMoveId;
+
+    /** 内置回退模板（数据库中无任何模板时使用） */
+    private final StandardTemplate builtinTemplate;
+
+    /** 当前只读索引，整体替换 */
+    private volatile Map<String, StandardTemplate> index = Map.of();
+
+    /** 全量对账间隔（毫秒） */
+    private final long fullReloadIntervalMillis;
+
+    /** 已加载数据的最大 {@code updated_at}，仅由刷新线程读写 */
+    private LocalDateTime watermark;
+
+    /** 上次全量对账成功的时间（毫秒），仅由刷新线程读写 */
+    private long lastFullReloadMillis;
+
+    public StandardTemplateStore(MoveTemplateMapper moveTemplateMapper, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.ai.template.default-move-id:m_squat}") String defaultMoveId,
+            @Value("${app.ai.template.full-reload-interval:600000}") long fullReloadIntervalMillis) {
+        this.moveTemplateMapper = moveTemplateMapper;
+        this.objectMapper = objectMapper;
+        this.defaultMoveId = defaultMoveId;
+        this.fullReloadIntervalMillis = fullReloadIntervalMillis;
+
+        double[] defaultVector = new double[VECTOR_LENGTH];
+        Arrays.fill(defaultVector, 0.5);
+        this.builtinTemplate = StandardTemplate.of(defaultMoveId, defaultVector);
+
+        this.hitCounter = Counter.builder("ai.template.lookup").tag("result", "hit")
+                .description("标准模板命中次数").register(meterRegistry);
+        this.fallbackCounter = Counter.builder("ai.template.lookup").tag("result", "fallback")
+                .description("未找到动作模板而使用默认模板的次数").register(meterRegistry);
+        Gauge.builder("ai.template.size", this, store -> store.index.size())
+                .description("已加载的标准模板数").register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        refresh();
+    }
+
+    /**
+     * 获取动作的标准模板，不存在时回退到默认模板
+     *
+     * @param moveId 动作 ID
+     * @return 标准模板，永不为 {@code null}
+     */
+    public StandardTemplate get(String moveId) {
+        Map<String, StandardTemplate> current = index;
+        StandardTemplate template = current.get(moveId);
+        if (template != null) {
+            hitCounter.increment();
+            return template;
+        }
+        fallbackCounter.increment();
+        log.debug("动作 {} 无标准模板，使用默认模板", moveId);
+        StandardTemplate fallback = current.get(defaultMoveId);
+        return fallback != null ? fallback : builtinTemplate;
+    }
+
+    /**
+     * 刷新索引：到达全量对账间隔时重建索引，否则只拉取水位线之后更新过的模板并合并
+     * <p>
+     * 首次调用时全量加载。增量结果中参考向量为空或非法的模板从索引移除，
+     * 物理删除的模板由全量对账剔除。数据库不可用时保留现有索引。
+     */
+    @Scheduled(fixedDelayString = "${app.ai.template.refresh-interval:30000}",
+            initialDelayString = "${app.ai.template.refresh-interval:30000}")
+    public synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        boolean full = lastFullReloadMillis == 0 || now - lastFullReloadMillis >= fullReloadIntervalMillis;
+        List<MoveTemplate> rows;
+        try {
+            // 不过滤空向量：增量结果需要看到被置空的模板才能将其移除
+            LambdaQueryWrapper<MoveTemplate> query = new LambdaQueryWrapper<MoveTemplate>()
+                    .select(MoveTemplate::getId, MoveTemplate::getReferenceVectorJson,
+                            MoveTemplate::getReferenceMotionJson, MoveTemplate::getScoringConfigJson,
+                            MoveTemplate::getUpdatedAt);
+            if (!full && watermark != null) {
+                // 使用 >= 避免同一秒内的更新被遗漏，重复读取的行按幂等覆盖处理
+                query.ge(MoveTemplate::getUpdatedAt, watermark);
+            }
+            rows = moveTemplateMapper.selectList(query);
+        } catch (Exception e) {
+            log.warn("标准模板刷新失败，继续使用现有 {} 个模板: {}", index.size(), e.getMessage());
+            return;
+        }
+        if (rows == null) {
+            rows = List.of();
+        }
+        if (!full && rows.isEmpty()) {
+            return;
+        }
+
+        Map<String, StandardTemplate> next = full ? new HashMap<>() : new HashMap<>(index);
+        LocalDateTime maxUpdatedAt = full ? null : watermark;
+        int changed = 0;
+        int removed = 0;
+        for (MoveTemplate row : rows) {
+            StandardTemplate template = row.getReferenceVectorJson() == null
+                    || row.getReferenceVectorJson().isBlank() ? null : parse(row);
+            if (template != null) {
+                next.put(row.getId(), template);
+                changed++;
+            } else if (next.remove(row.getId()) != null) {
+                removed++;
+            }
+            if (row.getUpdatedAt() != null && (maxUpdatedAt == null || row.getUpdatedAt().isAfter(maxUpdatedAt))) {
+                maxUpdatedAt = row.getUpdatedAt();
+            }
+        }
+        if (full) {
+            removed = (int) index.keySet().stream().filter(id -> !next.containsKey(id)).count();
+            lastFullReloadMillis = now;
+        }
+        watermark = maxUpdatedAt;
+        index = Map.copyOf(next);
+        log.debug("标准模板已{}刷新: 变更 {} 个，移除 {} 个，共 {} 个", full ? "全量" : "增量",
+                changed, removed, next.size());
+    }
+
+    /**
+     * 解析单行模板，格式非法时跳过
+     */
+    private StandardTemplate parse(MoveTemplate row) {
+        try {
+            double[] vector = objectMapper.readValue(row.getReferenceVectorJson(), double[].class);
+            if (vector.length != VECTOR_LENGTH) {
+                log.warn("动作 {} 的参考向量长度为 {}，应为 {}，已跳过", row.getId(), vector.length, VECTOR_LENGTH);
+                return null;
+            }
+            StandardTemplate template = StandardTemplate.of(row.getId(), vector, parseMotion(row), parseConfig(row));
+            if (template.config().featureMode() == ScoringConfig.FeatureMode.JOINT_ANGLES
+                    && !template.usesJointFeatures()) {
+                log.warn("动作 {} 的参考向量无法提取关节特征，回退到坐标评分", row.getId());
+            }
+            return template;
+        } catch (Exception e) {
+            log.warn("动作 {} 的参考向量解析失败: {}", row.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 解析评分配置，未配置或格式非法时使用默认配置
+     */
+    private ScoringConfig parseConfig(MoveTemplate row) {
+        if (row.getScoringConfigJson() == null || row.getScoringConfigJson().isBlank()) {
+            return ScoringConfig.DEFAULT;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(row.getScoringConfigJson());
+            ScoringConfig.FeatureMode mode = "joint_angles".equalsIgnoreCase(node.path("featureMode").asText())
+                    ? ScoringConfig.FeatureMode.JOINT_ANGLES
+                    : ScoringConfig.FeatureMode.COORDINATES;
+            float defaultConfidence = mode == ScoringConfig.FeatureMode.JOINT_ANGLES
+                    ? ScoringConfig.DEFAULT_MIN_CONFIDENCE
+                    : 0f;
+            float minConfidence = (float) node.path("minConfidence").asDouble(defaultConfidence);
+            double angleTolerance = Math.toRadians(node.path("angleThreshold").asDouble(0.0));
+            return new ScoringConfig(mode, minConfidence, angleTolerance);
+        } catch (Exception e) {
+            log.warn("动作 {} 的评分配置解析失败，使用默认配置: {}", row.getId(), e.getMessage());
+            return ScoringConfig.DEFAULT;
+        }
+    }
+
+    /**
+     * 解析参考动作，未配置或格式非法时返回 {@code null}（该动作不做按次时序评分）
+     */
+    private ReferenceMotion parseMotion(MoveTemplate row) {
+        if (row.getReferenceMotionJson() == null || row.getReferenceMotionJson().isBlank()) {
+            return null;
+        }
+        try {
+            return ReferenceMotion.of(objectMapper.readValue(row.getReferenceMotionJson(), double[][].class));
+        } catch (Exception e) {
+            log.warn("动作 {} 的参考动作解析失败，仅使用单帧模板: {}", row.getId(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.fitness.ai.ws;
+
+import com.example.fitness.common.auth.TokenRevocationService;
+import com.example.fitness.common.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * WebSocket 握手鉴权拦截器
+ *
+ * <p>
+ * 仅在握手时校验一次 JWT（含是否已注销），之后同一连接上的所有帧不再重复鉴权。
+ * Token 优先取 {@code Authorization: Bearer <token>} 请求头；浏览器
+ * WebSocket API 无法设置请求头，因此也接受 {@code ?token=} 查询参数。
+ *
+ * <p>
+ * 握手成功后向会话属性写入 {@link #ATTR_USER_ID} 与 {@link #ATTR_MOVE_ID}。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    /** 会话属性：已认证的用户 ID */
+    public static final String ATTR_USER_ID = "userId";
+
+    /** 会话属性：本次连接评分的动作 ID */
+    public static final String ATTR_MOVE_ID = "moveId";
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        Map<String, String> params = UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().toSingleValueMap();
+
+        String moveId = params.get(ATTR_MOVE_ID);
+        if (!StringUtils.hasText(moveId)) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+
+        String token = request.getHeaders().getFirst("Authorization");
+        if (StringUtils.hasText(token) && token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        } else if (!StringUtils.hasText(token)) {
+            token = params.get("token");
+        }
+        if (!StringUtils.hasText(token)) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        JwtUtil.VerifiedToken verified;
+        try {
+            verified = jwtUtil.verify(token);
+        } catch (Exception e) {
+            log.warn("WebSocket 握手 Token 验证失败: {}", e.getMessage());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        if (tokenRevocationService.isRevoked(verified.tokenId(), verified.expiresAtMillis())) {
+            log.warn("WebSocket 握手 Token 已被吊销: userId={}", verified.userId());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(ATTR_USER_ID, verified.userId());
+        attributes.put(ATTR_MOVE_ID, moveId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Exception exception) {
+        // 无需处理
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.fitness.ai.ws;
+
+import com.example.fitness.ai.engine.RepTracker;
+import com.example.fitness.ai.engine.TemporalScoringEngine;
+import com.example.fitness.ai.model.PoseSequence;
+import com.example.fitness.ai.service.ScoringService;
+import com.example.fitness.ai.template.ReferenceMotion;
+import com.example.fitness.ai.template.StandardTemplateStore;
+import com.example.fitness.api.dto.BatchScoringResponse;
+import com.example.fitness.api.dto.PoseFrame;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 实时流式评分 WebSocket 处理器
+ *
+ * <p>
+ * 客户端连接 {@code /ws/ai/score?moveId=..&token=..} 后持续推送姿态帧，
+ * 服务端对每条消息返回一条增量评分：
+ * <ul>
+ * <li>文本消息：单帧 JSON，格式同 {@link PoseFrame}（扁平数组或对象数组）</li>
+ * <li>二进制消息：小端序 {@code float32 × N × 51}，一次最多
+ * {@link #MAX_FRAMES_PER_MESSAGE} 帧</li>
+ * </ul>
+ *
+ * <p>
+ * 帧的评分在独立线程池中按连接串行执行，不占用容器 IO 线程；
+ * 客户端发送过快时由 {@link StreamingScoringSession} 丢弃积压的旧帧，
+ * 客户端接收过慢时由 {@link ConcurrentWebSocketSessionDecorator} 丢弃待发送的结果。
+ * 动作配置了参考动作时，每完成一次动作额外推送一条 {@code type=rep} 的按次评分。
+ * 连接关闭时发送一条汇总评分事件。
+ */
+@Slf4j
+@Component
+public class ScoringWebSocketHandler extends AbstractWebSocketHandler implements DisposableBean {
+
+    /** 单条二进制消息允许的最大帧数 */
+    public static final int MAX_FRAMES_PER_MESSAGE = 30;
+
+    /** 单帧字节数 */
+    private static final int FRAME_BYTES = PoseSequence.FRAME_LENGTH * Float.BYTES;
+
+    /** 发送超时（毫秒） */
+    private static final int SEND_TIME_LIMIT = 1000;
+
+    /** 每个连接待发送结果的缓冲上限（字节） */
+    private static final int SEND_BUFFER_LIMIT = 64 * 1024;
+
+    private final ScoringService scoringService;
+    private final StandardTemplateStore standardTemplateStore;
+    private final TemporalScoringEngine temporalScoringEngine;
+    private final ObjectMapper objectMapper;
+    private final int maxPendingMessages;
+    private final ExecutorService scoringExecutor;
+
+    private final Map<String, StreamingScoringSession> states = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> outbound = new ConcurrentHashMap<>();
+
+    private final Counter scoredCounter;
+    private final Counter droppedCounter;
+
+    public ScoringWebSocketHandler(ScoringService scoringService, StandardTemplateStore standardTemplateStore,
+            TemporalScoringEngine temporalScoringEngine, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.ai.stream.max-pending-messages:8}") int maxPendingMessages) {
+        this.scoringService = scoringService;
+        this.standardTemplateStore = standardTemplateStore;
+        this.temporalScoringEngine = temporalScoringEngine;
+        this.objectMapper = objectMapper;
+        this.maxPendingMessages = maxPendingMessages;
+        this.scoringExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                Thread.ofPlatform().name("ws-scoring-", 0).daemon().factory());
+
+        this.scoredCounter = Counter.builder("ai.stream.frames").tag("result", "scored")
+                .description("流式评分已评分帧数").register(meterRegistry);
+        this.droppedCounter = Counter.builder("ai.stream.frames").tag("result", "dropped")
+                .description("因客户端发送过快被丢弃的消息数").register(meterRegistry);
+        Gauge.builder("ai.stream.sessions", states, Map::size)
+                .description("当前流式评分连接数").register(meterRegistry);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        String userId = (String) session.getAttributes().get(JwtHandshakeInterceptor.ATTR_USER_ID);
+        String moveId = (String) session.getAttributes().get(JwtHandshakeInterceptor.ATTR_MOVE_ID);
+        // 仅当动作配置了参考动作时才分配动作次数跟踪缓冲区
+        RepTracker repTracker = standardTemplateStore.get(moveId).motion() != null ? new RepTracker() : null;
+        states.put(session.getId(),
+                new StreamingScoringSession(session.getId(), userId, moveId, maxPendingMessages, repTracker));
+        outbound.put(session.getId(), new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT,
+                SEND_BUFFER_LIMIT, ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP));
+        log.info("流式评分连接建立, 用户: {}, 动作 ID: {}", userId, moveId);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        PoseFrame frame;
+        try {
+            frame = objectMapper.readValue(message.getPayload(), PoseFrame.class);
+        } catch (JsonProcessingException e) {
+            // 与二进制帧一致：回推错误而不是抛出异常导致容器关闭连接
+            log.debug("流式评分文本帧解析失败, 会话: {}, 原因: {}", session.getId(), e.getOriginalMessage());
+            sendError(session.getId(), "文本帧格式非法");
+            return;
+        }
+        if (frame == null) {
+            sendError(session.getId(), "文本帧格式非法");
+            return;
+        }
+        float[] frames = new float[PoseSequence.FRAME_LENGTH];
+        System.arraycopy(frame.rawData(), 0, frames, 0, frame.getKeypointCount() * PoseFrame.STRIDE);
+        enqueue(session, frames);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        ByteBuffer payload = message.getPayload();
+        int length = payload.remaining();
+        if (length == 0 || length % FRAME_BYTES != 0 || length / FRAME_BYTES > MAX_FRAMES_PER_MESSAGE) {
+            sendError(session.getId(), "二进制帧长度非法: " + length);
+            return;
+        }
+        float[] frames = new float[length / Float.BYTES];
+        payload.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(frames);
+        enqueue(session, frames);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("流式评分连接异常, 会话: {}, 原因: {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        outbound.remove(session.getId());
+        StreamingScoringSession state = states.remove(session.getId());
+        if (state == null) {
+            return;
+        }
+        // 评分线程可能仍在写入统计，一次读取快照保证汇总各项一致
+        StreamingScoringSession.Stats stats = state.stats();
+        log.info("流式评分连接关闭, 用户: {}, 已评分帧数: {}, 丢弃消息数: {}", state.getUserId(),
+                stats.scoredFrames(), state.getDropped());
+        if (stats.scoredFrames() > 0) {
+            Map<String, Object> extraData = new HashMap<>();
+            extraData.put("frameCount", stats.scoredFrames());
+            extraData.put("minScore", stats.minScore());
+            extraData.put("maxScore", stats.maxScore());
+            extraData.put("dropped", state.getDropped());
+            extraData.put("repCount", state.getRepCount());
+            extraData.put("source", "websocket");
+            scoringService.publishScoringEvent(state.getMoveId(), state.getUserId(), stats.averageScore(),
+                    extraData);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scoringExecutor.shutdownNow();
+    }
+
+    /**
+     * 入队并在必要时调度该连接的评分任务
+     */
+    private void enqueue(WebSocketSession session, float[] frames) {
+        StreamingScoringSession state = states.get(session.getId());
+        if (state == null) {
+            return;
+        }
+        if (state.offer(frames)) {
+            droppedCounter.increment();
+        }
+        if (state.tryStartDrain()) {
+            scoringExecutor.execute(() -> drain(state));
+        }
+    }
+
+    /**
+     * 串行消费一个连接的待评分队列
+     */
+    void drain(StreamingScoringSession state) {
+        do {
+            float[] frames;
+            while ((frames = state.poll()) != null) {
+                score(state, frames);
+            }
+        } while (state.finishDrain());
+    }
+
+    private void score(StreamingScoringSession state, float[] frames) {
+        int frameCount = frames.length / PoseSequence.FRAME_LENGTH;
+        try {
+            // 每条消息只做逐帧评分；按次评分由 trackReps 在会话窗口上增量完成
+            BatchScoringResponse result = scoringService.evaluateFrames(
+                    new PoseSequence(state.getMoveId(), state.getUserId(), frameCount, FloatBuffer.wrap(frames)));
+            if (!result.isSuccess()) {
+                // 整条消息的帧都因关键点不可信被跳过，不计入会话统计
+                sendError(state.getSessionId(), String.valueOf(result.getFeedback().get(0)));
+                trackReps(state, frames, frameCount);
+                return;
+            }
+            int scoredFrames = frameCount - (result.getSkippedFrames() != null ? result.getSkippedFrames() : 0);
+            long seq = state.record(result.getScore(), scoredFrames, result.getMinScore(), result.getMaxScore());
+            scoredCounter.increment(scoredFrames);
+
+            Map<String, Object> reply = new LinkedHashMap<>();
+            reply.put("type", "score");
+            reply.put("seq", seq);
+            reply.put("score", result.getScore());
+            reply.put("feedback", result.getFeedback());
+            reply.put("dropped", state.getDropped());
+            send(state.getSessionId(), reply);
+
+            trackReps(state, frames, frameCount);
+        } catch (Exception e) {
+            log.warn("流式评分失败, 会话: {}, 原因: {}", state.getSessionId(), e.getMessage());
+            sendError(state.getSessionId(), "评分失败");
+        }
+    }
+
+    /**
+     * 追加到会话的动作次数窗口，每完成一次动作推送一条按次评分
+     */
+    private void trackReps(StreamingScoringSession state, float[] frames, int frameCount) {
+        RepTracker tracker = state.getRepTracker();
+        if (tracker == null) {
+            return;
+        }
+        ReferenceMotion reference = standardTemplateStore.get(state.getMoveId()).motion();
+        if (reference == null) {
+            return;
+        }
+        tracker.append(frames, frameCount);
+        tracker.pollCompletedReps((window, start, count) -> {
+            Map<String, Object> reply = new LinkedHashMap<>();
+            reply.put("type", "rep");
+            reply.put("rep", state.recordRep());
+            reply.put("score", temporalScoringEngine.scoreRep(window, start, count, reference));
+            reply.put("frames", count);
+            send(state.getSessionId(), reply);
+        });
+    }
+
+    private void sendError(String sessionId, String message) {
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("type", "error");
+        reply.put("message", message);
+        send(sessionId, reply);
+    }
+
+    private void send(String sessionId, Map<String, Object> reply) {
+        WebSocketSession session = outbound.get(sessionId);
+        if (session == null || !session.isOpen()) {
+            return;
+        }
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(reply)));
+        } catch (Exception e) {
+            log.debug("流式评分结果发送失败, 会话: {}, 原因: {}", sessionId, e.getMessage());
+        }
+    }
+}
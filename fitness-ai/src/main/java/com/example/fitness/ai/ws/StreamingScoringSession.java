@@ -0,0 +1,161 @@
+package com.example.fitness.ai.ws;
+
+import com.example.fitness.ai.engine.RepTracker;
+import lombok.Getter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个 WebSocket 连接的流式评分状态
+ *
+ * <p>
+ * 收到的帧先进入容量固定的待评分队列，由评分线程串行消费。
+ * 当客户端发送速度超过服务端评分速度时，丢弃最旧的帧、保留最新的帧，
+ * 保证反馈始终对应用户当前的动作，而不是积压的历史帧。
+ *
+ * <p>
+ * 同一时刻最多只有一个评分任务在消费该队列（由 {@link #tryStartDrain()} 保证），
+ * 因此统计字段只由消费线程写入。连接关闭回调运行在容器 IO 线程上，
+ * 统计结果以不可变快照 {@link Stats} 经 {@code volatile} 引用整体发布，保证读到的各项一致且可见。
+ */
+public class StreamingScoringSession {
+
+    @Getter
+    private final String sessionId;
+
+    @Getter
+    private final String userId;
+
+    @Getter
+    private final String moveId;
+
+    /** 动作次数跟踪器，动作未配置参考动作时为 {@code null} */
+    @Getter
+    private final RepTracker repTracker;
+
+    /** 已完成的动作次数 */
+    @Getter
+    private volatile int repCount;
+
+    /** 待评分的帧数据，每个元素为一条消息携带的 1~N 帧 */
+    private final ArrayBlockingQueue<float[]> pending;
+
+    /** 是否已有评分任务在消费队列 */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /** 因积压被丢弃的消息数 */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** 已返回的评分结果序号，仅由消费线程读写 */
+    private long sequence;
+
+    /** 当前统计快照，消费线程每记录一条结果整体替换 */
+    private volatile Stats stats = Stats.EMPTY;
+
+    public StreamingScoringSession(String sessionId, String userId, String moveId, int maxPending) {
+        this(sessionId, userId, moveId, maxPending, null);
+    }
+
+    public StreamingScoringSession(String sessionId, String userId, String moveId, int maxPending,
+            RepTracker repTracker) {
+        this.sessionId = sessionId;
+        this.userId = userId;
+        this.moveId = moveId;
+        this.pending = new ArrayBlockingQueue<>(maxPending);
+        this.repTracker = repTracker;
+    }
+
+    /**
+     * 入队待评分帧，队列已满时丢弃最旧的一条
+     *
+     * @return 本次是否发生了丢弃
+     */
+    public boolean offer(float[] frames) {
+        boolean droppedOldest = false;
+        while (!pending.offer(frames)) {
+            if (pending.poll() != null) {
+                dropped.incrementAndGet();
+                droppedOldest = true;
+            }
+        }
+        return droppedOldest;
+    }
+
+    /**
+     * 取出下一条待评分帧，队列为空时返回 {@code null}
+     */
+    public float[] poll() {
+        return pending.poll();
+    }
+
+    /**
+     * 尝试成为队列的唯一消费者
+     */
+    public boolean tryStartDrain() {
+        return draining.compareAndSet(false, true);
+    }
+
+    /**
+     * 结束消费；若期间又有新帧入队则需要重新调度
+     *
+     * @return 是否需要再次调度消费任务
+     */
+    public boolean finishDrain() {
+        draining.set(false);
+        return !pending.isEmpty() && tryStartDrain();
+    }
+
+    /**
+     * 记录一条消息的评分结果
+     *
+     * @return 该结果的序号（从 1 开始）
+     */
+    public long record(int score, int frameCount, int min, int max) {
+        Stats current = stats;
+        stats = new Stats(current.scoredFrames() + frameCount, current.scoreSum() + (long) score * frameCount,
+                Math.min(current.minScore(), min), Math.max(current.maxScore(), max));
+        return ++sequence;
+    }
+
+    /**
+     * 记录一次完成的动作
+     *
+     * @return 该动作的序号（从 1 开始）
+     */
+    public int recordRep() {
+        // 只有消费线程写入，volatile 保证关闭回调可见
+        int next = repCount + 1;
+        repCount = next;
+        return next;
+    }
+
+    /** 因积压被丢弃的消息数 */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /** 当前统计快照，可在任意线程读取 */
+    public Stats stats() {
+        return stats;
+    }
+
+    /**
+     * 会话评分统计的不可变快照
+     *
+     * @param scoredFrames 已评分帧数
+     * @param scoreSum     按帧加权的分数总和
+     * @param minScore     最低分
+     * @param maxScore     最高分
+     */
+    public record Stats(long scoredFrames, long scoreSum, int minScore, int maxScore) {
+
+        static final Stats EMPTY = new Stats(0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+        /** 所有已评分帧的平均分 */
+        public int averageScore() {
+            return scoredFrames == 0 ? 0 : (int) (scoreSum / scoredFrames);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.fitness.ai;
+
+import com.example.fitness.ai.engine.PoseFeatureExtractor;
+import com.example.fitness.ai.engine.TemporalScoringEngine;
+import com.example.fitness.ai.event.ScoringEventPublisher;
+import com.example.fitness.ai.kernel.ScalarSimilarityKernel;
+import com.example.fitness.ai.kernel.SimilarityKernel;
+import com.example.fitness.ai.mapper.MoveTemplateMapper;
+import com.example.fitness.ai.model.entity.MoveTemplate;
+import com.example.fitness.ai.service.impl.UserScoringServiceImpl;
+import com.example.fitness.ai.template.StandardTemplateStore;
+import com.example.fitness.api.dto.BatchScoringRequest;
+import com.example.fitness.api.dto.BatchScoringResponse;
+import com.example.fitness.api.dto.PoseFrame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * 关节特征提取单元测试
+ * 覆盖平移/缩放不变性、退化姿态、按动作配置切换特征模式以及低置信度帧的跳过
+ */
+public class PoseFeatureExtractorTest {
+
+    /**
+     * 站立姿态的 17 个关键点坐标 {@code [x0, y0, ...]}，按 {@code (dx, dy, scale)} 变换，膝关节弯曲 {@code bend}
+     */
+    private static double[] pose(double dx, double dy, double scale, double bend) {
+        double[][] points = {
+                { 0.50, 0.10 }, { 0.48, 0.08 }, { 0.52, 0.08 }, { 0.46, 0.09 }, { 0.54, 0.09 },
+                { 0.40, 0.20 }, { 0.60, 0.20 }, { 0.35, 0.35 }, { 0.65, 0.35 }, { 0.33, 0.50 }, { 0.67, 0.50 },
+                { 0.44, 0.50 }, { 0.56, 0.50 }, { 0.44 - bend, 0.70 }, { 0.56 + bend, 0.70 },
+                { 0.44, 0.90 }, { 0.56, 0.90 },
+        };
+        double[] coords = new double[34];
+        for (int k = 0; k < 17; k++) {
+            coords[k * 2] = dx + points[k][0] * scale;
+            coords[k * 2 + 1] = dy + points[k][1] * scale;
+        }
+        return coords;
+    }
+
+    private static PoseFrame frame(double[] coords, float confidence) {
+        float[] data = new float[PoseFrame.MAX_LENGTH];
+        for (int k = 0; k < 17; k++) {
+            data[k * 3] = (float) coords[k * 2];
+            data[k * 3 + 1] = (float) coords[k * 2 + 1];
+            data[k * 3 + 2] = confidence;
+        }
+        return new PoseFrame(data, 17);
+    }
+
+    private static String toJson(double[] coords) {
+        return Arrays.toString(coords);
+    }
+
+    @Test
+    public void testInvariantToTranslationAndScale() {
+        double[] base = new double[PoseFeatureExtractor.FEATURE_LENGTH];
+        double[] moved = new double[PoseFeatureExtractor.FEATURE_LENGTH];
+
+        Assertions.assertTrue(PoseFeatureExtractor.extract(pose(0, 0, 1, 0), base));
+        Assertions.assertTrue(PoseFeatureExtractor.extract(pose(0.2, -0.1, 0.5, 0), moved));
+
+        Assertions.assertArrayEquals(base, moved, 1e-9);
+        Assertions.assertEquals(1.0, PoseFeatureExtractor.similarity(moved, base, 0.0), 1e-9);
+    }
+
+    @Test
+    public void testBentKneesLowerSimilarity() {
+        double[] standing = new double[PoseFeatureExtractor.FEATURE_LENGTH];
+        double[] bent = new double[PoseFeatureExtractor.FEATURE_LENGTH];
+        PoseFeatureExtractor.extract(pose(0, 0, 1, 0), standing);
+        PoseFeatureExtractor.extract(pose(0, 0, 1, 0.15), bent);
+
+        double similarity = PoseFeatureExtractor.similarity(bent, standing, 0.0);
+        Assertions.assertTrue(similarity < 0.95, "屈膝后相似度应明显下降: " + similarity);
+        // 容差足够大时只剩骨骼长度比的误差
+        Assertions.assertTrue(PoseFeatureExtractor.similarity(bent, standing, Math.toRadians(90)) > similarity);
+    }
+
+    @Test
+    public void testDegeneratePoseRejected() {
+        double[] coords = new double[34];
+        Arrays.fill(coords, 0.5);
+        Assertions.assertFalse(PoseFeatureExtractor.extract(coords, new double[PoseFeatureExtractor.FEATURE_LENGTH]));
+    }
+
+    @Test
+    public void testJointAngleModeSkipsLowConfidenceFrames() {
+        MoveTemplate row = new MoveTemplate();
+        row.setId("m_squat");
+        row.setReferenceVectorJson(toJson(pose(0, 0, 1, 0)));
+        row.setScoringConfigJson("{\"featureMode\": \"joint_angles\", \"minConfidence\": 0.5}");
+        row.setUpdatedAt(LocalDateTime.now());
+        MoveTemplateMapper mapper = Mockito.mock(MoveTemplateMapper.class);
+        Mockito.when(mapper.selectList(any())).thenReturn(List.of(row));
+        StandardTemplateStore store = new StandardTemplateStore(mapper, new ObjectMapper(),
+                new SimpleMeterRegistry(), "m_squat", 600_000L);
+        store.afterPropertiesSet();
+        Assertions.assertTrue(store.get("m_squat").usesJointFeatures());
+
+        SimilarityKernel kernel = new ScalarSimilarityKernel();
+        UserScoringServiceImpl service = new UserScoringServiceImpl(Mockito.mock(ScoringEventPublisher.class), store,
+                new TemporalScoringEngine(kernel), kernel);
+
+        // 第 1 帧：同一姿态，离摄像头更远且偏向一侧；第 2 帧：关键点置信度不足
+        BatchScoringRequest req = new BatchScoringRequest();
+        req.setMoveId("m_squat");
+        req.setFrames(List.of(frame(pose(0.3, 0.2, 0.4, 0), 0.9f), frame(pose(0, 0, 1, 0), 0.2f)));
+
+        BatchScoringResponse response = service.calculateBatchScore(req);
+
+        // float 坐标的舍入误差可能使分数截断为 99
+        Assertions.assertTrue(response.isSuccess());
+        Assertions.assertTrue(response.getFrameScores()[0] >= 99);
+        Assertions.assertEquals(-1, response.getFrameScores()[1]);
+        Assertions.assertEquals(1, response.getSkippedFrames());
+        Assertions.assertEquals(response.getFrameScores()[0], response.getScore());
+        Assertions.assertEquals(response.getFrameScores()[0], response.getMinScore());
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.fitness.ai;
 
+import com.example.fitness.ai.codec.PoseFrameBinaryCodec;
 import com.example.fitness.ai.controller.ScoringController;
 import com.example.fitness.ai.service.ScoringService;
+import com.example.fitness.api.dto.BatchScoringResponse;
 import com.example.fitness.api.dto.ScoringRequest;
 import com.example.fitness.api.dto.ScoringResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -50,11 +52,137 @@ public class ScoringControllerTest {
         request.setMoveId("m1");
 
         mockMvc.perform(post("/api/ai/score")
+                .requestAttr("userId", "u_1")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data.score").value(90));
+
+        // 评分事件归属当前登录用户
+        Mockito.verify(scoringService).calculateScore(Mockito.argThat(req -> "u_1".equals(req.getUserId())));
+    }
+
+    /**
+     * 测试动作评分接口：请求体中的 userId 与登录用户不一致时拒绝
+     */
+    @Test
+    public void testScore_ForeignUserId() throws Exception {
+        mockMvc.perform(post("/api/ai/score")
+                .requestAttr("userId", "u_1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"moveId\":\"m1\",\"userId\":\"u_2\"}"))
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.code").value(403));
+
+        mockMvc.perform(post("/api/ai/score")
+                .requestAttr("userId", "u_1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"moveId\":\"m1\",\"data\":{\"userId\":\"u_2\"}}"))
+                .andExpect(jsonPath("$.code").value(403));
+
+        Mockito.verify(scoringService, Mockito.never()).calculateScore(any());
+    }
+
+    /**
+     * 测试动作评分接口：未登录时返回未授权
+     */
+    @Test
+    public void testScore_NotLoggedIn() throws Exception {
+        mockMvc.perform(post("/api/ai/score")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"moveId\":\"m1\"}"))
+                .andExpect(jsonPath("$.code").value(401));
+
+        Mockito.verify(scoringService, Mockito.never()).calculateScore(any());
+    }
+
+    /**
+     * 测试二进制动作评分接口
+     */
+    @Test
+    public void testScoreBinary() throws Exception {
+        ScoringResponse mockResponse = new ScoringResponse();
+        mockResponse.setSuccess(true);
+        mockResponse.setScore(88);
+
+        Mockito.when(scoringService.calculateSequenceScore(any())).thenReturn(mockResponse);
+
+        byte[] body = PoseFrameBinaryCodec.encode("m_squat", "u_1", new float[51 * 2], 2);
+
+        mockMvc.perform(post("/api/ai/score")
+                .requestAttr("userId", "u_1")
+                .contentType(PoseFrameBinaryCodec.MEDIA_TYPE)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.score").value(88));
+
+        Mockito.verify(scoringService).calculateSequenceScore(Mockito.argThat(seq -> seq.frameCount() == 2
+                && "m_squat".equals(seq.moveId()) && "u_1".equals(seq.userId())));
+    }
+
+    /**
+     * 测试二进制动作评分接口：帧内未携带 userId 时归属登录用户，携带其他用户时拒绝
+     */
+    @Test
+    public void testScoreBinary_BindsLoginUser() throws Exception {
+        Mockito.when(scoringService.calculateSequenceScore(any())).thenReturn(new ScoringResponse());
+
+        mockMvc.perform(post("/api/ai/score")
+                .requestAttr("userId", "u_1")
+                .contentType(PoseFrameBinaryCodec.MEDIA_TYPE)
+                .content(PoseFrameBinaryCodec.encode("m_squat", null, new float[51], 1)))
+                .andExpect(status().isOk());
+        Mockito.verify(scoringService).calculateSequenceScore(Mockito.argThat(seq -> "u_1".equals(seq.userId())));
+
+        mockMvc.perform(post("/api/ai/score")
+                .requestAttr("userId", "u_1")
+                .contentType(PoseFrameBinaryCodec.MEDIA_TYPE)
+                .content(PoseFrameBinaryCodec.encode("m_squat", "u_2", new float[51], 1)))
+                .andExpect(jsonPath("$.code").value(403));
+        Mockito.verify(scoringService, Mockito.times(1)).calculateSequenceScore(any());
+    }
+
+    /**
+     * 测试批量动作评分接口
+     */
+    @Test
+    public void testScoreBatch() throws Exception {
+        BatchScoringResponse mockResponse = BatchScoringResponse.builder()
+                .success(true)
+                .score(75)
+                .frameScores(new int[] { 70, 80 })
+                .build();
+
+        Mockito.when(scoringService.calculateBatchScore(any())).thenReturn(mockResponse);
+
+        String body = "{\"moveId\":\"m_squat\",\"frames\":[[0.5,0.5,1.0],[0.4,0.6,0.9]]}";
+
+        mockMvc.perform(post("/api/ai/score/batch")
+                .requestAttr("userId", "u_1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.score").value(75))
+                .andExpect(jsonPath("$.data.frameScores[1]").value(80));
+
+        Mockito.verify(scoringService).calculateBatchScore(Mockito.argThat(req -> req.getFrames().size() == 2
+                && req.getFrames().get(1).getKeypointCount() == 1 && "u_1".equals(req.getUserId())));
+    }
+
+    /**
+     * 测试批量动作评分接口：请求体中的 userId 与登录用户不一致时拒绝
+     */
+    @Test
+    public void testScoreBatch_ForeignUserId() throws Exception {
+        mockMvc.perform(post("/api/ai/score/batch")
+                .requestAttr("userId", "u_1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"moveId\":\"m_squat\",\"userId\":\"u_2\",\"frames\":[]}"))
+                .andExpect(jsonPath("$.code").value(403));
+
+        Mockito.verify(scoringService, Mockito.never()).calculateBatchScore(any());
     }
 
     /**
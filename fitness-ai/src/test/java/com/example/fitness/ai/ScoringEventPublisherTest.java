@@ -0,0 +1,176 @@
+package com.example.fitness.ai;
+
+import com.example.fitness.ai.event.ScoringEventPublisher;
+import com.example.fitness.api.dto.ScoringResultEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * 评分事件发布器单元测试
+ * 覆盖批量发送、缓冲区满时丢弃、Kafka 不可用时溢写到本地分段日志、恢复后分批重放以及溢写日志写满时丢弃
+ */
+public class ScoringEventPublisherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static ScoringResultEvent event(String userId, int score) {
+        return ScoringResultEvent.builder()
+                .userId(userId)
+                .moveId("m_squat")
+                .score(score)
+                .timestamp(LocalDateTime.now())
+                .extraData(Map.of("duration", 5))
+                .build();
+    }
+
+    private ScoringEventPublisher publisher(KafkaTemplate<String, Object> kafkaTemplate,
+            SimpleMeterRegistry registry, int capacity, long retryBackoffMillis) throws IOException {
+        return publisher(kafkaTemplate, registry, capacity, retryBackoffMillis, 1024 * 1024);
+    }
+
+    private ScoringEventPublisher publisher(KafkaTemplate<String, Object> kafkaTemplate,
+            SimpleMeterRegistry registry, int capacity, long retryBackoffMillis, long spillMaxBytes)
+            throws IOException {
+        return new ScoringEventPublisher(kafkaTemplate, new ObjectMapper().findAndRegisterModules(), registry,
+                capacity, 16, 1000, retryBackoffMillis, tempDir.resolve("spill").toString(), 64 * 1024,
+                spillMaxBytes);
+    }
+
+    private static double backlog(SimpleMeterRegistry registry) {
+        return registry.get("ai.event.spill.backlog").gauge().value();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPublishSendsToKafka() throws Exception {
+        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+        Mockito.when(kafkaTemplate.send(anyString(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ScoringEventPublisher publisher = publisher(kafkaTemplate, registry, 64, 5000);
+        publisher.afterPropertiesSet();
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(publisher.publish(event("u_" + i, 80)));
+        }
+
+        Mockito.verify(kafkaTemplate, Mockito.timeout(2000).times(3))
+                .send(eq(ScoringEventPublisher.TOPIC), eq("m_squat"), any());
+        publisher.destroy();
+        Assertions.assertEquals(3, registry.get("ai.event.publish.latency").timer().count());
+        Assertions.assertEquals(0, registry.get("ai.event.spilled").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQueueFullDropsWithoutBlocking() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // 不启动发布线程，缓冲区只进不出
+        ScoringEventPublisher publisher = publisher(Mockito.mock(KafkaTemplate.class), registry, 2, 5000);
+
+        Assertions.assertTrue(publisher.publish(event("u_1", 80)));
+        Assertions.assertTrue(publisher.publish(event("u_2", 80)));
+        Assertions.assertFalse(publisher.publish(event("u_3", 80)));
+
+        Assertions.assertEquals(2, registry.get("ai.event.queue.depth").gauge().value());
+        Assertions.assertEquals(1, registry.get("ai.event.dropped").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testKafkaDownSpillsAndReplaysOnRecovery() throws Exception {
+        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+        Mockito.when(kafkaTemplate.send(anyString(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ScoringEventPublisher publisher = publisher(kafkaTemplate, registry, 64, 0);
+        publisher.afterPropertiesSet();
+
+        // 第一条发送失败，写入溢写日志；退避期为 0，随即被重放
+        publisher.publish(event("u_spilled", 55));
+        Mockito.verify(kafkaTemplate, Mockito.timeout(2000).times(2)).send(anyString(), any(), any());
+        waitUntil(() -> registry.get("ai.event.replayed").counter().count() == 1);
+        Assertions.assertEquals(0, backlog(registry));
+        publisher.destroy();
+
+        Assertions.assertEquals(1, registry.get("ai.event.spilled").counter().count());
+        Mockito.verify(kafkaTemplate, Mockito.times(2)).send(eq(ScoringEventPublisher.TOPIC), eq("m_squat"),
+                Mockito.argThat(e -> "u_spilled".equals(((ScoringResultEvent) e).getUserId())));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBacklogSurvivesRestartAndReplaysInBatches() throws Exception {
+        // Kafka 始终不可用：事件溢写后停机
+        KafkaTemplate<String, Object> downTemplate = Mockito.mock(KafkaTemplate.class);
+        Mockito.when(downTemplate.send(anyString(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+        SimpleMeterRegistry downRegistry = new SimpleMeterRegistry();
+        ScoringEventPublisher down = publisher(downTemplate, downRegistry, 64, 60_000);
+        down.afterPropertiesSet();
+        for (int i = 0; i < 40; i++) {
+            down.publish(event("u_" + i, 70));
+        }
+        waitUntil(() -> downRegistry.get("ai.event.spilled").counter().count() == 40);
+        down.destroy();
+
+        // 重启后 Kafka 已恢复：积压按批（16 条）重放，全部确认后清空
+        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+        Mockito.when(kafkaTemplate.send(anyString(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ScoringEventPublisher publisher = publisher(kafkaTemplate, registry, 64, 0);
+        Assertions.assertEquals(40, backlog(registry));
+        publisher.afterPropertiesSet();
+
+        waitUntil(() -> registry.get("ai.event.replayed").counter().count() == 40);
+        Assertions.assertEquals(0, backlog(registry));
+        publisher.destroy();
+        Mockito.verify(kafkaTemplate, Mockito.times(40)).send(eq(ScoringEventPublisher.TOPIC), eq("m_squat"), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSpillFullDrops() throws Exception {
+        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+        Mockito.when(kafkaTemplate.send(anyString(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // 上限取整后为两个 64 KB 分段
+        ScoringEventPublisher publisher = publisher(kafkaTemplate, registry, 8192, 60_000, 0);
+        publisher.afterPropertiesSet();
+
+        int total = 2000;
+        for (int i = 0; i < total; i++) {
+            publisher.publish(event("u_" + i, 70));
+        }
+        waitUntil(() -> registry.get("ai.event.spilled").counter().count()
+                + registry.get("ai.event.dropped").counter().count() == total);
+        Assertions.assertTrue(registry.get("ai.event.dropped").counter().count() > 0);
+        Assertions.assertEquals(registry.get("ai.event.spilled").counter().count(), backlog(registry));
+        publisher.destroy();
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(condition.getAsBoolean());
+    }
+}
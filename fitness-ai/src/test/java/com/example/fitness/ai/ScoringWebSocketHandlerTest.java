@@ -0,0 +1,226 @@
+package com.example.fitness.ai;
+
+import com.example.fitness.ai.engine.TemporalScoringEngine;
+import com.example.fitness.ai.kernel.ScalarSimilarityKernel;
+import com.example.fitness.ai.mapper.MoveTemplateMapper;
+import com.example.fitness.ai.service.ScoringService;
+import com.example.fitness.ai.template.StandardTemplateStore;
+import com.example.fitness.ai.ws.JwtHandshakeInterceptor;
+import com.example.fitness.ai.ws.ScoringWebSocketHandler;
+import com.example.fitness.ai.ws.StreamingScoringSession;
+import com.example.fitness.api.dto.BatchScoringResponse;
+import com.example.fitness.common.auth.TokenRevocationService;
+import com.example.fitness.common.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * 流式评分 WebSocket 单元测试
+ * 覆盖握手鉴权、帧评分回推、非法帧回推错误、积压丢弃和连接关闭时的汇总事件
+ */
+public class ScoringWebSocketHandlerTest {
+
+    private static StandardTemplateStore templateStore() {
+        return new StandardTemplateStore(Mockito.mock(MoveTemplateMapper.class), new ObjectMapper(),
+                new SimpleMeterRegistry(), "m_squat", 600_000L);
+    }
+
+    @Test
+    public void testHandshake_TokenFromQueryParam() {
+        JwtUtil jwtUtil = Mockito.mock(JwtUtil.class);
+        Mockito.when(jwtUtil.verify("good")).thenReturn(new JwtUtil.VerifiedToken("u_1", "jti_1", Long.MAX_VALUE));
+        JwtHandshakeInterceptor interceptor = new JwtHandshakeInterceptor(jwtUtil,
+                Mockito.mock(TokenRevocationService.class));
+
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/ws/ai/score");
+        servletRequest.setQueryString("moveId=m_squat&token=good");
+        Map<String, Object> attributes = new HashMap<>();
+
+        boolean accepted = interceptor.beforeHandshake(new ServletServerHttpRequest(servletRequest),
+                new ServletServerHttpResponse(new MockHttpServletResponse()), null, attributes);
+
+        Assertions.assertTrue(accepted);
+        Assertions.assertEquals("u_1", attributes.get(JwtHandshakeInterceptor.ATTR_USER_ID));
+        Assertions.assertEquals("m_squat", attributes.get(JwtHandshakeInterceptor.ATTR_MOVE_ID));
+    }
+
+    @Test
+    public void testHandshake_InvalidToken() {
+        JwtUtil jwtUtil = Mockito.mock(JwtUtil.class);
+        Mockito.when(jwtUtil.verify(any())).thenThrow(new RuntimeException("expired"));
+        JwtHandshakeInterceptor interceptor = new JwtHandshakeInterceptor(jwtUtil,
+                Mockito.mock(TokenRevocationService.class));
+
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/ws/ai/score");
+        servletRequest.setQueryString("moveId=m_squat");
+        servletRequest.addHeader("Authorization", "Bearer bad");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        boolean accepted = interceptor.beforeHandshake(new ServletServerHttpRequest(servletRequest),
+                new ServletServerHttpResponse(servletResponse), null, new HashMap<>());
+
+        Assertions.assertFalse(accepted);
+        Assertions.assertEquals(HttpStatus.UNAUTHORIZED.value(), servletResponse.getStatus());
+    }
+
+    @Test
+    public void testHandshake_RevokedToken() {
+        JwtUtil jwtUtil = Mockito.mock(JwtUtil.class);
+        Mockito.when(jwtUtil.verify("revoked")).thenReturn(new JwtUtil.VerifiedToken("u_1", "jti_1", Long.MAX_VALUE));
+        TokenRevocationService revocationService = Mockito.mock(TokenRevocationService.class);
+        Mockito.when(revocationService.isRevoked("jti_1", Long.MAX_VALUE)).thenReturn(true);
+        JwtHandshakeInterceptor interceptor = new JwtHandshakeInterceptor(jwtUtil, revocationService);
+
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/ws/ai/score");
+        servletRequest.setQueryString("moveId=m_squat&token=revoked");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        boolean accepted = interceptor.beforeHandshake(new ServletServerHttpRequest(servletRequest),
+                new ServletServerHttpResponse(servletResponse), null, new HashMap<>());
+
+        Assertions.assertFalse(accepted);
+        Assertions.assertEquals(HttpStatus.UNAUTHORIZED.value(), servletResponse.getStatus());
+    }
+
+    @Test
+    public void testBinaryFrameScoredAndSummaryPublishedOnClose() throws Exception {
+        ScoringService scoringService = Mockito.mock(ScoringService.class);
+        Mockito.when(scoringService.evaluateFrames(any())).thenReturn(BatchScoringResponse.builder()
+                .success(true).score(80).minScore(80).maxScore(80)
+                .frameScores(new int[] { 80 }).feedback(List.of("完美！保持这个节奏")).build());
+
+        ScoringWebSocketHandler handler = new ScoringWebSocketHandler(scoringService, templateStore(),
+                new TemporalScoringEngine(new ScalarSimilarityKernel()), new ObjectMapper(),
+                new SimpleMeterRegistry(), 8);
+
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(JwtHandshakeInterceptor.ATTR_USER_ID, "u_1");
+        attributes.put(JwtHandshakeInterceptor.ATTR_MOVE_ID, "m_squat");
+        Mockito.when(session.getId()).thenReturn("s1");
+        Mockito.when(session.getAttributes()).thenReturn(attributes);
+        Mockito.when(session.isOpen()).thenReturn(true);
+
+        handler.afterConnectionEstablished(session);
+
+        ByteBuffer payload = ByteBuffer.allocate(51 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        handler.handleMessage(session, new BinaryMessage(payload.array()));
+
+        ArgumentCaptor<TextMessage> reply = ArgumentCaptor.forClass(TextMessage.class);
+        Mockito.verify(session, Mockito.timeout(2000)).sendMessage(reply.capture());
+        Map<?, ?> body = new ObjectMapper().readValue(reply.getValue().getPayload(), Map.class);
+        Assertions.assertEquals("score", body.get("type"));
+        Assertions.assertEquals(80, body.get("score"));
+        Assertions.assertEquals(1, body.get("seq"));
+
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        Mockito.verify(scoringService).publishScoringEvent(eq("m_squat"), eq("u_1"), eq(80), anyMap());
+        handler.destroy();
+    }
+
+    @Test
+    public void testStreamingSession_DropsOldestWhenFull() {
+        StreamingScoringSession state = new StreamingScoringSession("s1", "u_1", "m_squat", 2);
+        float[] first = new float[51];
+        float[] second = new float[51];
+        float[] third = new float[51];
+
+        Assertions.assertFalse(state.offer(first));
+        Assertions.assertFalse(state.offer(second));
+        Assertions.assertTrue(state.offer(third));
+
+        Assertions.assertEquals(1, state.getDropped());
+        Assertions.assertSame(second, state.poll());
+        Assertions.assertSame(third, state.poll());
+        Assertions.assertNull(state.poll());
+    }
+
+    @Test
+    public void testBinaryFrame_InvalidLengthRejected() throws Exception {
+        ScoringService scoringService = Mockito.mock(ScoringService.class);
+        ScoringWebSocketHandler handler = new ScoringWebSocketHandler(scoringService, templateStore(),
+                new TemporalScoringEngine(new ScalarSimilarityKernel()), new ObjectMapper(),
+                new SimpleMeterRegistry(), 8);
+
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn("s2");
+        Mockito.when(session.getAttributes()).thenReturn(new HashMap<>(Map.of(
+                JwtHandshakeInterceptor.ATTR_USER_ID, "u_1", JwtHandshakeInterceptor.ATTR_MOVE_ID, "m_squat")));
+        Mockito.when(session.isOpen()).thenReturn(true);
+        handler.afterConnectionEstablished(session);
+
+        handler.handleMessage(session, new BinaryMessage(new byte[7]));
+
+        ArgumentCaptor<TextMessage> reply = ArgumentCaptor.forClass(TextMessage.class);
+        Mockito.verify(session).sendMessage(reply.capture());
+        Assertions.assertTrue(reply.getValue().getPayload().contains("\"type\":\"error\""));
+        Mockito.verify(scoringService, Mockito.never()).evaluateFrames(any());
+        Mockito.verify(scoringService, Mockito.never()).publishScoringEvent(any(), any(), anyInt(), anyMap());
+        handler.destroy();
+    }
+
+    @Test
+    public void testTextFrame_MalformedJsonRejected() throws Exception {
+        ScoringService scoringService = Mockito.mock(ScoringService.class);
+        ScoringWebSocketHandler handler = new ScoringWebSocketHandler(scoringService, templateStore(),
+                new TemporalScoringEngine(new ScalarSimilarityKernel()), new ObjectMapper(),
+                new SimpleMeterRegistry(), 8);
+
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn("s3");
+        Mockito.when(session.getAttributes()).thenReturn(new HashMap<>(Map.of(
+                JwtHandshakeInterceptor.ATTR_USER_ID, "u_1", JwtHandshakeInterceptor.ATTR_MOVE_ID, "m_squat")));
+        Mockito.when(session.isOpen()).thenReturn(true);
+        handler.afterConnectionEstablished(session);
+
+        // 非法 JSON 回推错误，连接保持打开
+        Assertions.assertDoesNotThrow(() -> handler.handleMessage(session, new TextMessage("{not json")));
+
+        ArgumentCaptor<TextMessage> reply = ArgumentCaptor.forClass(TextMessage.class);
+        Mockito.verify(session).sendMessage(reply.capture());
+        Assertions.assertTrue(reply.getValue().getPayload().contains("\"type\":\"error\""));
+        Mockito.verify(session, Mockito.never()).close(any());
+        Mockito.verify(scoringService, Mockito.never()).evaluateFrames(any());
+        handler.destroy();
+    }
+
+    @Test
+    public void testStreamingSession_StatsSnapshot() {
+        StreamingScoringSession state = new StreamingScoringSession("s1", "u_1", "m_squat", 2);
+        Assertions.assertEquals(0, state.stats().averageScore());
+
+        state.record(80, 2, 70, 90);
+        state.record(50, 1, 50, 50);
+        StreamingScoringSession.Stats stats = state.stats();
+        Assertions.assertEquals(3, stats.scoredFrames());
+        Assertions.assertEquals(70, stats.averageScore());
+        Assertions.assertEquals(50, stats.minScore());
+        Assertions.assertEquals(90, stats.maxScore());
+        Assertions.assertEquals(1, state.recordRep());
+        Assertions.assertEquals(1, state.getRepCount());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.fitness.ai;
+
+import com.example.fitness.ai.kernel.ScalarSimilarityKernel;
+import com.example.fitness.ai.kernel.SimilarityKernel;
+import com.example.fitness.ai.kernel.SimilarityKernels;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * 相似度内核单元测试
+ * 覆盖内核选择与自动选择的实现（SIMD 可用时为向量实现）与标量实现的结果一致性
+ */
+public class SimilarityKernelTest {
+
+    @Test
+    public void testSelectScalar() {
+        SimilarityKernel kernel = SimilarityKernels.select("scalar");
+        Assertions.assertInstanceOf(ScalarSimilarityKernel.class, kernel);
+        Assertions.assertEquals("scalar", kernel.name());
+    }
+
+    @Test
+    public void testAutoKernelMatchesScalar() {
+        SimilarityKernel scalar = new ScalarSimilarityKernel();
+        SimilarityKernel kernel = SimilarityKernels.select("auto");
+        Random random = new Random(7);
+
+        // 覆盖短于一个向量宽度、整倍数与带尾部三种长度
+        for (int length : new int[] { 3, 16, 34, 51, 101 }) {
+            float[] fa = new float[length + 1];
+            float[] fb = new float[length + 2];
+            double[] da = new double[length];
+            double[] db = new double[length];
+            for (int i = 0; i < length; i++) {
+                fa[i + 1] = random.nextFloat();
+                fb[i + 2] = random.nextFloat();
+                da[i] = fa[i + 1];
+                db[i] = fb[i + 2];
+            }
+            Assertions.assertEquals(scalar.dot(fa, 1, fb, 2, length), kernel.dot(fa, 1, fb, 2, length),
+                    1e-4 * length, kernel.name());
+            Assertions.assertEquals(scalar.dot(da, 0, db, 0, length), kernel.dot(da, 0, db, 0, length), 1e-9,
+                    kernel.name());
+        }
+    }
+
+    @Test
+    public void testDotRowsMatchesScalar() {
+        SimilarityKernel scalar = new ScalarSimilarityKernel();
+        SimilarityKernel kernel = SimilarityKernels.select("auto");
+        Random random = new Random(11);
+        int length = 34;
+        int rows = 60;
+        float[] query = new float[length];
+        float[] matrix = new float[rows * length];
+        for (int i = 0; i < query.length; i++) {
+            query[i] = random.nextFloat();
+        }
+        for (int i = 0; i < matrix.length; i++) {
+            matrix[i] = random.nextFloat();
+        }
+
+        float[] expected = new float[rows];
+        float[] actual = new float[rows];
+        scalar.dotRows(query, 0, matrix, 5, 40, length, expected, 1);
+        kernel.dotRows(query, 0, matrix, 5, 40, length, actual, 1);
+
+        Assertions.assertEquals(0f, actual[0]);
+        for (int r = 1; r <= 40; r++) {
+            Assertions.assertEquals(expected[r], actual[r], 1e-3, kernel.name());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.fitness.ai;
+
+import com.example.fitness.ai.mapper.MoveTemplateMapper;
+import com.example.fitness.ai.model.entity.MoveTemplate;
+import com.example.fitness.ai.template.StandardTemplate;
+import com.example.fitness.ai.template.StandardTemplateStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * 标准模板仓库单元测试
+ * 覆盖全量加载、增量刷新、全量对账剔除、回退逻辑和命中指标
+ */
+public class StandardTemplateStoreTest {
+
+    private static MoveTemplate row(String id, String vectorJson, LocalDateTime updatedAt) {
+        MoveTemplate template = new MoveTemplate();
+        template.setId(id);
+        template.setReferenceVectorJson(vectorJson);
+        template.setUpdatedAt(updatedAt);
+        return template;
+    }
+
+    private static String filledVector(double value) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < StandardTemplateStore.VECTOR_LENGTH; i++) {
+            sb.append(i == 0 ? "" : ",").append(value);
+        }
+        return sb.append(']').toString();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLoadAndIncrementalRefresh() {
+        MoveTemplateMapper mapper = Mockito.mock(MoveTemplateMapper.class);
+        LocalDateTime t0 = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Mockito.when(mapper.selectList(any()))
+                .thenReturn(List.of(row("m_squat", filledVector(0.5), t0),
+                        row("m_lunge", filledVector(0.2), t0)))
+                .thenReturn(List.of(row("m_lunge", filledVector(0.8), t0.plusMinutes(1))));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StandardTemplateStore store = new StandardTemplateStore(mapper, new ObjectMapper(),
+                registry, "m_squat", 600_000L);
+        store.afterPropertiesSet();
+
+        Assertions.assertEquals(0.2, store.get("m_lunge").vector()[0], 1e-9);
+        Assertions.assertEquals(2, registry.get("ai.template.size").gauge().value());
+
+        // 增量刷新只覆盖变化的模板，其余保持不变
+        store.refresh();
+        Assertions.assertEquals(0.8, store.get("m_lunge").vector()[0], 1e-9);
+        Assertions.assertEquals(0.5, store.get("m_squat").vector()[0], 1e-9);
+        Assertions.assertEquals(2, registry.get("ai.template.size").gauge().value());
+        Assertions.assertEquals(3, registry.get("ai.template.lookup").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    public void testIncrementalRefreshEvictsClearedVector() {
+        MoveTemplateMapper mapper = Mockito.mock(MoveTemplateMapper.class);
+        LocalDateTime t0 = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Mockito.when(mapper.selectList(any()))
+                .thenReturn(List.of(row("m_squat", filledVector(0.5), t0),
+                        row("m_lunge", filledVector(0.2), t0)))
+                .thenReturn(List.of(row("m_lunge", null, t0.plusMinutes(1))));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StandardTemplateStore store = new StandardTemplateStore(mapper, new ObjectMapper(),
+                registry, "m_squat", 600_000L);
+        store.afterPropertiesSet();
+        store.refresh();
+
+        // 参考向量被置空的模板从索引移除，查询回退到默认动作
+        Assertions.assertEquals(1, registry.get("ai.template.size").gauge().value());
+        Assertions.assertEquals("m_squat", store.get("m_lunge").moveId());
+    }
+
+    @Test
+    public void testFullReloadEvictsDeletedTemplate() {
+        MoveTemplateMapper mapper = Mockito.mock(MoveTemplateMapper.class);
+        LocalDateTime t0 = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Mockito.when(mapper.selectList(any()))
+                .thenReturn(List.of(row("m_squat", filledVector(0.5), t0),
+                        row("m_lunge", filledVector(0.2), t0)))
+                .thenReturn(List.of(row("m_squat", filledVector(0.5), t0)));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // 对账间隔为 0：每次刷新都全量重建索引
+        StandardTemplateStore store = new StandardTemplateStore(mapper, new ObjectMapper(),
+                registry, "m_squat", 0L);
+        store.afterPropertiesSet();
+        Assertions.assertEquals(2, registry.get("ai.template.size").gauge().value());
+
+        // 已删除的行不在全量结果中，对账后被剔除
+        store.refresh();
+        Assertions.assertEquals(1, registry.get("ai.template.size").gauge().value());
+        Assertions.assertEquals("m_squat", store.get("m_lunge").moveId());
+    }
+
+    @Test
+    public void testFallbackToDefaultMove() {
+        MoveTemplateMapper mapper = Mockito.mock(MoveTemplateMapper.class);
+        Mockito.when(mapper.selectList(any()))
+                .thenReturn(List.of(row("m_squat", filledVector(0.3), LocalDateTime.now()),
+                        row("m_bad", "[1.0, 2.0]", LocalDateTime.now())));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StandardTemplateStore store = new StandardTemplateStore(mapper, new ObjectMapper(),
+                registry, "m_squat", 600_000L);
+        store.afterPropertiesSet();
+
+        // 长度非法的模板被跳过，查询时回退到默认动作
+        StandardTemplate template = store.get("m_bad");
+        Assertions.assertEquals("m_squat", template.moveId());
+        Assertions.assertEquals(1, registry.get("ai.template.lookup").tag("result", "fallback").counter().count());
+    }
+
+    @Test
+    public void testDatabaseFailureKeepsBuiltinTemplate() {
+        MoveTemplateMapper mapper = Mockito.mock(MoveTemplateMapper.class);
+        Mockito.when(mapper.selectList(any())).thenThrow(new RuntimeException("db down"))
+                .thenReturn(Collections.emptyList());
+
+        StandardTemplateStore store = new StandardTemplateStore(mapper, new ObjectMapper(),
+                new SimpleMeterRegistry(), "m_squat", 600_000L);
+        Assertions.assertDoesNotThrow(store::afterPropertiesSet);
+
+        StandardTemplate template = store.get("m_unknown");
+        Assertions.assertEquals(StandardTemplateStore.VECTOR_LENGTH, template.vector().length);
+        Assertions.assertEquals(0.5, template.vector()[0], 1e-9);
+    }
+}
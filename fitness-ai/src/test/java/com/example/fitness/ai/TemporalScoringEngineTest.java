@@ -0,0 +1,148 @@
+package com.example.fitness.ai;
+
+import com.example.fitness.ai.engine.DtwAligner;
+import com.example.fitness.ai.engine.RepTracker;
+import com.example.fitness.ai.engine.TemporalScoringEngine;
+import com.example.fitness.ai.kernel.ScalarSimilarityKernel;
+import com.example.fitness.ai.model.PoseSequence;
+import com.example.fitness.ai.template.ReferenceMotion;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 时序评分引擎单元测试
+ * 覆盖动作次数切分、DTW 对齐和流式窗口的增量上报
+ */
+public class TemporalScoringEngineTest {
+
+    /**
+     * 合成深蹲姿态：下蹲深度 depth 越大，上半身与髋部越低（y 越大）
+     */
+    private static void writePose(float[] out, int offset, int stride, double depth, boolean withConfidence) {
+        for (int k = 0; k < 17; k++) {
+            double y;
+            if (k < 11) {
+                y = 0.15 + k * 0.02 + depth;
+            } else if (k < 13) {
+                y = 0.5 + depth;
+            } else if (k < 15) {
+                y = 0.7 + depth * 0.5;
+            } else {
+                y = 0.9;
+            }
+            out[offset + k * stride] = (float) (0.4 + (k % 2) * 0.2);
+            out[offset + k * stride + 1] = (float) y;
+            if (withConfidence) {
+                out[offset + k * stride + 2] = 1f;
+            }
+        }
+    }
+
+    private static double depthAt(int t, int period) {
+        return 0.15 * (1 - Math.cos(2 * Math.PI * t / period)) / 2;
+    }
+
+    private static ReferenceMotion referenceMotion(int period) {
+        double[][] motion = new double[period + 1][];
+        for (int t = 0; t <= period; t++) {
+            float[] frame = new float[ReferenceMotion.FRAME_LENGTH];
+            writePose(frame, 0, 2, depthAt(t, period), false);
+            motion[t] = new double[frame.length];
+            for (int i = 0; i < frame.length; i++) {
+                motion[t][i] = frame[i];
+            }
+        }
+        return ReferenceMotion.of(motion);
+    }
+
+    /**
+     * 静止 rest 帧 + reps 次周期为 period 的深蹲 + 静止 rest 帧
+     */
+    private static float[] squatFrames(int reps, int period, int rest) {
+        int total = rest * 2 + reps * period;
+        float[] frames = new float[total * PoseSequence.FRAME_LENGTH];
+        for (int t = 0; t < total; t++) {
+            int phase = t - rest;
+            double depth = phase >= 0 && phase < reps * period ? depthAt(phase, period) : 0;
+            writePose(frames, t * PoseSequence.FRAME_LENGTH, 3, depth, true);
+        }
+        return frames;
+    }
+
+    @Test
+    public void testScoreReps_SlowerTempoStillMatches() {
+        float[] frames = squatFrames(3, 45, 10);
+        PoseSequence sequence = new PoseSequence("m_squat", "u_1", frames.length / PoseSequence.FRAME_LENGTH,
+                FloatBuffer.wrap(frames));
+
+        int[] scores = new TemporalScoringEngine(new ScalarSimilarityKernel()).scoreReps(sequence, referenceMotion(30));
+
+        Assertions.assertEquals(3, scores.length);
+        for (int score : scores) {
+            Assertions.assertTrue(score >= 90, "节奏不同但动作一致应得高分, 实际: " + score);
+        }
+    }
+
+    @Test
+    public void testScoreReps_HeldPoseIsNotARep() {
+        float[] frames = squatFrames(0, 30, 60);
+        PoseSequence sequence = new PoseSequence("m_squat", "u_1", frames.length / PoseSequence.FRAME_LENGTH,
+                FloatBuffer.wrap(frames));
+
+        Assertions.assertEquals(0, new TemporalScoringEngine(new ScalarSimilarityKernel()).scoreReps(sequence, referenceMotion(30)).length);
+        Assertions.assertEquals(0, new TemporalScoringEngine(new ScalarSimilarityKernel()).scoreReps(sequence, null).length);
+    }
+
+    @Test
+    public void testDtwAligner_IdenticalSequenceHasZeroCost() {
+        ReferenceMotion reference = referenceMotion(30);
+        float[] frames = squatFrames(1, 30, 0);
+
+        double cost = new DtwAligner(new ScalarSimilarityKernel()).align(FloatBuffer.wrap(frames), 0, 30, reference);
+
+        Assertions.assertEquals(0.0, cost, 1e-3);
+    }
+
+    @Test
+    public void testDtwAligner_ReusedBuffersMatchFreshAligner() {
+        ReferenceMotion reference = referenceMotion(30);
+        float[] slow = squatFrames(1, 45, 5);
+        float[] fast = squatFrames(1, 20, 0);
+
+        // 带宽外的格子不再逐行重置，复用实例时上一次调用残留的代价不能影响结果
+        DtwAligner reused = new DtwAligner(new ScalarSimilarityKernel());
+        reused.align(FloatBuffer.wrap(slow), 0, 55, reference);
+        double fastCost = reused.align(FloatBuffer.wrap(fast), 0, 20, reference);
+        double slowCost = reused.align(FloatBuffer.wrap(slow), 0, 55, reference);
+
+        Assertions.assertEquals(new DtwAligner(new ScalarSimilarityKernel())
+                .align(FloatBuffer.wrap(fast), 0, 20, reference), fastCost, 1e-12);
+        Assertions.assertEquals(new DtwAligner(new ScalarSimilarityKernel())
+                .align(FloatBuffer.wrap(slow), 0, 55, reference), slowCost, 1e-12);
+        Assertions.assertTrue(slowCost < 2.0);
+    }
+
+    @Test
+    public void testRepTracker_ReportsEachRepOnce() {
+        float[] frames = squatFrames(3, 40, 10);
+        int total = frames.length / PoseSequence.FRAME_LENGTH;
+        RepTracker tracker = new RepTracker(120);
+        List<Integer> repLengths = new ArrayList<>();
+
+        // 模拟客户端每条消息 5 帧，窗口容量小于总帧数
+        for (int start = 0; start < total; start += 5) {
+            int count = Math.min(5, total - start);
+            float[] chunk = new float[count * PoseSequence.FRAME_LENGTH];
+            System.arraycopy(frames, start * PoseSequence.FRAME_LENGTH, chunk, 0, chunk.length);
+            tracker.append(chunk, count);
+            tracker.pollCompletedReps((window, repStart, repFrames) -> repLengths.add(repFrames));
+        }
+
+        Assertions.assertEquals(3, repLengths.size());
+        Assertions.assertEquals(total, tracker.getTotalFrames());
+    }
+}
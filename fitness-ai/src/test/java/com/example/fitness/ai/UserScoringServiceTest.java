@@ -1,40 +1,61 @@
 package com.example.fitness.ai;
 
+import com.example.fitness.ai.codec.PoseFrameBinaryCodec;
+import com.example.fitness.ai.engine.TemporalScoringEngine;
+import com.example.fitness.ai.event.ScoringEventPublisher;
+import com.example.fitness.ai.kernel.ScalarSimilarityKernel;
+import com.example.fitness.ai.kernel.SimilarityKernel;
+import com.example.fitness.ai.mapper.MoveTemplateMapper;
+import com.example.fitness.ai.model.PoseSequence;
 import com.example.fitness.ai.service.impl.UserScoringServiceImpl;
+import com.example.fitness.ai.template.StandardTemplateStore;
+import com.example.fitness.api.dto.BatchScoringRequest;
+import com.example.fitness.api.dto.BatchScoringResponse;
+import com.example.fitness.api.dto.PoseFrame;
 import com.example.fitness.api.dto.ScoringRequest;
 import com.example.fitness.api.dto.ScoringResponse;
 import com.example.fitness.api.dto.ScoringResultEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
-import org.springframework.kafka.core.KafkaTemplate;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
 
 /**
  * 用户评分服务单元测试
- * 覆盖余弦相似度计算和 Kafka 事件发送
+ * 覆盖余弦相似度计算和评分事件发布
  */
 public class UserScoringServiceTest {
 
+    /**
+     * 未加载任何数据的模板仓库，所有动作都回退到内置的 0.5 模板
+     */
+    private static StandardTemplateStore defaultTemplateStore() {
+        return new StandardTemplateStore(Mockito.mock(MoveTemplateMapper.class), new ObjectMapper(),
+                new SimpleMeterRegistry(), "m_squat", 600_000L);
+    }
+
+    private static UserScoringServiceImpl newService(ScoringEventPublisher publisher) {
+        SimilarityKernel kernel = new ScalarSimilarityKernel();
+        return new UserScoringServiceImpl(publisher, defaultTemplateStore(), new TemporalScoringEngine(kernel),
+                kernel);
+    }
+
     @Test
     @SuppressWarnings({ "unchecked", "null" })
     public void testCalculateScore_PerfectMatch() {
-        // 1. Mock Kafka
-        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
-        Mockito.when(kafkaTemplate.send(anyString(), any(), any()))
-                .thenReturn(CompletableFuture.completedFuture(null));
+        // 1. Mock 事件发布器
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
 
-        UserScoringServiceImpl service = new UserScoringServiceImpl(kafkaTemplate);
+        UserScoringServiceImpl service = newService(publisher);
 
         // 2. 构造请求数据 (模拟完美匹配 m_squat)
         ScoringRequest req = new ScoringRequest();
@@ -60,21 +81,22 @@ public class UserScoringServiceTest {
         Assertions.assertEquals(100, response.getScore(), "完全匹配应为 100 分");
         Assertions.assertTrue(response.getFeedback().contains("完美！保持这个节奏"));
 
-        // 5. 验证 Kafka 发送的是 ScoringResultEvent
+        // 5. 验证发布的是 ScoringResultEvent
         ArgumentCaptor<ScoringResultEvent> eventCaptor = ArgumentCaptor.forClass(ScoringResultEvent.class);
-        Mockito.verify(kafkaTemplate).send(eq("frontend_event_stream"),
-                eq("m_squat"), eventCaptor.capture());
+        Mockito.verify(publisher).publish(eventCaptor.capture());
+        Assertions.assertEquals("m_squat", eventCaptor.getValue().getMoveId());
 
         ScoringResultEvent event = eventCaptor.getValue();
         Assertions.assertEquals(100, event.getScore());
         Assertions.assertEquals("m_squat", event.getMoveId());
+        Assertions.assertNotNull(event.getEventId(), "评分事件应携带唯一 ID 以便消费端去重");
     }
 
     @Test
     @SuppressWarnings({ "unchecked" })
     public void testCalculateScore_NoKeypoints() {
-        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
-        UserScoringServiceImpl service = new UserScoringServiceImpl(kafkaTemplate);
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
+        UserScoringServiceImpl service = newService(publisher);
 
         ScoringRequest req = new ScoringRequest();
         req.setMoveId("m_squat");
@@ -88,8 +110,8 @@ public class UserScoringServiceTest {
     @Test
     @SuppressWarnings("unchecked")
     public void testCalculateScore_NullMoveId() {
-        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
-        UserScoringServiceImpl service = new UserScoringServiceImpl(kafkaTemplate);
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
+        UserScoringServiceImpl service = newService(publisher);
 
         ScoringRequest req = new ScoringRequest();
         req.setMoveId(null); // null moveId
@@ -105,8 +127,8 @@ public class UserScoringServiceTest {
     @Test
     @SuppressWarnings("unchecked")
     public void testCalculateScore_EmptyMoveId() {
-        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
-        UserScoringServiceImpl service = new UserScoringServiceImpl(kafkaTemplate);
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
+        UserScoringServiceImpl service = newService(publisher);
 
         ScoringRequest req = new ScoringRequest();
         req.setMoveId(""); // empty moveId
@@ -122,11 +144,9 @@ public class UserScoringServiceTest {
     @Test
     @SuppressWarnings({ "unchecked", "null" })
     public void testCalculateScore_LowScore_FeedbackContent() {
-        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
-        Mockito.when(kafkaTemplate.send(anyString(), any(), any()))
-                .thenReturn(CompletableFuture.completedFuture(null));
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
 
-        UserScoringServiceImpl service = new UserScoringServiceImpl(kafkaTemplate);
+        UserScoringServiceImpl service = newService(publisher);
 
         // 构造请求数据 (模拟差匹配 - 关键点全为 0)
         ScoringRequest req = new ScoringRequest();
@@ -153,11 +173,9 @@ public class UserScoringServiceTest {
     @Test
     @SuppressWarnings({ "unchecked", "null" })
     public void testCalculateScore_MediumScore_FeedbackContent() {
-        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
-        Mockito.when(kafkaTemplate.send(anyString(), any(), any()))
-                .thenReturn(CompletableFuture.completedFuture(null));
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
 
-        UserScoringServiceImpl service = new UserScoringServiceImpl(kafkaTemplate);
+        UserScoringServiceImpl service = newService(publisher);
 
         // 构造请求数据 (模拟中等匹配)
         ScoringRequest req = new ScoringRequest();
@@ -186,11 +204,10 @@ public class UserScoringServiceTest {
     @Test
     @SuppressWarnings({ "unchecked", "null" })
     public void testCalculateScore_KafkaFailure_DoesNotThrow() {
-        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
-        Mockito.when(kafkaTemplate.send(anyString(), any(), any()))
-                .thenThrow(new RuntimeException("Kafka connection failed"));
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
+        Mockito.when(publisher.publish(any())).thenThrow(new RuntimeException("publisher closed"));
 
-        UserScoringServiceImpl service = new UserScoringServiceImpl(kafkaTemplate);
+        UserScoringServiceImpl service = newService(publisher);
 
         ScoringRequest req = new ScoringRequest();
         req.setMoveId("m_squat");
@@ -206,7 +223,7 @@ public class UserScoringServiceTest {
         data.put("keypoints", keypoints);
         req.setData(data);
 
-        // 即使 Kafka 发送失败，也不应抛出异常
+        // 即使事件发布失败，也不应抛出异常
         ScoringResponse response = service.calculateScore(req);
 
         Assertions.assertTrue(response.isSuccess());
@@ -216,8 +233,8 @@ public class UserScoringServiceTest {
     @Test
     @SuppressWarnings({ "unchecked", "null" })
     public void testCalculateScore_NullData() {
-        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
-        UserScoringServiceImpl service = new UserScoringServiceImpl(kafkaTemplate);
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
+        UserScoringServiceImpl service = newService(publisher);
 
         ScoringRequest req = new ScoringRequest();
         req.setMoveId("m_squat");
@@ -231,11 +248,9 @@ public class UserScoringServiceTest {
     @Test
     @SuppressWarnings({ "unchecked", "null" })
     public void testCalculateScore_WithUserId() {
-        KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
-        Mockito.when(kafkaTemplate.send(anyString(), any(), any()))
-                .thenReturn(CompletableFuture.completedFuture(null));
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
 
-        UserScoringServiceImpl service = new UserScoringServiceImpl(kafkaTemplate);
+        UserScoringServiceImpl service = newService(publisher);
 
         ScoringRequest req = new ScoringRequest();
         req.setMoveId("m_squat");
@@ -256,12 +271,162 @@ public class UserScoringServiceTest {
 
         Assertions.assertTrue(response.isSuccess());
 
-        // 验证 Kafka 事件包含 userId
+        // 验证评分事件包含 userId
         ArgumentCaptor<ScoringResultEvent> eventCaptor = ArgumentCaptor.forClass(ScoringResultEvent.class);
-        Mockito.verify(kafkaTemplate).send(eq("frontend_event_stream"),
-                eq("m_squat"), eventCaptor.capture());
+        Mockito.verify(publisher).publish(eventCaptor.capture());
+        Assertions.assertEquals("m_squat", eventCaptor.getValue().getMoveId());
 
         ScoringResultEvent event = eventCaptor.getValue();
         Assertions.assertEquals("user123", event.getUserId());
     }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "null" })
+    public void testCalculateScore_TypedFrame() throws Exception {
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
+
+        UserScoringServiceImpl service = newService(publisher);
+
+        // 扁平数组格式：17 × (x, y, confidence)
+        StringBuilder flat = new StringBuilder("[");
+        for (int i = 0; i < 17; i++) {
+            flat.append(i == 0 ? "" : ",").append("0.5,0.5,0.9");
+        }
+        flat.append("]");
+        String json = "{\"moveId\":\"m_squat\",\"userId\":\"user456\",\"frame\":" + flat + "}";
+
+        ScoringRequest req = new ObjectMapper().readValue(json, ScoringRequest.class);
+        Assertions.assertEquals(17, req.getFrame().getKeypointCount());
+        Assertions.assertEquals(0.9f, req.getFrame().confidence(16));
+
+        ScoringResponse response = service.calculateScore(req);
+        Assertions.assertTrue(response.isSuccess());
+        Assertions.assertEquals(100, response.getScore());
+
+        ArgumentCaptor<ScoringResultEvent> eventCaptor = ArgumentCaptor.forClass(ScoringResultEvent.class);
+        Mockito.verify(publisher).publish(eventCaptor.capture());
+        Assertions.assertEquals("m_squat", eventCaptor.getValue().getMoveId());
+        Assertions.assertEquals("user456", eventCaptor.getValue().getUserId());
+    }
+
+    @Test
+    public void testPoseFrameDeserializer_ObjectArrayFormat() throws Exception {
+        // 兼容对象数组格式，缺省置信度视为 1，超出 17 个的关键点被忽略
+        StringBuilder objects = new StringBuilder("[");
+        for (int i = 0; i < 20; i++) {
+            objects.append(i == 0 ? "" : ",").append("{\"x\":0.25,\"y\":\"0.75\"}");
+        }
+        objects.append("]");
+
+        PoseFrame frame = new ObjectMapper().readValue(objects.toString(), PoseFrame.class);
+
+        Assertions.assertEquals(17, frame.getKeypointCount());
+        Assertions.assertEquals(0.25f, frame.x(3));
+        Assertions.assertEquals(0.75f, frame.y(3));
+        Assertions.assertEquals(1f, frame.confidence(3));
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "null" })
+    public void testCalculateSequenceScore_BinaryFrames() {
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
+
+        UserScoringServiceImpl service = newService(publisher);
+
+        // 第 1 帧完全匹配（100 分），第 2 帧全为 0（0 分）
+        float[] frames = new float[51 * 2];
+        for (int i = 0; i < 17; i++) {
+            frames[i * 3] = 0.5f;
+            frames[i * 3 + 1] = 0.5f;
+            frames[i * 3 + 2] = 1f;
+        }
+        byte[] body = PoseFrameBinaryCodec.encode("m_squat", "user789", frames, 2);
+
+        ScoringResponse response = service.calculateSequenceScore(PoseFrameBinaryCodec.decode(body));
+
+        Assertions.assertTrue(response.isSuccess());
+        Assertions.assertEquals(50, response.getScore());
+
+        ArgumentCaptor<ScoringResultEvent> eventCaptor = ArgumentCaptor.forClass(ScoringResultEvent.class);
+        Mockito.verify(publisher, Mockito.times(1)).publish(eventCaptor.capture());
+        Assertions.assertEquals("m_squat", eventCaptor.getValue().getMoveId());
+        Assertions.assertEquals("user789", eventCaptor.getValue().getUserId());
+    }
+
+    @Test
+    public void testEvaluateFrames_SkipsRepScoring() {
+        SimilarityKernel kernel = new ScalarSimilarityKernel();
+        TemporalScoringEngine engine = Mockito.spy(new TemporalScoringEngine(kernel));
+        UserScoringServiceImpl service = new UserScoringServiceImpl(Mockito.mock(ScoringEventPublisher.class),
+                defaultTemplateStore(), engine, kernel);
+
+        float[] frames = new float[51];
+        for (int i = 0; i < 17; i++) {
+            frames[i * 3] = 0.5f;
+            frames[i * 3 + 1] = 0.5f;
+            frames[i * 3 + 2] = 1f;
+        }
+        PoseSequence sequence = PoseFrameBinaryCodec.decode(PoseFrameBinaryCodec.encode("m_squat", "u_1", frames, 1));
+
+        // 流式热路径只逐帧评分，不做动作切分与 DTW
+        BatchScoringResponse response = service.evaluateFrames(sequence);
+        Assertions.assertTrue(response.isSuccess());
+        Assertions.assertEquals(100, response.getScore());
+        Assertions.assertNull(response.getRepScores());
+        Mockito.verify(engine, Mockito.never()).scoreReps(any(), any());
+
+        Assertions.assertNotNull(service.evaluateSequence(sequence).getRepScores());
+        Mockito.verify(engine).scoreReps(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "null" })
+    public void testCalculateBatchScore_CoalescedEvent() {
+        ScoringEventPublisher publisher = Mockito.mock(ScoringEventPublisher.class);
+        UserScoringServiceImpl service = newService(publisher);
+
+        // 超过并行阈值的批量：偶数帧完美匹配，奇数帧无关键点
+        float[] perfect = new float[PoseFrame.MAX_LENGTH];
+        for (int i = 0; i < 17; i++) {
+            perfect[i * 3] = 0.5f;
+            perfect[i * 3 + 1] = 0.5f;
+            perfect[i * 3 + 2] = 1f;
+        }
+        List<PoseFrame> frames = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            frames.add(i % 2 == 0 ? new PoseFrame(perfect, 17) : new PoseFrame(new float[0], 0));
+        }
+        BatchScoringRequest req = new BatchScoringRequest();
+        req.setMoveId("m_squat");
+        req.setUserId("user42");
+        req.setFrames(frames);
+
+        BatchScoringResponse response = service.calculateBatchScore(req);
+
+        Assertions.assertTrue(response.isSuccess());
+        Assertions.assertEquals(300, response.getFrameScores().length);
+        Assertions.assertEquals(100, response.getFrameScores()[0]);
+        Assertions.assertEquals(0, response.getFrameScores()[1]);
+        Assertions.assertEquals(50, response.getScore());
+        Assertions.assertEquals(0, response.getMinScore());
+        Assertions.assertEquals(100, response.getMaxScore());
+
+        // 整批只发送一条事件
+        ArgumentCaptor<ScoringResultEvent> eventCaptor = ArgumentCaptor.forClass(ScoringResultEvent.class);
+        Mockito.verify(publisher, Mockito.times(1)).publish(eventCaptor.capture());
+        Assertions.assertEquals("m_squat", eventCaptor.getValue().getMoveId());
+        Assertions.assertEquals("user42", eventCaptor.getValue().getUserId());
+        Assertions.assertEquals(300, eventCaptor.getValue().getExtraData().get("frameCount"));
+    }
+
+    @Test
+    public void testPoseFrameBinaryCodec_TruncatedBody() {
+        byte[] body = PoseFrameBinaryCodec.encode("m_squat", null, new float[51], 1);
+        byte[] truncated = java.util.Arrays.copyOf(body, body.length - 4);
+
+        com.example.fitness.common.exception.BusinessException e = Assertions.assertThrows(
+                com.example.fitness.common.exception.BusinessException.class,
+                () -> PoseFrameBinaryCodec.decode(truncated));
+        Assertions.assertEquals(400, e.getCode());
+    }
 }
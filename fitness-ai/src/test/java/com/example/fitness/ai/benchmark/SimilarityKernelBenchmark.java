@@ -0,0 +1,108 @@
+package com.example.fitness.ai.benchmark;
+
+import com.example.fitness.ai.kernel.ScalarSimilarityKernel;
+import com.example.fitness.ai.kernel.SimilarityKernel;
+import com.example.fitness.ai.kernel.SimilarityKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 相似度内核 JMH 基准：标量实现与 SIMD 实现对比
+ *
+ * <p>
+ * 三组输入对应评分链路中的三类热点：单帧 34 维 double 点积、
+ * 1800 帧（30fps × 60s）逐帧与模板的 float 点积、60 × 60 的 DTW 距离矩阵。
+ * 运行方式同 {@link TemporalScoringBenchmark}，主类换成本类即可；
+ * 当前 JVM 未加载 {@code jdk.incubator.vector} 时 {@code vector} 组会退化为标量实现。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class SimilarityKernelBenchmark {
+
+    private static final int LENGTH = 34;
+    private static final int BATCH_FRAMES = 1800;
+    private static final int DTW_FRAMES = 60;
+
+    @Param({ "scalar", "vector" })
+    private String kernelMode;
+
+    private SimilarityKernel kernel;
+    private double[] frame;
+    private double[] template;
+    private float[] templateFloat;
+    private float[] batch;
+    private float[] batchScores;
+    private float[] reference;
+    private float[] matrix;
+
+    @Setup
+    public void setUp() {
+        kernel = "scalar".equals(kernelMode) ? new ScalarSimilarityKernel() : SimilarityKernels.select(kernelMode);
+        Random random = new Random(42);
+        frame = new double[LENGTH];
+        template = new double[LENGTH];
+        templateFloat = new float[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            frame[i] = random.nextDouble();
+            template[i] = random.nextDouble();
+            templateFloat[i] = (float) template[i];
+        }
+        batch = new float[BATCH_FRAMES * LENGTH];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = random.nextFloat();
+        }
+        batchScores = new float[BATCH_FRAMES];
+        reference = new float[DTW_FRAMES * LENGTH];
+        for (int i = 0; i < reference.length; i++) {
+            reference[i] = random.nextFloat();
+        }
+        matrix = new float[DTW_FRAMES * DTW_FRAMES];
+    }
+
+    /** 单帧与模板的余弦分子（实时评分路径） */
+    @Benchmark
+    public double singleFrame() {
+        return kernel.dot(frame, 0, template, 0, LENGTH);
+    }
+
+    /** 1800 帧逐帧与模板求点积（批量评分路径） */
+    @Benchmark
+    public float[] batchFrames() {
+        kernel.dotRows(templateFloat, 0, batch, 0, BATCH_FRAMES, LENGTH, batchScores, 0);
+        return batchScores;
+    }
+
+    /** 60 × 60 的 DTW 距离矩阵（按次评分路径，不含带宽裁剪） */
+    @Benchmark
+    public float[] dtwMatrix() {
+        for (int i = 0; i < DTW_FRAMES; i++) {
+            kernel.dotRows(reference, i * LENGTH, reference, 0, DTW_FRAMES, LENGTH, matrix, i * DTW_FRAMES);
+        }
+        return matrix;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SimilarityKernelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.fitness.ai.benchmark;
+
+import com.example.fitness.ai.engine.DtwAligner;
+import com.example.fitness.ai.engine.TemporalScoringEngine;
+import com.example.fitness.ai.kernel.ScalarSimilarityKernel;
+import com.example.fitness.ai.model.PoseSequence;
+import com.example.fitness.ai.template.ReferenceMotion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时序评分 JMH 基准
+ *
+ * <p>
+ * 输入为 30fps × 60s = 1800 帧的合成深蹲序列（每 2 秒一次），参考动作 60 帧。
+ * 运行方式：
+ *
+ * <pre>
+ * mvn -pl fitness-ai -am test-compile
+ * mvn -pl fitness-ai exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.fitness.ai.benchmark.TemporalScoringBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemporalScoringBenchmark {
+
+    private static final int FPS = 30;
+    private static final int SECONDS = 60;
+    private static final int PERIOD = 2 * FPS;
+
+    private PoseSequence sequence;
+    private ReferenceMotion reference;
+    private TemporalScoringEngine engine;
+    private DtwAligner aligner;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int frameCount = FPS * SECONDS;
+        float[] frames = new float[frameCount * PoseSequence.FRAME_LENGTH];
+        for (int t = 0; t < frameCount; t++) {
+            writePose(frames, t * PoseSequence.FRAME_LENGTH, 3, depthAt(t, PERIOD), random);
+        }
+        sequence = new PoseSequence("m_squat", "bench", frameCount, FloatBuffer.wrap(frames));
+
+        double[][] motion = new double[PERIOD][ReferenceMotion.FRAME_LENGTH];
+        float[] frame = new float[ReferenceMotion.FRAME_LENGTH];
+        for (int t = 0; t < PERIOD; t++) {
+            writePose(frame, 0, 2, depthAt(t, PERIOD), null);
+            for (int i = 0; i < frame.length; i++) {
+                motion[t][i] = frame[i];
+            }
+        }
+        reference = ReferenceMotion.of(motion);
+        engine = new TemporalScoringEngine(new ScalarSimilarityKernel());
+        aligner = new DtwAligner(new ScalarSimilarityKernel());
+    }
+
+    /** 整段 60 秒序列：切分 + 逐次 DTW */
+    @Benchmark
+    public int[] scoreSixtySeconds() {
+        return engine.scoreReps(sequence, reference);
+    }
+
+    /** 单次 2 秒动作的 DTW 对齐 */
+    @Benchmark
+    public double alignSingleRep() {
+        return aligner.align(sequence.frames(), 0, PERIOD, reference);
+    }
+
+    private static double depthAt(int t, int period) {
+        return 0.15 * (1 - Math.cos(2 * Math.PI * t / period)) / 2;
+    }
+
+    private static void writePose(float[] out, int offset, int stride, double depth, Random noise) {
+        for (int k = 0; k < 17; k++) {
+            double y = k < 11 ? 0.15 + k * 0.02 + depth : k < 13 ? 0.5 + depth : k < 15 ? 0.7 + depth * 0.5 : 0.9;
+            double jitter = noise == null ? 0 : noise.nextGaussian() * 0.005;
+            out[offset + k * stride] = (float) (0.4 + (k % 2) * 0.2 + jitter);
+            out[offset + k * stride + 1] = (float) (y + jitter);
+            if (stride == 3) {
+                out[offset + k * stride + 2] = 1f;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TemporalScoringBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.fitness.api.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * AI 批量评分请求 DTO
+ *
+ * <p>
+ * 用于 {@code POST /api/ai/score/batch} 接口，客户端将同一训练会话中
+ * 缓存的多帧（或每个动作重复的关键帧）一次性提交，服务端一次遍历完成评分，
+ * 避免逐帧请求的网络往返开销。
+ *
+ * @see BatchScoringResponse
+ */
+@Data
+public class BatchScoringRequest {
+
+    /** 正在执行的健身动作 ID（如 {@code "m_squat"}），不能为空 */
+    private String moveId;
+
+    /** 用户 ID（可选，用于异步事件归属） */
+    private String userId;
+
+    /** 训练会话 ID（可选，随评分事件透传） */
+    private String sessionId;
+
+    /** 按时间顺序排列的关键点帧，格式同 {@link ScoringRequest#getFrame()} */
+    private List<PoseFrame> frames;
+}
@@ -0,0 +1,42 @@
+package com.example.fitness.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量评分响应 DTO
+ * 包含逐帧分数以及整批的汇总结果。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchScoringResponse {
+    /** 是否评分成功 */
+    private boolean success;
+
+    /** 汇总分数 (0-100)，为未跳过各帧的平均分 */
+    private Integer score;
+
+    /** 最低帧分数 */
+    private Integer minScore;
+
+    /** 最高帧分数 */
+    private Integer maxScore;
+
+    /** 逐帧分数，顺序与请求中的帧一致；{@code -1} 表示该帧因关键点置信度不足被跳过 */
+    private int[] frameScores;
+
+    /** 因关键点置信度不足被跳过的帧数，不计入汇总分数 */
+    private Integer skippedFrames;
+
+    /** 按次时序评分（DTW），每次完整动作一个分数；动作未配置参考动作时为空 */
+    private int[] repScores;
+
+    /** 反馈建议列表（基于汇总分数） */
+    private List<Object> feedback;
+}
@@ -0,0 +1,54 @@
+package com.example.fitness.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量采集响应 DTO
+ * 用于 {@code POST /api/data/collect/batch}，按请求中事件的顺序逐条给出接收结果。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectBatchResponse {
+
+    /** 校验未通过 */
+    public static final String REASON_INVALID = "INVALID_EVENT";
+    /** 事件类型不在允许列表中 */
+    public static final String REASON_UNSUPPORTED_TYPE = "UNSUPPORTED_TYPE";
+    /** 超过单次请求的事件数上限 */
+    public static final String REASON_BATCH_LIMIT = "BATCH_LIMIT";
+    /** Kafka 与本地溢写队列均不可用 */
+    public static final String REASON_UNAVAILABLE = "UNAVAILABLE";
+
+    /** 已接收的事件数（已写入 Kafka 或本地溢写队列） */
+    private int accepted;
+
+    /** 被拒绝的事件数 */
+    private int rejected;
+
+    /** 逐条结果，顺序与请求中的事件一致 */
+    private List<EventResult> results;
+
+    /**
+     * 单条事件的接收结果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EventResult {
+        /** 事件在请求数组中的下标 */
+        private int index;
+
+        /** 是否已接收 */
+        private boolean accepted;
+
+        /** 拒绝原因（见 {@code REASON_*} 常量），接收时为 {@code null} */
+        private String reason;
+    }
+}
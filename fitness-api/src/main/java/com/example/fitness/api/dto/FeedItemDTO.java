@@ -0,0 +1,45 @@
+package com.example.fitness.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 动态条目 DTO
+ * 用于 {@code GET /api/social/feed}，每条对应一次完成的训练。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedItemDTO {
+    /** 动态 ID（单调递增，亦作为分页游标） */
+    private Long id;
+
+    /** 发布者用户 ID */
+    private Long userId;
+
+    /** 发布者昵称 */
+    private String nickname;
+
+    /** 发布者头像 URL */
+    private String avatar;
+
+    /** 展示文案（如 {@code 完成了 HIIT 训练}） */
+    private String content;
+
+    /** 训练时长（秒） */
+    private Integer duration;
+
+    /** 消耗卡路里 */
+    private Integer calories;
+
+    /** 训练得分 */
+    private Integer score;
+
+    /** 发布时间 */
+    private LocalDateTime createdAt;
+}
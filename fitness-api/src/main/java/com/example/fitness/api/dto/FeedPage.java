@@ -0,0 +1,24 @@
+package com.example.fitness.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 动态分页响应 DTO
+ * 用于 {@code GET /api/social/feed}，按动态 ID 倒序的游标分页。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedPage {
+    /** 本页动态，按发布顺序倒序 */
+    private List<FeedItemDTO> items;
+
+    /** 下一页游标，原样传回 {@code cursor} 参数；没有更多数据时为 {@code null} */
+    private String nextCursor;
+}
@@ -0,0 +1,31 @@
+package com.example.fitness.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 排行榜条目 DTO
+ * 用于 {@code GET /api/social/leaderboard} 与 {@code GET /api/social/leaderboard/me}。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+    /** 名次（从 1 开始）；查询本人名次且未上榜时为 {@code null} */
+    private Long rank;
+
+    /** 用户 ID */
+    private Long userId;
+
+    /** 昵称 */
+    private String nickname;
+
+    /** 头像 URL */
+    private String avatar;
+
+    /** 周期内累计得分 */
+    private Long score;
+}
@@ -0,0 +1,85 @@
+package com.example.fitness.api.dto;
+
+import com.example.fitness.api.serializer.PoseFrameDeserializer;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.util.Arrays;
+
+/**
+ * 单帧人体姿态关键点 DTO
+ *
+ * <p>
+ * 以扁平的 {@code float[]} 保存 COCO 17 关键点，布局为
+ * {@code [x0, y0, c0, x1, y1, c1, ...]}（每个关键点占 {@link #STRIDE} 个元素），
+ * 避免 {@code List<Map<String, Object>>} 带来的装箱和字符串转换开销。
+ *
+ * <p>
+ * JSON 形式为扁平数字数组，由 {@link PoseFrameDeserializer} 流式解析；
+ * 同时兼容 {@code [{"x":..,"y":..,"score":..}]} 的对象数组写法。
+ *
+ * @see ScoringRequest
+ */
+@JsonDeserialize(using = PoseFrameDeserializer.class)
+public final class PoseFrame {
+
+    /** COCO 关键点数量 */
+    public static final int KEYPOINT_COUNT = 17;
+
+    /** 每个关键点占用的元素个数（x, y, confidence） */
+    public static final int STRIDE = 3;
+
+    /** 单帧最大元素个数 */
+    public static final int MAX_LENGTH = KEYPOINT_COUNT * STRIDE;
+
+    private final float[] data;
+
+    private final int keypointCount;
+
+    /**
+     * @param data          扁平关键点数组，长度至少为 {@code keypointCount * STRIDE}
+     * @param keypointCount 实际检测到的关键点个数（不超过 {@link #KEYPOINT_COUNT}）
+     */
+    public PoseFrame(float[] data, int keypointCount) {
+        if (keypointCount < 0 || keypointCount > KEYPOINT_COUNT || data.length < keypointCount * STRIDE) {
+            throw new IllegalArgumentException("非法的关键点数量: " + keypointCount);
+        }
+        this.data = data;
+        this.keypointCount = keypointCount;
+    }
+
+    /** 实际关键点个数 */
+    public int getKeypointCount() {
+        return keypointCount;
+    }
+
+    /** 第 {@code i} 个关键点的 x 坐标 */
+    public float x(int i) {
+        return data[i * STRIDE];
+    }
+
+    /** 第 {@code i} 个关键点的 y 坐标 */
+    public float y(int i) {
+        return data[i * STRIDE + 1];
+    }
+
+    /** 第 {@code i} 个关键点的置信度 */
+    public float confidence(int i) {
+        return data[i * STRIDE + 2];
+    }
+
+    /**
+     * 底层扁平数组（不做拷贝，调用方不得修改）
+     */
+    public float[] rawData() {
+        return data;
+    }
+
+    /**
+     * 序列化为扁平数字数组，与 {@link PoseFrameDeserializer} 对称
+     */
+    @JsonValue
+    public float[] toArray() {
+        return Arrays.copyOf(data, keypointCount * STRIDE);
+    }
+}
@@ -9,6 +9,8 @@ import java.util.Map;
  * <p>
  * 用于 {@code POST /api/ai/score} 接口，客户端将实时采集的
  * 人体关键点数据提交至后端进行动作相似度评分。
+ * 关键点可通过类型化的 {@code frame} 提交，旧的 {@code data.keypoints}
+ * 结构作为兼容路径保留。
  *
  * @see ScoringResponse
  */
@@ -27,4 +29,15 @@ public class ScoringRequest {
      * </ul>
      */
     private Map<String, Object> data;
+
+    /**
+     * 类型化的单帧关键点（推荐）
+     * <p>
+     * 以扁平数字数组 {@code [x0, y0, c0, ...]} 提交；存在时优先于
+     * {@code data.keypoints} 参与评分。
+     */
+    private PoseFrame frame;
+
+    /** 用户 ID（可选，优先于 {@code data.userId}） */
+    private String userId;
 }
@@ -1,7 +1,9 @@
 package com.example.fitness.api.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 import java.util.Map;
 
@@ -16,8 +18,13 @@ import java.util.Map;
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ScoringResultEvent {
 
+    /** 事件唯一 ID（UUID），消费端据此对生产端重发的重复事件去重 */
+    private String eventId;
+
     /** 执行动作的用户 ID（可能为 {@code "unknown"} 若请求中未携带） */
     private String userId;
 
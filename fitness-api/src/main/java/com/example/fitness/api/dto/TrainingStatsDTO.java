@@ -0,0 +1,75 @@
+package com.example.fitness.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 用户训练统计 DTO
+ * 用于 {@code GET /api/user/stats}，由每日汇总表计算，时长单位均为分钟。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrainingStatsDTO {
+    /** 本周（周一起）训练时长（分钟） */
+    private Integer weeklyDuration;
+
+    /** 本周完成的训练次数 */
+    private Integer weeklySessions;
+
+    /** 本月训练时长（分钟） */
+    private Integer monthlyDuration;
+
+    /** 本月完成的训练次数 */
+    private Integer monthlySessions;
+
+    /** 累计训练时长（分钟） */
+    private Integer totalDuration;
+
+    /** 累计消耗卡路里 */
+    private Integer totalCalories;
+
+    /** 累计完成次数 */
+    private Integer totalReps;
+
+    /** 累计完成的训练次数 */
+    private Integer totalSessions;
+
+    /** 完成率：最近 7 天中有训练的天数占比（0 ~ 100） */
+    private Integer completionRate;
+
+    /** 最近 7 天的每日汇总，按日期升序，无训练的日期为 0 */
+    private List<DailyStats> history;
+
+    /** 统计所基于的日期，跨天后缓存失效 */
+    private LocalDate asOf;
+
+    /**
+     * 单日训练汇总
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailyStats {
+        /** 日期 */
+        private LocalDate date;
+
+        /** 训练时长（分钟） */
+        private Integer duration;
+
+        /** 消耗卡路里 */
+        private Integer calories;
+
+        /** 完成次数 */
+        private Integer reps;
+
+        /** 完成的训练次数 */
+        private Integer sessions;
+    }
+}
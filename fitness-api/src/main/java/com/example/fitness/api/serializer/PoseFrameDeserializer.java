@@ -0,0 +1,97 @@
+package com.example.fitness.api.serializer;
+
+import com.example.fitness.api.dto.PoseFrame;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * {@link PoseFrame} 流式反序列化器
+ *
+ * <p>
+ * 直接按 Token 读取数字并写入预分配的 {@code float[]}，不经过中间的
+ * {@code Map}/{@code List} 树结构。支持两种输入格式：
+ * <ul>
+ * <li>扁平数组：{@code [x0, y0, c0, x1, y1, c1, ...]}</li>
+ * <li>对象数组（兼容旧格式）：{@code [{"x":0.5,"y":0.2,"score":0.9}, ...]}</li>
+ * </ul>
+ * 超出 {@link PoseFrame#KEYPOINT_COUNT} 的关键点会被跳过。
+ */
+public class PoseFrameDeserializer extends StdDeserializer<PoseFrame> {
+
+    public PoseFrameDeserializer() {
+        super(PoseFrame.class);
+    }
+
+    @Override
+    public PoseFrame deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+            return (PoseFrame) ctxt.handleUnexpectedToken(PoseFrame.class, p);
+        }
+
+        float[] data = new float[PoseFrame.MAX_LENGTH];
+        int pos = 0;
+        JsonToken token;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                return ctxt.reportInputMismatch(this, "关键点数组未正常结束");
+            }
+            if (token == JsonToken.START_OBJECT) {
+                if (pos + PoseFrame.STRIDE <= PoseFrame.MAX_LENGTH) {
+                    readKeypointObject(p, data, pos);
+                    pos += PoseFrame.STRIDE;
+                } else {
+                    p.skipChildren();
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                p.skipChildren();
+            } else if (pos < PoseFrame.MAX_LENGTH) {
+                data[pos++] = readFloat(p, token);
+            }
+        }
+        return new PoseFrame(data, pos / PoseFrame.STRIDE);
+    }
+
+    /**
+     * 读取 {@code {"x":..,"y":..,"score":..}} 形式的单个关键点，未提供置信度时视为 1
+     */
+    private void readKeypointObject(JsonParser p, float[] data, int offset) throws IOException {
+        data[offset + 2] = 1f;
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                p.skipChildren();
+                continue;
+            }
+            switch (name) {
+                case "x" -> data[offset] = readFloat(p, token);
+                case "y" -> data[offset + 1] = readFloat(p, token);
+                case "score", "confidence" -> data[offset + 2] = readFloat(p, token);
+                default -> {
+                    // 忽略未知字段
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取当前标量 Token，兼容字符串形式的数字
+     */
+    private float readFloat(JsonParser p, JsonToken token) throws IOException {
+        if (token.isNumeric()) {
+            return p.getFloatValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Float.parseFloat(p.getText());
+            } catch (NumberFormatException e) {
+                return 0f;
+            }
+        }
+        return 0f;
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.fitness.api.serializer;
+
+import com.example.fitness.api.dto.ScoringResultEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link ScoringResultEvent} 紧凑二进制编解码器
+ *
+ * <p>
+ * 版本 {@value #VERSION} 的布局如下（整数均为 varint，有符号数先做 ZigZag）：
+ *
+ * <pre>
+ * uint8   版本号
+ * uint8   字段存在位：bit0 userId, bit1 moveId, bit2 score, bit3 timestamp, bit4 extraData, bit5 eventId
+ * string  eventId                      （varint 字节长度 + UTF-8，版本 2 起）
+ * string  userId
+ * string  moveId
+ * sint32  score
+ * sint64  timestamp 秒 + uint32 纳秒   （按 UTC 换算的 LocalDateTime）
+ * uint32  extraData 条目数，每条为 string 键 + uint8 类型标记 + 值
+ * </pre>
+ *
+ * <p>
+ * {@code extraData} 的值支持 {@code null}、整数、长整数、浮点数、布尔值和字符串；
+ * 其他类型按 {@link String#valueOf(Object)} 编码为字符串。
+ * 新增字段时递增版本号，解码器按版本号分支，旧版本数据保持可读：
+ * 版本 1 不含 {@code eventId}，其余布局与版本 2 相同。
+ */
+public final class ScoringEventBinaryCodec {
+
+    /** 当前编码版本 */
+    public static final byte VERSION = 2;
+
+    /** 仍可解码的最低版本 */
+    public static final byte MIN_VERSION = 1;
+
+    /** 标识消息体编码的 Kafka 记录头 */
+    public static final String ENCODING_HEADER = "fitness-encoding";
+
+    /** {@link #ENCODING_HEADER} 的取值前缀，后接版本号 */
+    private static final String ENCODING_PREFIX = "scoring-event-v";
+
+    /** {@link #ENCODING_HEADER} 的取值：本二进制格式；缺少该头的记录按 JSON 处理 */
+    public static final String ENCODING = ENCODING_PREFIX + VERSION;
+
+    private static final int HAS_USER_ID = 1;
+    private static final int HAS_MOVE_ID = 1 << 1;
+    private static final int HAS_SCORE = 1 << 2;
+    private static final int HAS_TIMESTAMP = 1 << 3;
+    private static final int HAS_EXTRA_DATA = 1 << 4;
+    private static final int HAS_EVENT_ID = 1 << 5;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_INT = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_DOUBLE = 3;
+    private static final byte TAG_TRUE = 4;
+    private static final byte TAG_FALSE = 5;
+    private static final byte TAG_STRING = 6;
+
+    /** 单个字符串或条目数的上限，防止异常数据导致超大分配 */
+    private static final int MAX_LENGTH = 1 << 20;
+
+    private ScoringEventBinaryCodec() {
+    }
+
+    /**
+     * 判断记录头 {@link #ENCODING_HEADER} 的取值是否为可解码的版本
+     */
+    public static boolean supports(String encoding) {
+        for (int version = MIN_VERSION; version <= VERSION; version++) {
+            if ((ENCODING_PREFIX + version).equals(encoding)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 编码评分事件
+     */
+    public static byte[] encode(ScoringResultEvent event) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        int presence = (event.getUserId() != null ? HAS_USER_ID : 0)
+                | (event.getMoveId() != null ? HAS_MOVE_ID : 0)
+                | (event.getScore() != null ? HAS_SCORE : 0)
+                | (event.getTimestamp() != null ? HAS_TIMESTAMP : 0)
+                | (event.getExtraData() != null ? HAS_EXTRA_DATA : 0)
+                | (event.getEventId() != null ? HAS_EVENT_ID : 0);
+        out.write(VERSION);
+        out.write(presence);
+
+        if (event.getEventId() != null) {
+            writeString(out, event.getEventId());
+        }
+        if (event.getUserId() != null) {
+            writeString(out, event.getUserId());
+        }
+        if (event.getMoveId() != null) {
+            writeString(out, event.getMoveId());
+        }
+        if (event.getScore() != null) {
+            writeVarLong(out, zigZag(event.getScore()));
+        }
+        if (event.getTimestamp() != null) {
+            writeVarLong(out, zigZag(event.getTimestamp().toEpochSecond(ZoneOffset.UTC)));
+            writeVarLong(out, event.getTimestamp().getNano());
+        }
+        if (event.getExtraData() != null) {
+            writeVarLong(out, event.getExtraData().size());
+            for (Map.Entry<String, Object> entry : event.getExtraData().entrySet()) {
+                writeString(out, String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码评分事件
+     *
+     * @throws IllegalArgumentException 版本不受支持或数据不完整时抛出
+     */
+    public static ScoringResultEvent decode(byte[] data) {
+        if (data == null || data.length < 2) {
+            throw new IllegalArgumentException("评分事件数据不完整");
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            byte version = buffer.get();
+            if (version < MIN_VERSION || version > VERSION) {
+                throw new IllegalArgumentException("不支持的评分事件编码版本: " + version);
+            }
+            int presence = buffer.get();
+
+            ScoringResultEvent event = new ScoringResultEvent();
+            if (version >= 2 && (presence & HAS_EVENT_ID) != 0) {
+                event.setEventId(readString(buffer));
+            }
+            if ((presence & HAS_USER_ID) != 0) {
+                event.setUserId(readString(buffer));
+            }
+            if ((presence & HAS_MOVE_ID) != 0) {
+                event.setMoveId(readString(buffer));
+            }
+            if ((presence & HAS_SCORE) != 0) {
+                event.setScore((int) unZigZag(readVarLong(buffer)));
+            }
+            if ((presence & HAS_TIMESTAMP) != 0) {
+                long seconds = unZigZag(readVarLong(buffer));
+                int nanos = (int) readVarLong(buffer);
+                event.setTimestamp(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC));
+            }
+            if ((presence & HAS_EXTRA_DATA) != 0) {
+                int size = readLength(buffer);
+                Map<String, Object> extraData = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    extraData.put(readString(buffer), readValue(buffer));
+                }
+                event.setExtraData(extraData);
+            }
+            return event;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("评分事件数据不完整");
+        }
+    }
+
+    // ==================== 值编码 ====================
+
+    private static void writeValue(ByteArrayOutputStream out, Object value) {
+        if (value == null) {
+            out.write(TAG_NULL);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.write(TAG_INT);
+            writeVarLong(out, zigZag(((Number) value).intValue()));
+        } else if (value instanceof Long longValue) {
+            out.write(TAG_LONG);
+            writeVarLong(out, zigZag(longValue));
+        } else if (value instanceof Double || value instanceof Float) {
+            out.write(TAG_DOUBLE);
+            long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+            for (int i = 0; i < Long.BYTES; i++) {
+                out.write((int) (bits >>> (i * 8)));
+            }
+        } else if (value instanceof Boolean bool) {
+            out.write(bool ? TAG_TRUE : TAG_FALSE);
+        } else {
+            out.write(TAG_STRING);
+            writeString(out, String.valueOf(value));
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_INT -> (int) unZigZag(readVarLong(buffer));
+            case TAG_LONG -> unZigZag(readVarLong(buffer));
+            case TAG_DOUBLE -> buffer.getDouble();
+            case TAG_TRUE -> Boolean.TRUE;
+            case TAG_FALSE -> Boolean.FALSE;
+            case TAG_STRING -> readString(buffer);
+            default -> throw new IllegalArgumentException("未知的值类型标记: " + tag);
+        };
+    }
+
+    // ==================== 基础类型 ====================
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readLength(buffer);
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int readLength(ByteBuffer buffer) {
+        long length = readVarLong(buffer);
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("长度非法: " + length);
+        }
+        return (int) length;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint 过长");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.fitness.api.serializer;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * {@code frontend_event_stream} 的 Kafka 值反序列化器
+ *
+ * <p>
+ * 记录头 {@link ScoringEventBinaryCodec#ENCODING_HEADER} 为受支持的二进制版本
+ * （如 {@value ScoringEventBinaryCodec#ENCODING}）时按二进制格式解码为
+ * {@link com.example.fitness.api.dto.ScoringResultEvent}；
+ * 没有该头的记录（旧生产者、埋点事件）委托给 Spring 的 {@link JsonDeserializer}，
+ * 因此灰度期间两种格式可以在同一 Topic 中共存。
+ */
+public class ScoringEventDeserializer implements Deserializer<Object> {
+
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        Header encoding = headers.lastHeader(ScoringEventBinaryCodec.ENCODING_HEADER);
+        if (encoding == null) {
+            return json.deserialize(topic, headers, data);
+        }
+        String value = new String(encoding.value(), StandardCharsets.UTF_8);
+        if (!ScoringEventBinaryCodec.supports(value)) {
+            throw new SerializationException("不支持的评分事件编码: " + value);
+        }
+        try {
+            return ScoringEventBinaryCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("评分事件解码失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
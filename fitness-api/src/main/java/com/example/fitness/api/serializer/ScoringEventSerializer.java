@@ -0,0 +1,65 @@
+package com.example.fitness.api.serializer;
+
+import com.example.fitness.api.dto.ScoringResultEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * {@code frontend_event_stream} 的 Kafka 值序列化器
+ *
+ * <p>
+ * {@link ScoringResultEvent} 编码为 {@link ScoringEventBinaryCodec} 的紧凑二进制格式，
+ * 并写入记录头 {@link ScoringEventBinaryCodec#ENCODING_HEADER}；
+ * 其他类型（如埋点事件 Map）委托给 Spring 的 {@link JsonSerializer}，行为不变。
+ *
+ * <p>
+ * 生产者属性 {@value #ENCODING_CONFIG} 设为 {@code json} 时评分事件也按 JSON 发送，
+ * 用于消费者尚未升级时的灰度发布。
+ */
+public class ScoringEventSerializer implements Serializer<Object> {
+
+    /** 评分事件编码方式：{@code binary}（默认）或 {@code json} */
+    public static final String ENCODING_CONFIG = "fitness.scoring-event.encoding";
+
+    private static final byte[] ENCODING_VALUE = ScoringEventBinaryCodec.ENCODING.getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+
+    private boolean binary = true;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        Object encoding = configs.get(ENCODING_CONFIG);
+        if (encoding != null) {
+            binary = !"json".equalsIgnoreCase(encoding.toString().trim());
+        }
+    }
+
+    /**
+     * 无记录头时无法协商编码，统一按 JSON 序列化
+     */
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return json.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (binary && data instanceof ScoringResultEvent event) {
+            headers.remove(ScoringEventBinaryCodec.ENCODING_HEADER);
+            headers.add(ScoringEventBinaryCodec.ENCODING_HEADER, ENCODING_VALUE);
+            return ScoringEventBinaryCodec.encode(event);
+        }
+        return json.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -18,7 +18,7 @@ public @interface Idempotent {
     String prefix() default "idempotent:";
 
     /**
-     * 锁过期时间（秒），默认5秒
+     * 占位过期时间（秒），未带幂等键时也是结果保留时间，默认5秒
      */
     int expire() default 5;
 
@@ -7,6 +7,11 @@ import java.lang.annotation.Target;
 
 /**
  * 分布式限流注解
+ *
+ * <p>
+ * 在 {@code time} 秒内最多允许 {@code count} 次调用，算法见 {@link Algorithm}。
+ * 可以通过 {@code ipCount}、{@code globalCount} 叠加按 IP、按方法全局的上限，各级在同一次 Redis 调用中判定，
+ * 任一级超限即拒绝（HTTP 429，带 {@code Retry-After}）。
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
@@ -27,11 +32,26 @@ public @interface RateLimit {
      */
     int count() default 100;
 
+    /**
+     * 同一 IP 的附加上限，0 表示不限；限流类型为 IP 时不生效
+     */
+    int ipCount() default 0;
+
+    /**
+     * 方法全局的附加上限，0 表示不限；限流类型为 DEFAULT 时不生效
+     */
+    int globalCount() default 0;
+
     /**
      * 限流类型
      */
     LimitType limitType() default LimitType.DEFAULT;
 
+    /**
+     * 限流算法
+     */
+    Algorithm algorithm() default Algorithm.SLIDING_WINDOW;
+
     enum LimitType {
         /**
          * 默认策略（全局/方法级）
@@ -39,7 +59,7 @@ public @interface RateLimit {
         DEFAULT,
 
         /**
-         * 自定义key
+         * 根据登录用户（{@code LoginInterceptor} 写入的 {@code userId} 请求属性），未登录时按 IP
          */
         CUSTOMER,
 
@@ -48,4 +68,21 @@ public @interface RateLimit {
          */
         IP
     }
+
+    enum Algorithm {
+        /**
+         * 滑动日志：记录窗口内每次请求的时间戳，精确但内存与次数成正比，适合次数较小的限制
+         */
+        SLIDING_LOG,
+
+        /**
+         * 滑动窗口计数：当前窗口计数 + 上一窗口计数按剩余比例加权，内存固定
+         */
+        SLIDING_WINDOW,
+
+        /**
+         * 令牌桶（GCRA）：按 time / count 的间隔匀速补充，最多突发 count 次
+         */
+        TOKEN_BUCKET
+    }
 }
@@ -1,57 +1,196 @@
 package com.example.fitness.common.aspect;
 
-import cn.hutool.crypto.SecureUtil;
-import cn.hutool.json.JSONUtil;
 import com.example.fitness.common.annotation.Idempotent;
+import com.example.fitness.common.config.FitnessProperties;
 import com.example.fitness.common.exception.BusinessException;
 import com.example.fitness.common.result.ErrorCode;
-import lombok.RequiredArgsConstructor;
+import com.example.fitness.common.util.Murmur3Hasher;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
 
 /**
  * 幂等性切面处理
+ *
+ * <p>
+ * 幂等 Key 的来源：
+ * <ul>
+ * <li>请求带 {@code Idempotency-Key} 头（头名见 {@code app.idempotent.header-name}）时，
+ * 按 当前用户（未登录为 IP）+ URI + 头的值 生成，结果保留 {@code app.idempotent.key-ttl-seconds} 秒</li>
+ * <li>否则按 IP + URI + 方法参数生成，参数由 Jackson 直接流式写入 {@link Murmur3Hasher}，
+ * 不生成中间 JSON 字符串，结果保留 {@code expire} 秒</li>
+ * </ul>
+ *
+ * <p>
+ * 首个请求通过 SETNX 占位后执行业务方法，成功时把返回值以 {@code {"result": ...}} 写回该 Key，
+ * 之后的重复请求直接重放该结果；业务方法抛出异常时删除占位，允许客户端重试。
+ * 占位仍在执行中的重复请求抛出 {@code message} 提示。
+ *
+ * <p>
+ * 指标：{@code idempotent.requests{result=new|replayed|in_progress}}。
  */
 @Slf4j
 @Aspect
 @Component
-@RequiredArgsConstructor
 public class IdempotentAspect {
 
+    /** 客户端幂等键的最大长度 */
+    static final int MAX_KEY_LENGTH = 255;
+
+    /** 执行中占位值 */
+    private static final String IN_PROGRESS = "1";
+
+    /** 结果信封中的字段名 */
+    private static final String RESULT_FIELD = "result";
+
     private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final String headerName;
+    private final Duration keyTtl;
 
-    @Before("@annotation(idempotent)")
+    public IdempotentAspect(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+            FitnessProperties properties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        FitnessProperties.Idempotent config = properties.getIdempotent();
+        this.headerName = config.getHeaderName();
+        this.keyTtl = Duration.ofSeconds(config.getKeyTtlSeconds());
+    }
+
+    @Around("@annotation(idempotent)")
     @SuppressWarnings("null")
-    public void doBefore(JoinPoint point, Idempotent idempotent) {
+    public Object doAround(ProceedingJoinPoint point, Idempotent idempotent) throws Throwable {
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         if (attributes == null) {
-            return;
+            return point.proceed();
         }
         HttpServletRequest request = attributes.getRequest();
 
-        // 1. 根据 URL、IP 和方法参数生成唯一的 Key
-        String ip = request.getRemoteAddr();
-        String url = request.getRequestURI();
-        String args = JSONUtil.toJsonStr(point.getArgs());
-
-        String source = ip + url + args;
-        String key = idempotent.prefix() + SecureUtil.md5(source);
+        // 1. 生成幂等 Key：优先使用客户端幂等键，否则对 IP + URL + 方法参数做哈希
+        String clientKey = request.getHeader(headerName);
+        String key;
+        Duration resultTtl;
+        if (clientKey != null && !clientKey.isBlank()) {
+            if (clientKey.length() > MAX_KEY_LENGTH) {
+                throw new BusinessException(ErrorCode.PARAM_ERROR.getCode(), headerName + " 过长");
+            }
+            Object userId = request.getAttribute("userId");
+            String scope = userId == null ? request.getRemoteAddr() : "user:" + userId;
+            key = idempotent.prefix() + "key:" + new Murmur3Hasher().putField(scope)
+                    .putField(request.getRequestURI()).putField(clientKey).toHex();
+            resultTtl = keyTtl;
+        } else {
+            Murmur3Hasher hasher = new Murmur3Hasher().putField(request.getRemoteAddr())
+                    .putField(request.getRequestURI());
+            writeArgs(hasher, point.getArgs());
+            key = idempotent.prefix() + hasher.toHex();
+            resultTtl = Duration.ofSeconds(idempotent.expire());
+        }
 
-        // 2. 尝试向 Redis 写入 Key，并设置过期时间 (SETNX)
-        Boolean success = redisTemplate.opsForValue().setIfAbsent(key, "1", Duration.ofSeconds(idempotent.expire()));
+        // 2. 尝试向 Redis 写入占位 Key，并设置过期时间 (SETNX)
+        Boolean success = redisTemplate.opsForValue().setIfAbsent(key, IN_PROGRESS,
+                Duration.ofSeconds(idempotent.expire()));
 
         if (success == null || !success) {
-            // 如果写入失败，说明请求已存在，抛出业务异常
-            throw new BusinessException(ErrorCode.INTERNAL_SERVER_ERROR.getCode(), idempotent.message());
+            // 3. 请求已存在：已完成则重放结果，仍在执行则拒绝
+            JsonNode stored = readResult(key);
+            if (stored == null) {
+                count("in_progress");
+                throw new BusinessException(ErrorCode.INTERNAL_SERVER_ERROR.getCode(), idempotent.message());
+            }
+            count("replayed");
+            Method method = ((MethodSignature) point.getSignature()).getMethod();
+            if (method.getReturnType() == void.class) {
+                return null;
+            }
+            return objectMapper.convertValue(stored,
+                    objectMapper.getTypeFactory().constructType(method.getGenericReturnType()));
+        }
+
+        // 4. 首次请求：执行业务方法，失败时释放占位，成功时保存结果
+        count("new");
+        Object result;
+        try {
+            result = point.proceed();
+        } catch (Throwable e) {
+            release(key);
+            throw e;
+        }
+        saveResult(key, result, resultTtl);
+        return result;
+    }
+
+    /**
+     * 把方法参数流式写入哈希；无法序列化时退化为 {@code toString}
+     */
+    private void writeArgs(Murmur3Hasher hasher, Object[] args) {
+        try {
+            objectMapper.writeValue(hasher, args);
+        } catch (Exception e) {
+            log.debug("幂等参数序列化失败，使用 toString: {}", e.getMessage());
+            byte[] bytes = Arrays.deepToString(args).getBytes(StandardCharsets.UTF_8);
+            hasher.write(bytes, 0, bytes.length);
         }
     }
+
+    /**
+     * 读取已保存的结果
+     *
+     * @return 结果 JSON（void 方法为 null 节点）；仍在执行或无法解析时返回 {@code null}
+     */
+    private JsonNode readResult(String key) {
+        String value = redisTemplate.opsForValue().get(key);
+        if (value == null || IN_PROGRESS.equals(value)) {
+            return null;
+        }
+        try {
+            JsonNode envelope = objectMapper.readTree(value);
+            return envelope.isObject() && envelope.has(RESULT_FIELD) ? envelope.get(RESULT_FIELD) : null;
+        } catch (Exception e) {
+            log.warn("幂等结果解析失败: key={}, {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveResult(String key, Object result, Duration ttl) {
+        try {
+            String envelope = objectMapper.writeValueAsString(
+                    objectMapper.createObjectNode().set(RESULT_FIELD, objectMapper.valueToTree(result)));
+            redisTemplate.opsForValue().set(key, envelope, ttl);
+        } catch (Exception e) {
+            // 保存失败时保留占位，重复请求在占位过期前仍被拒绝
+            log.warn("幂等结果保存失败: key={}, {}", key, e.getMessage());
+        }
+    }
+
+    private void release(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (Exception e) {
+            log.warn("幂等占位释放失败: key={}, {}", key, e.getMessage());
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("idempotent.requests").tag("result", result)
+                .description("幂等方法调用次数").register(meterRegistry).increment();
+    }
 }
@@ -1,25 +1,27 @@
 package com.example.fitness.common.aspect;
 
 import com.example.fitness.common.annotation.RateLimit;
-import com.example.fitness.common.exception.BusinessException;
-import com.example.fitness.common.result.ErrorCode;
+import com.example.fitness.common.exception.RateLimitException;
+import com.example.fitness.common.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
-import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
-import java.util.Collections;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 接口限流切面处理器
@@ -27,8 +29,10 @@ import java.util.List;
  * <p>
  * 基于 Redis + Lua 脚本实现分布式限流功能，支持以下特性：
  * <ul>
- * <li>基于时间窗口的请求计数限流</li>
- * <li>支持 IP 级别和全局级别的限流策略</li>
+ * <li>滑动日志、滑动窗口计数、令牌桶（GCRA）三种算法，由 {@code algorithm} 指定</li>
+ * <li>本地预检：明显未超限的调用不访问 Redis，定期与 Redis 同步</li>
+ * <li>支持用户、IP 与全局级别的限流策略，可多级叠加</li>
+ * <li>超限时返回 HTTP 429 与 {@code Retry-After}</li>
  * <li>使用 Lua 脚本保证原子性操作，避免竞态条件</li>
  * </ul>
  * 
@@ -39,6 +43,7 @@ import java.util.List;
  * @author fitness-team
  * @since 1.0.0
  * @see RateLimit
+ * @see RateLimiter
  */
 @Slf4j
 @Aspect
@@ -46,57 +51,71 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RateLimitAspect {
 
-    /** Redis 模板，用于执行限流脚本 */
-    private final StringRedisTemplate redisTemplate;
+    /** 限流引擎 */
+    private final RateLimiter rateLimiter;
+
+    /** 指标注册表，按方法记录限流结果 */
+    private final MeterRegistry meterRegistry;
 
     /**
      * 限流核心处理逻辑
      * 
      * <p>
      * 在目标方法执行前检查请求频率，若超过限制则抛出异常。
-     * 使用 Redis Lua 脚本保证计数器操作的原子性：
-     * <ol>
-     * <li>若 key 不存在，初始化计数为 1 并设置过期时间</li>
-     * <li>若计数未超限，原子递增计数器</li>
-     * <li>若已超限，拒绝请求</li>
-     * </ol>
+     * 主限流按 {@code limitType} 取 key，{@code ipCount}、{@code globalCount} 大于 0 时叠加对应级别，
+     * 各级交给 {@link RateLimiter} 一次判定：明显未超限的调用在本地放行，其余通过预加载的 Lua 脚本在 Redis 中原子判定。
+     * 
+     * <p>
+     * 每个方法记录 {@code ratelimit.method.requests{method, result=allowed|rejected}}
+     * 与 {@code ratelimit.method.utilization{method}}（放行时最接近上限一级的已用比例，拒绝记 1），用于调整限流参数。
      * 
      * @param point     切入点，包含被拦截方法的信息
      * @param rateLimit 限流注解，包含限流配置参数
-     * @throws BusinessException 当请求频率超过限制时抛出
+     * @throws RateLimitException 当请求频率超过限制时抛出
      */
     @Before("@annotation(rateLimit)")
-    @SuppressWarnings("null")
     public void doBefore(JoinPoint point, RateLimit rateLimit) {
-        int time = rateLimit.time();
-        int count = rateLimit.count();
-
-        // 1. 生成唯一的限流标识 Key
-        String combineKey = getCombineKey(rateLimit, point);
-        List<String> keys = Collections.singletonList(combineKey);
-
-        // 2. Lua 脚本逻辑：检查累计访问次数
-        // - 如果不存在则初始化并设置过期时间
-        // - 如果未超限则递增
-        // - 如果已超限则返回 0
-        String luaScript = "if redis.call('get', KEYS[1]) == false then " +
-                "redis.call('set', KEYS[1], 1) " +
-                "redis.call('expire', KEYS[1], ARGV[1]) " +
-                "return 1 " +
-                "elseif tonumber(redis.call('get', KEYS[1])) < tonumber(ARGV[2]) then " +
-                "redis.call('incr', KEYS[1]) " +
-                "return 1 " +
-                "else " +
-                "return 0 " +
-                "end";
-
-        RedisScript<Long> redisScript = new DefaultRedisScript<>(luaScript, Long.class);
-        Long number = redisTemplate.execute(redisScript, keys, String.valueOf(time), String.valueOf(count));
-
-        // 3. 若返回 0 表示已超限，拒绝请求
-        if (number != null && number == 0) {
-            log.warn("接口限流触发: key={}", combineKey);
-            throw new BusinessException(ErrorCode.INTERNAL_SERVER_ERROR.getCode(), "访问过于频繁，请稍候再试");
+        MethodSignature signature = (MethodSignature) point.getSignature();
+        Method method = signature.getMethod();
+
+        // 1. 生成各级限流 Key，同一 Key 取较小的次数（如未登录用户退化为按 IP）
+        String ip = getIpAddress();
+        Map<String, Integer> levels = new LinkedHashMap<>();
+        switch (rateLimit.limitType()) {
+            case IP -> levels.put(getCombineKey(rateLimit, method, ip), rateLimit.count());
+            case CUSTOMER -> {
+                String userId = getUserId();
+                String scope = userId == null ? ip : "user:" + userId;
+                levels.put(getCombineKey(rateLimit, method, scope), rateLimit.count());
+            }
+            default -> levels.put(getCombineKey(rateLimit, method, null), rateLimit.count());
+        }
+        if (rateLimit.ipCount() > 0) {
+            levels.merge(getCombineKey(rateLimit, method, ip), rateLimit.ipCount(), Math::min);
+        }
+        if (rateLimit.globalCount() > 0) {
+            levels.merge(getCombineKey(rateLimit, method, null), rateLimit.globalCount(), Math::min);
+        }
+
+        // 2. 交给限流引擎判定
+        List<RateLimiter.Level> limits = levels.entrySet().stream()
+                .map(entry -> new RateLimiter.Level(entry.getKey(), entry.getValue())).toList();
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(limits, rateLimit.algorithm(),
+                Duration.ofSeconds(rateLimit.time()));
+
+        // 3. 记录指标，若未获得许可则拒绝请求
+        String methodTag = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        Counter.builder("ratelimit.method.requests").tag("method", methodTag)
+                .tag("result", decision.allowed() ? "allowed" : "rejected")
+                .description("限流方法调用次数").register(meterRegistry).increment();
+        if (decision.utilization() >= 0) {
+            DistributionSummary.builder("ratelimit.method.utilization").tag("method", methodTag)
+                    .description("限流额度已用比例").publishPercentileHistogram()
+                    .register(meterRegistry).record(decision.utilization());
+        }
+        if (!decision.allowed()) {
+            log.warn("接口限流触发: keys={}", levels.keySet());
+            throw new RateLimitException(Math.max(1, (decision.retryAfterMillis() + 999) / 1000));
         }
     }
 
@@ -104,29 +123,42 @@ public class RateLimitAspect {
      * 生成限流唯一标识 Key
      * 
      * <p>
-     * Key 的组成格式：{注解key前缀}[-{客户端IP}]-{类名}-{方法名}
+     * Key 的组成格式：{注解key前缀}[{范围}-]{类名}-{方法名}，范围为客户端 IP 或 {@code user:{userId}}
      * 
      * @param rateLimit 限流注解配置
-     * @param point     切入点信息
+     * @param method    被拦截的方法
+     * @param scope     限流范围，方法全局时为 {@code null}
      * @return 唯一的限流标识字符串
      */
-    private String getCombineKey(RateLimit rateLimit, JoinPoint point) {
+    private String getCombineKey(RateLimit rateLimit, Method method, String scope) {
         StringBuilder stringBuffer = new StringBuilder(rateLimit.key());
 
-        // 若限流类型为 IP 级别，则在 Key 中包含客户端 IP
-        if (rateLimit.limitType() == RateLimit.LimitType.IP) {
-            stringBuffer.append(getIpAddress()).append("-");
+        // 按 IP 或用户限流时，在 Key 中包含范围
+        if (scope != null) {
+            stringBuffer.append(scope).append("-");
         }
 
         // 追加类名和方法名，确保唯一性
-        MethodSignature signature = (MethodSignature) point.getSignature();
-        Method method = signature.getMethod();
         Class<?> targetClass = method.getDeclaringClass();
         stringBuffer.append(targetClass.getName()).append("-").append(method.getName());
 
         return stringBuffer.toString();
     }
 
+    /**
+     * 获取登录拦截器写入的当前用户 ID
+     * 
+     * @return 用户 ID，未登录或无请求上下文时返回 {@code null}
+     */
+    private String getUserId() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object userId = attributes.getRequest().getAttribute("userId");
+        return userId == null ? null : userId.toString();
+    }
+
     /**
      * 获取客户端真实 IP 地址
      * 
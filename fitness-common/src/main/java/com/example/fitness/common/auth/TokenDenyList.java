@@ -0,0 +1,165 @@
+package com.example.fitness.common.auth;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 已吊销 Token 的本地名单（按过期时间分桶的布隆过滤器）
+ *
+ * <p>
+ * 按 Token 的 {@code exp} 把 {@code jti} 放入宽度为 {@code bucketMillis} 的分桶，每个分桶一个布隆过滤器，
+ * 分桶放在覆盖 {@code horizonMillis}（Token 最长有效期）的环形数组中；分桶过期后槽位直接给新分桶复用，
+ * 无需清理。{@code exp} 超出范围的少量 Token（如有效期配置被调大）放在精确的溢出表中。
+ *
+ * <p>
+ * {@link #mightContain} 返回 {@code false} 时 Token 一定未被吊销；返回 {@code true} 时可能误判，
+ * 需由调用方精确确认。查询不分配对象，可放在每个请求的鉴权路径上。线程安全。
+ */
+public class TokenDenyList {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final long bucketMillis;
+    private final int bitCount;
+    private final int hashCount;
+    private final LongSupplier clock;
+
+    /** 槽位 → 分桶，槽位 = 分桶编号 mod 槽位数 */
+    private final AtomicReferenceArray<Bucket> ring;
+
+    /** 超出分桶范围的 jti → exp */
+    private final Map<String, Long> overflow = new ConcurrentHashMap<>();
+
+    /**
+     * @param bucketMillis      分桶宽度（毫秒）
+     * @param horizonMillis     Token 最长有效期（毫秒），决定分桶数
+     * @param expectedPerBucket 每个分桶预计的吊销数
+     */
+    public TokenDenyList(long bucketMillis, long horizonMillis, int expectedPerBucket) {
+        this(bucketMillis, horizonMillis, expectedPerBucket, System::currentTimeMillis);
+    }
+
+    TokenDenyList(long bucketMillis, long horizonMillis, int expectedPerBucket, LongSupplier clock) {
+        this.bucketMillis = Math.max(1, bucketMillis);
+        this.clock = clock;
+        // 多留两个槽位：当前分桶与 exp 向上取整落入的分桶
+        this.ring = new AtomicReferenceArray<>((int) (Math.max(0, horizonMillis) / this.bucketMillis) + 2);
+        // m = -n·ln(p) / ln(2)²，取 2 的幂便于取模；k = m/n·ln(2)
+        int expected = Math.max(1, expectedPerBucket);
+        long bits = (long) Math.ceil(-expected * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(1L << 30, Long.highestOneBit(Math.max(64, bits - 1)) << 1);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+    }
+
+    /**
+     * 加入已吊销的 Token；已过期的 Token 忽略
+     *
+     * @param tokenId         Token 的 {@code jti}
+     * @param expiresAtMillis Token 的 {@code exp}（毫秒）
+     */
+    public void add(String tokenId, long expiresAtMillis) {
+        long now = clock.getAsLong();
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        long bucketId = expiresAtMillis / bucketMillis;
+        if (bucketId - now / bucketMillis >= ring.length() - 1) {
+            overflow.put(tokenId, expiresAtMillis);
+            overflow.values().removeIf(exp -> exp <= now);
+            return;
+        }
+        int slot = (int) (bucketId % ring.length());
+        while (true) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.id == bucketId) {
+                bucket.put(tokenId, hashCount);
+                return;
+            }
+            if (bucket != null && bucket.id > bucketId) {
+                // 槽位已被更晚的分桶占用（仅在时钟大幅跳变时出现），改放溢出表
+                overflow.put(tokenId, expiresAtMillis);
+                return;
+            }
+            // 槽位为空或存放的是已过期的分桶：换成新分桶后重试
+            ring.compareAndSet(slot, bucket, new Bucket(bucketId, bitCount));
+        }
+    }
+
+    /**
+     * 判断 Token 是否可能已被吊销
+     *
+     * @param tokenId         Token 的 {@code jti}
+     * @param expiresAtMillis Token 的 {@code exp}（毫秒）
+     * @return {@code false} 表示一定未被吊销
+     */
+    public boolean mightContain(String tokenId, long expiresAtMillis) {
+        long bucketId = expiresAtMillis / bucketMillis;
+        Bucket bucket = ring.get((int) (bucketId % ring.length()));
+        if (bucket != null && bucket.id == bucketId && bucket.mightContain(tokenId, hashCount)) {
+            return true;
+        }
+        return !overflow.isEmpty() && overflow.containsKey(tokenId);
+    }
+
+    /**
+     * 一个过期时间分桶的布隆过滤器
+     */
+    private static final class Bucket {
+
+        private final long id;
+        private final AtomicLongArray words;
+        private final int mask;
+
+        Bucket(long id, int bitCount) {
+            this.id = id;
+            this.words = new AtomicLongArray(bitCount / 64);
+            this.mask = bitCount - 1;
+        }
+
+        void put(String tokenId, int hashCount) {
+            long hash = hash(tokenId);
+            long h1 = fmix64(hash);
+            long h2 = fmix64(hash + 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                int bit = (int) ((h1 + i * h2) & mask);
+                long flag = 1L << bit;
+                words.accumulateAndGet(bit >>> 6, flag, (current, value) -> current | value);
+            }
+        }
+
+        boolean mightContain(String tokenId, int hashCount) {
+            long hash = hash(tokenId);
+            long h1 = fmix64(hash);
+            long h2 = fmix64(hash + 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                int bit = (int) ((h1 + i * h2) & mask);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** 逐字符 FNV-1a，避免 {@code getBytes} 分配 */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.fitness.common.auth;
+
+import com.example.fitness.common.config.FitnessProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Token 吊销服务
+ *
+ * <p>
+ * 吊销记录以 {@code jti → exp} 存在 Redis 有序集合 {@value #REVOKED_KEY} 中（精确、跨节点共享），
+ * 并在 {@value #REVOCATION_CHANNEL} 频道广播 {@code {exp}:{jti}}；各节点把收到的吊销放进本地的
+ * {@link TokenDenyList}（订阅由应用模块的监听容器注册），并每 {@code app.jwt.revocation-reload-millis}
+ * 从 Redis 全量重载一次，补偿启动前和订阅断开期间丢失的广播。
+ *
+ * <p>
+ * {@link #isRevoked} 先查本地布隆过滤器，绝大多数未吊销的 Token 在进程内直接通过，不访问 Redis、不分配对象；
+ * 命中时再用 {@code ZSCORE} 精确确认。确认时 Redis 不可用按已吊销处理（只影响误判的约 1% 命中）。
+ *
+ * <p>
+ * 指标：{@code auth.token.revocation.checks{result=pass|false_positive|revoked}}、
+ * {@code auth.token.revocation.redis.failures}。
+ */
+@Slf4j
+@Component
+public class TokenRevocationService implements MessageListener {
+
+    /** 吊销广播频道，消息体为 {@code {exp}:{jti}} */
+    public static final String REVOCATION_CHANNEL = "auth:token:revoked";
+
+    /** 吊销记录有序集合，成员为 jti，分数为 exp（毫秒） */
+    static final String REVOKED_KEY = "auth:revoked_tokens";
+
+    private final StringRedisTemplate redisTemplate;
+    private final TokenDenyList denyList;
+
+    private final Counter passCounter;
+    private final Counter falsePositiveCounter;
+    private final Counter revokedCounter;
+    private final Counter redisFailureCounter;
+
+    public TokenRevocationService(StringRedisTemplate redisTemplate, FitnessProperties properties,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        FitnessProperties.Jwt jwt = properties.getJwt();
+        long horizonSeconds = jwt.getExpiration() != null ? jwt.getExpiration() : 86400;
+        this.denyList = new TokenDenyList(jwt.getRevocationBucketSeconds() * 1000, horizonSeconds * 1000,
+                jwt.getRevocationExpectedPerBucket());
+
+        this.passCounter = Counter.builder("auth.token.revocation.checks").tag("result", "pass")
+                .description("Token 吊销检查次数").register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("auth.token.revocation.checks").tag("result", "false_positive")
+                .description("Token 吊销检查次数").register(meterRegistry);
+        this.revokedCounter = Counter.builder("auth.token.revocation.checks").tag("result", "revoked")
+                .description("Token 吊销检查次数").register(meterRegistry);
+        this.redisFailureCounter = Counter.builder("auth.token.revocation.redis.failures")
+                .description("吊销确认时 Redis 调用失败次数").register(meterRegistry);
+    }
+
+    /**
+     * 吊销 Token：写入 Redis、加入本地名单并通知其他节点
+     *
+     * @param tokenId         Token 的 {@code jti}；为 {@code null}（旧版 Token）时忽略，只能等其自然过期
+     * @param expiresAtMillis Token 的 {@code exp}（毫秒）
+     */
+    public void revoke(String tokenId, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        if (tokenId == null || expiresAtMillis <= now) {
+            return;
+        }
+        ZSetOperations<String, String> zSet = redisTemplate.opsForZSet();
+        zSet.add(REVOKED_KEY, tokenId, expiresAtMillis);
+        zSet.removeRangeByScore(REVOKED_KEY, 0, now);
+        denyList.add(tokenId, expiresAtMillis);
+        redisTemplate.convertAndSend(REVOCATION_CHANNEL, expiresAtMillis + ":" + tokenId);
+    }
+
+    /**
+     * 判断 Token 是否已被吊销
+     *
+     * @param tokenId         Token 的 {@code jti}，为 {@code null} 时视为未吊销
+     * @param expiresAtMillis Token 的 {@code exp}（毫秒）
+     * @return 是否已被吊销
+     */
+    public boolean isRevoked(String tokenId, long expiresAtMillis) {
+        if (tokenId == null || !denyList.mightContain(tokenId, expiresAtMillis)) {
+            passCounter.increment();
+            return false;
+        }
+        try {
+            boolean revoked = redisTemplate.opsForZSet().score(REVOKED_KEY, tokenId) != null;
+            (revoked ? revokedCounter : falsePositiveCounter).increment();
+            return revoked;
+        } catch (Exception e) {
+            log.warn("Token 吊销确认失败，按已吊销处理: {}", e.getMessage());
+            redisFailureCounter.increment();
+            return true;
+        }
+    }
+
+    /**
+     * 从 Redis 重载未过期的吊销记录
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-reload-millis:60000}")
+    public void reload() {
+        try {
+            Set<ZSetOperations.TypedTuple<String>> revoked = redisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(REVOKED_KEY, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+            if (revoked == null) {
+                return;
+            }
+            for (ZSetOperations.TypedTuple<String> entry : revoked) {
+                if (entry.getValue() != null && entry.getScore() != null) {
+                    denyList.add(entry.getValue(), entry.getScore().longValue());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("重载 Token 吊销名单失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 收到吊销广播时加入本地名单（包括本节点自己发出的广播）
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        try {
+            denyList.add(body.substring(separator + 1), Long.parseLong(body.substring(0, separator)));
+        } catch (RuntimeException e) {
+            log.warn("无法解析 Token 吊销广播: {}", body);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.fitness.common.cache;
+
+import com.example.fitness.common.config.FitnessProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 带防击穿保护的 Redis Cache-Aside 模板
+ *
+ * <p>
+ * 在“读缓存 → 未命中查库 → 回写缓存”的基础上提供：
+ * <ul>
+ * <li>单飞合并：同一进程内同一 key 同时只有一个加载在执行，其余请求等待并共享其结果</li>
+ * <li>概率提前刷新：按 XFetch 算法，离过期越近、加载越慢，越可能由某个请求提前重新加载，
+ * 热点 key 不会在过期瞬间集中穿透（系数见 {@code app.cache.early-refresh-beta}）</li>
+ * <li>过期抖动：实际过期时间为 ttl × [1, 1 + {@code app.cache.ttl-jitter})，同批写入的 key 不会同时过期</li>
+ * <li>空值缓存：加载结果为 {@code null} 时缓存空值 {@code app.cache.negative-ttl-seconds} 秒，
+ * 不存在的 ID 不会反复查库</li>
+ * </ul>
+ *
+ * <p>
+ * 缓存值为 JSON 信封 {@code {"value": ..., "expiresAt": 毫秒时间戳, "loadMillis": 加载耗时}}；
+ * 无法解析的旧格式视为未命中并被覆盖。Redis 读写失败只记录日志，直接调用加载函数（仍经过单飞合并）。
+ *
+ * <p>
+ * 指标（按 {@code cache} 名称区分）：{@code cache.requests{result=hit|negative_hit|miss}}、
+ * {@code cache.loads}、{@code cache.coalesced}（等待其他请求加载的次数）、{@code cache.early_refresh}。
+ */
+@Slf4j
+@Component
+public class CacheAsideTemplate {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration negativeTtl;
+    private final double ttlJitter;
+    private final double earlyRefreshBeta;
+
+    /** 正在加载的 key → 加载结果 */
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public CacheAsideTemplate(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+            FitnessProperties properties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        FitnessProperties.Cache cache = properties.getCache();
+        this.negativeTtl = Duration.ofSeconds(cache.getNegativeTtlSeconds());
+        this.ttlJitter = cache.getTtlJitter();
+        this.earlyRefreshBeta = cache.getEarlyRefreshBeta();
+    }
+
+    /**
+     * 读取缓存，未命中（或被选中提前刷新）时加载并回写
+     *
+     * @param cacheName 缓存名称，用于指标
+     * @param key       Redis key
+     * @param type      值类型
+     * @param ttl       基础过期时间
+     * @param loader    加载函数，数据不存在时返回 {@code null}
+     * @return 缓存或加载的值；数据不存在时为 {@code null}
+     */
+    public <T> T get(String cacheName, String key, Class<T> type, Duration ttl, Supplier<T> loader) {
+        JsonNode entry = read(key);
+        if (entry != null) {
+            JsonNode value = entry.path("value");
+            if (value.isNull() || value.isMissingNode()) {
+                counter("cache.requests", cacheName, "negative_hit").increment();
+                return null;
+            }
+            T cached = convert(key, value, type);
+            if (cached != null) {
+                if (!shouldRefreshEarly(entry)) {
+                    counter("cache.requests", cacheName, "hit").increment();
+                    return cached;
+                }
+                counter("cache.early_refresh", cacheName, null).increment();
+            }
+        }
+        counter("cache.requests", cacheName, "miss").increment();
+        return type.cast(load(cacheName, key, ttl, loader));
+    }
+
+    /**
+     * 删除缓存（包括空值）
+     */
+    public void evict(String key) {
+        redisTemplate.delete(key);
+    }
+
+    /**
+     * 单飞加载：同一 key 已有加载在执行时等待其结果
+     */
+    private Object load(String cacheName, String key, Duration ttl, Supplier<?> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            counter("cache.coalesced", cacheName, null).increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Object value = loader.get();
+            long loadMillis = System.currentTimeMillis() - start;
+            counter("cache.loads", cacheName, null).increment();
+            write(key, value, value == null ? negativeTtl : jitter(ttl), loadMillis);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * XFetch：{@code now - loadMillis × β × ln(rand) >= expiresAt} 时提前刷新
+     */
+    private boolean shouldRefreshEarly(JsonNode entry) {
+        if (earlyRefreshBeta <= 0) {
+            return false;
+        }
+        long expiresAt = entry.path("expiresAt").asLong(Long.MAX_VALUE);
+        long loadMillis = Math.max(1, entry.path("loadMillis").asLong(1));
+        double random = 1 - ThreadLocalRandom.current().nextDouble();
+        return System.currentTimeMillis() - loadMillis * earlyRefreshBeta * Math.log(random) >= expiresAt;
+    }
+
+    private Duration jitter(Duration ttl) {
+        if (ttlJitter <= 0) {
+            return ttl;
+        }
+        return Duration.ofMillis((long) (ttl.toMillis() * (1 + ttlJitter * ThreadLocalRandom.current().nextDouble())));
+    }
+
+    private JsonNode read(String key) {
+        try {
+            String json = redisTemplate.opsForValue().get(key);
+            if (json == null || json.isEmpty()) {
+                return null;
+            }
+            JsonNode entry = objectMapper.readTree(json);
+            return entry.isObject() && entry.has("expiresAt") ? entry : null;
+        } catch (Exception e) {
+            log.warn("读取缓存失败: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private <T> T convert(String key, JsonNode value, Class<T> type) {
+        try {
+            return objectMapper.treeToValue(value, type);
+        } catch (Exception e) {
+            log.warn("缓存解析失败: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(String key, Object value, Duration ttl, long loadMillis) {
+        try {
+            ObjectNode entry = objectMapper.createObjectNode();
+            entry.set("value", objectMapper.valueToTree(value));
+            entry.put("expiresAt", System.currentTimeMillis() + ttl.toMillis());
+            entry.put("loadMillis", loadMillis);
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(entry), ttl.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("写入缓存失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    private Counter counter(String name, String cacheName, String result) {
+        Counter.Builder builder = Counter.builder(name).tag("cache", cacheName);
+        if (result != null) {
+            builder.tag("result", result);
+        }
+        return builder.register(meterRegistry);
+    }
+}
@@ -19,12 +19,29 @@ public class FitnessProperties {
     /** 数据加密配置 */
     private Encrypt encrypt = new Encrypt();
 
+    /** Redis 缓存防击穿配置 */
+    private Cache cache = new Cache();
+
+    /** 接口限流配置 */
+    private RateLimit rateLimit = new RateLimit();
+
+    /** 接口幂等配置 */
+    private Idempotent idempotent = new Idempotent();
+
     @Data
     public static class Jwt {
         /** JWT 密钥 (最小 256 位) */
         private String secret;
         /** 过期时间 (秒) */
         private Long expiration;
+        /** 已验证 Token 的本地缓存条数；0 表示不缓存，每次都校验签名 */
+        private long tokenCacheSize = 10000;
+        /** 吊销名单按过期时间分桶的宽度 (秒) */
+        private long revocationBucketSeconds = 3600;
+        /** 每个分桶预计容纳的吊销数，决定布隆过滤器大小（误判率约 1%） */
+        private int revocationExpectedPerBucket = 10000;
+        /** 从 Redis 全量重载吊销名单的间隔 (毫秒)，补偿丢失的广播 */
+        private long revocationReloadMillis = 60000;
     }
 
     @Data
@@ -32,4 +49,32 @@ public class FitnessProperties {
         /** AES 加密密钥 */
         private String key;
     }
+
+    @Data
+    public static class Cache {
+        /** 不存在的数据（空值）缓存时间 (秒) */
+        private long negativeTtlSeconds = 30;
+        /** 过期时间随机抖动比例，实际过期时间为 ttl × [1, 1 + ttlJitter) */
+        private double ttlJitter = 0.1;
+        /** 提前刷新系数 β，越大越早刷新；0 表示不提前刷新 */
+        private double earlyRefreshBeta = 1.0;
+    }
+
+    @Data
+    public static class RateLimit {
+        /** 是否启用本地预检；关闭后每次调用都访问 Redis */
+        private boolean localEnabled = true;
+        /** 本地计数同步到 Redis 的间隔 (毫秒) */
+        private long syncIntervalMillis = 100;
+        /** 两次同步之间本地最多放行上次同步时剩余额度的比例 */
+        private double localFraction = 0.5;
+    }
+
+    @Data
+    public static class Idempotent {
+        /** 客户端幂等键请求头 */
+        private String headerName = "Idempotency-Key";
+        /** 带幂等键请求的结果保留时间 (秒) */
+        private long keyTtlSeconds = 86400;
+    }
 }
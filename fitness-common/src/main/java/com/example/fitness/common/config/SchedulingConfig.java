@@ -0,0 +1,13 @@
+package com.example.fitness.common.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置类
+ * 开启 {@code @Scheduled} 支持，供模板刷新、缓冲区定时刷写等后台任务使用。
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -3,6 +3,9 @@ package com.example.fitness.common.exception;
 import com.example.fitness.common.result.ErrorCode;
 import com.example.fitness.common.result.Result;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -33,6 +36,16 @@ public class GlobalExceptionHandler {
         return Result.error(e.getCode(), e.getMessage());
     }
 
+    /**
+     * 处理限流异常 - 返回 HTTP 429 与 Retry-After
+     */
+    @ExceptionHandler(RateLimitException.class)
+    public ResponseEntity<Result<?>> handleRateLimitException(RateLimitException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Result.error(e.getCode(), e.getMessage()));
+    }
+
     /**
      * 处理参数校验异常
      */
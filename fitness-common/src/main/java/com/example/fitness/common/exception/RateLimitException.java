@@ -0,0 +1,19 @@
+package com.example.fitness.common.exception;
+
+import com.example.fitness.common.result.ErrorCode;
+import lombok.Getter;
+
+/**
+ * 限流异常
+ * 由全局异常处理器转换为 HTTP 429，并通过 {@code Retry-After} 头告知客户端等待秒数。
+ */
+@Getter
+public class RateLimitException extends BusinessException {
+    /** 建议的重试等待秒数 */
+    private final long retryAfterSeconds;
+
+    public RateLimitException(long retryAfterSeconds) {
+        super(ErrorCode.TOO_MANY_REQUESTS);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,417 @@
+package com.example.fitness.common.ratelimit;
+
+import com.example.fitness.common.annotation.RateLimit;
+import com.example.fitness.common.config.FitnessProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分布式限流引擎（Redis 脚本 + 本地预检）
+ *
+ * <p>
+ * 一次调用可以同时受多级限制（如按用户、按 IP、全局），各级 key 在同一个脚本中判定：
+ * 任一级超限则整体拒绝，且不消耗其他级的额度。每种算法对应一个常量 {@link RedisScript}，
+ * SHA1 只计算一次，执行时走 {@code EVALSHA}，仅在 Redis 尚未缓存脚本时回退一次 {@code EVAL}。
+ * 脚本以 Redis {@code TIME} 为时钟，各节点不依赖本机时间：
+ * <ul>
+ * <li>{@link RateLimit.Algorithm#SLIDING_LOG}：有序集合记录窗口内每次请求</li>
+ * <li>{@link RateLimit.Algorithm#SLIDING_WINDOW}：哈希保存当前 / 上一窗口计数，按重叠比例加权</li>
+ * <li>{@link RateLimit.Algorithm#TOKEN_BUCKET}：GCRA，只保存理论到达时间</li>
+ * </ul>
+ * 脚本参数为 {@code windowMillis, acquire, nonce, limit[1..n], recorded[1..n]}：先无条件记入各级已在本地放行的
+ * {@code recorded} 次，再尝试获取 {@code acquire} 次；返回 {@code [是否放行, 建议重试毫秒数, 各级剩余额度...]}。
+ *
+ * <p>
+ * 本地预检：每个 key 在本进程保存上次同步得到的剩余额度。距上次同步不足 {@code app.rate-limit.sync-interval-millis}
+ * 时，各级本地最多放行剩余额度的 {@code app.rate-limit.local-fraction}，任一级额度已耗尽时直接拒绝，均不访问 Redis；
+ * 超出后或同步过期时，连同各级本地放行的次数一起同步一次。空闲 key 的本地计数由定时任务补记。
+ * 多节点在一个同步间隔内最多多放行 (节点数 × local-fraction - 1) × 剩余额度次。
+ *
+ * <p>
+ * Redis 不可用时放行请求并计入 {@code ratelimit.redis.failures}。
+ * 判定结果计入 {@code ratelimit.requests{source=local|redis, result=allowed|rejected}}。
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    /** 各脚本共用的参数解析，时间单位为毫秒 */
+    private static final String PRELUDE = """
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000 + tonumber(t[2]) / 1000
+            local window = tonumber(ARGV[1])
+            local acquire = tonumber(ARGV[2])
+            local n = #KEYS
+            local function limit(i) return tonumber(ARGV[3 + i]) end
+            local function recorded(i) return tonumber(ARGV[3 + n + i]) end
+            local allowed = 1
+            local retry = 0
+            local result = {}
+            """;
+
+    private static final String EPILOGUE = """
+            result[1] = allowed
+            result[2] = math.ceil(retry)
+            return result
+            """;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SLIDING_LOG_SCRIPT = RedisScript.of(PRELUDE + """
+            local used = {}
+            for i = 1, n do
+              redis.call('ZREMRANGEBYSCORE', KEYS[i], '-inf', now - window)
+              used[i] = redis.call('ZCARD', KEYS[i])
+              if used[i] + recorded(i) + acquire > limit(i) then
+                allowed = 0
+                local oldest = redis.call('ZRANGE', KEYS[i], 0, 0, 'WITHSCORES')
+                local wait = window
+                if oldest[2] then wait = tonumber(oldest[2]) + window - now end
+                if wait > retry then retry = wait end
+              end
+            end
+            for i = 1, n do
+              local k = recorded(i) + allowed * acquire
+              for j = 1, k do
+                redis.call('ZADD', KEYS[i], now, ARGV[3] .. ':' .. j)
+              end
+              if k > 0 then redis.call('PEXPIRE', KEYS[i], window) end
+              result[2 + i] = math.max(0, limit(i) - used[i] - k)
+            end
+            """ + EPILOGUE, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SLIDING_WINDOW_SCRIPT = RedisScript.of(PRELUDE + """
+            local idx = math.floor(now / window)
+            local weight = 1 - (now - idx * window) / window
+            local curr, prev, used = {}, {}, {}
+            for i = 1, n do
+              local s = redis.call('HMGET', KEYS[i], 'w', 'c', 'p')
+              local w = tonumber(s[1])
+              curr[i] = tonumber(s[2]) or 0
+              prev[i] = tonumber(s[3]) or 0
+              if w ~= idx then
+                if w == idx - 1 then prev[i] = curr[i] else prev[i] = 0 end
+                curr[i] = 0
+              end
+              used[i] = prev[i] * weight + curr[i]
+              if used[i] + recorded(i) + acquire > limit(i) then
+                allowed = 0
+                local wait = (idx + 1) * window - now
+                if wait > retry then retry = wait end
+              end
+            end
+            for i = 1, n do
+              local k = recorded(i) + allowed * acquire
+              if k > 0 then
+                redis.call('HSET', KEYS[i], 'w', idx, 'c', curr[i] + k, 'p', prev[i])
+                redis.call('PEXPIRE', KEYS[i], window * 2)
+              end
+              result[2 + i] = math.max(0, math.floor(limit(i) - used[i] - k))
+            end
+            """ + EPILOGUE, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT = RedisScript.of(PRELUDE + """
+            local tat, interval = {}, {}
+            for i = 1, n do
+              interval[i] = window / limit(i)
+              local stored = tonumber(redis.call('GET', KEYS[i])) or now
+              tat[i] = math.max(stored, now) + recorded(i) * interval[i]
+              local wait = tat[i] + acquire * interval[i] - window - now
+              if wait > 1e-6 then
+                allowed = 0
+                if wait > retry then retry = wait end
+              end
+            end
+            for i = 1, n do
+              local k = recorded(i) + allowed * acquire
+              tat[i] = tat[i] + allowed * acquire * interval[i]
+              if k > 0 and tat[i] > now then
+                redis.call('SET', KEYS[i], tostring(tat[i]), 'PX', math.ceil(tat[i] - now))
+              end
+              result[2 + i] = math.max(0, math.floor((window - (tat[i] - now)) / interval[i] + 1e-6))
+            end
+            """ + EPILOGUE, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean localEnabled;
+    private final long syncIntervalNanos;
+    private final double localFraction;
+
+    /** Redis key → 本地预检状态 */
+    private final ConcurrentHashMap<String, LocalState> states = new ConcurrentHashMap<>();
+    /** 滑动日志成员前缀，保证多节点写入的成员不重复 */
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Counter localAllowedCounter;
+    private final Counter localRejectedCounter;
+    private final Counter redisAllowedCounter;
+    private final Counter redisRejectedCounter;
+    private final Counter failureCounter;
+
+    public RateLimiter(StringRedisTemplate redisTemplate, FitnessProperties properties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        FitnessProperties.RateLimit config = properties.getRateLimit();
+        this.localEnabled = config.isLocalEnabled();
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getSyncIntervalMillis());
+        this.localFraction = config.getLocalFraction();
+
+        this.localAllowedCounter = requests(meterRegistry, "local", "allowed");
+        this.localRejectedCounter = requests(meterRegistry, "local", "rejected");
+        this.redisAllowedCounter = requests(meterRegistry, "redis", "allowed");
+        this.redisRejectedCounter = requests(meterRegistry, "redis", "rejected");
+        this.failureCounter = Counter.builder("ratelimit.redis.failures")
+                .description("限流脚本执行失败次数（请求被放行）").register(meterRegistry);
+    }
+
+    /**
+     * 单级限流
+     *
+     * @param key       限流 key（不含前缀）
+     * @param algorithm 限流算法
+     * @param limit     窗口内允许的次数
+     * @param window    时间窗口
+     * @return 判定结果
+     */
+    public Decision tryAcquire(String key, RateLimit.Algorithm algorithm, int limit, Duration window) {
+        return tryAcquire(List.of(new Level(key, limit)), algorithm, window);
+    }
+
+    /**
+     * 多级限流：各级同时满足才放行
+     *
+     * @param levels    各级限流 key 与次数
+     * @param algorithm 限流算法
+     * @param window    时间窗口
+     * @return 判定结果
+     */
+    public Decision tryAcquire(List<Level> levels, RateLimit.Algorithm algorithm, Duration window) {
+        long now = System.nanoTime();
+        List<String> redisKeys = new ArrayList<>(levels.size());
+        List<LocalState> local = new ArrayList<>(levels.size());
+        for (Level level : levels) {
+            String redisKey = KEY_PREFIX + algorithm.name().toLowerCase(Locale.ROOT) + ":" + level.key();
+            LocalState state = states.computeIfAbsent(redisKey,
+                    k -> new LocalState(algorithm, level.limit(), window));
+            state.lastAccessNanos = now;
+            redisKeys.add(redisKey);
+            local.add(state);
+        }
+        if (localEnabled) {
+            Decision decision = tryLocal(local, now);
+            if (decision != null) {
+                return decision;
+            }
+        }
+        Decision decision = sync(algorithm, redisKeys, local, window.toMillis(), 1, now);
+        (decision.allowed() ? redisAllowedCounter : redisRejectedCounter).increment();
+        return decision;
+    }
+
+    /**
+     * 本地预检
+     *
+     * @return 本地可以判定时返回结果，需要同步 Redis 时返回 {@code null}
+     */
+    private Decision tryLocal(List<LocalState> local, long now) {
+        for (LocalState state : local) {
+            if (!state.synced || now - state.syncedAtNanos >= syncIntervalNanos) {
+                return null;
+            }
+        }
+        for (LocalState state : local) {
+            if (state.remaining <= 0) {
+                localRejectedCounter.increment();
+                return Decision.reject(TimeUnit.NANOSECONDS.toMillis(Math.max(0, state.retryAtNanos - now)));
+            }
+        }
+        int reserved = 0;
+        while (reserved < local.size() && local.get(reserved).tryReserve(localFraction)) {
+            reserved++;
+        }
+        if (reserved < local.size()) {
+            for (int i = 0; i < reserved; i++) {
+                local.get(i).pending.decrementAndGet();
+            }
+            return null;
+        }
+        localAllowedCounter.increment();
+        return Decision.allow(utilization(local));
+    }
+
+    /**
+     * 补记空闲 key 在本地放行的次数，并清理超过一个窗口未访问的本地状态
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.sync-interval-millis:100}")
+    public void flush() {
+        long now = System.nanoTime();
+        states.forEach((redisKey, state) -> {
+            if (state.pending.get() > 0 && now - state.syncedAtNanos >= syncIntervalNanos) {
+                sync(state.algorithm, List.of(redisKey), List.of(state), state.windowMillis, 0, now);
+            } else if (state.pending.get() == 0
+                    && now - state.lastAccessNanos > state.windowNanos + syncIntervalNanos) {
+                states.remove(redisKey, state);
+            }
+        });
+    }
+
+    /**
+     * 把各级本地放行次数记入 Redis 并尝试获取 {@code acquire} 次许可，刷新各级剩余额度
+     */
+    private Decision sync(RateLimit.Algorithm algorithm, List<String> redisKeys, List<LocalState> local,
+            long windowMillis, int acquire, long now) {
+        int n = local.size();
+        Object[] args = new Object[3 + 2 * n];
+        args[0] = String.valueOf(windowMillis);
+        args[1] = String.valueOf(acquire);
+        args[2] = instanceId + ":" + sequence.incrementAndGet();
+        for (int i = 0; i < n; i++) {
+            LocalState state = local.get(i);
+            long recorded = state.pending.getAndSet(0);
+            if (recorded < 0) {
+                // 同步期间有本地预占被回滚，差额留到下次
+                state.pending.addAndGet(recorded);
+                recorded = 0;
+            }
+            args[3 + i] = String.valueOf(state.limit);
+            args[3 + n + i] = String.valueOf(recorded);
+        }
+        List<?> result = execute(algorithm, redisKeys, args);
+        if (result == null || result.size() < 2 + n) {
+            local.forEach(state -> state.synced = false);
+            return Decision.allow(-1);
+        }
+        boolean allowed = ((Number) result.get(0)).longValue() == 1;
+        long retryAfterMillis = ((Number) result.get(1)).longValue();
+        for (int i = 0; i < n; i++) {
+            LocalState state = local.get(i);
+            state.remaining = ((Number) result.get(2 + i)).longValue();
+            state.retryAtNanos = now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+            state.syncedAtNanos = now;
+            state.synced = true;
+        }
+        return allowed ? Decision.allow(utilization(local)) : Decision.reject(retryAfterMillis);
+    }
+
+    private List<?> execute(RateLimit.Algorithm algorithm, List<String> redisKeys, Object[] args) {
+        try {
+            return redisTemplate.execute(script(algorithm), redisKeys, args);
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            log.warn("限流脚本执行失败，放行请求: keys={}, error={}", redisKeys, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 各级中最接近上限的已用比例
+     */
+    private static double utilization(List<LocalState> local) {
+        double max = 0;
+        for (LocalState state : local) {
+            double used = 1 - (double) (state.remaining - state.pending.get()) / state.limit;
+            max = Math.max(max, Math.min(1, used));
+        }
+        return max;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static RedisScript<List> script(RateLimit.Algorithm algorithm) {
+        return switch (algorithm) {
+            case SLIDING_LOG -> SLIDING_LOG_SCRIPT;
+            case SLIDING_WINDOW -> SLIDING_WINDOW_SCRIPT;
+            case TOKEN_BUCKET -> TOKEN_BUCKET_SCRIPT;
+        };
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String source, String result) {
+        return Counter.builder("ratelimit.requests").tag("source", source).tag("result", result)
+                .description("限流判定次数").register(meterRegistry);
+    }
+
+    /**
+     * 一级限流
+     *
+     * @param key   限流 key（不含前缀）
+     * @param limit 窗口内允许的次数
+     */
+    public record Level(String key, int limit) {
+    }
+
+    /**
+     * 限流判定结果
+     *
+     * @param allowed          是否放行
+     * @param utilization      放行时各级中最接近上限的已用比例 [0, 1]；Redis 不可用时为 -1
+     * @param retryAfterMillis 拒绝时建议的重试等待毫秒数
+     */
+    public record Decision(boolean allowed, double utilization, long retryAfterMillis) {
+
+        static Decision allow(double utilization) {
+            return new Decision(true, utilization, 0);
+        }
+
+        static Decision reject(long retryAfterMillis) {
+            return new Decision(false, 1, retryAfterMillis);
+        }
+    }
+
+    /**
+     * 单个限流 key 的本地预检状态；计数用原子变量，同步结果允许短暂不一致
+     */
+    private static final class LocalState {
+        private final RateLimit.Algorithm algorithm;
+        private final int limit;
+        private final long windowMillis;
+        private final long windowNanos;
+        /** 上次同步后本地放行、尚未记入 Redis 的次数 */
+        private final AtomicLong pending = new AtomicLong();
+        /** 是否有可信的同步结果 */
+        private volatile boolean synced;
+        private volatile long syncedAtNanos;
+        private volatile long lastAccessNanos;
+        /** 上次同步后的剩余额度 */
+        private volatile long remaining;
+        /** 上次同步给出的最早重试时刻 */
+        private volatile long retryAtNanos;
+
+        private LocalState(RateLimit.Algorithm algorithm, int limit, Duration window) {
+            this.algorithm = algorithm;
+            this.limit = limit;
+            this.windowMillis = window.toMillis();
+            this.windowNanos = window.toNanos();
+        }
+
+        /**
+         * 本地已放行数未达到剩余额度的 {@code fraction} 时预占一次
+         */
+        private boolean tryReserve(double fraction) {
+            long budget = (long) (remaining * fraction);
+            long current;
+            do {
+                current = pending.get();
+                if (current >= budget) {
+                    return false;
+                }
+            } while (!pending.compareAndSet(current, current + 1));
+            return true;
+        }
+    }
+}
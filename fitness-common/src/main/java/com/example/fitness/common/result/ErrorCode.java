@@ -21,6 +21,7 @@ public enum ErrorCode {
     UNAUTHORIZED(401, "未授权"),
     FORBIDDEN(403, "禁止访问"),
     NOT_FOUND(404, "资源不存在"),
+    TOO_MANY_REQUESTS(429, "访问过于频繁，请稍候再试"),
 
     // --- 用户模块错误 (1000+) ---
     USER_NOT_FOUND(1001, "用户不存在"),
@@ -0,0 +1,407 @@
+package com.example.fitness.common.spill;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 追加写的内存映射分段日志
+ *
+ * <p>
+ * 目录下每个分段文件 {@code <20 位序号>.log} 以固定大小整体映射（{@link MappedByteBuffer}），
+ * 记录格式为 {@code [int 长度][int CRC32C][payload]}，长度为 0 表示分段内已写数据的末尾。
+ * 每次追加后对写入区间执行 {@code force}，进程崩溃或断电后已返回成功的记录不会丢失。
+ * 当前分段写满时轮转到下一个分段；分段数达到上限后拒绝写入，磁盘占用不超过
+ * {@code maxBytes}（向下取整到分段大小，至少两个分段）。
+ *
+ * <p>
+ * 读取进度以 {@code (分段序号, 偏移)} 保存在 {@code checkpoint} 文件中（写临时文件后原子替换）。
+ * {@link #read} 只读取不前进，调用方处理成功后再 {@link #commit}，
+ * 早于读取进度所在分段的文件在提交时删除。
+ *
+ * <p>
+ * 启动时从头扫描每个分段并校验 CRC：末尾写了一半的记录（崩溃时的撕裂写）被截断，
+ * 当前分段截断点之后的字节清零，避免之后追加的数据与旧内容拼接成有效记录。
+ * 校验失败的记录计入 {@link #corruptRecords()} 并跳过。
+ *
+ * <p>
+ * 所有方法由同一把锁串行化；本类用于 Kafka 不可用时的降级写入，不追求高并发吞吐。
+ * 目录通过 {@code lock} 文件加独占锁，防止多个进程同时写同一目录。
+ */
+public class SpillSegmentLog implements Closeable {
+
+    /** 记录头：长度 + CRC */
+    static final int RECORD_HEADER_BYTES = 8;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "lock";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment active;
+
+    /** 已提交的读取进度 */
+    private long readSegment;
+    private int readOffset;
+    /** 读取进度所在分段中已消费的记录数 */
+    private int readIndex;
+
+    private long corruptRecords;
+    private boolean closed;
+
+    /**
+     * @param directory    分段与 checkpoint 所在目录，不存在时创建
+     * @param segmentBytes 单个分段的大小
+     * @param maxBytes     所有分段合计的磁盘上限
+     */
+    public SpillSegmentLog(Path directory, int segmentBytes, long maxBytes) throws IOException {
+        if (segmentBytes <= RECORD_HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentBytes 过小: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxBytes / segmentBytes));
+
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // 同一进程内已有实例持有该目录
+            acquired = null;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IOException("溢写目录已被占用: " + directory);
+        }
+        this.lock = acquired;
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 追加一条记录并刷盘
+     *
+     * @return 是否已写入；记录超过分段大小、分段数已达上限或已关闭时返回 {@code false}
+     */
+    public synchronized boolean append(byte[] payload) throws IOException {
+        int size = RECORD_HEADER_BYTES + payload.length;
+        if (closed || payload.length == 0 || size > segmentBytes) {
+            return false;
+        }
+        if (active.limit + size > active.capacity()) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            active = openSegment(active.id + 1);
+            segments.put(active.id, active);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int position = active.limit;
+        MappedByteBuffer buffer = active.buffer;
+        buffer.put(position + RECORD_HEADER_BYTES, payload);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, payload.length);
+        buffer.force(position, size);
+
+        active.limit += size;
+        active.records++;
+        return true;
+    }
+
+    /**
+     * 从已提交的进度开始读取至多 {@code maxRecords} 条记录，不移动进度
+     */
+    public synchronized Batch read(int maxRecords) {
+        List<byte[]> records = new ArrayList<>();
+        long segmentId = readSegment;
+        int offset = readOffset;
+        int index = readIndex;
+        int corrupt = 0;
+        while (!closed && records.size() < maxRecords) {
+            Segment segment = segments.get(segmentId);
+            if (offset >= segment.limit) {
+                if (segment == active) {
+                    break;
+                }
+                segmentId = segments.higherKey(segmentId);
+                offset = 0;
+                index = 0;
+                continue;
+            }
+            int length = segment.buffer.getInt(offset);
+            if (length <= 0 || length > segment.limit - offset - RECORD_HEADER_BYTES) {
+                // 长度字段已损坏，无法定位下一条记录，跳过分段剩余部分
+                corrupt++;
+                offset = segment.limit;
+                index = segment.records;
+                continue;
+            }
+            byte[] payload = new byte[length];
+            segment.buffer.get(offset + RECORD_HEADER_BYTES, payload);
+            int expectedCrc = segment.buffer.getInt(offset + 4);
+            offset += RECORD_HEADER_BYTES + length;
+            index++;
+            if (crcOf(payload) != expectedCrc) {
+                corrupt++;
+                continue;
+            }
+            records.add(payload);
+        }
+        return new Batch(records, segmentId, offset, index, corrupt);
+    }
+
+    /**
+     * 把读取进度推进到 {@code batch} 末尾，删除已完全消费的分段
+     */
+    public synchronized void commit(Batch batch) throws IOException {
+        if (closed) {
+            return;
+        }
+        corruptRecords += batch.corrupt();
+        if (batch.segmentId() == readSegment && batch.offset() == readOffset) {
+            return;
+        }
+        readSegment = batch.segmentId();
+        readOffset = batch.offset();
+        readIndex = batch.index();
+        writeCheckpoint();
+
+        Map<Long, Segment> consumed = segments.headMap(readSegment);
+        for (Segment segment : consumed.values()) {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        }
+        consumed.clear();
+    }
+
+    /** 尚未提交消费的记录数；关闭后为 0 */
+    public synchronized long backlogRecords() {
+        if (closed) {
+            return 0;
+        }
+        long records = -readIndex;
+        for (Segment segment : segments.values()) {
+            records += segment.records;
+        }
+        return records;
+    }
+
+    /** 尚未提交消费的字节数（含记录头）；关闭后为 0 */
+    public synchronized long backlogBytes() {
+        if (closed) {
+            return 0;
+        }
+        long bytes = -readOffset;
+        for (Segment segment : segments.values()) {
+            bytes += segment.limit;
+        }
+        return bytes;
+    }
+
+    /** 当前分段文件数 */
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /** 累计校验失败被跳过的记录数 */
+    public synchronized long corruptRecords() {
+        return corruptRecords;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        segments.clear();
+        lock.release();
+        lockChannel.close();
+    }
+
+    private void recover() throws IOException {
+        long[] checkpoint = readCheckpoint();
+        List<Long> ids;
+        try (Stream<Path> files = Files.list(directory)) {
+            ids = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        for (long id : ids) {
+            if (id < checkpoint[0]) {
+                Files.deleteIfExists(segmentPath(id));
+            } else {
+                segments.put(id, openSegment(id));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(checkpoint[0], openSegment(checkpoint[0]));
+        }
+        if (segments.containsKey(checkpoint[0])) {
+            readSegment = checkpoint[0];
+            readOffset = (int) checkpoint[1];
+        } else {
+            readSegment = segments.firstKey();
+            readOffset = 0;
+        }
+
+        for (Segment segment : segments.values()) {
+            scan(segment);
+        }
+        active = segments.lastEntry().getValue();
+        // 清零截断点之后的残留字节
+        for (int i = active.limit; i < active.capacity(); i++) {
+            active.buffer.put(i, (byte) 0);
+        }
+        active.buffer.force();
+    }
+
+    /**
+     * 扫描分段得到有效数据末尾和记录数；同时定位读取进度在分段内对应的记录序号
+     */
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + RECORD_HEADER_BYTES <= segment.capacity()) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || length > segment.capacity() - position - RECORD_HEADER_BYTES) {
+                corruptRecords++;
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + RECORD_HEADER_BYTES, payload);
+            if (crcOf(payload) != buffer.getInt(position + 4)) {
+                corruptRecords++;
+                break;
+            }
+            if (segment.id == readSegment && position < readOffset) {
+                readIndex++;
+            }
+            position += RECORD_HEADER_BYTES + length;
+            segment.records++;
+        }
+        segment.limit = position;
+        if (segment.id == readSegment && readOffset > position) {
+            readOffset = position;
+        }
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        Path path = segmentPath(id);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = Math.max(channel.size(), segmentBytes);
+            // 映射在文件通道关闭后仍然有效，直到缓冲区被回收
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new Segment(id, path, channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private long[] readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return new long[] { 0, 0 };
+        }
+        String[] parts = Files.readString(file, StandardCharsets.US_ASCII).trim().split(" ");
+        try {
+            return new long[] { Long.parseLong(parts[0]), Long.parseLong(parts[1]) };
+        } catch (RuntimeException e) {
+            throw new IOException("溢写 checkpoint 已损坏: " + file, e);
+        }
+    }
+
+    private void writeCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(StandardCharsets.US_ASCII.encode(readSegment + " " + readOffset));
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static int crcOf(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 一次读取的结果
+     *
+     * @param records   通过校验的记录
+     * @param segmentId 读取结束时所在分段
+     * @param offset    读取结束时在分段内的偏移
+     * @param index     读取结束时在分段内已越过的记录数
+     * @param corrupt   本次跳过的损坏记录数
+     */
+    public record Batch(List<byte[]> records, long segmentId, int offset, int index, int corrupt) {
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        /** 有效数据末尾 */
+        private int limit;
+        private int records;
+
+        private Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private int capacity() {
+            return buffer.capacity();
+        }
+    }
+}
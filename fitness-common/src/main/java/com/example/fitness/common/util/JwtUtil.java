@@ -1,32 +1,61 @@
 package com.example.fitness.common.util;
 
 import com.example.fitness.common.config.FitnessProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT 工具类
- * 用于生成和解析 JWT Token。
+ * 用于生成和解析 JWT Token。每个 Token 带随机的 {@code jti}，用于吊销。
+ *
+ * <p>
+ * 签名密钥与解析器在构造时创建一次。{@link #verify} 会把验证通过的 Token
+ * 按 SHA-256 摘要缓存到其 {@code exp}（最多 {@code app.jwt.token-cache-size} 个），
+ * 同一会话的后续请求不再做 HMAC 校验和 JSON 解析。
  */
 @Component
-@RequiredArgsConstructor
 public class JwtUtil {
 
+    private static final String FALLBACK_SECRET = "fitness-demo-secret-key-fitness-demo-secret-key";
+
     private final FitnessProperties fitnessProperties;
+    private final Key signingKey;
+    private final JwtParser parser;
+
+    /** Token 摘要 → 已验证的 Token；缓存大小为 0 时为 {@code null} */
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
-    private Key getSigningKey() {
-        String secret = fitnessProperties.getJwt().getSecret();
+    public JwtUtil(FitnessProperties fitnessProperties) {
+        this.fitnessProperties = fitnessProperties;
+        this.signingKey = buildSigningKey(fitnessProperties.getJwt().getSecret());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        long cacheSize = fitnessProperties.getJwt().getTokenCacheSize();
+        this.verifiedTokens = cacheSize > 0
+                ? Caffeine.newBuilder().maximumSize(cacheSize).expireAfter(new UntilExpiration()).build()
+                : null;
+    }
+
+    private static Key buildSigningKey(String secret) {
         if (secret == null || secret.length() < 32) {
-            secret = "fitness-demo-secret-key-fitness-demo-secret-key"; // Fallback for dev
+            secret = FALLBACK_SECRET; // Fallback for dev
         }
         return Keys.hmacShaKeyFor(secret.getBytes());
     }
@@ -38,7 +67,7 @@ public class JwtUtil {
 
     /**
      * 生成 Token
-     * 
+     *
      * @param userId 用户 ID
      * @return JWT Token 字符串
      */
@@ -46,34 +75,109 @@ public class JwtUtil {
         Map<String, Object> claims = new HashMap<>();
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userId)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + getExpiration() * 1000))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     /**
      * 验证 Token 并获取 Claims
-     * 
+     *
+     * <p>
+     * 每次都完整验证签名与有效期，不使用缓存。
+     *
      * @param token JWT Token
      * @return Claims 对象
      */
     public Claims validateToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * 验证 Token
+     *
+     * <p>
+     * 命中未过期的缓存时直接返回；否则完整验证，通过且带 {@code exp} 的 Token 写入缓存。
+     * 不检查吊销，吊销由调用方通过 {@code TokenRevocationService} 判断。
+     *
+     * @param token JWT Token
+     * @return 已验证的 Token
+     */
+    public VerifiedToken verify(String token) {
+        if (verifiedTokens == null) {
+            return toVerified(validateToken(token));
+        }
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            return cached;
+        }
+        Claims claims = validateToken(token);
+        VerifiedToken verified = toVerified(claims);
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, verified);
+        }
+        return verified;
     }
 
     /**
      * 从 Token 中获取用户 ID
-     * 
+     *
      * @param token JWT Token
      * @return 用户 ID
      */
     public String getUserIdFromToken(String token) {
-        return validateToken(token).getSubject();
+        return verify(token).userId();
+    }
+
+    private static VerifiedToken toVerified(Claims claims) {
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        return new VerifiedToken(claims.getSubject(), claims.getId(), expiresAt);
+    }
+
+    /**
+     * 缓存键使用 SHA-256 摘要：不在内存中保留原始 Token，且无法构造与已缓存 Token 碰撞的伪造 Token
+     */
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 已验证的 Token
+     *
+     * @param userId          用户 ID（{@code sub}）
+     * @param tokenId         Token ID（{@code jti}），旧版 Token 为 {@code null}
+     * @param expiresAtMillis 过期时间（{@code exp}，毫秒），没有 {@code exp} 时为 {@link Long#MAX_VALUE}
+     */
+    public record VerifiedToken(String userId, String tokenId, long expiresAtMillis) {
+    }
+
+    /**
+     * 缓存条目在 Token 的 {@code exp} 时刻过期
+     */
+    private static class UntilExpiration implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAtMillis() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,127 @@
+package com.example.fitness.common.util;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MurmurHash3 (x64, 128 位) 流式哈希
+ *
+ * <p>
+ * 以 {@link OutputStream} 形式接收数据，可直接作为 Jackson 等序列化器的输出目标，
+ * 边序列化边计算，不生成中间字符串。非加密哈希，只用于去重键等场景。
+ * 结果与 Guava {@code Hashing.murmur3_128()}（种子 0）的十六进制输出一致。
+ * 非线程安全，每次计算使用新实例。
+ */
+public class Murmur3Hasher extends OutputStream {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+    private long h1;
+    private long h2;
+    private long length;
+
+    @Override
+    public void write(int b) {
+        buffer.put((byte) b);
+        length++;
+        if (!buffer.hasRemaining()) {
+            processBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int len) {
+        for (int i = offset; i < offset + len; i++) {
+            write(bytes[i]);
+        }
+    }
+
+    /**
+     * 写入字符串（UTF-8）并追加一个 0 字节分隔，避免相邻字段拼接产生歧义
+     */
+    public Murmur3Hasher putField(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        write(bytes, 0, bytes.length);
+        write(0);
+        return this;
+    }
+
+    /**
+     * 结束计算并返回 32 位十六进制字符串
+     */
+    public String toHex() {
+        long k1 = 0;
+        long k2 = 0;
+        int tail = buffer.position();
+        for (int i = tail - 1; i >= 8; i--) {
+            k2 = (k2 << 8) | (buffer.get(i) & 0xffL);
+        }
+        for (int i = Math.min(tail, 8) - 1; i >= 0; i--) {
+            k1 = (k1 << 8) | (buffer.get(i) & 0xffL);
+        }
+        if (tail > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (tail > 0) {
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        ByteBuffer out = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putLong(h1).putLong(h2);
+        StringBuilder hex = new StringBuilder(32);
+        for (byte b : out.array()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private void processBlock() {
+        buffer.flip();
+        long k1 = buffer.getLong();
+        long k2 = buffer.getLong();
+        buffer.clear();
+
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
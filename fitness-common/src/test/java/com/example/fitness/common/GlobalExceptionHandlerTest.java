@@ -2,10 +2,14 @@ package com.example.fitness.common;
 
 import com.example.fitness.common.exception.BusinessException;
 import com.example.fitness.common.exception.GlobalExceptionHandler;
+import com.example.fitness.common.exception.RateLimitException;
 import com.example.fitness.common.result.Result;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -21,6 +25,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * <ul>
  * <li>普通异常 (Exception)</li>
  * <li>业务异常 (BusinessException)</li>
+ * <li>限流异常 (RateLimitException)</li>
  * <li>参数校验异常 (MethodArgumentNotValidException)</li>
  * </ul>
  */
@@ -77,6 +82,18 @@ class GlobalExceptionHandlerTest {
         assertEquals("用户不存在", result.getMessage());
     }
 
+    @Test
+    @DisplayName("handleRateLimitException - 返回 429 与 Retry-After")
+    void handleRateLimitException_Returns429WithRetryAfter() {
+        ResponseEntity<Result<?>> response = handler.handleRateLimitException(new RateLimitException(3));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNotNull(response.getBody());
+        assertEquals(429, response.getBody().getCode());
+        assertEquals("访问过于频繁，请稍候再试", response.getBody().getMessage());
+    }
+
     @Test
     @DisplayName("handleValidationException - 处理参数校验异常带字段错误")
     void handleValidationException_WithFieldError_ReturnsFieldMessage() throws NoSuchMethodException {
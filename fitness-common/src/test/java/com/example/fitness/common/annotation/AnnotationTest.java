@@ -62,6 +62,9 @@ class AnnotationTest {
             assertEquals(60, annotation.time());
             assertEquals(100, annotation.count());
             assertEquals(RateLimit.LimitType.DEFAULT, annotation.limitType());
+            assertEquals(RateLimit.Algorithm.SLIDING_WINDOW, annotation.algorithm());
+            assertEquals(0, annotation.ipCount());
+            assertEquals(0, annotation.globalCount());
         }
 
         @Test
@@ -97,6 +100,17 @@ class AnnotationTest {
             assertNotNull(RateLimit.LimitType.valueOf("CUSTOMER"));
             assertNotNull(RateLimit.LimitType.valueOf("IP"));
         }
+
+        @Test
+        @DisplayName("RateLimit - 令牌桶算法验证")
+        void rateLimit_TokenBucketAlgorithm() throws NoSuchMethodException {
+            Method method = TestClass.class.getMethod("tokenBucketRateLimitMethod");
+            RateLimit annotation = method.getAnnotation(RateLimit.class);
+
+            assertNotNull(annotation);
+            assertEquals(RateLimit.Algorithm.TOKEN_BUCKET, annotation.algorithm());
+            assertEquals(3, RateLimit.Algorithm.values().length);
+        }
     }
 
     /**
@@ -123,5 +137,9 @@ class AnnotationTest {
         @RateLimit(limitType = RateLimit.LimitType.CUSTOMER)
         public void customerRateLimitMethod() {
         }
+
+        @RateLimit(count = 10, algorithm = RateLimit.Algorithm.TOKEN_BUCKET)
+        public void tokenBucketRateLimitMethod() {
+        }
     }
 }
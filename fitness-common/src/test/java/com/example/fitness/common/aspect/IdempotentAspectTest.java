@@ -1,12 +1,17 @@
 package com.example.fitness.common.aspect;
 
 import com.example.fitness.common.annotation.Idempotent;
+import com.example.fitness.common.config.FitnessProperties;
 import com.example.fitness.common.exception.BusinessException;
-import org.aspectj.lang.JoinPoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -16,6 +21,7 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.Duration;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -40,18 +46,32 @@ class IdempotentAspectTest {
     private ValueOperations<String, String> valueOperations;
 
     @Mock
-    private JoinPoint joinPoint;
+    private ProceedingJoinPoint joinPoint;
 
+    @Mock
+    private MethodSignature signature;
+
+    private SimpleMeterRegistry meterRegistry;
     private IdempotentAspect idempotentAspect;
 
     @BeforeEach
-    void setUp() {
-        idempotentAspect = new IdempotentAspect(redisTemplate);
+    void setUp() throws Throwable {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotentAspect = new IdempotentAspect(redisTemplate, new ObjectMapper(), new FitnessProperties(),
+                meterRegistry);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(Service.class.getMethod("submit", Map.class));
+        when(joinPoint.proceed()).thenReturn(Map.of("level", "expert"));
+    }
+
+    /** 被拦截方法的签名来源 */
+    interface Service {
+        Map<String, Object> submit(Map<String, Object> request);
     }
 
     @Test
-    @DisplayName("首次请求 - 幂等校验通过")
-    void doBefore_FirstRequest_Success() {
+    @DisplayName("首次请求 - 幂等校验通过并保存结果")
+    void doAround_FirstRequest_Success() {
         // 模拟请求上下文
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("192.168.1.1");
@@ -73,10 +93,12 @@ class IdempotentAspectTest {
                 .thenReturn(true);
 
         // 执行不应抛出异常
-        assertDoesNotThrow(() -> idempotentAspect.doBefore(joinPoint, idempotent));
+        assertDoesNotThrow(() -> idempotentAspect.doAround(joinPoint, idempotent));
 
-        // 验证 Redis 被调用
+        // 验证 Redis 被调用，结果按 expire 保存
         verify(valueOperations).setIfAbsent(anyString(), eq("1"), any(Duration.class));
+        verify(valueOperations).set(startsWith("idempotent:"), eq("{\"result\":{\"level\":\"expert\"}}"),
+                eq(Duration.ofSeconds(5)));
 
         // 清理
         RequestContextHolder.resetRequestAttributes();
@@ -84,7 +106,7 @@ class IdempotentAspectTest {
 
     @Test
     @DisplayName("重复请求 - 幂等校验失败抛出异常")
-    void doBefore_DuplicateRequest_ThrowsException() {
+    void doAround_DuplicateRequest_ThrowsException() {
         // 模拟请求上下文
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("192.168.1.1");
@@ -107,7 +129,7 @@ class IdempotentAspectTest {
 
         // 执行应抛出 BusinessException
         BusinessException ex = assertThrows(BusinessException.class,
-                () -> idempotentAspect.doBefore(joinPoint, idempotent));
+                () -> idempotentAspect.doAround(joinPoint, idempotent));
 
         assertEquals("请勿重复提交", ex.getMessage());
 
@@ -117,7 +139,7 @@ class IdempotentAspectTest {
 
     @Test
     @DisplayName("Redis 返回 null - 幂等校验失败")
-    void doBefore_RedisReturnsNull_ThrowsException() {
+    void doAround_RedisReturnsNull_ThrowsException() {
         // 模拟请求上下文
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("192.168.1.1");
@@ -140,7 +162,7 @@ class IdempotentAspectTest {
 
         // 执行应抛出 BusinessException
         BusinessException ex = assertThrows(BusinessException.class,
-                () -> idempotentAspect.doBefore(joinPoint, idempotent));
+                () -> idempotentAspect.doAround(joinPoint, idempotent));
 
         assertEquals("操作过于频繁", ex.getMessage());
 
@@ -150,7 +172,7 @@ class IdempotentAspectTest {
 
     @Test
     @DisplayName("无请求上下文 - 直接返回不处理")
-    void doBefore_NoRequestContext_ReturnsEarly() {
+    void doAround_NoRequestContext_ReturnsEarly() throws Throwable {
         // 不设置请求上下文
         RequestContextHolder.resetRequestAttributes();
 
@@ -158,15 +180,16 @@ class IdempotentAspectTest {
         Idempotent idempotent = mock(Idempotent.class);
 
         // 执行不应抛出异常，也不应调用 Redis
-        assertDoesNotThrow(() -> idempotentAspect.doBefore(joinPoint, idempotent));
+        assertDoesNotThrow(() -> idempotentAspect.doAround(joinPoint, idempotent));
 
-        // 验证 Redis 未被调用
+        // 验证 Redis 未被调用，业务方法照常执行
         verify(redisTemplate, never()).opsForValue();
+        verify(joinPoint).proceed();
     }
 
     @Test
     @DisplayName("不同过期时间 - 正确传递")
-    void doBefore_DifferentExpireTime_PassesToRedis() {
+    void doAround_DifferentExpireTime_PassesToRedis() {
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.setRemoteAddr("10.0.0.1");
         request.setRequestURI("/api/submit");
@@ -183,11 +206,111 @@ class IdempotentAspectTest {
         when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
                 .thenReturn(true);
 
-        assertDoesNotThrow(() -> idempotentAspect.doBefore(joinPoint, idempotent));
+        assertDoesNotThrow(() -> idempotentAspect.doAround(joinPoint, idempotent));
 
         // 验证过期时间正确
         verify(valueOperations).setIfAbsent(anyString(), eq("1"), eq(Duration.ofSeconds(30)));
 
         RequestContextHolder.resetRequestAttributes();
     }
+
+    @Test
+    @DisplayName("重复请求 - 首个请求已完成时重放其结果")
+    void doAround_CompletedRequest_ReplaysResult() throws Throwable {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("192.168.1.1");
+        request.setRequestURI("/api/test");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        Idempotent idempotent = mock(Idempotent.class);
+        when(idempotent.prefix()).thenReturn("idempotent:");
+        when(idempotent.expire()).thenReturn(5);
+        when(joinPoint.getArgs()).thenReturn(new Object[] { "arg1" });
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(anyString())).thenReturn("{\"result\":{\"level\":\"novice\"}}");
+
+        Object result = idempotentAspect.doAround(joinPoint, idempotent);
+
+        assertEquals(Map.of("level", "novice"), result);
+        verify(joinPoint, never()).proceed();
+        assertEquals(1, meterRegistry.get("idempotent.requests").tag("result", "replayed").counter().count());
+
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("幂等键请求头 - 按用户 + URI + 键生成 Key，参数不同也视为同一请求")
+    void doAround_IdempotencyKeyHeader_UsesClientKey() throws Throwable {
+        Idempotent idempotent = mock(Idempotent.class);
+        when(idempotent.prefix()).thenReturn("idempotent:");
+        when(idempotent.expire()).thenReturn(5);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        for (String arg : new String[] { "a", "b" }) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setRemoteAddr("192.168.1.1");
+            request.setRequestURI("/api/test");
+            request.setAttribute("userId", "1001");
+            request.addHeader("Idempotency-Key", "order-42");
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+            when(joinPoint.getArgs()).thenReturn(new Object[] { arg });
+
+            idempotentAspect.doAround(joinPoint, idempotent);
+        }
+
+        ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations, times(2)).setIfAbsent(keys.capture(), eq("1"), eq(Duration.ofSeconds(5)));
+        assertTrue(keys.getValue().startsWith("idempotent:key:"));
+        assertEquals(keys.getAllValues().get(0), keys.getAllValues().get(1));
+        // 带幂等键的结果保留 app.idempotent.key-ttl-seconds
+        verify(valueOperations, times(2)).set(eq(keys.getValue()), anyString(), eq(Duration.ofSeconds(86400)));
+
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("幂等键过长 - 参数错误")
+    void doAround_IdempotencyKeyTooLong_ThrowsParamError() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Idempotency-Key", "k".repeat(IdempotentAspect.MAX_KEY_LENGTH + 1));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> idempotentAspect.doAround(joinPoint, mock(Idempotent.class)));
+
+        assertEquals(400, ex.getCode());
+        verify(redisTemplate, never()).opsForValue();
+
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("业务方法异常 - 释放占位，允许重试")
+    void doAround_MethodThrows_ReleasesKey() throws Throwable {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("192.168.1.1");
+        request.setRequestURI("/api/test");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        Idempotent idempotent = mock(Idempotent.class);
+        when(idempotent.prefix()).thenReturn("idempotent:");
+        when(idempotent.expire()).thenReturn(5);
+        when(joinPoint.getArgs()).thenReturn(new Object[] { "arg1" });
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> idempotentAspect.doAround(joinPoint, idempotent));
+
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).setIfAbsent(key.capture(), eq("1"), any(Duration.class));
+        verify(redisTemplate).delete(key.getValue());
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+
+        RequestContextHolder.resetRequestAttributes();
+    }
 }
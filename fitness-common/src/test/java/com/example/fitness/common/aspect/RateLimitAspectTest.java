@@ -1,7 +1,10 @@
 package com.example.fitness.common.aspect;
 
 import com.example.fitness.common.annotation.RateLimit;
-import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.common.config.FitnessProperties;
+import com.example.fitness.common.exception.RateLimitException;
+import com.example.fitness.common.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,6 +22,8 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -42,11 +47,15 @@ class RateLimitAspectTest {
     @Mock
     private MethodSignature signature;
 
+    private SimpleMeterRegistry meterRegistry;
+
     private RateLimitAspect rateLimitAspect;
 
     @BeforeEach
     void setUp() {
-        rateLimitAspect = new RateLimitAspect(redisTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        RateLimiter rateLimiter = new RateLimiter(redisTemplate, new FitnessProperties(), meterRegistry);
+        rateLimitAspect = new RateLimitAspect(rateLimiter, meterRegistry);
     }
 
     @Test
@@ -64,6 +73,7 @@ class RateLimitAspectTest {
         when(rateLimit.time()).thenReturn(60);
         when(rateLimit.count()).thenReturn(100);
         when(rateLimit.limitType()).thenReturn(RateLimit.LimitType.IP);
+        when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.SLIDING_WINDOW);
 
         // 模拟 JoinPoint
         when(joinPoint.getSignature()).thenReturn(signature);
@@ -71,7 +81,7 @@ class RateLimitAspectTest {
         when(signature.getMethod()).thenReturn(method);
 
         // 模拟 Redis 返回 1（未限流）- 使用 Answer 来处理可变参数
-        doAnswer(invocation -> 1L)
+        doAnswer(invocation -> List.of(1L, 0L, 99L))
                 .when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
 
         // 执行不应抛出异常
@@ -99,21 +109,26 @@ class RateLimitAspectTest {
         when(rateLimit.time()).thenReturn(1);
         when(rateLimit.count()).thenReturn(5);
         when(rateLimit.limitType()).thenReturn(RateLimit.LimitType.IP);
+        when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.SLIDING_WINDOW);
 
         // 模拟 JoinPoint
         when(joinPoint.getSignature()).thenReturn(signature);
         Method method = TestService.class.getMethod("testMethod");
         when(signature.getMethod()).thenReturn(method);
 
-        // 模拟 Redis 返回 0（已限流）
-        doAnswer(invocation -> 0L)
+        // 模拟 Redis 拒绝，建议 1.5 秒后重试
+        doAnswer(invocation -> List.of(0L, 1500L, 0L))
                 .when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
 
-        // 执行应抛出 BusinessException
-        BusinessException ex = assertThrows(BusinessException.class,
+        // 执行应抛出限流异常（429，Retry-After 向上取整为 2 秒）
+        RateLimitException ex = assertThrows(RateLimitException.class,
                 () -> rateLimitAspect.doBefore(joinPoint, rateLimit));
 
         assertTrue(ex.getMessage().contains("访问过于频繁"));
+        assertEquals(429, ex.getCode());
+        assertEquals(2, ex.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("ratelimit.method.requests").tag("method", "TestService.testMethod")
+                .tag("result", "rejected").counter().count());
 
         // 清理
         RequestContextHolder.resetRequestAttributes();
@@ -132,6 +147,7 @@ class RateLimitAspectTest {
         when(rateLimit.time()).thenReturn(60);
         when(rateLimit.count()).thenReturn(100);
         when(rateLimit.limitType()).thenReturn(RateLimit.LimitType.IP);
+        when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.SLIDING_WINDOW);
 
         // 模拟 JoinPoint
         when(joinPoint.getSignature()).thenReturn(signature);
@@ -139,7 +155,7 @@ class RateLimitAspectTest {
         when(signature.getMethod()).thenReturn(method);
 
         // 模拟 Redis 返回 1
-        doAnswer(invocation -> 1L)
+        doAnswer(invocation -> List.of(1L, 0L, 99L))
                 .when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
 
         assertDoesNotThrow(() -> rateLimitAspect.doBefore(joinPoint, rateLimit));
@@ -158,12 +174,13 @@ class RateLimitAspectTest {
         when(rateLimit.time()).thenReturn(60);
         when(rateLimit.count()).thenReturn(100);
         when(rateLimit.limitType()).thenReturn(RateLimit.LimitType.IP);
+        when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.SLIDING_WINDOW);
 
         when(joinPoint.getSignature()).thenReturn(signature);
         Method method = TestService.class.getMethod("testMethod");
         when(signature.getMethod()).thenReturn(method);
 
-        doAnswer(invocation -> 1L)
+        doAnswer(invocation -> List.of(1L, 0L, 99L))
                 .when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
 
         assertDoesNotThrow(() -> rateLimitAspect.doBefore(joinPoint, rateLimit));
@@ -184,12 +201,13 @@ class RateLimitAspectTest {
         when(rateLimit.time()).thenReturn(60);
         when(rateLimit.count()).thenReturn(100);
         when(rateLimit.limitType()).thenReturn(RateLimit.LimitType.IP);
+        when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.SLIDING_WINDOW);
 
         when(joinPoint.getSignature()).thenReturn(signature);
         Method method = TestService.class.getMethod("testMethod");
         when(signature.getMethod()).thenReturn(method);
 
-        doAnswer(invocation -> 1L)
+        doAnswer(invocation -> List.of(1L, 0L, 99L))
                 .when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
 
         assertDoesNotThrow(() -> rateLimitAspect.doBefore(joinPoint, rateLimit));
@@ -210,12 +228,13 @@ class RateLimitAspectTest {
         when(rateLimit.time()).thenReturn(60);
         when(rateLimit.count()).thenReturn(100);
         when(rateLimit.limitType()).thenReturn(RateLimit.LimitType.IP);
+        when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.SLIDING_WINDOW);
 
         when(joinPoint.getSignature()).thenReturn(signature);
         Method method = TestService.class.getMethod("testMethod");
         when(signature.getMethod()).thenReturn(method);
 
-        doAnswer(invocation -> 1L)
+        doAnswer(invocation -> List.of(1L, 0L, 99L))
                 .when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
 
         assertDoesNotThrow(() -> rateLimitAspect.doBefore(joinPoint, rateLimit));
@@ -235,12 +254,13 @@ class RateLimitAspectTest {
         when(rateLimit.time()).thenReturn(60);
         when(rateLimit.count()).thenReturn(100);
         when(rateLimit.limitType()).thenReturn(RateLimit.LimitType.DEFAULT);
+        when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.SLIDING_WINDOW);
 
         when(joinPoint.getSignature()).thenReturn(signature);
         Method method = TestService.class.getMethod("testMethod");
         when(signature.getMethod()).thenReturn(method);
 
-        doAnswer(invocation -> 1L)
+        doAnswer(invocation -> List.of(1L, 0L, 99L))
                 .when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
 
         assertDoesNotThrow(() -> rateLimitAspect.doBefore(joinPoint, rateLimit));
@@ -248,6 +268,82 @@ class RateLimitAspectTest {
         RequestContextHolder.resetRequestAttributes();
     }
 
+    @Test
+    @DisplayName("LimitType.CUSTOMER - 按登录用户限流，并叠加 IP 与全局上限")
+    @SuppressWarnings("unchecked")
+    void doBefore_Customer_UsesUserIdWithHierarchicalLevels() throws NoSuchMethodException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("192.168.1.1");
+        request.setAttribute("userId", "1001");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        RateLimit rateLimit = mock(RateLimit.class);
+        when(rateLimit.key()).thenReturn("feed:");
+        when(rateLimit.time()).thenReturn(60);
+        when(rateLimit.count()).thenReturn(10);
+        when(rateLimit.ipCount()).thenReturn(50);
+        when(rateLimit.globalCount()).thenReturn(1000);
+        when(rateLimit.limitType()).thenReturn(RateLimit.LimitType.CUSTOMER);
+        when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.TOKEN_BUCKET);
+
+        when(joinPoint.getSignature()).thenReturn(signature);
+        Method method = TestService.class.getMethod("testMethod");
+        when(signature.getMethod()).thenReturn(method);
+
+        List<List<String>> keys = new ArrayList<>();
+        doAnswer(invocation -> {
+            keys.add(invocation.getArgument(1));
+            return List.of(1L, 0L, 9L, 49L, 999L);
+        }).when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
+
+        assertDoesNotThrow(() -> rateLimitAspect.doBefore(joinPoint, rateLimit));
+
+        String suffix = TestService.class.getName() + "-testMethod";
+        assertEquals(List.of(List.of(
+                "rate_limit:token_bucket:feed:user:1001-" + suffix,
+                "rate_limit:token_bucket:feed:192.168.1.1-" + suffix,
+                "rate_limit:token_bucket:feed:" + suffix)), keys);
+        assertEquals(1, meterRegistry.get("ratelimit.method.utilization").tag("method", "TestService.testMethod")
+                .summary().count());
+
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("LimitType.CUSTOMER - 未登录时按 IP 限流，同一 Key 取较小次数")
+    @SuppressWarnings("unchecked")
+    void doBefore_CustomerAnonymous_FallsBackToIp() throws NoSuchMethodException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("192.168.1.1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        RateLimit rateLimit = mock(RateLimit.class);
+        when(rateLimit.key()).thenReturn("");
+        when(rateLimit.time()).thenReturn(60);
+        when(rateLimit.count()).thenReturn(10);
+        when(rateLimit.ipCount()).thenReturn(5);
+        when(rateLimit.limitType()).thenReturn(RateLimit.LimitType.CUSTOMER);
+        when(rateLimit.algorithm()).thenReturn(RateLimit.Algorithm.SLIDING_WINDOW);
+
+        when(joinPoint.getSignature()).thenReturn(signature);
+        Method method = TestService.class.getMethod("testMethod");
+        when(signature.getMethod()).thenReturn(method);
+
+        List<Object[]> calls = new ArrayList<>();
+        doAnswer(invocation -> {
+            calls.add(invocation.getArguments());
+            return List.of(1L, 0L, 4L);
+        }).when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
+
+        assertDoesNotThrow(() -> rateLimitAspect.doBefore(joinPoint, rateLimit));
+
+        assertEquals(List.of("rate_limit:sliding_window:192.168.1.1-" + TestService.class.getName() + "-testMethod"),
+                calls.get(0)[1]);
+        assertEquals("5", calls.get(0)[5]);
+
+        RequestContextHolder.resetRequestAttributes();
+    }
+
     /**
      * 测试用服务类
      */
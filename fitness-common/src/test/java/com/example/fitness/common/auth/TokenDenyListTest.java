@@ -0,0 +1,105 @@
+package com.example.fitness.common.auth;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 吊销名单（分桶布隆过滤器）单元测试
+ */
+@DisplayName("TokenDenyList 单元测试")
+class TokenDenyListTest {
+
+    private static final long HOUR = 3600_000L;
+    private static final long DAY = 24 * HOUR;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    private TokenDenyList denyList(int expectedPerBucket) {
+        return new TokenDenyList(HOUR, DAY, expectedPerBucket, now::get);
+    }
+
+    @Test
+    @DisplayName("已吊销的 Token - 一定命中")
+    void add_ThenMightContain() {
+        TokenDenyList denyList = denyList(1000);
+        long exp = now.get() + 2 * HOUR;
+
+        denyList.add("jti-1", exp);
+
+        assertTrue(denyList.mightContain("jti-1", exp));
+        assertFalse(denyList.mightContain("jti-2", exp));
+    }
+
+    @Test
+    @DisplayName("同一 jti 不同 exp - 落在其他分桶，不命中")
+    void differentBucket_NotContained() {
+        TokenDenyList denyList = denyList(1000);
+
+        denyList.add("jti-1", now.get() + 2 * HOUR);
+
+        assertFalse(denyList.mightContain("jti-1", now.get() + 5 * HOUR));
+    }
+
+    @Test
+    @DisplayName("误判率 - 按预计容量填满后接近 1%")
+    void falsePositiveRate_NearTarget() {
+        TokenDenyList denyList = denyList(1000);
+        long exp = now.get() + HOUR;
+        for (int i = 0; i < 1000; i++) {
+            denyList.add(UUID.randomUUID().toString(), exp);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (denyList.mightContain(UUID.randomUUID().toString(), exp)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "误判次数: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("分桶过期后 - 槽位被新分桶复用，旧记录清除")
+    void expiredBucket_ReusedBySlot() {
+        TokenDenyList denyList = denyList(1000);
+        long exp = now.get() + HOUR;
+        denyList.add("old", exp);
+
+        // 一个完整周期后，同一槽位对应新的分桶
+        now.addAndGet(DAY + 2 * HOUR);
+        long laterExp = exp + (DAY / HOUR + 2) * HOUR;
+        denyList.add("new", laterExp);
+
+        assertTrue(denyList.mightContain("new", laterExp));
+        assertFalse(denyList.mightContain("old", exp));
+    }
+
+    @Test
+    @DisplayName("已过期的 Token - 不加入名单")
+    void expiredToken_Ignored() {
+        TokenDenyList denyList = denyList(1000);
+        long exp = now.get() - 1;
+
+        denyList.add("jti-1", exp);
+
+        assertFalse(denyList.mightContain("jti-1", exp));
+    }
+
+    @Test
+    @DisplayName("exp 超出分桶范围 - 放入溢出表仍能命中")
+    void beyondHorizon_StoredInOverflow() {
+        TokenDenyList denyList = denyList(1000);
+        long exp = now.get() + 7 * DAY;
+
+        denyList.add("long-lived", exp);
+
+        assertTrue(denyList.mightContain("long-lived", exp));
+        assertFalse(denyList.mightContain("other", exp));
+    }
+}
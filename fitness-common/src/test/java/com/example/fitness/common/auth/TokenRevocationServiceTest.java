@@ -0,0 +1,133 @@
+package com.example.fitness.common.auth;
+
+import com.example.fitness.common.config.FitnessProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Token 吊销服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("TokenRevocationService 单元测试")
+@SuppressWarnings("null")
+class TokenRevocationServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenRevocationService service;
+    private long exp;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        service = new TokenRevocationService(redisTemplate, new FitnessProperties(), meterRegistry);
+        exp = System.currentTimeMillis() + 3600_000L;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("auth.token.revocation.checks").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("未吊销的 Token - 本地直接通过，不访问 Redis")
+    void notRevoked_PassesWithoutRedis() {
+        assertFalse(service.isRevoked("jti-1", exp));
+        assertFalse(service.isRevoked(null, exp));
+
+        verify(redisTemplate, never()).opsForZSet();
+        assertEquals(2, count("pass"));
+    }
+
+    @Test
+    @DisplayName("吊销 - 写入有序集合并广播，之后经 Redis 精确确认为已吊销")
+    void revoke_ThenRevoked() {
+        service.revoke("jti-1", exp);
+        when(zSetOperations.score(TokenRevocationService.REVOKED_KEY, "jti-1")).thenReturn((double) exp);
+
+        assertTrue(service.isRevoked("jti-1", exp));
+
+        verify(zSetOperations).add(TokenRevocationService.REVOKED_KEY, "jti-1", (double) exp);
+        verify(zSetOperations).removeRangeByScore(eq(TokenRevocationService.REVOKED_KEY), eq(0.0), anyDouble());
+        verify(redisTemplate).convertAndSend(TokenRevocationService.REVOCATION_CHANNEL, exp + ":jti-1");
+        assertEquals(1, count("revoked"));
+    }
+
+    @Test
+    @DisplayName("布隆过滤器误判 - Redis 中不存在时放行")
+    void bloomHit_NotInRedis_FalsePositive() {
+        service.revoke("jti-1", exp);
+        when(zSetOperations.score(anyString(), anyString())).thenReturn(null);
+
+        assertFalse(service.isRevoked("jti-1", exp));
+        assertEquals(1, count("false_positive"));
+    }
+
+    @Test
+    @DisplayName("确认时 Redis 不可用 - 按已吊销处理")
+    void bloomHit_RedisDown_FailsClosed() {
+        service.revoke("jti-1", exp);
+        when(zSetOperations.score(anyString(), anyString()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertTrue(service.isRevoked("jti-1", exp));
+        assertEquals(1, meterRegistry.get("auth.token.revocation.redis.failures").counter().count());
+    }
+
+    @Test
+    @DisplayName("收到其他节点的吊销广播 - 加入本地名单")
+    void onMessage_AddsToDenyList() {
+        when(zSetOperations.score(anyString(), anyString())).thenReturn((double) exp);
+
+        service.onMessage(new DefaultMessage(TokenRevocationService.REVOCATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                (exp + ":jti-remote").getBytes(StandardCharsets.UTF_8)), null);
+
+        assertTrue(service.isRevoked("jti-remote", exp));
+    }
+
+    @Test
+    @DisplayName("重载 - 从有序集合恢复未过期的吊销记录")
+    void reload_RestoresFromRedis() {
+        when(zSetOperations.rangeByScoreWithScores(eq(TokenRevocationService.REVOKED_KEY), anyDouble(), anyDouble()))
+                .thenReturn(Set.of(new DefaultTypedTuple<>("jti-stored", (double) exp)));
+        when(zSetOperations.score(anyString(), anyString())).thenReturn((double) exp);
+
+        service.reload();
+
+        assertTrue(service.isRevoked("jti-stored", exp));
+    }
+
+    @Test
+    @DisplayName("重载失败 - 只记录日志")
+    void reload_RedisDown_DoesNotThrow() {
+        when(zSetOperations.rangeByScoreWithScores(anyString(), anyDouble(), anyDouble()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(() -> service.reload());
+    }
+}
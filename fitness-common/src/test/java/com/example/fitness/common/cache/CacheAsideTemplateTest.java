@@ -0,0 +1,181 @@
+package com.example.fitness.common.cache;
+
+import com.example.fitness.common.config.FitnessProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 防击穿 Cache-Aside 模板单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("CacheAsideTemplate 单元测试")
+@SuppressWarnings("null") // Suppress Mockito argument matcher null safety warnings
+class CacheAsideTemplateTest {
+
+    private static final Duration TTL = Duration.ofHours(1);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private FitnessProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private CacheAsideTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        properties = new FitnessProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        template = new CacheAsideTemplate(redisTemplate, new ObjectMapper(), properties, meterRegistry);
+    }
+
+    private static String entry(String valueJson, long expiresAt) {
+        return "{\"value\":" + valueJson + ",\"expiresAt\":" + expiresAt + ",\"loadMillis\":10}";
+    }
+
+    private long ttlWritten(String key) {
+        ArgumentCaptor<Long> ttl = ArgumentCaptor.forClass(Long.class);
+        verify(valueOperations).set(eq(key), anyString(), ttl.capture(), eq(TimeUnit.MILLISECONDS));
+        return ttl.getValue();
+    }
+
+    @Test
+    @DisplayName("命中 - 直接返回缓存值，不调用加载函数")
+    void get_Hit_ReturnsCached() {
+        when(valueOperations.get("k")).thenReturn(entry("{\"name\":\"Jack\"}", Long.MAX_VALUE));
+
+        Map<?, ?> value = template.get("test", "k", Map.class, TTL, () -> fail("不应加载"));
+
+        assertEquals("Jack", value.get("name"));
+        verify(valueOperations, never()).set(anyString(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("未命中 - 加载后回写，过期时间带抖动")
+    void get_Miss_LoadsAndWritesWithJitter() {
+        String value = template.get("test", "k", String.class, TTL, () -> "loaded");
+
+        assertEquals("loaded", value);
+        long ttl = ttlWritten("k");
+        assertTrue(ttl >= TTL.toMillis() && ttl < TTL.toMillis() * 1.1, "ttl=" + ttl);
+    }
+
+    @Test
+    @DisplayName("空值缓存 - 不存在的数据缓存空值，再次读取不查库")
+    void get_Null_CachesNegativeEntry() {
+        assertNull(template.get("test", "k", String.class, TTL, () -> null));
+        assertEquals(30_000L, ttlWritten("k"));
+
+        when(valueOperations.get("k")).thenReturn(entry("null", System.currentTimeMillis() + 30_000));
+        assertNull(template.get("test", "k", String.class, TTL, () -> fail("不应加载")));
+        assertEquals(1, meterRegistry.get("cache.requests").tag("result", "negative_hit").counter().count());
+    }
+
+    @Test
+    @DisplayName("单飞合并 - 同一 key 并发未命中只加载一次")
+    void get_ConcurrentMisses_LoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> template.get("test", "k",
+                String.class, TTL, () -> {
+                    loads.incrementAndGet();
+                    started.countDown();
+                    awaitQuietly(release);
+                    return "loaded";
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> template.get("test", "k",
+                String.class, TTL, () -> {
+                    loads.incrementAndGet();
+                    return "again";
+                }));
+        // 等待第二个请求进入等待状态后再放行加载
+        while (meterRegistry.find("cache.coalesced").counter() == null
+                || meterRegistry.get("cache.coalesced").counter().count() < 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals("loaded", first.get(5, TimeUnit.SECONDS));
+        assertEquals("loaded", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("单飞合并 - 加载异常传递给等待者")
+    void get_LoaderFails_Propagates() {
+        assertThrows(IllegalStateException.class, () -> template.get("test", "k", String.class, TTL, () -> {
+            throw new IllegalStateException("db down");
+        }));
+        // 失败后不残留加载中的状态
+        assertEquals("ok", template.get("test", "k", String.class, TTL, () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("提前刷新 - 临近过期时重新加载，β=0 时关闭")
+    void get_NearExpiry_RefreshesEarly() {
+        when(valueOperations.get("k")).thenReturn(entry("\"old\"", System.currentTimeMillis() - 1));
+
+        assertEquals("new", template.get("test", "k", String.class, TTL, () -> "new"));
+
+        properties.getCache().setEarlyRefreshBeta(0);
+        template = new CacheAsideTemplate(redisTemplate, new ObjectMapper(), properties, meterRegistry);
+        assertEquals("old", template.get("test", "k", String.class, TTL, () -> "new"));
+    }
+
+    @Test
+    @DisplayName("Redis 不可用 - 直接调用加载函数")
+    void get_RedisDown_FallsBackToLoader() {
+        when(valueOperations.get("k")).thenThrow(new RedisConnectionFailureException("down"));
+        doThrow(new RedisConnectionFailureException("down")).when(valueOperations)
+                .set(anyString(), anyString(), anyLong(), any());
+
+        assertEquals("loaded", template.get("test", "k", String.class, TTL, () -> "loaded"));
+    }
+
+    @Test
+    @DisplayName("旧格式缓存 - 视为未命中并覆盖")
+    void get_LegacyFormat_TreatedAsMiss() {
+        when(valueOperations.get("k")).thenReturn("{\"name\":\"Jack\"}");
+
+        assertEquals("loaded", template.get("test", "k", String.class, TTL, () -> "loaded"));
+        verify(valueOperations).set(eq("k"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -49,6 +49,10 @@ class FitnessPropertiesTest {
         assertNull(properties.getJwt().getSecret());
         assertNull(properties.getJwt().getExpiration());
         assertNull(properties.getEncrypt().getKey());
+        assertEquals(10000, properties.getJwt().getTokenCacheSize());
+        assertEquals(3600, properties.getJwt().getRevocationBucketSeconds());
+        assertEquals(10000, properties.getJwt().getRevocationExpectedPerBucket());
+        assertEquals(60000, properties.getJwt().getRevocationReloadMillis());
     }
 
     @Test
@@ -94,4 +98,33 @@ class FitnessPropertiesTest {
 
         assertNull(jwt.getExpiration());
     }
+
+    @Test
+    @DisplayName("Cache 配置 - 默认值")
+    void cache_DefaultValues() {
+        FitnessProperties.Cache cache = new FitnessProperties().getCache();
+
+        assertEquals(30, cache.getNegativeTtlSeconds());
+        assertEquals(0.1, cache.getTtlJitter());
+        assertEquals(1.0, cache.getEarlyRefreshBeta());
+    }
+
+    @Test
+    @DisplayName("RateLimit 配置 - 默认值")
+    void rateLimit_DefaultValues() {
+        FitnessProperties.RateLimit rateLimit = new FitnessProperties().getRateLimit();
+
+        assertTrue(rateLimit.isLocalEnabled());
+        assertEquals(100, rateLimit.getSyncIntervalMillis());
+        assertEquals(0.5, rateLimit.getLocalFraction());
+    }
+
+    @Test
+    @DisplayName("Idempotent 配置 - 默认值")
+    void idempotent_DefaultValues() {
+        FitnessProperties.Idempotent idempotent = new FitnessProperties().getIdempotent();
+
+        assertEquals("Idempotency-Key", idempotent.getHeaderName());
+        assertEquals(86400, idempotent.getKeyTtlSeconds());
+    }
 }
@@ -0,0 +1,193 @@
+package com.example.fitness.common.ratelimit;
+
+import com.example.fitness.common.annotation.RateLimit;
+import com.example.fitness.common.config.FitnessProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 限流引擎单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("RateLimiter 单元测试")
+@SuppressWarnings({ "null", "unchecked" })
+class RateLimiterTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(1);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FitnessProperties properties;
+
+    /** 每次脚本调用的参数：script, keys, windowMillis, acquire, nonce, limit[1..n], recorded[1..n] */
+    private final List<Object[]> calls = new ArrayList<>();
+    /** 脚本返回的剩余额度，-1 表示拒绝 */
+    private final AtomicLong remaining = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new FitnessProperties();
+        doAnswer(invocation -> {
+            calls.add(invocation.getArguments());
+            long value = remaining.get();
+            return value < 0 ? List.of(0L, 1500L, 0L) : List.of(1L, 0L, value);
+        }).when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    private RateLimiter limiter() {
+        return new RateLimiter(redisTemplate, properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("本地预检 - 明显未超限时不访问 Redis，下次同步补记本地放行次数")
+    void localPreCheck_AbsorbsTrafficUnderLimit() {
+        RateLimiter limiter = limiter();
+        remaining.set(9);
+
+        for (int i = 0; i < 6; i++) {
+            assertTrue(limiter.tryAcquire("k", RateLimit.Algorithm.SLIDING_WINDOW, 10, WINDOW).allowed());
+        }
+
+        // 剩余 9 次，本地最多放行 floor(9 × 0.5) = 4 次，第 6 次同步
+        assertEquals(2, calls.size());
+        assertEquals(List.of("rate_limit:sliding_window:k"), calls.get(0)[1]);
+        assertEquals("1000", calls.get(0)[2]);
+        assertEquals("1", calls.get(0)[3]);
+        assertEquals("10", calls.get(0)[5]);
+        assertEquals("0", calls.get(0)[6]);
+        assertEquals("4", calls.get(1)[6]);
+        assertEquals(4, meterRegistry.get("ratelimit.requests").tag("source", "local").tag("result", "allowed")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("Redis 拒绝后 - 同步间隔内直接在本地拒绝")
+    void rejected_RejectsLocallyUntilNextSync() {
+        RateLimiter limiter = limiter();
+        remaining.set(-1);
+
+        RateLimiter.Decision first = limiter.tryAcquire("k", RateLimit.Algorithm.TOKEN_BUCKET, 5, WINDOW);
+        RateLimiter.Decision second = limiter.tryAcquire("k", RateLimit.Algorithm.TOKEN_BUCKET, 5, WINDOW);
+
+        assertFalse(first.allowed());
+        assertEquals(1500, first.retryAfterMillis());
+        assertFalse(second.allowed());
+        assertTrue(second.retryAfterMillis() > 0 && second.retryAfterMillis() <= 1500);
+        assertEquals(1, calls.size());
+        assertEquals(List.of("rate_limit:token_bucket:k"), calls.get(0)[1]);
+        assertEquals(1, meterRegistry.get("ratelimit.requests").tag("source", "local").tag("result", "rejected")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("剩余额度很少时 - 每次都同步 Redis")
+    void lowRemaining_AlwaysSyncs() {
+        RateLimiter limiter = limiter();
+        remaining.set(1);
+
+        limiter.tryAcquire("k", RateLimit.Algorithm.SLIDING_LOG, 5, WINDOW);
+        limiter.tryAcquire("k", RateLimit.Algorithm.SLIDING_LOG, 5, WINDOW);
+        limiter.tryAcquire("k", RateLimit.Algorithm.SLIDING_LOG, 5, WINDOW);
+
+        assertEquals(3, calls.size());
+        assertNotEquals(calls.get(0)[4], calls.get(1)[4]);
+    }
+
+    @Test
+    @DisplayName("关闭本地预检 - 每次调用都访问 Redis")
+    void localDisabled_AlwaysCallsRedis() {
+        properties.getRateLimit().setLocalEnabled(false);
+        RateLimiter limiter = limiter();
+        remaining.set(100);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("k", RateLimit.Algorithm.SLIDING_WINDOW, 100, WINDOW).allowed());
+        }
+
+        assertEquals(3, calls.size());
+    }
+
+    @Test
+    @DisplayName("定时补记 - 空闲 key 的本地放行次数写入 Redis")
+    void flush_RecordsPendingOfIdleKeys() throws InterruptedException {
+        properties.getRateLimit().setSyncIntervalMillis(20);
+        RateLimiter limiter = limiter();
+        remaining.set(99);
+
+        limiter.tryAcquire("k", RateLimit.Algorithm.SLIDING_WINDOW, 100, WINDOW);
+        limiter.tryAcquire("k", RateLimit.Algorithm.SLIDING_WINDOW, 100, WINDOW);
+        limiter.tryAcquire("k", RateLimit.Algorithm.SLIDING_WINDOW, 100, WINDOW);
+        limiter.flush();
+        assertEquals(1, calls.size());
+
+        Thread.sleep(30);
+        limiter.flush();
+
+        assertEquals(2, calls.size());
+        assertEquals("0", calls.get(1)[3]);
+        assertEquals("2", calls.get(1)[6]);
+    }
+
+    @Test
+    @DisplayName("Redis 不可用 - 放行并计数")
+    void redisDown_FailsOpen() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        RateLimiter limiter = limiter();
+
+        assertTrue(limiter.tryAcquire("k", RateLimit.Algorithm.SLIDING_WINDOW, 5, WINDOW).allowed());
+        assertTrue(limiter.tryAcquire("k", RateLimit.Algorithm.SLIDING_WINDOW, 5, WINDOW).allowed());
+
+        assertEquals(2, meterRegistry.get("ratelimit.redis.failures").counter().count());
+    }
+
+    @Test
+    @DisplayName("多级限流 - 各级 key 在一次脚本调用中判定，本地预检取各级最小额度")
+    void multipleLevels_EvaluatedInOneCall() {
+        doAnswer(invocation -> {
+            calls.add(invocation.getArguments());
+            return List.of(1L, 0L, 9L, 99L);
+        }).when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        RateLimiter limiter = limiter();
+        List<RateLimiter.Level> levels = List.of(new RateLimiter.Level("user", 10),
+                new RateLimiter.Level("global", 100));
+
+        RateLimiter.Decision first = limiter.tryAcquire(levels, RateLimit.Algorithm.SLIDING_LOG, WINDOW);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(levels, RateLimit.Algorithm.SLIDING_LOG, WINDOW).allowed());
+        }
+        limiter.tryAcquire(levels, RateLimit.Algorithm.SLIDING_LOG, WINDOW);
+
+        assertTrue(first.allowed());
+        assertEquals(0.1, first.utilization(), 1e-9);
+        assertEquals(2, calls.size());
+        assertEquals(List.of("rate_limit:sliding_log:user", "rate_limit:sliding_log:global"), calls.get(0)[1]);
+        assertEquals("10", calls.get(0)[5]);
+        assertEquals("100", calls.get(0)[6]);
+        assertEquals("4", calls.get(1)[7]);
+        assertEquals("4", calls.get(1)[8]);
+    }
+}
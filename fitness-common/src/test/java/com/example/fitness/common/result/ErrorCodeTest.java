@@ -60,6 +60,12 @@ class ErrorCodeTest {
         assertEquals("禁止访问", ErrorCode.FORBIDDEN.getMessage());
     }
 
+    @Test
+    @DisplayName("TOO_MANY_REQUESTS - 限流码为429")
+    void tooManyRequests_HasCorrectCode() {
+        assertEquals(429, ErrorCode.TOO_MANY_REQUESTS.getCode());
+    }
+
     @Test
     @DisplayName("KAFKA_SEND_ERROR - Kafka发送错误码为501")
     void kafkaSendError_HasCorrectCodeAndMessage() {
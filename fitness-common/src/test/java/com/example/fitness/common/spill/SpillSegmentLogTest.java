@@ -0,0 +1,186 @@
+package com.example.fitness.common.spill;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SpillSegmentLog 分段日志单元测试
+ *
+ * <p>
+ * 覆盖以下场景:
+ * </p>
+ * <ul>
+ * <li>追加、读取与提交进度</li>
+ * <li>分段轮转、已消费分段删除与磁盘上限</li>
+ * <li>重启后按 checkpoint 恢复，截断撕裂写并跳过损坏记录</li>
+ * </ul>
+ *
+ * @since JDK 21
+ */
+@DisplayName("SpillSegmentLog 单元测试")
+class SpillSegmentLogTest {
+
+    /** 每条记录 8 字节头 + 8 字节 payload，一个 64 字节分段恰好放 4 条 */
+    private static final int SEGMENT_BYTES = 64;
+
+    @TempDir
+    Path tempDir;
+
+    private SpillSegmentLog spillLog;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (spillLog != null) {
+            spillLog.close();
+        }
+    }
+
+    private static byte[] payload(int i) {
+        return String.format("record%02d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> texts(SpillSegmentLog.Batch batch) {
+        return batch.records().stream().map(bytes -> new String(bytes, StandardCharsets.UTF_8)).toList();
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(path -> path.toString().endsWith(".log")).count();
+        }
+    }
+
+    @Nested
+    @DisplayName("读写与提交")
+    class ReadWriteTests {
+
+        @Test
+        @DisplayName("读取不移动进度，提交后才继续向后读")
+        void readDoesNotAdvanceUntilCommit() throws IOException {
+            spillLog = new SpillSegmentLog(tempDir, SEGMENT_BYTES, 1024);
+            for (int i = 0; i < 3; i++) {
+                assertThat(spillLog.append(payload(i))).isTrue();
+            }
+
+            SpillSegmentLog.Batch first = spillLog.read(2);
+            assertThat(texts(first)).containsExactly("record00", "record01");
+            assertThat(texts(spillLog.read(2))).containsExactly("record00", "record01");
+            assertThat(spillLog.backlogRecords()).isEqualTo(3);
+
+            spillLog.commit(first);
+
+            assertThat(texts(spillLog.read(10))).containsExactly("record02");
+            assertThat(spillLog.backlogRecords()).isEqualTo(1);
+            assertThat(spillLog.backlogBytes()).isEqualTo(16);
+        }
+
+        @Test
+        @DisplayName("写满分段后轮转，消费完的分段在提交时删除")
+        void rotatesAndDeletesConsumedSegments() throws IOException {
+            spillLog = new SpillSegmentLog(tempDir, SEGMENT_BYTES, 1024);
+            for (int i = 0; i < 10; i++) {
+                assertThat(spillLog.append(payload(i))).isTrue();
+            }
+            assertThat(spillLog.segmentCount()).isEqualTo(3);
+
+            SpillSegmentLog.Batch batch = spillLog.read(9);
+            assertThat(batch.records()).hasSize(9);
+            spillLog.commit(batch);
+
+            assertThat(spillLog.segmentCount()).isEqualTo(1);
+            assertThat(segmentFiles()).isEqualTo(1);
+            assertThat(texts(spillLog.read(10))).containsExactly("record09");
+        }
+
+        @Test
+        @DisplayName("分段数达到上限后拒绝写入，消费后恢复可写")
+        void rejectsWhenDiskLimitReached() throws IOException {
+            spillLog = new SpillSegmentLog(tempDir, SEGMENT_BYTES, 2 * SEGMENT_BYTES);
+            for (int i = 0; i < 8; i++) {
+                assertThat(spillLog.append(payload(i))).isTrue();
+            }
+
+            assertThat(spillLog.append(payload(8))).isFalse();
+            assertThat(spillLog.append(new byte[SEGMENT_BYTES])).isFalse();
+
+            spillLog.commit(spillLog.read(4));
+            // 读取越过第一个分段末尾后才会删除它
+            spillLog.commit(spillLog.read(1));
+            assertThat(spillLog.append(payload(8))).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("重启恢复")
+    class RecoveryTests {
+
+        @Test
+        @DisplayName("重启后从 checkpoint 继续读取")
+        void resumesFromCheckpoint() throws IOException {
+            spillLog = new SpillSegmentLog(tempDir, SEGMENT_BYTES, 1024);
+            for (int i = 0; i < 6; i++) {
+                spillLog.append(payload(i));
+            }
+            spillLog.commit(spillLog.read(5));
+            spillLog.close();
+
+            spillLog = new SpillSegmentLog(tempDir, SEGMENT_BYTES, 1024);
+
+            assertThat(spillLog.backlogRecords()).isEqualTo(1);
+            assertThat(texts(spillLog.read(10))).containsExactly("record05");
+            assertThat(spillLog.append(payload(6))).isTrue();
+            assertThat(texts(spillLog.read(10))).containsExactly("record05", "record06");
+        }
+
+        @Test
+        @DisplayName("末尾撕裂写被截断，之后的追加不会与残留字节拼接")
+        void truncatesTornTail() throws IOException {
+            spillLog = new SpillSegmentLog(tempDir, SEGMENT_BYTES, 1024);
+            spillLog.append(payload(0));
+            spillLog.append(payload(1));
+            spillLog.close();
+            // 模拟崩溃：第二条记录的 payload 只落盘了一半
+            corrupt(tempDir.resolve(String.format("%020d.log", 0)), 16 + 12);
+
+            spillLog = new SpillSegmentLog(tempDir, SEGMENT_BYTES, 1024);
+            assertThat(spillLog.corruptRecords()).isEqualTo(1);
+            assertThat(texts(spillLog.read(10))).containsExactly("record00");
+
+            spillLog.append("r2".getBytes(StandardCharsets.UTF_8));
+            spillLog.close();
+            spillLog = new SpillSegmentLog(tempDir, SEGMENT_BYTES, 1024);
+            assertThat(texts(spillLog.read(10))).containsExactly("record00", "r2");
+        }
+
+        @Test
+        @DisplayName("另一个实例持有目录时拒绝打开")
+        void rejectsConcurrentOpen() throws IOException {
+            spillLog = new SpillSegmentLog(tempDir, SEGMENT_BYTES, 1024);
+
+            assertThatThrownBy(() -> new SpillSegmentLog(tempDir, SEGMENT_BYTES, 1024))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("已被占用");
+        }
+
+        private void corrupt(Path segment, int position) throws IOException {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] { 0x7f, 0x7f, 0x7f, 0x7f }), position);
+            }
+        }
+    }
+}
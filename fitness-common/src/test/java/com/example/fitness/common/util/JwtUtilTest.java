@@ -2,6 +2,7 @@ package com.example.fitness.common.util;
 
 import com.example.fitness.common.config.FitnessProperties;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
@@ -83,6 +84,9 @@ class JwtUtilTest {
             assertEquals(userId, claims.getSubject());
             assertNotNull(claims.getIssuedAt());
             assertNotNull(claims.getExpiration());
+            // 每个 Token 带唯一 jti，用于吊销
+            assertNotNull(claims.getId());
+            assertNotEquals(claims.getId(), jwtUtil.validateToken(jwtUtil.generateToken(userId)).getId());
         }
 
         @Test
@@ -127,6 +131,47 @@ class JwtUtilTest {
         }
     }
 
+    @Nested
+    @DisplayName("已验证 Token 缓存测试")
+    class VerifiedTokenCacheTests {
+
+        @Test
+        @DisplayName("重复验证 - 返回相同用户 ID，签名被篡改的 Token 仍被拒绝")
+        void getUserIdFromToken_Repeated_TamperedTokenStillRejected() {
+            String token = jwtUtil.generateToken("user_1");
+
+            assertEquals("user_1", jwtUtil.getUserIdFromToken(token));
+            assertEquals("user_1", jwtUtil.getUserIdFromToken(token));
+
+            String tampered = token.substring(0, token.lastIndexOf('.') + 1) + "invalid_signature";
+            assertThrows(SignatureException.class, () -> jwtUtil.getUserIdFromToken(tampered));
+        }
+
+        @Test
+        @DisplayName("Token 过期后 - 缓存不再生效")
+        void getUserIdFromToken_Expired_NotServedFromCache() throws InterruptedException {
+            fitnessProperties.getJwt().setExpiration(1L);
+            JwtUtil shortLived = new JwtUtil(fitnessProperties);
+            String token = shortLived.generateToken("user_2");
+
+            assertEquals("user_2", shortLived.getUserIdFromToken(token));
+            Thread.sleep(1100);
+
+            assertThrows(ExpiredJwtException.class, () -> shortLived.getUserIdFromToken(token));
+        }
+
+        @Test
+        @DisplayName("缓存大小为 0 - 每次都验证签名")
+        void getUserIdFromToken_CacheDisabled_StillValidates() {
+            fitnessProperties.getJwt().setTokenCacheSize(0);
+            JwtUtil uncached = new JwtUtil(fitnessProperties);
+            String token = uncached.generateToken("user_3");
+
+            assertEquals("user_3", uncached.getUserIdFromToken(token));
+            assertThrows(MalformedJwtException.class, () -> uncached.getUserIdFromToken("not-a-valid-jwt"));
+        }
+    }
+
     @Nested
     @DisplayName("密钥回退测试")
     class SecretFallbackTests {
@@ -0,0 +1,52 @@
+package com.example.fitness.common.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MurmurHash3 流式哈希单元测试
+ */
+@DisplayName("Murmur3Hasher 单元测试")
+class Murmur3HasherTest {
+
+    private static String hash(String value) {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        hasher.write(bytes, 0, bytes.length);
+        return hasher.toHex();
+    }
+
+    @Test
+    @DisplayName("标准测试向量 - 与参考实现一致")
+    void knownVectors() {
+        assertEquals("00000000000000000000000000000000", hash(""));
+        assertEquals("029bbd41b3a7d8cb191dae486a901e5b", hash("hello"));
+        assertEquals("6c1b07bc7bbc4be347939ac4a93c437a", hash("The quick brown fox jumps over the lazy dog"));
+    }
+
+    @Test
+    @DisplayName("分段写入 - 与一次写入结果相同")
+    void chunkedWrites_SameAsSingleWrite() {
+        String value = "0123456789abcdef0123456789abcdefXYZ";
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        hasher.write(bytes, 0, 7);
+        hasher.write(bytes[7]);
+        hasher.write(bytes, 8, bytes.length - 8);
+
+        assertEquals(hash(value), hasher.toHex());
+    }
+
+    @Test
+    @DisplayName("字段分隔 - 相邻字段拼接不产生碰撞")
+    void putField_SeparatesFields() {
+        String ab = new Murmur3Hasher().putField("a").putField("bc").toHex();
+        String abc = new Murmur3Hasher().putField("ab").putField("c").toHex();
+
+        assertNotEquals(ab, abc);
+    }
+}
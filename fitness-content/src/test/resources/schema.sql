@@ -25,7 +25,10 @@ CREATE TABLE IF NOT EXISTS `move` (
     `difficulty` VARCHAR(32) NOT NULL,
     `model_url` VARCHAR(255) NOT NULL,
     `scoring_config_json` VARCHAR(1024) NOT NULL,
-    `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP
+    `reference_vector_json` TEXT,
+    `reference_motion_json` TEXT,
+    `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
+    `updated_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 CREATE TABLE IF NOT EXISTS `training_session` (
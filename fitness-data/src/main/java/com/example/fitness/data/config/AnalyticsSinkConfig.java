@@ -0,0 +1,34 @@
+package com.example.fitness.data.config;
+
+import com.example.fitness.data.sink.AnalyticsSinkWriter;
+import com.example.fitness.data.sink.DorisStreamLoadWriter;
+import com.example.fitness.data.sink.FileSinkWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 分析库写入器配置类
+ * 通过 {@code app.data.sink.type}（{@code file} / {@code doris}）选择 {@code dwd_action_score} 的写入方式
+ */
+@Configuration
+public class AnalyticsSinkConfig {
+
+    @Bean
+    public AnalyticsSinkWriter analyticsSinkWriter(ObjectMapper objectMapper,
+            @Value("${app.data.sink.type:file}") String type,
+            @Value("${app.data.sink.file:${java.io.tmpdir}/fitness-data/dwd_action_score.csv}") String file,
+            @Value("${app.data.doris.load-url:http://localhost:8030/api/fitness_dw/dwd_action_score/_stream_load}") String loadUrl,
+            @Value("${app.data.doris.user:root}") String user,
+            @Value("${app.data.doris.password:}") String password,
+            @Value("${app.data.doris.timeout:10000}") long timeoutMillis) {
+        if ("doris".equalsIgnoreCase(type)) {
+            return new DorisStreamLoadWriter(loadUrl, user, password, Duration.ofMillis(timeoutMillis), objectMapper);
+        }
+        return new FileSinkWriter(Path.of(file));
+    }
+}
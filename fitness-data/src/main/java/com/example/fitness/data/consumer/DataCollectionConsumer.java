@@ -2,91 +2,259 @@ package com.example.fitness.data.consumer;
 
 import lombok.extern.slf4j.Slf4j;
 import com.example.fitness.api.dto.ScoringResultEvent;
+import com.example.fitness.data.mapper.ConsumerOffsetMapper;
 import com.example.fitness.data.mapper.UserStatsMapper;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.example.fitness.data.service.LeaderboardService;
+import com.example.fitness.data.sink.ActionScoreSink;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Kafka 消费者 - 监听前端事件流并将数据模拟同步到数据仓库（如 Doris）及 MySQL
+ * Kafka 消费者 - 监听前端事件流并将数据同步到 MySQL 及数据仓库（Doris）
+ *
+ * <p>
+ * 以批量模式消费：一次 poll 拉取到的评分事件按 userId 合并累加分数，
+ * 再通过 {@link UserStatsMapper#incrementScores} 以一条多行 UPDATE 写入，
+ * 避免每个评分帧各占一次 MySQL 行锁往返。
+ *
+ * <p>
+ * 只有 AI 服务发布的 {@link ScoringResultEvent} 计分：值反序列化器按生产端写入的记录头
+ * （二进制编码的 {@code fitness-encoding}，或 JSON 编码的类型头）解码出该类型的实例。
+ * 同一 Topic 上客户端经 {@code /api/data/collect} 上报的原始 JSON 只会解码为 {@code Map}，
+ * 即使带有 {@code userId} / {@code score} 字段也不会计入积分与排行榜。
+ *
+ * <p>
+ * 积分累加是幂等的，重复投递不会重复计分：
+ * <ul>
+ * <li>每个分区已计入积分的最大 offset 记录在 {@code scoring_consumer_offset} 表中，
+ * 与积分增量在同一数据库事务中提交；offset 不大于水位线的消息（重放、再均衡后重新投递）直接跳过</li>
+ * <li>生产端重发的同一事件（新的 offset、相同的 {@code eventId}）由 {@link EventIdWindow} 识别</li>
+ * </ul>
+ * 因此监听器可以按分区数扩展并发（{@code spring.kafka.listener.concurrency}）。
+ *
+ * <p>
+ * 事务提交后，本批计入的评分事件交给 {@link ActionScoreSink} 异步写入 Doris 明细表
+ * {@code dwd_action_score}；该调用只入队、不阻塞，分析库不可用不影响积分链路。
+ * 同时交给 {@link LeaderboardService} 以一次 Redis 流水线累加到日 / 周 / 月排行榜，失败只记录日志。
+ *
+ * <p>
+ * 容器使用 {@code BATCH} 确认模式：监听方法正常返回后才提交本批 offset；
+ * 数据库写入失败时事务回滚并抛出异常，offset 不提交，由容器的错误处理器重新投递整批。
+ *
+ * <p>
+ * 指标：
+ * <ul>
+ * <li>{@code data.consumer.records} — 已消费的消息数（吞吐量）</li>
+ * <li>{@code data.consumer.batch.size} — 每批消息数</li>
+ * <li>{@code data.consumer.batch.latency} — 每批合并写库的耗时</li>
+ * <li>{@code data.consumer.duplicates} — 被去重跳过的消息数，按 {@code reason}（{@code offset} /
+ * {@code event_id}）区分</li>
+ * <li>{@code data.consumer.lag} — 最近一批中最旧消息的事件时间延迟（毫秒）；
+ * offset 延迟见 Kafka 客户端指标 {@code kafka.consumer.fetch.manager.records.lag.max}</li>
+ * </ul>
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class DataCollectionConsumer {
 
+    /** 消费组 ID，同时作为 offset 水位线的归属 */
+    public static final String GROUP_ID = "fitness-data-group";
+
+    private static final Comparator<TopicPartition> PARTITION_ORDER = Comparator
+            .comparing(TopicPartition::topic).thenComparingInt(TopicPartition::partition);
+
     private final UserStatsMapper userStatsMapper;
-    private final ObjectMapper objectMapper;
+    private final ConsumerOffsetMapper consumerOffsetMapper;
+    private final TransactionOperations transactionOperations;
+    private final ActionScoreSink actionScoreSink;
+    private final LeaderboardService leaderboardService;
+    private final EventIdWindow eventIdWindow;
+
+    private final Counter recordsCounter;
+    private final Counter offsetDuplicatesCounter;
+    private final Counter eventIdDuplicatesCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public DataCollectionConsumer(UserStatsMapper userStatsMapper, ConsumerOffsetMapper consumerOffsetMapper,
+            MeterRegistry meterRegistry, TransactionOperations transactionOperations,
+            ActionScoreSink actionScoreSink, LeaderboardService leaderboardService,
+            @Value("${app.data.dedup-window:100000}") int dedupWindow) {
+        this.userStatsMapper = userStatsMapper;
+        this.consumerOffsetMapper = consumerOffsetMapper;
+        this.transactionOperations = transactionOperations;
+        this.actionScoreSink = actionScoreSink;
+        this.leaderboardService = leaderboardService;
+        this.eventIdWindow = new EventIdWindow(dedupWindow);
+
+        this.recordsCounter = Counter.builder("data.consumer.records")
+                .description("已消费的前端事件数").register(meterRegistry);
+        this.offsetDuplicatesCounter = Counter.builder("data.consumer.duplicates").tag("reason", "offset")
+                .description("被去重跳过的前端事件数").register(meterRegistry);
+        this.eventIdDuplicatesCounter = Counter.builder("data.consumer.duplicates").tag("reason", "event_id")
+                .description("被去重跳过的前端事件数").register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("data.consumer.batch.size")
+                .description("每批消费的前端事件数").register(meterRegistry);
+        this.batchTimer = Timer.builder("data.consumer.batch.latency")
+                .description("每批评分事件合并写库的耗时").register(meterRegistry);
+        Gauge.builder("data.consumer.lag", lagMillis, AtomicLong::get)
+                .description("最近一批中最旧事件的事件时间延迟（毫秒）").baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
 
     /**
-     * 消费 Kafka 事件消息
+     * 批量消费 Kafka 事件消息
      *
      * <p>
-     * 从 {@code frontend_event_stream} Topic 消费消息，兼容
-     * {@code ConsumerRecord}、{@code String} 和普通对象三种格式。
-     * 通过判断 JSON 是否包含 {@code "score"} 字段来识别评分事件。
+     * 从 {@code frontend_event_stream} Topic 批量消费，跳过已计入的消息后按 userId 合并分数，
+     * 在一个事务中写入积分增量并推进各分区的 offset 水位线。
+     * 写库失败时异常向上抛出，本批 offset 不会提交。
      *
-     * @param message Kafka 消费到的原始消息对象
+     * @param records 本次 poll 拉取到的消息
      */
-    @KafkaListener(topics = "frontend_event_stream", groupId = "fitness-data-group")
-    public void consume(Object message) {
-        log.info("从 Kafka 消费到事件: {}", message);
+    @KafkaListener(topics = "frontend_event_stream", groupId = GROUP_ID, batch = "true")
+    public void consumeBatch(List<ConsumerRecord<?, ?>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        // 按分区分组并排序，多分区批次总以相同顺序锁定水位线行
+        Map<TopicPartition, List<ConsumerRecord<?, ?>>> byPartition = new TreeMap<>(PARTITION_ORDER);
+        for (ConsumerRecord<?, ?> record : records) {
+            if (record.timestamp() > 0) {
+                oldest = Math.min(oldest, record.timestamp());
+            }
+            byPartition.computeIfAbsent(new TopicPartition(record.topic(), record.partition()),
+                    tp -> new ArrayList<>()).add(record);
+        }
 
-        try {
-            // 1. 解析消息
-            String json;
-            if (message instanceof org.apache.kafka.clients.consumer.ConsumerRecord) {
-                org.apache.kafka.clients.consumer.ConsumerRecord<?, ?> record = (org.apache.kafka.clients.consumer.ConsumerRecord<?, ?>) message;
-                Object value = record.value();
-                if (value instanceof String) {
-                    json = (String) value;
-                } else {
-                    json = objectMapper.writeValueAsString(value);
+        Timer.Sample sample = Timer.start();
+        List<ScoringResultEvent> applied = transactionOperations.execute(status -> applyBatch(byPartition));
+        sample.stop(batchTimer);
+        // 事务提交后才记入窗口并写入分析库与排行榜，回滚重投的事件不会被误判为重复或重复写入
+        if (applied != null) {
+            List<String> eventIds = new ArrayList<>(applied.size());
+            for (ScoringResultEvent event : applied) {
+                if (event.getEventId() != null) {
+                    eventIds.add(event.getEventId());
                 }
-            } else if (message instanceof String) {
-                json = (String) message;
-            } else {
-                json = objectMapper.writeValueAsString(message);
             }
-            // 尝试解析为 ScoringResultEvent, 如果解析失败可能是其他事件类型，需兼容处理
-            // 这里假定主要是评分事件
-            if (json.contains("score")) {
-                ScoringResultEvent event = objectMapper.readValue(json, ScoringResultEvent.class);
-                handleScoringEvent(event);
+            eventIdWindow.addAll(eventIds);
+            applied.forEach(actionScoreSink::offer);
+            if (!applied.isEmpty()) {
+                leaderboardService.record(applied);
             }
+        }
+
+        recordsCounter.increment(records.size());
+        batchSizeSummary.record(records.size());
+        lagMillis.set(now - oldest);
+    }
 
-        } catch (Exception e) {
-            log.error("处理 Kafka 消息失败: {}", e.getMessage());
+    /**
+     * 在事务内处理一批消息：按分区读取并锁定水位线，跳过重复消息，写入积分增量并推进水位线
+     *
+     * @return 本批计入的评分事件（已去重）
+     */
+    private List<ScoringResultEvent> applyBatch(Map<TopicPartition, List<ConsumerRecord<?, ?>>> byPartition) {
+        Map<Long, Integer> increments = new HashMap<>();
+        Set<String> eventIds = new HashSet<>();
+        List<ScoringResultEvent> applied = new ArrayList<>();
+        for (Map.Entry<TopicPartition, List<ConsumerRecord<?, ?>>> entry : byPartition.entrySet()) {
+            TopicPartition partition = entry.getKey();
+            Long watermark = consumerOffsetMapper.selectWatermarkForUpdate(GROUP_ID, partition.topic(),
+                    partition.partition());
+            long committed = watermark == null ? -1L : watermark;
+            long maxOffset = committed;
+            for (ConsumerRecord<?, ?> record : entry.getValue()) {
+                if (record.offset() <= committed) {
+                    offsetDuplicatesCounter.increment();
+                    continue;
+                }
+                maxOffset = Math.max(maxOffset, record.offset());
+                ScoringResultEvent event = toScoringEvent(record.value());
+                if (event == null) {
+                    continue;
+                }
+                String eventId = event.getEventId();
+                if (eventId != null && (eventIdWindow.contains(eventId) || !eventIds.add(eventId))) {
+                    eventIdDuplicatesCounter.increment();
+                    continue;
+                }
+                applied.add(event);
+                accumulate(increments, event);
+            }
+            if (maxOffset > committed) {
+                consumerOffsetMapper.upsertWatermark(GROUP_ID, partition.topic(), partition.partition(), maxOffset);
+            }
         }
+        applyIncrements(increments);
+        log.debug("批量处理 {} 个分区, 其中评分事件 {} 条, 合并为 {} 个用户的积分更新",
+                byPartition.size(), applied.size(), increments.size());
+        return applied;
     }
 
     /**
-     * 处理评分结果事件
+     * 识别评分事件
      *
      * <p>
-     * 将评分数据持久化到 MySQL（累加用户 {@code total_score}），
-     * 并模拟同步到 Doris 数据仓库。
+     * 只接受值反序列化器已解码出的 {@link ScoringResultEvent}；其他消息（埋点 {@code Map}、
+     * 字符串等）由客户端内容决定，不能作为积分来源。
      *
-     * @param event 反序列化后的评分结果事件
+     * @return 评分事件；非评分事件返回 {@code null}
      */
-    private void handleScoringEvent(ScoringResultEvent event) {
-        // 2. MySQL 持久化 (核心指标)
+    private static ScoringResultEvent toScoringEvent(Object payload) {
+        return payload instanceof ScoringResultEvent event ? event : null;
+    }
+
+    /**
+     * 将评分事件的分数按 userId 累加到本批的增量表中
+     */
+    private void accumulate(Map<Long, Integer> increments, ScoringResultEvent event) {
+        if (event.getUserId() == null || "unknown".equals(event.getUserId()) || event.getScore() == null) {
+            return;
+        }
         try {
-            if (event.getUserId() != null && !"unknown".equals(event.getUserId())) {
-                Long userId = Long.valueOf(event.getUserId());
-                if (event.getScore() != null) {
-                    userStatsMapper.incrementScore(userId, event.getScore());
-                    log.info("用户 {} 积分已更新: +{}", userId, event.getScore());
-                }
-            }
+            increments.merge(Long.valueOf(event.getUserId()), event.getScore(), Integer::sum);
         } catch (NumberFormatException e) {
             log.warn("UserId 非法: {}", event.getUserId());
         }
+    }
 
-        // 3. 异步写入大数据 (Doris) - 模拟
-        // 在生产环境中，这里可能使用 JDBC Template 批量写入 Doris 或者写入另一个 Topic
-        log.info("模拟将数据同步至 Doris... [Doris 表名: dwd_action_score, move_id: {}, score: {}]",
-                event.getMoveId(), event.getScore());
+    /**
+     * 处理合并后的评分增量
+     *
+     * <p>
+     * 将积分增量以一条语句持久化到 MySQL（累加用户 {@code total_score}）。
+     *
+     * @param increments userId → 本批累计分数
+     */
+    private void applyIncrements(Map<Long, Integer> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        int updated = userStatsMapper.incrementScores(increments);
+        log.info("{} 个用户积分已更新, 影响行数: {}", increments.size(), updated);
     }
 }
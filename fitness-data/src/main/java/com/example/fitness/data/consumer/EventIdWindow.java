@@ -0,0 +1,51 @@
+package com.example.fitness.data.consumer;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 最近已计入积分的事件 ID 窗口（有界，先进先出淘汰）
+ *
+ * <p>
+ * offset 水位线只能识别 Kafka 重新投递的同一条消息；生产端重发（发送超时后重试、
+ * 溢写文件重放）会以新的 offset 写入同一事件，需按事件 ID 去重。
+ * 同一事件以 {@code moveId} 为 Key 总落在同一分区，窗口只需覆盖本实例近期处理过的事件。
+ * 超出容量时淘汰最早记录的 ID；多个监听线程共享，方法均已同步。
+ */
+final class EventIdWindow {
+
+    private final Map<String, Boolean> ids;
+
+    /**
+     * @param capacity 最多保留的事件 ID 数
+     */
+    EventIdWindow(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须为正数: " + capacity);
+        }
+        this.ids = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** 事件 ID 是否已计入过积分 */
+    synchronized boolean contains(String eventId) {
+        return ids.containsKey(eventId);
+    }
+
+    /** 记录已提交的事件 ID（仅在数据库事务提交后调用） */
+    synchronized void addAll(Collection<String> eventIds) {
+        for (String eventId : eventIds) {
+            ids.put(eventId, Boolean.TRUE);
+        }
+    }
+
+    /** 当前保留的事件 ID 数 */
+    synchronized int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.fitness.data.consumer;
+
+import com.example.fitness.data.model.entity.FeedItem;
+import com.example.fitness.data.service.FeedService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kafka 消费者 - 把训练完成事件转换为社交动态
+ *
+ * <p>
+ * 监听批量采集接口按类型分发的 {@code frontend_event.workout_complete}（格式见 {@link WorkoutCompleteMessages}）。
+ * 每个 item 需带客户端生成的 {@code workoutId}，可选 {@code sessionName}、{@code duration}、
+ * {@code calories}、{@code score}、{@code timestamp}（毫秒）。
+ *
+ * <p>
+ * 一批消息解析后交给 {@link FeedService#publish} 一次写入并扇出；失败时异常向上抛出，整批重新投递。
+ * 字段均来自客户端，入库前按列宽校验：无法解析、缺少用户、{@code workoutId} 缺失或超过
+ * {@value #MAX_WORKOUT_ID_LENGTH} 个字符、时间戳超出允许范围的事件计入 {@code data.feed.events.invalid} 后跳过，
+ * {@code sessionName} 超过 {@value #MAX_SESSION_NAME_LENGTH} 个字符时截断，避免单条事件写库失败拖垮整批。
+ */
+@Slf4j
+@Component
+public class FeedEventConsumer {
+
+    static final String GROUP_ID = "fitness-feed-group";
+
+    /** {@code feed_item.workout_id} 列宽 */
+    static final int MAX_WORKOUT_ID_LENGTH = WorkoutCompleteMessages.MAX_WORKOUT_ID_LENGTH;
+
+    /** {@code feed_item.session_name} 列宽 */
+    static final int MAX_SESSION_NAME_LENGTH = 100;
+
+    private final FeedService feedService;
+    private final ObjectMapper objectMapper;
+    private final Counter invalidCounter;
+
+    public FeedEventConsumer(FeedService feedService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.feedService = feedService;
+        this.objectMapper = objectMapper;
+        this.invalidCounter = Counter.builder("data.feed.events.invalid")
+                .description("无法生成动态的训练完成事件数").register(meterRegistry);
+    }
+
+    /**
+     * 批量消费训练完成事件
+     *
+     * @param records 本次 poll 拉取到的消息
+     */
+    @KafkaListener(topics = "${app.data.collect.topic-prefix:frontend_event.}workout_complete", groupId = GROUP_ID,
+            batch = "true")
+    public void consumeBatch(List<ConsumerRecord<?, ?>> records) {
+        List<FeedItem> items = new ArrayList<>();
+        for (ConsumerRecord<?, ?> record : records) {
+            collect(record.value(), items);
+        }
+        if (!items.isEmpty()) {
+            feedService.publish(items);
+        }
+    }
+
+    private void collect(Object payload, List<FeedItem> items) {
+        JsonNode message;
+        try {
+            message = WorkoutCompleteMessages.read(objectMapper, payload);
+        } catch (Exception e) {
+            log.warn("解析训练完成事件失败: {}", e.getMessage());
+            invalidCounter.increment();
+            return;
+        }
+        Long userId = WorkoutCompleteMessages.userId(message);
+        JsonNode events = message.path("items");
+        if (userId == null || !events.isArray()) {
+            invalidCounter.increment(Math.max(1, events.size()));
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (JsonNode event : events) {
+            String workoutId = WorkoutCompleteMessages.workoutId(event);
+            Long eventTime = WorkoutCompleteMessages.eventTime(event.get("timestamp"), now);
+            if (workoutId == null || eventTime == null) {
+                invalidCounter.increment();
+                continue;
+            }
+            FeedItem item = new FeedItem();
+            item.setUserId(userId);
+            item.setWorkoutId(workoutId);
+            item.setSessionName(event.path("sessionName").isTextual()
+                    ? truncate(event.get("sessionName").asText(), MAX_SESSION_NAME_LENGTH)
+                    : null);
+            item.setDuration(WorkoutCompleteMessages.intOrNull(event.get("duration")));
+            item.setCalories(WorkoutCompleteMessages.intOrNull(event.get("calories")));
+            item.setScore(WorkoutCompleteMessages.intOrNull(event.get("score")));
+            item.setCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(eventTime), ZoneId.systemDefault()));
+            items.add(item);
+        }
+    }
+
+    /**
+     * 截断到最多 {@code maxLength} 个字符，不拆开代理对
+     */
+    static String truncate(String value, int maxLength) {
+        if (value.length() <= maxLength) {
+            return value;
+        }
+        int end = Character.isHighSurrogate(value.charAt(maxLength - 1)) ? maxLength - 1 : maxLength;
+        return value.substring(0, end);
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.fitness.data.consumer;
+
+import com.example.fitness.data.mapper.ConsumerOffsetMapper;
+import com.example.fitness.data.mapper.UserDailyStatsMapper;
+import com.example.fitness.data.model.entity.UserDailyStats;
+import com.example.fitness.data.service.TrainingStatsService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kafka 消费者 - 把训练完成事件累加到每日训练汇总
+ *
+ * <p>
+ * 以独立消费组监听 {@code frontend_event.workout_complete}（格式见 {@link WorkoutCompleteMessages}），
+ * 每个 item 需带客户端生成的 {@code workoutId}，可带 {@code duration}（秒）、{@code calories}、{@code reps}、
+ * {@code timestamp}（毫秒），计为一次训练。一批事件按 (用户, 日期) 合并后以 {@link UserDailyStatsMapper#upsertIncrements} 一条语句写入，
+ * 日期按 {@code app.data.stats.zone} 划分。
+ *
+ * <p>
+ * 数值均来自客户端：单个事件的各项先截断到 {@code MAX_EVENT_*}，同一天的累加值不超过
+ * {@code UserDailyStatsMapper.MAX_DAILY_*}，单条异常数据既不会溢出整批，也不能无限抬高统计；
+ * 时间戳超出 {@link WorkoutCompleteMessages#eventTime} 允许范围的事件按非法事件跳过。
+ *
+ * <p>
+ * 与 {@link DataCollectionConsumer} 相同，每个分区的 offset 水位线与汇总增量在同一事务中提交，
+ * 重新投递的消息不会重复累加。采集链路为至少一次语义，同一训练还可能以新的 offset 再次出现
+ * （确认超时后的溢写重放），因此每个训练先以 {@link UserDailyStatsMapper#markWorkoutCounted} 在同一事务中登记
+ * {@code (userId, workoutId)}，已登记过的计入 {@code data.stats.events.duplicate} 后跳过。
+ * 登记超过 {@link WorkoutCompleteMessages#MAX_EVENT_AGE_MILLIS} 后，重复事件会因时间戳过旧被拒绝，
+ * 由消费线程每隔 {@value #PURGE_INTERVAL_MILLIS} 毫秒分批清理。
+ * 事务提交后调用 {@link TrainingStatsService#refresh} 写穿本批用户的统计缓存。
+ * 无法解析、缺少用户或 {@code workoutId} 的事件计入 {@code data.stats.events.invalid} 后跳过。
+ */
+@Slf4j
+@Component
+public class TrainingStatsConsumer {
+
+    static final String GROUP_ID = "fitness-stats-group";
+
+    /** 单个事件计入的训练时长上限（秒） */
+    static final int MAX_EVENT_DURATION = 6 * 3600;
+
+    /** 单个事件计入的卡路里上限 */
+    static final int MAX_EVENT_CALORIES = 5_000;
+
+    /** 单个事件计入的完成次数上限 */
+    static final int MAX_EVENT_REPS = 10_000;
+
+    /** 过期训练登记的清理间隔（毫秒） */
+    static final long PURGE_INTERVAL_MILLIS = 3600_000L;
+
+    /** 单次清理最多删除的登记行数 */
+    private static final int PURGE_BATCH_SIZE = 10_000;
+
+    private static final Comparator<TopicPartition> PARTITION_ORDER = Comparator
+            .comparing(TopicPartition::topic).thenComparingInt(TopicPartition::partition);
+
+    private final UserDailyStatsMapper userDailyStatsMapper;
+    private final ConsumerOffsetMapper consumerOffsetMapper;
+    private final TrainingStatsService trainingStatsService;
+    private final TransactionOperations transactionOperations;
+    private final ObjectMapper objectMapper;
+    private final ZoneId zone;
+    private final Counter invalidCounter;
+    private final Counter duplicateCounter;
+    private final AtomicLong lastPurgeMillis = new AtomicLong();
+
+    public TrainingStatsConsumer(UserDailyStatsMapper userDailyStatsMapper, ConsumerOffsetMapper consumerOffsetMapper,
+            TrainingStatsService trainingStatsService, TransactionOperations transactionOperations,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.data.stats.zone:Asia/Shanghai}") String zone) {
+        this.userDailyStatsMapper = userDailyStatsMapper;
+        this.consumerOffsetMapper = consumerOffsetMapper;
+        this.trainingStatsService = trainingStatsService;
+        this.transactionOperations = transactionOperations;
+        this.objectMapper = objectMapper;
+        this.zone = ZoneId.of(zone);
+        this.invalidCounter = Counter.builder("data.stats.events.invalid")
+                .description("无法计入训练汇总的训练完成事件数").register(meterRegistry);
+        this.duplicateCounter = Counter.builder("data.stats.events.duplicate")
+                .description("已计入过汇总而跳过的训练完成事件数").register(meterRegistry);
+    }
+
+    /**
+     * 批量消费训练完成事件
+     *
+     * @param records 本次 poll 拉取到的消息
+     */
+    @KafkaListener(topics = "${app.data.collect.topic-prefix:frontend_event.}workout_complete", groupId = GROUP_ID,
+            batch = "true")
+    public void consumeBatch(List<ConsumerRecord<?, ?>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        // 按分区分组并排序，多分区批次总以相同顺序锁定水位线行
+        Map<TopicPartition, List<ConsumerRecord<?, ?>>> byPartition = new TreeMap<>(PARTITION_ORDER);
+        for (ConsumerRecord<?, ?> record : records) {
+            byPartition.computeIfAbsent(new TopicPartition(record.topic(), record.partition()),
+                    tp -> new ArrayList<>()).add(record);
+        }
+        Set<Long> userIds = transactionOperations.execute(status -> applyBatch(byPartition));
+        // 事务提交后才刷新缓存，回滚时缓存保持旧值
+        if (userIds != null && !userIds.isEmpty()) {
+            trainingStatsService.refresh(userIds);
+        }
+        purgeExpiredWorkouts();
+    }
+
+    /**
+     * 清理过期的训练登记；并发消费线程中只有一个执行，失败只记录日志，下个间隔重试
+     */
+    private void purgeExpiredWorkouts() {
+        long now = System.currentTimeMillis();
+        long last = lastPurgeMillis.get();
+        if (now - last < PURGE_INTERVAL_MILLIS || !lastPurgeMillis.compareAndSet(last, now)) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(now - WorkoutCompleteMessages.MAX_EVENT_AGE_MILLIS), zone);
+        try {
+            int deleted = userDailyStatsMapper.deleteCountedWorkoutsBefore(before, PURGE_BATCH_SIZE);
+            log.debug("清理过期训练登记 {} 行", deleted);
+        } catch (Exception e) {
+            log.warn("清理过期训练登记失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在事务内处理一批消息：跳过水位线以下的消息，合并写入每日汇总并推进水位线
+     *
+     * @return 本批汇总有变化的用户
+     */
+    private Set<Long> applyBatch(Map<TopicPartition, List<ConsumerRecord<?, ?>>> byPartition) {
+        Map<String, UserDailyStats> increments = new LinkedHashMap<>();
+        for (Map.Entry<TopicPartition, List<ConsumerRecord<?, ?>>> entry : byPartition.entrySet()) {
+            TopicPartition partition = entry.getKey();
+            Long watermark = consumerOffsetMapper.selectWatermarkForUpdate(GROUP_ID, partition.topic(),
+                    partition.partition());
+            long committed = watermark == null ? -1L : watermark;
+            long maxOffset = committed;
+            for (ConsumerRecord<?, ?> record : entry.getValue()) {
+                if (record.offset() <= committed) {
+                    continue;
+                }
+                maxOffset = Math.max(maxOffset, record.offset());
+                accumulate(record.value(), increments);
+            }
+            if (maxOffset > committed) {
+                consumerOffsetMapper.upsertWatermark(GROUP_ID, partition.topic(), partition.partition(), maxOffset);
+            }
+        }
+        if (increments.isEmpty()) {
+            return Set.of();
+        }
+        userDailyStatsMapper.upsertIncrements(increments.values());
+        Set<Long> userIds = new LinkedHashSet<>();
+        increments.values().forEach(row -> userIds.add(row.getUserId()));
+        log.debug("批量处理 {} 个分区, 合并为 {} 行每日汇总更新", byPartition.size(), increments.size());
+        return userIds;
+    }
+
+    private void accumulate(Object payload, Map<String, UserDailyStats> increments) {
+        JsonNode message;
+        try {
+            message = WorkoutCompleteMessages.read(objectMapper, payload);
+        } catch (Exception e) {
+            log.warn("解析训练完成事件失败: {}", e.getMessage());
+            invalidCounter.increment();
+            return;
+        }
+        Long userId = WorkoutCompleteMessages.userId(message);
+        JsonNode events = message.path("items");
+        if (userId == null || !events.isArray()) {
+            invalidCounter.increment(Math.max(1, events.size()));
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (JsonNode event : events) {
+            String workoutId = WorkoutCompleteMessages.workoutId(event);
+            Long eventTime = WorkoutCompleteMessages.eventTime(event.get("timestamp"), now);
+            if (workoutId == null || eventTime == null) {
+                invalidCounter.increment();
+                continue;
+            }
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(eventTime), zone);
+            // 与汇总增量同一事务：回滚时登记一并撤销，重投后仍会计入
+            if (userDailyStatsMapper.markWorkoutCounted(userId, workoutId, time) == 0) {
+                duplicateCounter.increment();
+                continue;
+            }
+            LocalDate date = time.toLocalDate();
+            UserDailyStats row = increments.computeIfAbsent(userId + ":" + date,
+                    k -> new UserDailyStats(userId, date, 0, 0, 0, 0));
+            row.setDuration(saturatedAdd(row.getDuration(), clamped(event.get("duration"), MAX_EVENT_DURATION),
+                    UserDailyStatsMapper.MAX_DAILY_DURATION));
+            row.setCalories(saturatedAdd(row.getCalories(), clamped(event.get("calories"), MAX_EVENT_CALORIES),
+                    UserDailyStatsMapper.MAX_DAILY_CALORIES));
+            row.setReps(saturatedAdd(row.getReps(), clamped(event.get("reps"), MAX_EVENT_REPS),
+                    UserDailyStatsMapper.MAX_DAILY_REPS));
+            row.setSessions(saturatedAdd(row.getSessions(), 1, UserDailyStatsMapper.MAX_DAILY_SESSIONS));
+        }
+    }
+
+    /**
+     * 非负且不超过 {@code max} 的数值；缺失或非数字时为 0
+     */
+    private static int clamped(JsonNode node, int max) {
+        if (node == null || !node.isNumber()) {
+            return 0;
+        }
+        double value = node.asDouble();
+        return value <= 0 ? 0 : (int) Math.min(value, max);
+    }
+
+    private static int saturatedAdd(int current, int increment, int max) {
+        return (int) Math.min((long) current + increment, max);
+    }
+}
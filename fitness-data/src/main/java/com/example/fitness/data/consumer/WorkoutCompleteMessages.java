@@ -0,0 +1,82 @@
+package com.example.fitness.data.consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * 训练完成事件消息的解析工具
+ *
+ * <p>
+ * 消息由批量采集接口写入 {@code frontend_event.workout_complete}，形如
+ * {@code {"sessionId", "type", "userId", "items": [...]}}；{@code userId} 由服务端根据登录态写入。
+ * 值反序列化器对 JSON 消息给出 {@code Map}，溢写重放或旧生产者可能给出字符串，两者统一转为树。
+ */
+final class WorkoutCompleteMessages {
+
+    /** 客户端时间戳允许超前服务端的最大时钟偏差（毫秒） */
+    static final long MAX_CLOCK_SKEW_MILLIS = 5 * 60 * 1000L;
+
+    /** 客户端离线缓存后补报的最大延迟（毫秒） */
+    static final long MAX_EVENT_AGE_MILLIS = 7 * 24 * 3600 * 1000L;
+
+    /** {@code workoutId} 最大长度（{@code feed_item.workout_id} / {@code user_daily_stats_workout.workout_id} 列宽） */
+    static final int MAX_WORKOUT_ID_LENGTH = 64;
+
+    private WorkoutCompleteMessages() {
+    }
+
+    static JsonNode read(ObjectMapper objectMapper, Object payload) throws IOException {
+        return payload instanceof String json ? objectMapper.readTree(json) : objectMapper.valueToTree(payload);
+    }
+
+    /**
+     * 消息中的登录用户 ID；缺失或非数字时返回 {@code null}
+     */
+    static Long userId(JsonNode message) {
+        String userId = message.path("userId").asText(null);
+        if (userId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(userId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 客户端生成的训练 ID；缺失、非字符串、空白或超过 {@link #MAX_WORKOUT_ID_LENGTH} 个字符时返回 {@code null}
+     */
+    static String workoutId(JsonNode event) {
+        JsonNode workoutId = event.get("workoutId");
+        if (workoutId == null || !workoutId.isTextual() || workoutId.asText().isBlank()
+                || workoutId.asText().length() > MAX_WORKOUT_ID_LENGTH) {
+            return null;
+        }
+        return workoutId.asText();
+    }
+
+    /**
+     * 整数字段；缺失、非数字或超出 int 范围时返回 {@code null}
+     */
+    static Integer intOrNull(JsonNode node) {
+        return node != null && node.isNumber() && node.canConvertToInt() ? node.asInt() : null;
+    }
+
+    /**
+     * 事件时间（毫秒）：未携带时取 {@code now}；超前超过 {@link #MAX_CLOCK_SKEW_MILLIS}
+     * 或早于 {@link #MAX_EVENT_AGE_MILLIS} 时返回 {@code null}，由调用方按非法事件处理
+     */
+    static Long eventTime(JsonNode timestamp, long now) {
+        if (timestamp == null || timestamp.isNull()) {
+            return now;
+        }
+        if (!timestamp.canConvertToLong()) {
+            return null;
+        }
+        long millis = timestamp.asLong();
+        return millis > now + MAX_CLOCK_SKEW_MILLIS || millis < now - MAX_EVENT_AGE_MILLIS ? null : millis;
+    }
+}
@@ -1,20 +1,28 @@
 package com.example.fitness.data.controller;
 
+import com.example.fitness.api.dto.CollectBatchResponse;
 import com.example.fitness.common.exception.BusinessException;
 import com.example.fitness.common.result.ErrorCode;
 import com.example.fitness.common.result.Result;
+import com.example.fitness.data.service.CollectBatchService;
+import com.example.fitness.data.spill.SpillQueue;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -31,9 +39,18 @@ public class DataCollectionController {
 
     private final org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory<?, ?> circuitBreakerFactory;
 
+    private final SpillQueue spillQueue;
+
+    private final CollectBatchService collectBatchService;
+
     /**
      * 批量数据收集接口
-     * 
+     *
+     * <p>
+     * 消息中的 {@code userId} 以登录态为准（未登录时去掉），并去掉顶层的 {@code score}：
+     * 该 Topic 同时承载 AI 服务的评分事件，客户端上报的内容不能伪装成评分。
+     *
+     * @param userId  登录拦截器写入的用户 ID
      * @param request 包含会话ID和事件列表数据
      */
     @Operation(summary = "批量采集上传", description = "批量上传训练数据，包括评分记录、心率等指标")
@@ -43,17 +60,25 @@ public class DataCollectionController {
             @ApiResponse(responseCode = "401", description = "未认证")
     })
     @PostMapping("/collect")
-    public Result<Void> collect(@RequestBody Map<String, Object> request) {
-        if (request == null || request.isEmpty()) {
+    public Result<Void> collect(@RequestAttribute(value = "userId", required = false) String userId,
+            @RequestBody Map<String, Object> body) {
+        if (body == null || body.isEmpty()) {
             throw new BusinessException(ErrorCode.PARAM_ERROR);
         }
-        log.info("收到数据收集请求: {}", request);
+        log.debug("收到数据收集请求: {}", body);
+        Map<String, Object> request = new LinkedHashMap<>(body);
+        request.remove("score");
+        if (userId != null) {
+            request.put("userId", userId);
+        } else {
+            request.remove("userId");
+        }
 
         // 使用 Circuit Breaker 保护 Kafka 发送
         return circuitBreakerFactory.create("kafkaSender").run(() -> {
             try {
                 kafkaTemplate.send(TOPIC, request);
-                log.info("已成功将数据收集事件发送至 Kafka");
+                log.debug("已成功将数据收集事件发送至 Kafka");
                 return Result.success(null);
             } catch (Exception e) {
                 log.error("发送数据收集事件至 Kafka 失败: {}", e.getMessage());
@@ -63,11 +88,41 @@ public class DataCollectionController {
     }
 
     /**
-     * 降级策略：本地日志记录，防止数据完全丢失
+     * 批量事件上报接口
+     *
+     * <p>
+     * 请求体为 {@code {"sessionId": ..., "items": [...]}} 或直接为事件数组，每条事件需带 {@code type}；
+     * 可通过 {@code Content-Encoding: gzip / zstd} 压缩上传。事件按类型分发到各自的 topic，
+     * 同一类型、同一会话的事件合并为一条消息。
+     *
+     * @param contentEncoding 请求体压缩方式
+     * @param userId          登录拦截器写入的用户 ID
+     * @param body            原始请求体
+     */
+    @Operation(summary = "批量事件上报", description = "批量上报类型化事件，支持 gzip/zstd 压缩，逐条返回接收结果")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "操作成功，data 中为逐条接收结果"),
+            @ApiResponse(responseCode = "400", description = "请求体无法解压或解析"),
+            @ApiResponse(responseCode = "401", description = "未认证")
+    })
+    @PostMapping("/collect/batch")
+    public Result<CollectBatchResponse> collectBatch(
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @RequestAttribute(value = "userId", required = false) String userId,
+            InputStream body) {
+        return Result.success(collectBatchService.collect(body, contentEncoding, userId));
+    }
+
+    /**
+     * 降级策略：写入本地溢写队列，Kafka 恢复后由 {@link SpillQueue} 自动重放；
+     * 溢写队列已满或不可写时退回到本地日志记录
      */
     private Result<Void> fallback(Map<String, Object> request, Throwable t) {
-        log.warn("Kafka 服务不可用，执行降级策略。数据写入本地日志: {}, 异常: {}", request, t.getMessage());
-        // 在实际生产中，这里可以写入本地文件或 Sidecar 代理
+        if (spillQueue.spill(TOPIC, request)) {
+            log.warn("Kafka 服务不可用，执行降级策略。数据已写入本地溢写队列，异常: {}", t.getMessage());
+        } else {
+            log.error("Kafka 服务不可用且溢写队列不可写。数据写入本地日志: {}, 异常: {}", request, t.getMessage());
+        }
         return Result.success(null); // 返回成功以避免前端重试风暴
     }
 }
@@ -1,6 +1,15 @@
 package com.example.fitness.data.controller;
 
+import com.example.fitness.api.dto.FeedPage;
+import com.example.fitness.api.dto.LeaderboardEntry;
+import com.example.fitness.api.dto.TrainingStatsDTO;
+import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.common.result.ErrorCode;
 import com.example.fitness.common.result.Result;
+import com.example.fitness.data.model.LeaderboardPeriod;
+import com.example.fitness.data.service.FeedService;
+import com.example.fitness.data.service.LeaderboardService;
+import com.example.fitness.data.service.TrainingStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,7 +22,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.*;
 
 /**
- * 社交与统计控制器 - 提供用户训练统计、排行榜和动态广场接口
+ * 社交与统计控制器 - 提供用户训练统计、排行榜、动态广场和关注接口
  */
 @Slf4j
 @RestController
@@ -22,87 +31,133 @@ import java.util.*;
 @Tag(name = "社交统计模块", description = "用户训练统计、排行榜和社交动态")
 public class SocialController {
 
+    /** 单次返回的最大名次数 */
+    private static final int MAX_LEADERBOARD_LIMIT = 100;
+
+    /** 动态广场单页最大条数 */
+    private static final int MAX_FEED_LIMIT = 50;
+
+    private final LeaderboardService leaderboardService;
+    private final FeedService feedService;
+    private final TrainingStatsService trainingStatsService;
+
     /**
      * 获取用户训练统计
      * 
+     * @param userId 登录拦截器写入的用户 ID
      * @return 返回用户训练统计数据
      */
-    @Operation(summary = "获取训练统计", description = "获取用户的周训练时长、总消耗卡路里、完成率及训练历史")
+    @Operation(summary = "获取训练统计", description = "获取用户的周 / 月 / 累计训练时长与次数、消耗卡路里、完成率及最近 7 天训练历史")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "操作成功"),
             @ApiResponse(responseCode = "401", description = "未认证")
     })
     @GetMapping("/user/stats")
-    public Result<Map<String, Object>> getUserStats() {
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("weeklyDuration", 120);
-        stats.put("totalCalories", 1500);
-        stats.put("completionRate", 85);
-
-        List<Map<String, Object>> history = new ArrayList<>();
-        Map<String, Object> historyEntry = new HashMap<>();
-        historyEntry.put("date", "2024-01-20");
-        historyEntry.put("duration", 30);
-        history.add(historyEntry);
-        stats.put("history", history);
-
-        return Result.success(stats);
+    public Result<TrainingStatsDTO> getUserStats(
+            @RequestAttribute(value = "userId", required = false) String userId) {
+        return Result.success(trainingStatsService.getStats(requireLogin(userId)));
     }
 
     /**
      * 获取排行榜
      * 
-     * @param type 排行榜类型 (daily, weekly, monthly)
+     * @param type  排行榜类型 (daily, weekly, monthly)
+     * @param limit 返回的名次数，取值 1 ~ 100
      * @return 返回排名列表
      */
-    @Operation(summary = "获取排行榜", description = "获取用户排名列表，支持按日、周、月筛选")
+    @Operation(summary = "获取排行榜", description = "获取当前周期的前 N 名，支持按日、周、月筛选")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "操作成功"),
             @ApiResponse(responseCode = "401", description = "未认证")
     })
     @GetMapping("/social/leaderboard")
-    public Result<List<Map<String, Object>>> getLeaderboard(
-            @Parameter(description = "排行榜类型：daily, weekly, monthly") @RequestParam(defaultValue = "weekly") String type) {
-        List<Map<String, Object>> leaderboard = new ArrayList<>();
-
-        Map<String, Object> entry1 = new HashMap<>();
-        entry1.put("rank", 1);
-        entry1.put("nickname", "训练营课代表");
-        entry1.put("score", 12500);
-        entry1.put("avatar", "https://example.com/avatar1.jpg");
-        leaderboard.add(entry1);
-
-        Map<String, Object> entry2 = new HashMap<>();
-        entry2.put("rank", 2);
-        entry2.put("nickname", "周六坚持健身");
-        entry2.put("score", 11800);
-        entry2.put("avatar", "https://example.com/avatar2.jpg");
-        leaderboard.add(entry2);
+    public Result<List<LeaderboardEntry>> getLeaderboard(
+            @Parameter(description = "排行榜类型：daily, weekly, monthly") @RequestParam(defaultValue = "weekly") String type,
+            @Parameter(description = "返回的名次数，取值 1 ~ 100") @RequestParam(defaultValue = "20") int limit) {
+        LeaderboardPeriod period = LeaderboardPeriod.fromType(type);
+        return Result.success(leaderboardService.top(period, Math.clamp(limit, 1, MAX_LEADERBOARD_LIMIT)));
+    }
 
-        return Result.success(leaderboard);
+    /**
+     * 获取当前用户在排行榜中的名次
+     * 
+     * @param type   排行榜类型 (daily, weekly, monthly)
+     * @param userId 登录拦截器写入的用户 ID
+     * @return 返回本人名次与积分，未上榜时名次为空
+     */
+    @Operation(summary = "获取我的排名", description = "获取当前用户在当前周期排行榜中的名次与积分")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "操作成功"),
+            @ApiResponse(responseCode = "401", description = "未认证")
+    })
+    @GetMapping("/social/leaderboard/me")
+    public Result<LeaderboardEntry> getMyRank(
+            @Parameter(description = "排行榜类型：daily, weekly, monthly") @RequestParam(defaultValue = "weekly") String type,
+            @RequestAttribute(value = "userId", required = false) String userId) {
+        return Result.success(leaderboardService.rank(LeaderboardPeriod.fromType(type), requireLogin(userId)));
     }
 
     /**
      * 获取动态广场
      * 
-     * @return 返回社交动态列表
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param limit  本页条数，取值 1 ~ 50
+     * @param userId 登录拦截器写入的用户 ID
+     * @return 返回本人及关注用户的训练动态，按时间倒序
      */
-    @Operation(summary = "动态广场", description = "获取社区用户动态feed流")
+    @Operation(summary = "动态广场", description = "获取本人及关注用户的训练动态，按游标分页")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "操作成功"),
             @ApiResponse(responseCode = "401", description = "未认证")
     })
     @GetMapping("/social/feed")
-    public Result<List<Map<String, Object>>> getSocialFeed() {
-        List<Map<String, Object>> feed = new ArrayList<>();
+    public Result<FeedPage> getSocialFeed(
+            @Parameter(description = "分页游标，取上一页的 nextCursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "本页条数，取值 1 ~ 50") @RequestParam(defaultValue = "20") int limit,
+            @RequestAttribute(value = "userId", required = false) String userId) {
+        return Result.success(feedService.feed(requireLogin(userId), cursor, Math.clamp(limit, 1, MAX_FEED_LIMIT)));
+    }
 
-        Map<String, Object> feedEntry = new HashMap<>();
-        feedEntry.put("id", "f_1");
-        feedEntry.put("user", "Jack");
-        feedEntry.put("content", "完成了 HIIT 训练");
-        feedEntry.put("time", "5分钟前");
-        feed.add(feedEntry);
+    /**
+     * 关注用户
+     * 
+     * @param followeeId 被关注的用户 ID
+     * @param userId     登录拦截器写入的用户 ID
+     */
+    @Operation(summary = "关注用户", description = "关注后对方之后发布的训练动态会出现在动态广场")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "操作成功"),
+            @ApiResponse(responseCode = "401", description = "未认证")
+    })
+    @PostMapping("/social/follow/{followeeId}")
+    public Result<Void> follow(@PathVariable Long followeeId,
+            @RequestAttribute(value = "userId", required = false) String userId) {
+        feedService.follow(requireLogin(userId), followeeId);
+        return Result.success(null);
+    }
+
+    /**
+     * 取消关注
+     * 
+     * @param followeeId 被关注的用户 ID
+     * @param userId     登录拦截器写入的用户 ID
+     */
+    @Operation(summary = "取消关注", description = "取消关注指定用户")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "操作成功"),
+            @ApiResponse(responseCode = "401", description = "未认证")
+    })
+    @DeleteMapping("/social/follow/{followeeId}")
+    public Result<Void> unfollow(@PathVariable Long followeeId,
+            @RequestAttribute(value = "userId", required = false) String userId) {
+        feedService.unfollow(requireLogin(userId), followeeId);
+        return Result.success(null);
+    }
 
-        return Result.success(feed);
+    private static long requireLogin(String userId) {
+        if (userId == null) {
+            throw new BusinessException(ErrorCode.UNAUTHORIZED);
+        }
+        return Long.parseLong(userId);
     }
 }
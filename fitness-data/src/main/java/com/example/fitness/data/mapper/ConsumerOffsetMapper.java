@@ -0,0 +1,47 @@
+package com.example.fitness.data.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 评分事件消费进度 Mapper 接口
+ *
+ * <p>
+ * 维护 {@code scoring_consumer_offset} 表中每个 (消费组, Topic, 分区) 已计入积分的最大 offset。
+ * 水位线与 {@link UserStatsMapper#incrementScores} 在同一事务中读写，
+ * 使 Kafka 重新投递（重放、再均衡）的消息成为空操作。
+ *
+ * <p>
+ * 主要由 {@code DataCollectionConsumer} 在批量消费时调用；{@code TrainingStatsConsumer} 以自己的消费组
+ * 复用同一张表保护每日训练汇总的累加。
+ */
+@Mapper
+public interface ConsumerOffsetMapper {
+
+    /**
+     * 读取并锁定分区水位线
+     *
+     * <p>
+     * 使用 {@code FOR UPDATE} 行锁，再均衡期间新旧两个消费者不会并发处理同一分区的同一批消息。
+     *
+     * @return 已计入积分的最大 offset；该分区尚无记录时返回 {@code null}
+     */
+    @Select("SELECT last_offset FROM scoring_consumer_offset "
+            + "WHERE consumer_group = #{group} AND topic = #{topic} AND partition_id = #{partition} FOR UPDATE")
+    Long selectWatermarkForUpdate(@Param("group") String group, @Param("topic") String topic,
+            @Param("partition") int partition);
+
+    /**
+     * 推进分区水位线（只增不减）
+     *
+     * @param offset 本批已处理的最大 offset
+     * @return 受影响的行数
+     */
+    @Insert("INSERT INTO scoring_consumer_offset (consumer_group, topic, partition_id, last_offset, updated_at) "
+            + "VALUES (#{group}, #{topic}, #{partition}, #{offset}, NOW()) "
+            + "ON DUPLICATE KEY UPDATE last_offset = GREATEST(last_offset, VALUES(last_offset)), updated_at = NOW()")
+    int upsertWatermark(@Param("group") String group, @Param("topic") String topic,
+            @Param("partition") int partition, @Param("offset") long offset);
+}
@@ -0,0 +1,60 @@
+package com.example.fitness.data.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.fitness.data.model.entity.FeedItem;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 动态条目 Mapper 接口
+ *
+ * <p>
+ * 维护 {@code feed_item} 表。写入由 {@code FeedEventConsumer} 触发，
+ * 读取用于收件箱回表以及大V / 收件箱缺失时的读扩散查询。
+ *
+ * @see com.example.fitness.data.model.entity.FeedItem
+ */
+@Mapper
+public interface FeedItemMapper extends BaseMapper<FeedItem> {
+
+    /**
+     * 写入动态条目（幂等）
+     *
+     * <p>
+     * {@code (user_id, workout_id)} 已存在时不修改原行，通过 {@code LAST_INSERT_ID(id)}
+     * 把已有行的 id 回填到 {@link FeedItem#getId()}，重复投递时仍可重新扇出。
+     *
+     * @return 受影响的行数（新插入为 1，已存在为 0 或 2，取决于驱动的 {@code useAffectedRows}）
+     */
+    @Insert("INSERT INTO feed_item (user_id, workout_id, session_name, duration, calories, score, created_at) "
+            + "VALUES (#{userId}, #{workoutId}, #{sessionName}, #{duration}, #{calories}, #{score}, #{createdAt}) "
+            + "ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int upsert(FeedItem item);
+
+    /**
+     * 按发布者读扩散：取若干用户在游标之前的最新动态
+     *
+     * <p>
+     * 走 {@code idx_user_id (user_id, id)} 索引，每个发布者只扫描游标之前的一段。
+     *
+     * @param userIds 发布者 ID，不能为空
+     * @param before  游标（不含），为 {@code null} 时从最新开始
+     * @param limit   最多返回条数
+     * @return 按 id 倒序排列的动态
+     */
+    @Select("<script>"
+            + "SELECT * FROM feed_item WHERE user_id IN "
+            + "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>"
+            + "<if test='before != null'> AND id &lt; #{before}</if>"
+            + " ORDER BY id DESC LIMIT #{limit}"
+            + "</script>")
+    List<FeedItem> selectByAuthors(@Param("userIds") Collection<Long> userIds, @Param("before") Long before,
+            @Param("limit") int limit);
+}
@@ -0,0 +1,109 @@
+package com.example.fitness.data.mapper;
+
+import com.example.fitness.data.model.entity.UserDailyStats;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户每日训练汇总 Mapper 接口
+ *
+ * <p>
+ * 写入由 {@code TrainingStatsConsumer} 在消费训练完成事件时调用，
+ * 与消费水位线在同一事务中提交；读取只按主键前缀 {@code (user_id, stat_date)} 范围扫描汇总行。
+ * 已计入汇总的训练记录在 {@code user_daily_stats_workout} 中，同一训练重复投递时不再累加。
+ *
+ * @see com.example.fitness.data.model.entity.UserDailyStats
+ */
+@Mapper
+public interface UserDailyStatsMapper {
+
+    /** 单日训练时长上限（秒） */
+    int MAX_DAILY_DURATION = 24 * 3600;
+
+    /** 单日消耗卡路里上限 */
+    int MAX_DAILY_CALORIES = 50_000;
+
+    /** 单日完成次数上限 */
+    int MAX_DAILY_REPS = 100_000;
+
+    /** 单日训练次数上限 */
+    int MAX_DAILY_SESSIONS = 1_000;
+
+    /**
+     * 批量累加每日汇总
+     *
+     * <p>
+     * 以一条多行 {@code INSERT ... ON DUPLICATE KEY UPDATE} 写入，不存在的 (用户, 日期) 新建一行，
+     * 已存在的在原值上累加；累加结果不超过 {@code MAX_DAILY_*}，各列不会溢出 INT。
+     *
+     * @param rows 本批增量，同一 (用户, 日期) 只出现一次，不能为空
+     * @return 受影响的行数
+     */
+    @Insert("<script>"
+            + "INSERT INTO user_daily_stats (user_id, stat_date, duration, calories, reps, sessions) VALUES "
+            + "<foreach collection='rows' item='row' separator=','>"
+            + "(#{row.userId}, #{row.statDate}, #{row.duration}, #{row.calories}, #{row.reps}, #{row.sessions})"
+            + "</foreach>"
+            + " ON DUPLICATE KEY UPDATE duration = LEAST(duration + VALUES(duration), " + MAX_DAILY_DURATION + "), "
+            + "calories = LEAST(calories + VALUES(calories), " + MAX_DAILY_CALORIES + "), "
+            + "reps = LEAST(reps + VALUES(reps), " + MAX_DAILY_REPS + "), "
+            + "sessions = LEAST(sessions + VALUES(sessions), " + MAX_DAILY_SESSIONS + ")"
+            + "</script>")
+    int upsertIncrements(@Param("rows") Collection<UserDailyStats> rows);
+
+    /**
+     * 登记一次已计入汇总的训练，须与 {@link #upsertIncrements} 在同一事务中调用
+     *
+     * @param userId    用户 ID
+     * @param workoutId 客户端生成的训练 ID
+     * @param eventTime 训练完成时间，用于过期清理
+     * @return 1 表示首次登记，0 表示该训练已计入过
+     */
+    @Insert("INSERT IGNORE INTO user_daily_stats_workout (user_id, workout_id, event_time) "
+            + "VALUES (#{userId}, #{workoutId}, #{eventTime})")
+    int markWorkoutCounted(@Param("userId") long userId, @Param("workoutId") String workoutId,
+            @Param("eventTime") LocalDateTime eventTime);
+
+    /**
+     * 删除早于 {@code before} 的训练登记；这些训练的重复投递已因时间戳过旧被拒绝，登记不再需要
+     *
+     * @param before 截止时间（不含）
+     * @param limit  单次最多删除的行数
+     * @return 删除的行数
+     */
+    @Delete("DELETE FROM user_daily_stats_workout WHERE event_time < #{before} LIMIT #{limit}")
+    int deleteCountedWorkoutsBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * 查询若干用户自 {@code from} 起（含）的每日汇总
+     *
+     * @param userIds 用户 ID，不能为空
+     */
+    @Select("<script>"
+            + "SELECT user_id, stat_date, duration, calories, reps, sessions FROM user_daily_stats WHERE user_id IN "
+            + "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>"
+            + " AND stat_date &gt;= #{from}"
+            + "</script>")
+    List<UserDailyStats> selectSince(@Param("userIds") Collection<Long> userIds, @Param("from") LocalDate from);
+
+    /**
+     * 查询若干用户的累计汇总（{@code statDate} 为 {@code null}）
+     *
+     * @param userIds 用户 ID，不能为空
+     */
+    @Select("<script>"
+            + "SELECT user_id, SUM(duration) AS duration, SUM(calories) AS calories, SUM(reps) AS reps, "
+            + "SUM(sessions) AS sessions FROM user_daily_stats WHERE user_id IN "
+            + "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>"
+            + " GROUP BY user_id"
+            + "</script>")
+    List<UserDailyStats> selectTotals(@Param("userIds") Collection<Long> userIds);
+}
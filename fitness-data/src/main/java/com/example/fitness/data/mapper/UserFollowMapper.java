@@ -0,0 +1,78 @@
+package com.example.fitness.data.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 关注关系 Mapper 接口
+ *
+ * <p>
+ * 维护 {@code user_follow} 表以及 {@code user.follower_count} 粉丝数；
+ * 粉丝数用于判断发布者是否为大V（超过阈值时改为读扩散）。
+ */
+@Mapper
+public interface UserFollowMapper {
+
+    /**
+     * 建立关注关系
+     *
+     * @return 新建时为 1，已关注时为 0
+     */
+    @Insert("INSERT IGNORE INTO user_follow (follower_id, followee_id, created_at) "
+            + "VALUES (#{followerId}, #{followeeId}, NOW())")
+    int insert(@Param("followerId") long followerId, @Param("followeeId") long followeeId);
+
+    /**
+     * 取消关注
+     *
+     * @return 删除的行数（未关注时为 0）
+     */
+    @Delete("DELETE FROM user_follow WHERE follower_id = #{followerId} AND followee_id = #{followeeId}")
+    int delete(@Param("followerId") long followerId, @Param("followeeId") long followeeId);
+
+    /**
+     * 调整粉丝数
+     *
+     * @param delta 增量（关注 +1，取关 -1）
+     */
+    @Update("UPDATE user SET follower_count = GREATEST(follower_count + #{delta}, 0) WHERE id = #{userId}")
+    int incrementFollowerCount(@Param("userId") long userId, @Param("delta") int delta);
+
+    /**
+     * 查询粉丝数
+     *
+     * @return 粉丝数；用户不存在时返回 {@code null}
+     */
+    @Select("SELECT follower_count FROM user WHERE id = #{userId}")
+    Integer selectFollowerCount(@Param("userId") long userId);
+
+    /**
+     * 按 follower_id 键集分页读取粉丝
+     *
+     * @param after 上一页最后一个粉丝 ID（不含），首页传 0
+     * @param limit 每页条数
+     */
+    @Select("SELECT follower_id FROM user_follow WHERE followee_id = #{followeeId} AND follower_id > #{after} "
+            + "ORDER BY follower_id LIMIT #{limit}")
+    List<Long> selectFollowerIds(@Param("followeeId") long followeeId, @Param("after") long after,
+            @Param("limit") int limit);
+
+    /**
+     * 用户关注的全部用户
+     */
+    @Select("SELECT followee_id FROM user_follow WHERE follower_id = #{followerId}")
+    List<Long> selectFolloweeIds(@Param("followerId") long followerId);
+
+    /**
+     * 用户关注的大V（粉丝数不低于阈值），其动态不扇出，读取时单独查询
+     */
+    @Select("SELECT f.followee_id FROM user_follow f JOIN user u ON u.id = f.followee_id "
+            + "WHERE f.follower_id = #{followerId} AND u.follower_count >= #{threshold}")
+    List<Long> selectHeavyFolloweeIds(@Param("followerId") long followerId, @Param("threshold") int threshold);
+}
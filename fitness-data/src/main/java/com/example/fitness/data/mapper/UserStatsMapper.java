@@ -1,11 +1,17 @@
 package com.example.fitness.data.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.fitness.api.dto.LeaderboardEntry;
 import com.example.fitness.data.model.entity.UserStats;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 用户训练统计 Mapper 接口
  *
@@ -34,4 +40,36 @@ public interface UserStatsMapper extends BaseMapper<UserStats> {
      */
     @Update("UPDATE user SET total_score = IFNULL(total_score, 0) + #{score}, updated_at = NOW() WHERE id = #{userId}")
     int incrementScore(@Param("userId") Long userId, @Param("score") Integer score);
+
+    /**
+     * 批量原子性累加多个用户的训练得分
+     *
+     * <p>
+     * 以单条 {@code CASE} UPDATE 一次写入所有用户的增量，语义与逐条调用
+     * {@link #incrementScore} 相同；不存在的用户被忽略，不会插入新行。
+     *
+     * @param increments userId → 本次需累加的分数，不能为空
+     * @return 受影响的行数
+     */
+    @Update("<script>"
+            + "UPDATE user SET total_score = IFNULL(total_score, 0) + CASE id "
+            + "<foreach collection='increments' index='userId' item='score'>WHEN #{userId} THEN #{score} </foreach>"
+            + "END, updated_at = NOW() WHERE id IN "
+            + "<foreach collection='increments' index='userId' open='(' separator=',' close=')'>#{userId}</foreach>"
+            + "</script>")
+    int incrementScores(@Param("increments") Map<Long, Integer> increments);
+
+    /**
+     * 批量查询用户昵称与头像（排行榜展示用）
+     *
+     * <p>
+     * 只填充 {@code userId}、{@code nickname}、{@code avatar}；不存在的用户不返回。
+     *
+     * @param ids 用户 ID 列表，不能为空
+     */
+    @Select("<script>"
+            + "SELECT id AS user_id, nickname, avatar FROM user WHERE id IN "
+            + "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>"
+            + "</script>")
+    List<LeaderboardEntry> selectProfiles(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,98 @@
+package com.example.fitness.data.model;
+
+import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.common.result.ErrorCode;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * 排行榜周期
+ *
+ * <p>
+ * 每个周期一个 Redis 有序集合，key 中带周期编号，周期切换时自然滚动到新 key：
+ * <ul>
+ * <li>{@code leaderboard:daily:20260301}</li>
+ * <li>{@code leaderboard:weekly:2026-W09}（ISO 周）</li>
+ * <li>{@code leaderboard:monthly:202603}</li>
+ * </ul>
+ * 旧 key 保留到下一个周期结束（便于查询"上周"），之后由 Redis 自动过期删除。
+ */
+public enum LeaderboardPeriod {
+
+    DAILY {
+        @Override
+        String suffix(LocalDate date) {
+            return date.format(DateTimeFormatter.BASIC_ISO_DATE);
+        }
+
+        @Override
+        LocalDate nextStart(LocalDate date) {
+            return date.plusDays(1);
+        }
+    },
+    WEEKLY {
+        @Override
+        String suffix(LocalDate date) {
+            return String.format("%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR),
+                    date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        }
+
+        @Override
+        LocalDate nextStart(LocalDate date) {
+            return date.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        }
+    },
+    MONTHLY {
+        @Override
+        String suffix(LocalDate date) {
+            return String.format("%d%02d", date.getYear(), date.getMonthValue());
+        }
+
+        @Override
+        LocalDate nextStart(LocalDate date) {
+            return date.with(TemporalAdjusters.firstDayOfNextMonth());
+        }
+    };
+
+    private static final String KEY_PREFIX = "leaderboard:";
+
+    abstract String suffix(LocalDate date);
+
+    /** {@code date} 之后下一个周期的第一天 */
+    abstract LocalDate nextStart(LocalDate date);
+
+    /**
+     * {@code date} 所在周期的 Redis key
+     */
+    public String key(LocalDate date) {
+        return KEY_PREFIX + name().toLowerCase(Locale.ROOT) + ":" + suffix(date);
+    }
+
+    /**
+     * {@code date} 所在周期 key 的过期时刻：下一个周期结束时
+     */
+    public Instant expireAt(LocalDate date, ZoneId zone) {
+        return nextStart(nextStart(date)).atStartOfDay(zone).toInstant();
+    }
+
+    /**
+     * 解析接口参数 {@code daily / weekly / monthly}（忽略大小写）
+     *
+     * @throws BusinessException 取值不合法时抛出参数错误
+     */
+    public static LeaderboardPeriod fromType(String type) {
+        for (LeaderboardPeriod period : values()) {
+            if (period.name().equalsIgnoreCase(type)) {
+                return period;
+            }
+        }
+        throw new BusinessException(ErrorCode.PARAM_ERROR, "不支持的排行榜类型: " + type);
+    }
+}
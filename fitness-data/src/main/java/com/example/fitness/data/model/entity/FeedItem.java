@@ -0,0 +1,64 @@
+package com.example.fitness.data.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 动态条目实体类
+ *
+ * <p>
+ * 由训练完成事件生成，映射到 {@code feed_item} 表。
+ * 关注者收件箱中只保存 {@link #id}，读取时再批量回表；
+ * {@code (userId, workoutId)} 唯一，重复投递的同一次训练不会生成第二条动态。
+ *
+ * @since 1.0.0
+ */
+@Data
+@TableName("feed_item")
+public class FeedItem {
+
+    /**
+     * 动态 ID，自增主键，同时作为游标分页的排序键
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 发布者用户 ID
+     */
+    private Long userId;
+
+    /**
+     * 客户端生成的训练记录 ID
+     */
+    private String workoutId;
+
+    /**
+     * 课程名称
+     */
+    private String sessionName;
+
+    /**
+     * 训练时长（秒）
+     */
+    private Integer duration;
+
+    /**
+     * 消耗卡路里
+     */
+    private Integer calories;
+
+    /**
+     * 训练得分
+     */
+    private Integer score;
+
+    /**
+     * 训练完成时间
+     */
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,54 @@
+package com.example.fitness.data.model.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 用户每日训练汇总实体类
+ *
+ * <p>
+ * 映射到 {@code user_daily_stats} 表，主键为 {@code (userId, statDate)}。
+ * 由训练完成事件增量累加；周 / 月统计与训练历史都从该表计算。
+ *
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("user_daily_stats")
+public class UserDailyStats {
+
+    /**
+     * 用户 ID
+     */
+    private Long userId;
+
+    /**
+     * 统计日期；汇总查询中为 {@code null}
+     */
+    private LocalDate statDate;
+
+    /**
+     * 训练时长（秒）
+     */
+    private Integer duration;
+
+    /**
+     * 消耗卡路里
+     */
+    private Integer calories;
+
+    /**
+     * 完成次数
+     */
+    private Integer reps;
+
+    /**
+     * 完成的训练次数
+     */
+    private Integer sessions;
+}
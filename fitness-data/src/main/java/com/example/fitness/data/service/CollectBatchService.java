@@ -0,0 +1,21 @@
+package com.example.fitness.data.service;
+
+import com.example.fitness.api.dto.CollectBatchResponse;
+
+import java.io.InputStream;
+
+/**
+ * 批量数据采集服务接口
+ * 解析客户端批量上报的类型化事件，按类型分发到 Kafka。
+ */
+public interface CollectBatchService {
+    /**
+     * 流式解压并解析请求体，校验每条事件后按类型与会话合批发送
+     *
+     * @param body            原始请求体
+     * @param contentEncoding 请求的 {@code Content-Encoding}（{@code gzip} / {@code zstd}，为空表示未压缩）
+     * @param userId          登录用户 ID，写入每条消息的 {@code userId} 字段；为空时不写入
+     * @return 逐条接收结果
+     */
+    CollectBatchResponse collect(InputStream body, String contentEncoding, String userId);
+}
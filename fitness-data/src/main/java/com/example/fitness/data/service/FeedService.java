@@ -0,0 +1,36 @@
+package com.example.fitness.data.service;
+
+import com.example.fitness.api.dto.FeedPage;
+import com.example.fitness.data.model.entity.FeedItem;
+
+import java.util.List;
+
+/**
+ * 社交动态服务接口
+ * 训练完成事件写扩散到关注者收件箱，大V 的动态在读取时合并。
+ */
+public interface FeedService {
+    /**
+     * 保存一批动态条目并扇出到发布者与其关注者的收件箱
+     */
+    void publish(List<FeedItem> items);
+
+    /**
+     * 按游标读取用户的动态流
+     *
+     * @param userId 读取者
+     * @param cursor 上一页返回的 {@code nextCursor}，首页为 {@code null}
+     * @param limit  本页条数
+     */
+    FeedPage feed(long userId, String cursor, int limit);
+
+    /**
+     * 关注用户；新动态从下一次发布起进入收件箱
+     */
+    void follow(long followerId, long followeeId);
+
+    /**
+     * 取消关注
+     */
+    void unfollow(long followerId, long followeeId);
+}
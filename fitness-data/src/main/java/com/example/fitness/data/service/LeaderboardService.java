@@ -0,0 +1,28 @@
+package com.example.fitness.data.service;
+
+import com.example.fitness.api.dto.LeaderboardEntry;
+import com.example.fitness.api.dto.ScoringResultEvent;
+import com.example.fitness.data.model.LeaderboardPeriod;
+
+import java.util.List;
+
+/**
+ * 排行榜服务接口
+ * 由评分事件流驱动的日 / 周 / 月积分排行榜。
+ */
+public interface LeaderboardService {
+    /**
+     * 把一批已计入的评分事件累加到各周期排行榜（一次流水线批量写入）
+     */
+    void record(List<ScoringResultEvent> events);
+
+    /**
+     * 当前周期的前 {@code limit} 名
+     */
+    List<LeaderboardEntry> top(LeaderboardPeriod period, int limit);
+
+    /**
+     * 用户在当前周期的名次与得分；未上榜时 {@code rank} 为 {@code null}、{@code score} 为 0
+     */
+    LeaderboardEntry rank(LeaderboardPeriod period, long userId);
+}
@@ -0,0 +1,21 @@
+package com.example.fitness.data.service;
+
+import com.example.fitness.api.dto.TrainingStatsDTO;
+
+import java.util.Collection;
+
+/**
+ * 训练统计服务接口
+ * 周 / 月 / 累计视图由每日汇总表 {@code user_daily_stats} 计算，读取经过 Redis 缓存。
+ */
+public interface TrainingStatsService {
+    /**
+     * 用户截至今天的训练统计
+     */
+    TrainingStatsDTO getStats(long userId);
+
+    /**
+     * 每日汇总更新后重新计算并写入缓存（写穿）
+     */
+    void refresh(Collection<Long> userIds);
+}
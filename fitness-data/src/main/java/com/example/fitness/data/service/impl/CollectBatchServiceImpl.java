@@ -0,0 +1,296 @@
+package com.example.fitness.data.service.impl;
+
+import com.example.fitness.api.dto.CollectBatchResponse;
+import com.example.fitness.api.dto.CollectBatchResponse.EventResult;
+import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.common.result.ErrorCode;
+import com.example.fitness.data.service.CollectBatchService;
+import com.example.fitness.data.spill.SpillQueue;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.luben.zstd.ZstdInputStream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 批量数据采集服务实现类
+ *
+ * <p>
+ * 处理流程：
+ * <ol>
+ * <li>按 {@code Content-Encoding} 流式解压（{@code gzip} / {@code zstd}），解压后的字节数不超过
+ * {@code app.data.collect.max-bytes}，防止压缩炸弹</li>
+ * <li>用 Jackson 流式解析器逐条读取 {@code items}，不在内存中构建整个请求体；
+ * 请求体可以是 {@code {"sessionId": ..., "items": [...]}}，也可以直接是事件数组</li>
+ * <li>逐条校验：必须是对象，{@code type} 在 {@code app.data.collect.types} 中，{@code timestamp} 若存在须为数字；
+ * 超过 {@code app.data.collect.max-events} 的事件被拒绝</li>
+ * <li>按 (类型, 会话) 合批，每批作为一条消息发送到 {@code app.data.collect.topic-prefix + type}，
+ * 以会话 ID 为 key，同一会话的事件落在同一分区；消息带上登录用户 ID，下游不信任事件中客户端自填的用户字段</li>
+ * <li>所有消息经 {@code kafkaSender} 断路器发送并等待确认；未确认的批次写入 {@link SpillQueue}，
+ * 溢写也失败时对应事件标记为 {@code UNAVAILABLE}</li>
+ * </ol>
+ *
+ * <p>
+ * 发送超时后迟到的确认可能与溢写重放各投递一次，语义为至少一次。
+ */
+@Slf4j
+@Service
+public class CollectBatchServiceImpl implements CollectBatchService {
+
+    private static final String CIRCUIT_BREAKER_ID = "kafkaSender";
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final CircuitBreakerFactory<?, ?> circuitBreakerFactory;
+    private final SpillQueue spillQueue;
+    private final ObjectMapper objectMapper;
+    private final String topicPrefix;
+    private final Set<String> types;
+    private final int maxEvents;
+    private final long maxBytes;
+    private final long sendTimeoutMillis;
+
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter recordsCounter;
+
+    public CollectBatchServiceImpl(KafkaTemplate<String, Object> kafkaTemplate,
+            CircuitBreakerFactory<?, ?> circuitBreakerFactory, SpillQueue spillQueue, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.data.collect.topic-prefix:frontend_event.}") String topicPrefix,
+            @Value("${app.data.collect.types:action_score,app_event,score,heart_rate,workout_complete}") List<String> types,
+            @Value("${app.data.collect.max-events:1000}") int maxEvents,
+            @Value("${app.data.collect.max-bytes:8388608}") long maxBytes,
+            @Value("${app.data.collect.send-timeout:1000}") long sendTimeoutMillis) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.circuitBreakerFactory = circuitBreakerFactory;
+        this.spillQueue = spillQueue;
+        this.objectMapper = objectMapper;
+        this.topicPrefix = topicPrefix;
+        this.types = Set.copyOf(types);
+        this.maxEvents = maxEvents;
+        this.maxBytes = maxBytes;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+
+        this.acceptedCounter = Counter.builder("data.collect.events").tag("result", "accepted")
+                .description("批量采集接收的事件数").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("data.collect.events").tag("result", "rejected")
+                .description("批量采集拒绝的事件数").register(meterRegistry);
+        this.recordsCounter = Counter.builder("data.collect.records")
+                .description("批量采集合批后发送的 Kafka 消息数").register(meterRegistry);
+    }
+
+    @Override
+    public CollectBatchResponse collect(InputStream body, String contentEncoding, String userId) {
+        List<EventResult> results = new ArrayList<>();
+        List<PendingEvent> pending = new ArrayList<>();
+        String sessionId;
+        try (InputStream in = new LimitedInputStream(decode(body, contentEncoding), maxBytes)) {
+            sessionId = parse(in, results, pending);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "请求体解析失败: " + e.getMessage());
+        }
+
+        Map<BatchKey, List<PendingEvent>> batches = new LinkedHashMap<>();
+        for (PendingEvent event : pending) {
+            JsonNode eventSession = event.event().get("sessionId");
+            String key = eventSession != null && eventSession.isTextual() ? eventSession.asText() : sessionId;
+            batches.computeIfAbsent(new BatchKey(topicPrefix + event.type(), key), k -> new ArrayList<>()).add(event);
+        }
+        publish(batches, userId, results);
+
+        int accepted = (int) results.stream().filter(EventResult::isAccepted).count();
+        int rejected = results.size() - accepted;
+        acceptedCounter.increment(accepted);
+        rejectedCounter.increment(rejected);
+        log.debug("批量采集: {} 条事件，接收 {} 条，合并为 {} 条消息", results.size(), accepted, batches.size());
+        return CollectBatchResponse.builder().accepted(accepted).rejected(rejected).results(results).build();
+    }
+
+    private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        String encoding = contentEncoding == null ? "" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+        return switch (encoding) {
+            case "", "identity" -> body;
+            case "gzip", "x-gzip" -> new GZIPInputStream(body, 8192);
+            case "zstd" -> new ZstdInputStream(body);
+            default -> throw new BusinessException(ErrorCode.PARAM_ERROR, "不支持的 Content-Encoding: " + contentEncoding);
+        };
+    }
+
+    /**
+     * 流式解析请求体，逐条校验事件
+     *
+     * @return 请求级 sessionId（可能为 {@code null}）
+     */
+    private String parse(InputStream in, List<EventResult> results, List<PendingEvent> pending) throws IOException {
+        String sessionId = null;
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                parseItems(parser, results, pending);
+            } else if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                        parseItems(parser, results, pending);
+                    } else if ("sessionId".equals(field) && value == JsonToken.VALUE_STRING) {
+                        sessionId = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                throw new BusinessException(ErrorCode.PARAM_ERROR, "请求体必须是事件数组或包含 items 的对象");
+            }
+        }
+        return sessionId;
+    }
+
+    private void parseItems(JsonParser parser, List<EventResult> results, List<PendingEvent> pending)
+            throws IOException {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            int index = results.size();
+            if (index >= maxEvents) {
+                parser.skipChildren();
+                results.add(new EventResult(index, false, CollectBatchResponse.REASON_BATCH_LIMIT));
+                continue;
+            }
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                results.add(new EventResult(index, false, CollectBatchResponse.REASON_INVALID));
+                continue;
+            }
+            ObjectNode event = parser.readValueAsTree();
+            JsonNode type = event.get("type");
+            JsonNode timestamp = event.get("timestamp");
+            if (type == null || !type.isTextual() || type.asText().isBlank()
+                    || (timestamp != null && !timestamp.isNumber())) {
+                results.add(new EventResult(index, false, CollectBatchResponse.REASON_INVALID));
+            } else if (!types.contains(type.asText())) {
+                results.add(new EventResult(index, false, CollectBatchResponse.REASON_UNSUPPORTED_TYPE));
+            } else {
+                results.add(new EventResult(index, true, null));
+                pending.add(new PendingEvent(index, type.asText(), event));
+            }
+        }
+    }
+
+    /**
+     * 经断路器发送所有批次并等待确认；未确认的批次写入溢写队列
+     */
+    private void publish(Map<BatchKey, List<PendingEvent>> batches, String userId, List<EventResult> results) {
+        if (batches.isEmpty()) {
+            return;
+        }
+        List<BatchKey> keys = new ArrayList<>(batches.keySet());
+        List<Map<String, Object>> messages = new ArrayList<>(keys.size());
+        for (BatchKey key : keys) {
+            List<PendingEvent> events = batches.get(key);
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("sessionId", key.sessionId());
+            message.put("type", events.get(0).type());
+            if (userId != null) {
+                message.put("userId", userId);
+            }
+            message.put("items", events.stream().map(PendingEvent::event).toList());
+            messages.add(message);
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[keys.size()];
+        circuitBreakerFactory.create(CIRCUIT_BREAKER_ID).run(() -> {
+            for (int i = 0; i < keys.size(); i++) {
+                futures[i] = kafkaTemplate.send(keys.get(i).topic(), keys.get(i).sessionId(), messages.get(i));
+            }
+            try {
+                CompletableFuture.allOf(futures).get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("批量采集发送被中断", e);
+            } catch (Exception e) {
+                throw new IllegalStateException("批量采集发送失败: " + e.getMessage(), e);
+            }
+            return true;
+        }, throwable -> {
+            log.warn("Kafka 服务不可用，批量采集未确认的消息写入溢写队列: {}", throwable.getMessage());
+            return false;
+        });
+
+        for (int i = 0; i < keys.size(); i++) {
+            CompletableFuture<?> future = futures[i];
+            boolean delivered = future != null && future.isDone() && !future.isCompletedExceptionally();
+            if (delivered) {
+                recordsCounter.increment();
+            } else if (!spillQueue.spill(keys.get(i).topic(), messages.get(i))) {
+                for (PendingEvent event : batches.get(keys.get(i))) {
+                    results.set(event.index(),
+                            new EventResult(event.index(), false, CollectBatchResponse.REASON_UNAVAILABLE));
+                }
+            }
+        }
+    }
+
+    /** 合批键：目标 topic 与会话 ID（作为消息 key） */
+    private record BatchKey(String topic, String sessionId) {
+    }
+
+    private record PendingEvent(int index, String type, ObjectNode event) {
+    }
+
+    /**
+     * 限制读取总字节数的输入流，超出时抛出 {@link IOException}
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                consume(n);
+            }
+            return n;
+        }
+
+        private void consume(int n) throws IOException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new IOException("解压后的请求体超过上限");
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.fitness.data.service.impl;
+
+import com.example.fitness.api.dto.FeedItemDTO;
+import com.example.fitness.api.dto.FeedPage;
+import com.example.fitness.api.dto.LeaderboardEntry;
+import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.common.result.ErrorCode;
+import com.example.fitness.data.mapper.FeedItemMapper;
+import com.example.fitness.data.mapper.UserFollowMapper;
+import com.example.fitness.data.mapper.UserStatsMapper;
+import com.example.fitness.data.model.entity.FeedItem;
+import com.example.fitness.data.service.FeedService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 社交动态服务实现类（写扩散 + 大V 读扩散）
+ *
+ * <p>
+ * 写入：动态条目先幂等写入 {@code feed_item}，再把 id 推入发布者本人及其关注者的收件箱
+ * （Redis 有序集合 {@code feed:inbox:{userId}}，成员与分值均为动态 id）。
+ * 粉丝按 follower_id 键集分页读取，每页一次流水线写入 {@code ZADD}，
+ * 并以 {@code ZREMRANGEBYRANK} 截断到 {@code app.data.feed.inbox-size} 条、刷新过期时间。
+ * 粉丝数不低于 {@code app.data.feed.fanout-threshold} 的发布者只写入本人收件箱，写入成本与粉丝数无关。
+ * 任一步失败时异常向上抛出，由消费者重新投递；写表与 {@code ZADD} 都是幂等的。
+ *
+ * <p>
+ * 读取：以动态 id 为游标做键集分页。收件箱用 {@code ZREVRANGEBYSCORE} 取游标之前的 id，
+ * 关注的大V 通过 {@code (user_id, id)} 索引按同一游标查询，两路合并后取前 N 条回表。
+ * 收件箱不存在（Redis 不可用或长期未活跃已过期）时，对全部关注对象读扩散。
+ */
+@Slf4j
+@Service
+public class FeedServiceImpl implements FeedService {
+
+    private static final String INBOX_KEY_PREFIX = "feed:inbox:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final FeedItemMapper feedItemMapper;
+    private final UserFollowMapper userFollowMapper;
+    private final UserStatsMapper userStatsMapper;
+    private final TransactionOperations transactionOperations;
+    private final int inboxSize;
+    private final Duration inboxTtl;
+    private final int fanoutThreshold;
+    private final int fanoutPageSize;
+
+    private final Counter publishedCounter;
+    private final Counter fanoutInboxesCounter;
+    private final Counter inboxReadsCounter;
+    private final Counter pullReadsCounter;
+
+    public FeedServiceImpl(StringRedisTemplate redisTemplate, FeedItemMapper feedItemMapper,
+            UserFollowMapper userFollowMapper, UserStatsMapper userStatsMapper,
+            TransactionOperations transactionOperations, MeterRegistry meterRegistry,
+            @Value("${app.data.feed.inbox-size:500}") int inboxSize,
+            @Value("${app.data.feed.inbox-ttl-days:30}") int inboxTtlDays,
+            @Value("${app.data.feed.fanout-threshold:10000}") int fanoutThreshold,
+            @Value("${app.data.feed.fanout-page-size:1000}") int fanoutPageSize) {
+        this.redisTemplate = redisTemplate;
+        this.feedItemMapper = feedItemMapper;
+        this.userFollowMapper = userFollowMapper;
+        this.userStatsMapper = userStatsMapper;
+        this.transactionOperations = transactionOperations;
+        this.inboxSize = inboxSize;
+        this.inboxTtl = Duration.ofDays(inboxTtlDays);
+        this.fanoutThreshold = fanoutThreshold;
+        this.fanoutPageSize = fanoutPageSize;
+
+        this.publishedCounter = Counter.builder("data.feed.published")
+                .description("写入的动态条目数").register(meterRegistry);
+        this.fanoutInboxesCounter = Counter.builder("data.feed.fanout.inboxes")
+                .description("写扩散推送的收件箱数").register(meterRegistry);
+        this.inboxReadsCounter = Counter.builder("data.feed.reads").tag("mode", "inbox")
+                .description("动态流读取次数").register(meterRegistry);
+        this.pullReadsCounter = Counter.builder("data.feed.reads").tag("mode", "pull")
+                .description("动态流读取次数").register(meterRegistry);
+    }
+
+    @Override
+    public void publish(List<FeedItem> items) {
+        Map<Long, List<Long>> idsByAuthor = new LinkedHashMap<>();
+        for (FeedItem item : items) {
+            feedItemMapper.upsert(item);
+            idsByAuthor.computeIfAbsent(item.getUserId(), k -> new ArrayList<>()).add(item.getId());
+        }
+        publishedCounter.increment(items.size());
+        idsByAuthor.forEach(this::fanOut);
+    }
+
+    /**
+     * 推送到发布者本人的收件箱；非大V 再按页推送到全部粉丝
+     */
+    private void fanOut(Long authorId, List<Long> itemIds) {
+        pushToInboxes(List.of(authorId), itemIds);
+        Integer followers = userFollowMapper.selectFollowerCount(authorId);
+        if (followers != null && followers >= fanoutThreshold) {
+            log.debug("用户 {} 粉丝数 {} 达到阈值，动态改为读扩散", authorId, followers);
+            return;
+        }
+        long after = 0;
+        List<Long> page;
+        do {
+            page = userFollowMapper.selectFollowerIds(authorId, after, fanoutPageSize);
+            if (!page.isEmpty()) {
+                pushToInboxes(page, itemIds);
+                after = page.get(page.size() - 1);
+            }
+        } while (page.size() == fanoutPageSize);
+    }
+
+    private void pushToInboxes(List<Long> userIds, List<Long> itemIds) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Long userId : userIds) {
+                    String key = INBOX_KEY_PREFIX + userId;
+                    for (Long itemId : itemIds) {
+                        ops.opsForZSet().add(key, String.valueOf(itemId), itemId);
+                    }
+                    ops.opsForZSet().removeRange(key, 0, -inboxSize - 1L);
+                    ops.expire(key, inboxTtl);
+                }
+                return null;
+            }
+        });
+        fanoutInboxesCounter.increment(userIds.size());
+    }
+
+    @Override
+    public FeedPage feed(long userId, String cursor, int limit) {
+        Long before = parseCursor(cursor);
+        Map<Long, FeedItem> loaded = new HashMap<>();
+        Set<Long> ids = new TreeSet<>(Comparator.reverseOrder());
+
+        List<Long> inbox = readInbox(userId, before, limit);
+        if (inbox == null) {
+            pullReadsCounter.increment();
+            List<Long> authors = new ArrayList<>(userFollowMapper.selectFolloweeIds(userId));
+            authors.add(userId);
+            feedItemMapper.selectByAuthors(authors, before, limit).forEach(item -> loaded.put(item.getId(), item));
+        } else {
+            inboxReadsCounter.increment();
+            ids.addAll(inbox);
+            List<Long> heavy = userFollowMapper.selectHeavyFolloweeIds(userId, fanoutThreshold);
+            if (!heavy.isEmpty()) {
+                feedItemMapper.selectByAuthors(heavy, before, limit).forEach(item -> loaded.put(item.getId(), item));
+            }
+        }
+        ids.addAll(loaded.keySet());
+
+        List<Long> pageIds = ids.stream().limit(limit).toList();
+        List<Long> missing = pageIds.stream().filter(id -> !loaded.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            feedItemMapper.selectByIds(missing).forEach(item -> loaded.put(item.getId(), item));
+        }
+        // 已删除的动态直接跳过，游标仍按 id 推进
+        List<FeedItem> page = pageIds.stream().map(loaded::get).filter(Objects::nonNull).toList();
+        String nextCursor = pageIds.size() == limit ? String.valueOf(pageIds.get(limit - 1)) : null;
+        return FeedPage.builder().items(toDtos(page)).nextCursor(nextCursor).build();
+    }
+
+    /**
+     * 读取收件箱中游标之前的 id
+     *
+     * @return 按 id 倒序的动态 id；收件箱不存在或 Redis 不可用时返回 {@code null}
+     */
+    private List<Long> readInbox(long userId, Long before, int limit) {
+        String key = INBOX_KEY_PREFIX + userId;
+        try {
+            double max = before == null ? Double.POSITIVE_INFINITY : before - 1;
+            Set<String> members = redisTemplate.opsForZSet()
+                    .reverseRangeByScore(key, Double.NEGATIVE_INFINITY, max, 0, limit);
+            if ((members == null || members.isEmpty()) && !Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+                return null;
+            }
+            return members == null ? List.of() : members.stream().map(Long::valueOf).toList();
+        } catch (RuntimeException e) {
+            log.warn("读取用户 {} 的动态收件箱失败，改为读扩散: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Long parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(cursor);
+        } catch (NumberFormatException e) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "游标格式错误: " + cursor);
+        }
+    }
+
+    private List<FeedItemDTO> toDtos(List<FeedItem> items) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, LeaderboardEntry> profiles = userStatsMapper
+                .selectProfiles(items.stream().map(FeedItem::getUserId).distinct().toList()).stream()
+                .collect(Collectors.toMap(LeaderboardEntry::getUserId, Function.identity(), (a, b) -> a));
+        return items.stream().map(item -> {
+            LeaderboardEntry profile = profiles.get(item.getUserId());
+            return FeedItemDTO.builder()
+                    .id(item.getId())
+                    .userId(item.getUserId())
+                    .nickname(profile == null ? null : profile.getNickname())
+                    .avatar(profile == null ? null : profile.getAvatar())
+                    .content(item.getSessionName() == null ? "完成了一次训练" : "完成了 " + item.getSessionName() + " 训练")
+                    .duration(item.getDuration())
+                    .calories(item.getCalories())
+                    .score(item.getScore())
+                    .createdAt(item.getCreatedAt())
+                    .build();
+        }).toList();
+    }
+
+    @Override
+    public void follow(long followerId, long followeeId) {
+        if (followerId == followeeId) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "不能关注自己");
+        }
+        transactionOperations.executeWithoutResult(status -> {
+            if (userFollowMapper.insert(followerId, followeeId) > 0
+                    && userFollowMapper.incrementFollowerCount(followeeId, 1) == 0) {
+                throw new BusinessException(ErrorCode.PARAM_ERROR, "用户不存在");
+            }
+        });
+    }
+
+    @Override
+    public void unfollow(long followerId, long followeeId) {
+        transactionOperations.executeWithoutResult(status -> {
+            if (userFollowMapper.delete(followerId, followeeId) > 0) {
+                userFollowMapper.incrementFollowerCount(followeeId, -1);
+            }
+        });
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.fitness.data.service.impl;
+
+import com.example.fitness.api.dto.LeaderboardEntry;
+import com.example.fitness.api.dto.ScoringResultEvent;
+import com.example.fitness.data.mapper.UserStatsMapper;
+import com.example.fitness.data.model.LeaderboardPeriod;
+import com.example.fitness.data.service.LeaderboardService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 基于 Redis 有序集合的排行榜服务实现类
+ *
+ * <p>
+ * 写入：{@code DataCollectionConsumer} 在积分事务提交后调用 {@link #record}，
+ * 本批事件按 (周期 key, userId) 合并后以一次流水线写入所有 {@code ZINCRBY}，
+ * 每个涉及的 key 附带一条 {@code EXPIREAT}。事件按自身时间戳归入周期，跨零点的批次会同时写入两天的 key。
+ * 写入失败只记录日志并计数（{@code data.leaderboard.update.failures}），不影响积分入库；
+ * 排行榜是可重建的派生数据，不做重试。
+ *
+ * <p>
+ * 读取：前 N 名由进程内快照提供。每个周期缓存前 {@code app.data.leaderboard.snapshot-size} 名
+ * （含昵称与头像），超过 {@code app.data.leaderboard.snapshot-ttl} 毫秒或周期切换后才重新读取 Redis，
+ * 同一周期同时只有一个线程刷新。Redis 不可用时继续使用旧快照。
+ * 本人名次使用 {@code ZREVRANK} + {@code ZSCORE}，均为 O(log n)。
+ */
+@Slf4j
+@Service
+public class LeaderboardServiceImpl implements LeaderboardService {
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserStatsMapper userStatsMapper;
+    private final ZoneId zone;
+    private final int snapshotSize;
+    private final long snapshotTtlNanos;
+
+    private final Map<LeaderboardPeriod, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Counter updateFailuresCounter;
+
+    public LeaderboardServiceImpl(StringRedisTemplate redisTemplate, UserStatsMapper userStatsMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.data.leaderboard.zone:Asia/Shanghai}") String zone,
+            @Value("${app.data.leaderboard.snapshot-size:100}") int snapshotSize,
+            @Value("${app.data.leaderboard.snapshot-ttl:5000}") long snapshotTtlMillis) {
+        this.redisTemplate = redisTemplate;
+        this.userStatsMapper = userStatsMapper;
+        this.zone = ZoneId.of(zone);
+        this.snapshotSize = snapshotSize;
+        this.snapshotTtlNanos = TimeUnit.MILLISECONDS.toNanos(snapshotTtlMillis);
+
+        this.updateFailuresCounter = Counter.builder("data.leaderboard.update.failures")
+                .description("写入排行榜失败的批次数").register(meterRegistry);
+    }
+
+    @Override
+    public void record(List<ScoringResultEvent> events) {
+        Map<String, Map<String, Long>> increments = new HashMap<>();
+        Map<String, Instant> expiries = new HashMap<>();
+        LocalDate today = LocalDate.now(zone);
+        Instant now = Instant.now();
+        for (ScoringResultEvent event : events) {
+            String member = member(event);
+            if (member == null) {
+                continue;
+            }
+            LocalDate date = event.getTimestamp() != null ? event.getTimestamp().toLocalDate() : today;
+            for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+                Instant expireAt = period.expireAt(date, zone);
+                if (!expireAt.isAfter(now)) {
+                    // 所属周期的 key 已过期（如回放的旧事件）
+                    continue;
+                }
+                String key = period.key(date);
+                increments.computeIfAbsent(key, k -> new HashMap<>()).merge(member, (long) event.getScore(), Long::sum);
+                expiries.putIfAbsent(key, expireAt);
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    increments.forEach((key, members) -> {
+                        members.forEach((member, delta) -> ops.opsForZSet().incrementScore(key, member, delta));
+                        ops.expireAt(key, expiries.get(key));
+                    });
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            updateFailuresCounter.increment();
+            log.warn("写入排行榜失败 ({} 个 key): {}", increments.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public List<LeaderboardEntry> top(LeaderboardPeriod period, int limit) {
+        String key = period.key(LocalDate.now(zone));
+        Snapshot snapshot = snapshots.get(period);
+        if (!isFresh(snapshot, key)) {
+            snapshot = snapshots.compute(period, (p, current) -> isFresh(current, key) ? current : load(key, current));
+        }
+        List<LeaderboardEntry> entries = snapshot.entries();
+        return entries.subList(0, Math.max(0, Math.min(limit, entries.size())));
+    }
+
+    @Override
+    public LeaderboardEntry rank(LeaderboardPeriod period, long userId) {
+        String key = period.key(LocalDate.now(zone));
+        String member = String.valueOf(userId);
+        ZSetOperations<String, String> zSet = redisTemplate.opsForZSet();
+        Long rank = zSet.reverseRank(key, member);
+        Double score = rank == null ? null : zSet.score(key, member);
+        return LeaderboardEntry.builder()
+                .userId(userId)
+                .rank(rank == null ? null : rank + 1)
+                .score(score == null ? 0L : score.longValue())
+                .build();
+    }
+
+    /**
+     * 评分事件对应的有序集合成员（userId）；无法计分的事件返回 {@code null}
+     */
+    private static String member(ScoringResultEvent event) {
+        if (event.getUserId() == null || "unknown".equals(event.getUserId()) || event.getScore() == null) {
+            return null;
+        }
+        try {
+            return String.valueOf(Long.parseLong(event.getUserId()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private boolean isFresh(Snapshot snapshot, String key) {
+        return snapshot != null && snapshot.key().equals(key)
+                && System.nanoTime() - snapshot.loadedAt() < snapshotTtlNanos;
+    }
+
+    /**
+     * 从 Redis 读取前 N 名并补充昵称与头像；读取失败时沿用同一周期的旧快照
+     */
+    private Snapshot load(String key, Snapshot current) {
+        Set<TypedTuple<String>> tuples;
+        try {
+            tuples = redisTemplate.opsForZSet().reverseRangeWithScores(key, 0, snapshotSize - 1L);
+        } catch (RuntimeException e) {
+            log.warn("读取排行榜 {} 失败，沿用旧快照: {}", key, e.getMessage());
+            List<LeaderboardEntry> stale = current != null && current.key().equals(key) ? current.entries() : List.of();
+            return new Snapshot(key, stale, System.nanoTime());
+        }
+
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        if (tuples != null) {
+            long rank = 0;
+            for (TypedTuple<String> tuple : tuples) {
+                entries.add(LeaderboardEntry.builder()
+                        .rank(++rank)
+                        .userId(Long.valueOf(tuple.getValue()))
+                        .score(tuple.getScore() == null ? 0L : tuple.getScore().longValue())
+                        .build());
+            }
+        }
+        if (!entries.isEmpty()) {
+            try {
+                Map<Long, LeaderboardEntry> profiles = userStatsMapper
+                        .selectProfiles(entries.stream().map(LeaderboardEntry::getUserId).toList()).stream()
+                        .collect(Collectors.toMap(LeaderboardEntry::getUserId, Function.identity(), (a, b) -> a));
+                for (LeaderboardEntry entry : entries) {
+                    LeaderboardEntry profile = profiles.get(entry.getUserId());
+                    if (profile != null) {
+                        entry.setNickname(profile.getNickname());
+                        entry.setAvatar(profile.getAvatar());
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("查询排行榜用户资料失败: {}", e.getMessage());
+            }
+        }
+        return new Snapshot(key, List.copyOf(entries), System.nanoTime());
+    }
+
+    /**
+     * 某个周期前 N 名的进程内快照
+     *
+     * @param key      对应的 Redis key（周期切换后失效）
+     * @param entries  按名次排列的条目（不可变）
+     * @param loadedAt 读取时刻（{@link System#nanoTime()}）
+     */
+    private record Snapshot(String key, List<LeaderboardEntry> entries, long loadedAt) {
+    }
+}
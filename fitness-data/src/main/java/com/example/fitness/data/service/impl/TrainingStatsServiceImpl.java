@@ -0,0 +1,217 @@
+package com.example.fitness.data.service.impl;
+
+import com.example.fitness.api.dto.TrainingStatsDTO;
+import com.example.fitness.api.dto.TrainingStatsDTO.DailyStats;
+import com.example.fitness.data.mapper.UserDailyStatsMapper;
+import com.example.fitness.data.model.entity.UserDailyStats;
+import com.example.fitness.data.service.TrainingStatsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 训练统计服务实现类（每日汇总 + 写穿缓存）
+ *
+ * <p>
+ * 计算：每日汇总行由 {@code TrainingStatsConsumer} 在消费训练完成事件时累加，
+ * 请求只读取汇总表——自本月 1 日、本周一、6 天前三者中最早的一天起的每日行，加上按用户求和的累计值，
+ * 每个用户的读取量以天数为上限，与事件数无关。日期按 {@code app.data.stats.zone} 划分，与消费者一致。
+ *
+ * <p>
+ * 缓存：结果以 JSON 写入 {@code stats:user:{userId}}，过期时间 {@code app.data.stats.cache-ttl}（秒）。
+ * 消费者每批提交后调用 {@link #refresh} 重新计算并覆盖缓存；缓存中的 {@code asOf} 不是今天时视为未命中，
+ * 跨天后周 / 月视图不会沿用昨天的结果。Redis 读写失败只记录日志，直接由汇总表计算。
+ */
+@Slf4j
+@Service
+public class TrainingStatsServiceImpl implements TrainingStatsService {
+
+    private static final String CACHE_KEY_PREFIX = "stats:user:";
+
+    /** 历史与完成率覆盖的天数 */
+    private static final int HISTORY_DAYS = 7;
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserDailyStatsMapper userDailyStatsMapper;
+    private final ObjectMapper objectMapper;
+    private final ZoneId zone;
+    private final Duration cacheTtl;
+
+    private final Counter cacheHitCounter;
+    private final Counter cacheMissCounter;
+    private final Counter cacheFailuresCounter;
+
+    public TrainingStatsServiceImpl(StringRedisTemplate redisTemplate, UserDailyStatsMapper userDailyStatsMapper,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.data.stats.zone:Asia/Shanghai}") String zone,
+            @Value("${app.data.stats.cache-ttl:3600}") long cacheTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.userDailyStatsMapper = userDailyStatsMapper;
+        this.objectMapper = objectMapper;
+        this.zone = ZoneId.of(zone);
+        this.cacheTtl = Duration.ofSeconds(cacheTtlSeconds);
+
+        this.cacheHitCounter = Counter.builder("data.stats.cache").tag("result", "hit")
+                .description("训练统计缓存读取次数").register(meterRegistry);
+        this.cacheMissCounter = Counter.builder("data.stats.cache").tag("result", "miss")
+                .description("训练统计缓存读取次数").register(meterRegistry);
+        this.cacheFailuresCounter = Counter.builder("data.stats.cache.failures")
+                .description("训练统计缓存读写失败次数").register(meterRegistry);
+    }
+
+    @Override
+    public TrainingStatsDTO getStats(long userId) {
+        LocalDate today = LocalDate.now(zone);
+        TrainingStatsDTO cached = readCache(userId);
+        if (cached != null && today.equals(cached.getAsOf())) {
+            cacheHitCounter.increment();
+            return cached;
+        }
+        cacheMissCounter.increment();
+        Map<Long, TrainingStatsDTO> stats = compute(List.of(userId), today);
+        writeCache(stats);
+        return stats.get(userId);
+    }
+
+    @Override
+    public void refresh(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        writeCache(compute(userIds, LocalDate.now(zone)));
+    }
+
+    /**
+     * 由每日汇总计算若干用户的统计视图
+     */
+    private Map<Long, TrainingStatsDTO> compute(Collection<Long> userIds, LocalDate today) {
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate historyStart = today.minusDays(HISTORY_DAYS - 1);
+        LocalDate from = min(min(weekStart, monthStart), historyStart);
+
+        Map<Long, Map<LocalDate, UserDailyStats>> daily = new HashMap<>();
+        for (UserDailyStats row : userDailyStatsMapper.selectSince(userIds, from)) {
+            daily.computeIfAbsent(row.getUserId(), k -> new HashMap<>()).put(row.getStatDate(), row);
+        }
+        Map<Long, UserDailyStats> totals = new HashMap<>();
+        for (UserDailyStats row : userDailyStatsMapper.selectTotals(userIds)) {
+            totals.put(row.getUserId(), row);
+        }
+
+        Map<Long, TrainingStatsDTO> result = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            Map<LocalDate, UserDailyStats> days = daily.getOrDefault(userId, Map.of());
+            int weeklySeconds = 0;
+            int weeklySessions = 0;
+            int monthlySeconds = 0;
+            int monthlySessions = 0;
+            for (UserDailyStats row : days.values()) {
+                if (!row.getStatDate().isBefore(weekStart)) {
+                    weeklySeconds += valueOf(row.getDuration());
+                    weeklySessions += valueOf(row.getSessions());
+                }
+                if (!row.getStatDate().isBefore(monthStart)) {
+                    monthlySeconds += valueOf(row.getDuration());
+                    monthlySessions += valueOf(row.getSessions());
+                }
+            }
+
+            List<DailyStats> history = new ArrayList<>(HISTORY_DAYS);
+            int activeDays = 0;
+            for (LocalDate date = historyStart; !date.isAfter(today); date = date.plusDays(1)) {
+                UserDailyStats row = days.get(date);
+                if (row == null) {
+                    history.add(new DailyStats(date, 0, 0, 0, 0));
+                    continue;
+                }
+                if (valueOf(row.getSessions()) > 0) {
+                    activeDays++;
+                }
+                history.add(new DailyStats(date, minutes(row.getDuration()), valueOf(row.getCalories()),
+                        valueOf(row.getReps()), valueOf(row.getSessions())));
+            }
+
+            UserDailyStats total = totals.get(userId);
+            result.put(userId, TrainingStatsDTO.builder()
+                    .weeklyDuration(weeklySeconds / 60)
+                    .weeklySessions(weeklySessions)
+                    .monthlyDuration(monthlySeconds / 60)
+                    .monthlySessions(monthlySessions)
+                    .totalDuration(total == null ? 0 : minutes(total.getDuration()))
+                    .totalCalories(total == null ? 0 : valueOf(total.getCalories()))
+                    .totalReps(total == null ? 0 : valueOf(total.getReps()))
+                    .totalSessions(total == null ? 0 : valueOf(total.getSessions()))
+                    .completionRate(activeDays * 100 / HISTORY_DAYS)
+                    .history(history)
+                    .asOf(today)
+                    .build());
+        }
+        return result;
+    }
+
+    private TrainingStatsDTO readCache(long userId) {
+        try {
+            String json = redisTemplate.opsForValue().get(CACHE_KEY_PREFIX + userId);
+            return json == null ? null : objectMapper.readValue(json, TrainingStatsDTO.class);
+        } catch (Exception e) {
+            cacheFailuresCounter.increment();
+            log.warn("读取用户 {} 的训练统计缓存失败: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 以一次流水线覆盖写入缓存
+     */
+    private void writeCache(Map<Long, TrainingStatsDTO> stats) {
+        try {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (Map.Entry<Long, TrainingStatsDTO> entry : stats.entrySet()) {
+                values.put(CACHE_KEY_PREFIX + entry.getKey(), objectMapper.writeValueAsString(entry.getValue()));
+            }
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    values.forEach((key, value) -> ops.opsForValue().set(key, value, cacheTtl));
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            cacheFailuresCounter.increment();
+            log.warn("写入 {} 个用户的训练统计缓存失败: {}", stats.size(), e.getMessage());
+        }
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static int minutes(Integer seconds) {
+        return valueOf(seconds) / 60;
+    }
+
+    private static int valueOf(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
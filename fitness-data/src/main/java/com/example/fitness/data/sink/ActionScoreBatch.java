@@ -0,0 +1,124 @@
+package com.example.fitness.data.sink;
+
+import com.example.fitness.api.dto.ScoringResultEvent;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * {@code dwd_action_score} 的列式微批
+ *
+ * <p>
+ * 每列一个数组，按行号对齐；批次对象在发送线程内复用，{@link #clear()} 后重新填充，
+ * 不为每条事件分配行对象。导出格式为 Doris Stream Load 的 CSV：
+ * 列分隔符 {@code \t}、行分隔符 {@code \n}、空值 {@code \N}，
+ * 列顺序见 {@link #COLUMNS}。
+ */
+public final class ActionScoreBatch {
+
+    /** 导出的列顺序，与 Doris 表 {@code dwd_action_score} 的列名一致 */
+    public static final String COLUMNS = "event_id,user_id,move_id,score,event_time";
+
+    private static final DateTimeFormatter DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final String[] eventIds;
+    private final String[] userIds;
+    private final String[] moveIds;
+    private final int[] scores;
+    private final boolean[] scorePresent;
+    private final LocalDateTime[] eventTimes;
+    private int size;
+
+    /**
+     * @param capacity 每批最多行数
+     */
+    public ActionScoreBatch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须为正数: " + capacity);
+        }
+        this.eventIds = new String[capacity];
+        this.userIds = new String[capacity];
+        this.moveIds = new String[capacity];
+        this.scores = new int[capacity];
+        this.scorePresent = new boolean[capacity];
+        this.eventTimes = new LocalDateTime[capacity];
+    }
+
+    /**
+     * 追加一行
+     *
+     * @return 批次已满时返回 {@code false}
+     */
+    public boolean add(ScoringResultEvent event) {
+        if (isFull()) {
+            return false;
+        }
+        eventIds[size] = event.getEventId();
+        userIds[size] = event.getUserId();
+        moveIds[size] = event.getMoveId();
+        scorePresent[size] = event.getScore() != null;
+        scores[size] = event.getScore() != null ? event.getScore() : 0;
+        // event_time 是 Doris 的分区列，缺失时以写入时间代替
+        eventTimes[size] = event.getTimestamp() != null ? event.getTimestamp() : LocalDateTime.now();
+        size++;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == eventIds.length;
+    }
+
+    /**
+     * 清空批次以便复用（释放对字符串的引用）
+     */
+    public void clear() {
+        Arrays.fill(eventIds, 0, size, null);
+        Arrays.fill(userIds, 0, size, null);
+        Arrays.fill(moveIds, 0, size, null);
+        Arrays.fill(eventTimes, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * 按 {@link #COLUMNS} 的顺序导出为 CSV
+     */
+    public String toCsv() {
+        StringBuilder out = new StringBuilder(size * 64);
+        for (int i = 0; i < size; i++) {
+            appendText(out, eventIds[i]).append('\t');
+            appendText(out, userIds[i]).append('\t');
+            appendText(out, moveIds[i]).append('\t');
+            if (scorePresent[i]) {
+                out.append(scores[i]);
+            } else {
+                out.append("\\N");
+            }
+            out.append('\t');
+            out.append(DATETIME.format(eventTimes[i])).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * 写入文本列；分隔符替换为空格，避免破坏行列结构
+     */
+    private static StringBuilder appendText(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("\\N");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            out.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+        return out;
+    }
+}
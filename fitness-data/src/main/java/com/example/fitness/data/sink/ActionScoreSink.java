@@ -0,0 +1,179 @@
+package com.example.fitness.data.sink;
+
+import com.example.fitness.api.dto.ScoringResultEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 评分事件分析库写入阶段（{@code dwd_action_score}）
+ *
+ * <p>
+ * 消费线程在积分事务提交后调用 {@link #offer}，只向有界队列追加一条记录，从不阻塞；
+ * 队列已满时丢弃并计数，MySQL 积分链路不受分析库可用性影响。
+ * 后台单线程把记录攒成 {@link ActionScoreBatch} 列式微批，满 {@code app.data.sink.batch-size} 条
+ * 或距批次首条记录超过 {@code app.data.sink.flush-interval} 毫秒时交给 {@link AnalyticsSinkWriter} 整批写入。
+ *
+ * <p>
+ * 写入失败时按指数退避重试（{@code app.data.sink.retry-backoff} 起，上限 30 秒），
+ * 同一批次重试沿用同一 label；超过 {@code app.data.sink.max-retries} 次后丢弃该批并计数。
+ * 内存占用上限为队列容量 {@code app.data.sink.capacity} 加一个批次。
+ *
+ * <p>
+ * 指标：
+ * <ul>
+ * <li>{@code data.sink.queue.depth} — 队列中待写入的记录数</li>
+ * <li>{@code data.sink.dropped} — 队列已满被丢弃的记录数</li>
+ * <li>{@code data.sink.rows} — 已写入分析库的行数</li>
+ * <li>{@code data.sink.failed} — 重试耗尽后丢弃的行数</li>
+ * <li>{@code data.sink.load.latency} — 每批写入（含重试）的耗时</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ActionScoreSink implements InitializingBean, DisposableBean {
+
+    /** 退避上限 */
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final AnalyticsSinkWriter writer;
+    private final BlockingQueue<ScoringResultEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+
+    private final Counter droppedCounter;
+    private final Counter rowsCounter;
+    private final Counter failedCounter;
+    private final Timer loadTimer;
+
+    private final Thread flushThread;
+    private volatile boolean running = true;
+
+    public ActionScoreSink(AnalyticsSinkWriter writer, MeterRegistry meterRegistry,
+            @Value("${app.data.sink.capacity:65536}") int capacity,
+            @Value("${app.data.sink.batch-size:4096}") int batchSize,
+            @Value("${app.data.sink.flush-interval:1000}") long flushIntervalMillis,
+            @Value("${app.data.sink.max-retries:5}") int maxRetries,
+            @Value("${app.data.sink.retry-backoff:500}") long retryBackoffMillis) {
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+
+        Gauge.builder("data.sink.queue.depth", queue, BlockingQueue::size)
+                .description("待写入分析库的评分事件数").register(meterRegistry);
+        this.droppedCounter = Counter.builder("data.sink.dropped")
+                .description("队列已满被丢弃的评分事件数").register(meterRegistry);
+        this.rowsCounter = Counter.builder("data.sink.rows")
+                .description("已写入分析库的行数").register(meterRegistry);
+        this.failedCounter = Counter.builder("data.sink.failed")
+                .description("重试耗尽后丢弃的行数").register(meterRegistry);
+        this.loadTimer = Timer.builder("data.sink.load.latency")
+                .description("每批写入分析库（含重试）的耗时").register(meterRegistry);
+
+        this.flushThread = Thread.ofPlatform().name("action-score-sink").daemon().unstarted(this::flushLoop);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        log.info("评分事件分析库写入器: {}", writer.name());
+        flushThread.start();
+    }
+
+    /**
+     * 提交一条评分事件（非阻塞）
+     *
+     * @return 是否已入队；队列已满或已关闭时返回 {@code false}
+     */
+    public boolean offer(ScoringResultEvent event) {
+        if (running && queue.offer(event)) {
+            return true;
+        }
+        droppedCounter.increment();
+        return false;
+    }
+
+    /**
+     * 停止接收新事件，写出队列中剩余的事件
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        flushThread.interrupt();
+        flushThread.join(flushIntervalMillis + 5000);
+    }
+
+    private void flushLoop() {
+        ActionScoreBatch batch = new ActionScoreBatch(batchSize);
+        long flushAt = Long.MAX_VALUE;
+        while (running || !queue.isEmpty()) {
+            ScoringResultEvent event;
+            try {
+                long waitMillis = batch.isEmpty() ? flushIntervalMillis
+                        : Math.max(0, flushAt - System.currentTimeMillis());
+                event = running ? queue.poll(waitMillis, TimeUnit.MILLISECONDS) : queue.poll();
+            } catch (InterruptedException e) {
+                // 关闭时被唤醒，继续写出剩余事件
+                continue;
+            }
+            while (event != null) {
+                if (batch.isEmpty()) {
+                    flushAt = System.currentTimeMillis() + flushIntervalMillis;
+                }
+                batch.add(event);
+                event = batch.isFull() ? null : queue.poll();
+            }
+            if (batch.isFull() || (!batch.isEmpty() && System.currentTimeMillis() >= flushAt)) {
+                flush(batch);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * 整批写入，失败时指数退避重试；关闭过程中只再尝试一次
+     */
+    private void flush(ActionScoreBatch batch) {
+        String label = "fitness_action_score_" + UUID.randomUUID().toString().replace("-", "");
+        long start = System.nanoTime();
+        long backoff = retryBackoffMillis;
+        for (int attempt = 0;; attempt++) {
+            // 清除关闭时用于唤醒的中断标记，保证剩余批次仍能写出
+            Thread.interrupted();
+            try {
+                writer.write(batch, label);
+                rowsCounter.increment(batch.size());
+                loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                break;
+            } catch (Exception e) {
+                if (attempt >= maxRetries || (!running && attempt > 0)) {
+                    failedCounter.increment(batch.size());
+                    log.error("评分事件写入分析库失败，丢弃 {} 条 (label: {}): {}", batch.size(), label, e.getMessage());
+                    break;
+                }
+                log.warn("评分事件写入分析库失败，{} 毫秒后第 {} 次重试: {}", backoff, attempt + 1, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoff));
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+        batch.clear();
+    }
+}
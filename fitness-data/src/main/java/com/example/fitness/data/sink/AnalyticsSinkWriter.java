@@ -0,0 +1,28 @@
+package com.example.fitness.data.sink;
+
+import java.io.IOException;
+
+/**
+ * 分析库写入器
+ *
+ * <p>
+ * 把一个微批整体写入 {@code dwd_action_score}。实现需保证同一 {@code label} 重复写入时
+ * 只生效一次（Doris Stream Load 按 label 去重），发送线程据此安全地重试失败的批次。
+ *
+ * @see DorisStreamLoadWriter
+ * @see FileSinkWriter
+ */
+public interface AnalyticsSinkWriter {
+
+    /**
+     * 写入一个微批
+     *
+     * @param batch 待写入的行，调用返回后会被清空复用
+     * @param label 本批的唯一标签，重试时保持不变
+     * @throws IOException 写入失败（可重试）
+     */
+    void write(ActionScoreBatch batch, String label) throws IOException;
+
+    /** 写入器名称，用于日志 */
+    String name();
+}
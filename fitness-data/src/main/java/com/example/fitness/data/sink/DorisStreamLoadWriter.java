@@ -0,0 +1,98 @@
+package com.example.fitness.data.sink;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Doris Stream Load 写入器
+ *
+ * <p>
+ * 每个微批以一次 HTTP {@code PUT} 提交到
+ * {@code http://<fe>:<http_port>/api/<db>/dwd_action_score/_stream_load}，
+ * FE 以 307 重定向到 BE，客户端自动跟随。请求带 {@code label} 头，
+ * Doris 对同一 label 只导入一次，重试不会产生重复行。
+ *
+ * <p>
+ * 响应的 {@code Status} 为 {@code Success} / {@code Publish Timeout}，或
+ * {@code Label Already Exists} 且已有任务为 {@code FINISHED} 时视为成功；其他情况抛出 {@link IOException}。
+ */
+public class DorisStreamLoadWriter implements AnalyticsSinkWriter {
+
+    private final HttpClient httpClient;
+    private final URI loadUri;
+    private final String authorization;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param loadUrl  Stream Load 地址
+     * @param user     Doris 用户名
+     * @param password Doris 密码
+     * @param timeout  单次导入的超时时间
+     */
+    public DorisStreamLoadWriter(String loadUrl, String user, String password, Duration timeout,
+            ObjectMapper objectMapper) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.loadUri = URI.create(loadUrl);
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void write(ActionScoreBatch batch, String label) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(loadUri)
+                .timeout(timeout)
+                .expectContinue(true)
+                .header("Authorization", authorization)
+                .header("label", label)
+                .header("format", "csv")
+                .header("column_separator", "\\x09")
+                .header("columns", ActionScoreBatch.COLUMNS)
+                .PUT(HttpRequest.BodyPublishers.ofString(batch.toCsv(), StandardCharsets.UTF_8))
+                .build();
+
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Stream Load 被中断", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Stream Load HTTP " + response.statusCode() + ": " + response.body());
+        }
+
+        JsonNode result = objectMapper.readTree(response.body());
+        String status = result.path("Status").asText();
+        switch (status) {
+            case "Success", "Publish Timeout" -> {
+            }
+            case "Label Already Exists" -> {
+                // 之前的尝试已导入成功（例如响应丢失后重试）
+                if (!"FINISHED".equals(result.path("ExistingJobStatus").asText())) {
+                    throw new IOException("Stream Load 标签 " + label + " 的已有任务尚未完成");
+                }
+            }
+            default -> throw new IOException("Stream Load 失败: " + status + " " + result.path("Message").asText());
+        }
+    }
+
+    @Override
+    public String name() {
+        return "doris:" + loadUri;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.fitness.data.sink;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 本地文件写入器
+ *
+ * <p>
+ * 没有 Doris 的开发和测试环境下的替身：每个微批以与 Stream Load 相同的 CSV 格式追加到本地文件，
+ * 写入前先写一行 {@code # label} 注释便于排查。
+ */
+public class FileSinkWriter implements AnalyticsSinkWriter {
+
+    private final Path file;
+
+    public FileSinkWriter(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void write(ActionScoreBatch batch, String label) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, "# " + label + "\n" + batch.toCsv(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public String name() {
+        return "file:" + file;
+    }
+}
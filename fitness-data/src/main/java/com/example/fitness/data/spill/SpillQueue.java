@@ -0,0 +1,217 @@
+package com.example.fitness.data.spill;
+
+import com.example.fitness.common.spill.SpillSegmentLog;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Kafka 降级溢写队列
+ *
+ * <p>
+ * {@code kafkaSender} 断路器打开时，{@code DataCollectionController} 的降级方法调用 {@link #spill}
+ * 把请求写入本地 {@link SpillSegmentLog}（{@code app.data.spill.dir}），代替原先只打日志的做法。
+ * 后台线程每隔 {@code app.data.spill.replay-interval} 毫秒通过同一个 {@code kafkaSender} 断路器
+ * 批量重放积压记录：断路器打开时直接跳过；半开或关闭时发送一批并等待全部确认，成功后才提交读取进度。
+ * 一批中途失败会整批重发（至少一次语义）。
+ *
+ * <p>
+ * 磁盘占用上限为 {@code app.data.spill.max-bytes}，写满后新请求只记录日志并计入 {@code data.spill.dropped}。
+ *
+ * <p>
+ * 指标：
+ * <ul>
+ * <li>{@code data.spill.backlog.records} — 尚未重放的记录数</li>
+ * <li>{@code data.spill.backlog.bytes} — 尚未重放的字节数</li>
+ * <li>{@code data.spill.segments} — 磁盘上的分段文件数</li>
+ * <li>{@code data.spill.written} — 写入溢写队列的记录数</li>
+ * <li>{@code data.spill.dropped} — 溢写队列已满或写入失败而丢弃的记录数</li>
+ * <li>{@code data.spill.replayed} — 已重放到 Kafka 的记录数</li>
+ * <li>{@code data.spill.corrupt} — 校验失败被跳过的记录数</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SpillQueue implements InitializingBean, DisposableBean {
+
+    /** 与 DataCollectionController 共用的断路器 */
+    static final String CIRCUIT_BREAKER_ID = "kafkaSender";
+
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE = new TypeReference<>() {
+    };
+
+    private final SpillSegmentLog spillLog;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final CircuitBreakerFactory<?, ?> circuitBreakerFactory;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long replayIntervalMillis;
+    private final long sendTimeoutMillis;
+
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter replayedCounter;
+
+    private final Thread replayThread;
+    private volatile boolean running = true;
+
+    public SpillQueue(KafkaTemplate<String, Object> kafkaTemplate, CircuitBreakerFactory<?, ?> circuitBreakerFactory,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.data.spill.dir:${java.io.tmpdir}/fitness-data/spill}") String directory,
+            @Value("${app.data.spill.segment-bytes:16777216}") int segmentBytes,
+            @Value("${app.data.spill.max-bytes:1073741824}") long maxBytes,
+            @Value("${app.data.spill.batch-size:100}") int batchSize,
+            @Value("${app.data.spill.replay-interval:1000}") long replayIntervalMillis,
+            @Value("${app.data.spill.send-timeout:1000}") long sendTimeoutMillis) throws IOException {
+        this.spillLog = new SpillSegmentLog(Path.of(directory), segmentBytes, maxBytes);
+        this.kafkaTemplate = kafkaTemplate;
+        this.circuitBreakerFactory = circuitBreakerFactory;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.replayIntervalMillis = replayIntervalMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+
+        Gauge.builder("data.spill.backlog.records", spillLog, SpillSegmentLog::backlogRecords)
+                .description("溢写队列中尚未重放的记录数").register(meterRegistry);
+        Gauge.builder("data.spill.backlog.bytes", spillLog, SpillSegmentLog::backlogBytes)
+                .description("溢写队列中尚未重放的字节数").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("data.spill.segments", spillLog, SpillSegmentLog::segmentCount)
+                .description("溢写队列的分段文件数").register(meterRegistry);
+        FunctionCounter.builder("data.spill.corrupt", spillLog, SpillSegmentLog::corruptRecords)
+                .description("校验失败被跳过的溢写记录数").register(meterRegistry);
+        this.writtenCounter = Counter.builder("data.spill.written")
+                .description("写入溢写队列的记录数").register(meterRegistry);
+        this.droppedCounter = Counter.builder("data.spill.dropped")
+                .description("溢写队列已满或写入失败而丢弃的记录数").register(meterRegistry);
+        this.replayedCounter = Counter.builder("data.spill.replayed")
+                .description("已重放到 Kafka 的溢写记录数").register(meterRegistry);
+
+        this.replayThread = Thread.ofPlatform().name("kafka-spill-replayer").daemon().unstarted(this::replayLoop);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long backlog = spillLog.backlogRecords();
+        if (backlog > 0) {
+            log.info("溢写队列中有 {} 条待重放记录", backlog);
+        }
+        replayThread.start();
+    }
+
+    /**
+     * 把一条待发送的消息写入溢写队列并刷盘
+     *
+     * @return 是否已持久化；队列已满或写入失败时返回 {@code false}
+     */
+    public boolean spill(String topic, Map<String, Object> payload) {
+        try {
+            byte[] record = objectMapper.writeValueAsBytes(Map.of("topic", topic, "payload", payload));
+            if (spillLog.append(record)) {
+                writtenCounter.increment();
+                return true;
+            }
+        } catch (IOException e) {
+            log.error("写入溢写队列失败: {}", e.getMessage());
+        }
+        droppedCounter.increment();
+        return false;
+    }
+
+    /**
+     * 停止重放并关闭分段日志；未重放的记录留在磁盘上，下次启动继续
+     */
+    @Override
+    public void destroy() throws InterruptedException, IOException {
+        running = false;
+        replayThread.interrupt();
+        replayThread.join(sendTimeoutMillis + 5000);
+        spillLog.close();
+    }
+
+    private void replayLoop() {
+        while (running) {
+            try {
+                while (running && replayBatch()) {
+                    // 积压未清空且发送成功时连续重放
+                }
+            } catch (Exception e) {
+                log.warn("溢写队列重放失败: {}", e.getMessage());
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(replayIntervalMillis));
+        }
+    }
+
+    /**
+     * 通过断路器重放一批记录
+     *
+     * @return 是否重放了至少一条记录（即可能还有积压）
+     */
+    boolean replayBatch() throws IOException {
+        SpillSegmentLog.Batch batch = spillLog.read(batchSize);
+        if (batch.records().isEmpty()) {
+            // 可能只越过了损坏记录或已消费完的分段
+            spillLog.commit(batch);
+            return false;
+        }
+        int sent = circuitBreakerFactory.create(CIRCUIT_BREAKER_ID).run(() -> send(batch), throwable -> {
+            log.debug("Kafka 仍不可用，暂缓重放: {}", throwable.getMessage());
+            return -1;
+        });
+        if (sent < 0) {
+            return false;
+        }
+        spillLog.commit(batch);
+        replayedCounter.increment(sent);
+        log.info("已从溢写队列重放 {} 条记录到 Kafka，剩余 {} 条", sent, spillLog.backlogRecords());
+        return true;
+    }
+
+    /**
+     * 发送一批记录并等待全部确认
+     *
+     * @return 发送的记录数
+     */
+    private int send(SpillSegmentLog.Batch batch) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(batch.records().size());
+        for (byte[] record : batch.records()) {
+            Map<String, Object> message;
+            try {
+                message = objectMapper.readValue(record, RECORD_TYPE);
+            } catch (IOException e) {
+                // CRC 通过但无法解析，只可能是写入方的问题，重试无意义
+                log.error("溢写记录无法解析，已跳过: {}", e.getMessage());
+                continue;
+            }
+            futures.add(kafkaTemplate.send((String) message.get("topic"), message.get("payload")));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("重放被中断", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("重放发送失败: " + e.getMessage(), e);
+        }
+        return futures.size();
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.fitness.data;
 
+import com.example.fitness.api.dto.CollectBatchResponse;
 import com.example.fitness.data.controller.DataCollectionController;
+import com.example.fitness.data.service.CollectBatchService;
+import com.example.fitness.data.spill.SpillQueue;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -13,13 +17,20 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
 import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
 
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -37,6 +48,12 @@ public class DataCollectionControllerTest {
     @MockitoBean
     private CircuitBreakerFactory<?, ?> circuitBreakerFactory;
 
+    @MockitoBean
+    private SpillQueue spillQueue;
+
+    @MockitoBean
+    private CollectBatchService collectBatchService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -60,4 +77,77 @@ public class DataCollectionControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCollectStampsLoginUserAndStripsScore() throws Exception {
+        CircuitBreaker cb = mock(CircuitBreaker.class);
+        when(circuitBreakerFactory.create(anyString())).thenReturn(cb);
+        when(cb.run(any(), any())).thenAnswer(invocation -> {
+            Supplier<Object> supplier = invocation.getArgument(0);
+            return supplier.get();
+        });
+
+        // 客户端伪造他人 userId 和分数
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("sessionId", "s1");
+        payload.put("userId", "2002");
+        payload.put("score", 999999);
+
+        mockMvc.perform(post("/api/data/collect")
+                .requestAttr("userId", "1001")
+                .contentType(java.util.Objects.requireNonNull(MediaType.APPLICATION_JSON))
+                .content(java.util.Objects.requireNonNull(objectMapper.writeValueAsString(payload))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate).send(eq("frontend_event_stream"), sent.capture());
+        Map<String, Object> message = (Map<String, Object>) sent.getValue();
+        assertEquals("1001", message.get("userId"));
+        assertFalse(message.containsKey("score"));
+        assertEquals("s1", message.get("sessionId"));
+    }
+
+    @Test
+    public void testCollectFallbackSpillsToLocalQueue() throws Exception {
+        // 断路器打开：直接走降级方法
+        CircuitBreaker cb = mock(CircuitBreaker.class);
+        when(circuitBreakerFactory.create(anyString())).thenReturn(cb);
+        when(cb.run(any(), any())).thenAnswer(invocation -> {
+            Function<Throwable, Object> fallback = invocation.getArgument(1);
+            return fallback.apply(new IllegalStateException("CircuitBreaker 'kafkaSender' is OPEN"));
+        });
+        when(spillQueue.spill(anyString(), any())).thenReturn(true);
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("sessionId", "s1");
+
+        mockMvc.perform(post("/api/data/collect")
+                .contentType(java.util.Objects.requireNonNull(MediaType.APPLICATION_JSON))
+                .content(java.util.Objects.requireNonNull(objectMapper.writeValueAsString(payload))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+
+        verify(spillQueue).spill(eq("frontend_event_stream"), eq(payload));
+    }
+
+    @Test
+    public void testCollectBatch() throws Exception {
+        CollectBatchResponse response = CollectBatchResponse.builder()
+                .accepted(1).rejected(1)
+                .results(List.of(new CollectBatchResponse.EventResult(0, true, null),
+                        new CollectBatchResponse.EventResult(1, false, CollectBatchResponse.REASON_UNSUPPORTED_TYPE)))
+                .build();
+        when(collectBatchService.collect(any(InputStream.class), eq("gzip"), eq("1001"))).thenReturn(response);
+
+        mockMvc.perform(post("/api/data/collect/batch")
+                .header("Content-Encoding", "gzip")
+                .requestAttr("userId", "1001")
+                .contentType(java.util.Objects.requireNonNull(MediaType.APPLICATION_JSON))
+                .content(new byte[] { 0x1f, (byte) 0x8b }))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.accepted").value(1))
+                .andExpect(jsonPath("$.data.results[1].reason").value("UNSUPPORTED_TYPE"));
+    }
 }
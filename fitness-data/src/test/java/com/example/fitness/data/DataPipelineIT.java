@@ -3,7 +3,6 @@ package com.example.fitness.data;
 import com.example.fitness.api.dto.ScoringResultEvent;
 import com.example.fitness.data.mapper.UserStatsMapper;
 import com.example.fitness.data.model.entity.UserStats;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -75,9 +74,6 @@ class DataPipelineIT {
     @Autowired
     private UserStatsMapper userStatsMapper;
 
-    @Autowired
-    private ObjectMapper objectMapper;
-
     @Test
     @DisplayName("完整数据链路：发送评分事件 -> 更新用户积分")
     void shouldProcessScoringEventAndUpdateDb() throws Exception {
@@ -99,9 +95,9 @@ class DataPipelineIT {
                 .timestamp(java.time.LocalDateTime.now())
                 .build();
 
-        // 2. 发送 Kafka 消息 (序列化为 JSON 字符串)
-        String jsonMessage = objectMapper.writeValueAsString(event);
-        kafkaTemplate.send("frontend_event_stream", jsonMessage);
+        // 2. 发送 Kafka 消息（与 AI 服务相同，发送事件对象，由序列化器写入编码记录头；
+        // 原始 JSON 字符串不被视为评分事件）
+        kafkaTemplate.send("frontend_event_stream", event.getMoveId(), event);
 
         // 3. 等待并验证数据库更新 (最多等待 10 秒)
         // 预期分数 = 初始分数 + 新增分数
@@ -1,20 +1,40 @@
 package com.example.fitness.data;
 
+import com.example.fitness.api.dto.FeedItemDTO;
+import com.example.fitness.api.dto.FeedPage;
+import com.example.fitness.api.dto.LeaderboardEntry;
+import com.example.fitness.api.dto.TrainingStatsDTO;
 import com.example.fitness.data.controller.SocialController;
+import com.example.fitness.data.model.LeaderboardPeriod;
+import com.example.fitness.data.service.FeedService;
+import com.example.fitness.data.service.LeaderboardService;
+import com.example.fitness.data.service.TrainingStatsService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
  * 社交控制器单元测试
- * 测试用户统计、排行榜和动态广场接口
+ * 测试用户统计、排行榜、动态广场和关注接口
  */
 @WebMvcTest(SocialController.class)
 @DisplayName("社交控制器测试")
@@ -24,17 +44,36 @@ class SocialControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @MockitoBean
+    private LeaderboardService leaderboardService;
+
+    @MockitoBean
+    private FeedService feedService;
+
+    @MockitoBean
+    private TrainingStatsService trainingStatsService;
+
     @Nested
     @DisplayName("用户训练统计测试")
     class UserStatsTests {
 
         @Test
-        @DisplayName("获取用户统计 - 应返回完整统计数据")
+        @DisplayName("获取用户统计 - 应返回登录用户的完整统计数据")
         void getUserStats_ReturnsCompleteStats() throws Exception {
-            mockMvc.perform(get("/api/user/stats"))
+            when(trainingStatsService.getStats(1001L)).thenReturn(TrainingStatsDTO.builder()
+                    .weeklyDuration(120)
+                    .monthlyDuration(480)
+                    .totalCalories(1500)
+                    .completionRate(85)
+                    .history(List.of(new TrainingStatsDTO.DailyStats(LocalDate.of(2024, 1, 20), 30, 200, 50, 1)))
+                    .asOf(LocalDate.of(2024, 1, 20))
+                    .build());
+
+            mockMvc.perform(get("/api/user/stats").requestAttr("userId", "1001"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.success").value(true))
                     .andExpect(jsonPath("$.data.weeklyDuration").value(120))
+                    .andExpect(jsonPath("$.data.monthlyDuration").value(480))
                     .andExpect(jsonPath("$.data.totalCalories").value(1500))
                     .andExpect(jsonPath("$.data.completionRate").value(85))
                     .andExpect(jsonPath("$.data.history").isArray())
@@ -50,6 +89,10 @@ class SocialControllerTest {
         @Test
         @DisplayName("获取周排行榜 - 默认类型")
         void getLeaderboard_DefaultWeekly() throws Exception {
+            when(leaderboardService.top(LeaderboardPeriod.WEEKLY, 20)).thenReturn(List.of(
+                    new LeaderboardEntry(1L, 1001L, "训练营课代表", "https://example.com/avatar1.jpg", 12500L),
+                    new LeaderboardEntry(2L, 1002L, "周六坚持健身", "https://example.com/avatar2.jpg", 11800L)));
+
             mockMvc.perform(get("/api/social/leaderboard"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.success").value(true))
@@ -64,6 +107,8 @@ class SocialControllerTest {
         @Test
         @DisplayName("获取日排行榜 - type=daily")
         void getLeaderboard_DailyType() throws Exception {
+            when(leaderboardService.top(eq(LeaderboardPeriod.DAILY), anyInt())).thenReturn(List.of());
+
             mockMvc.perform(get("/api/social/leaderboard")
                     .param("type", "daily"))
                     .andExpect(status().isOk())
@@ -74,12 +119,43 @@ class SocialControllerTest {
         @Test
         @DisplayName("获取月排行榜 - type=monthly")
         void getLeaderboard_MonthlyType() throws Exception {
+            when(leaderboardService.top(eq(LeaderboardPeriod.MONTHLY), anyInt())).thenReturn(List.of());
+
             mockMvc.perform(get("/api/social/leaderboard")
                     .param("type", "monthly"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.success").value(true))
                     .andExpect(jsonPath("$.data").isArray());
         }
+
+        @Test
+        @DisplayName("limit 超出范围时截断到 1 ~ 100")
+        void getLeaderboard_ClampsLimit() throws Exception {
+            when(leaderboardService.top(any(), anyInt())).thenReturn(List.of());
+
+            mockMvc.perform(get("/api/social/leaderboard").param("limit", "1000"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/social/leaderboard").param("limit", "0"))
+                    .andExpect(status().isOk());
+
+            verify(leaderboardService).top(LeaderboardPeriod.WEEKLY, 100);
+            verify(leaderboardService).top(LeaderboardPeriod.WEEKLY, 1);
+        }
+
+        @Test
+        @DisplayName("获取我的排名 - 使用登录用户 ID")
+        void getMyRank_UsesLoginUser() throws Exception {
+            when(leaderboardService.rank(LeaderboardPeriod.DAILY, 1001L))
+                    .thenReturn(LeaderboardEntry.builder().rank(3L).userId(1001L).score(900L).build());
+
+            mockMvc.perform(get("/api/social/leaderboard/me")
+                    .param("type", "daily")
+                    .requestAttr("userId", "1001"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success").value(true))
+                    .andExpect(jsonPath("$.data.rank").value(3))
+                    .andExpect(jsonPath("$.data.score").value(900));
+        }
     }
 
     @Nested
@@ -87,16 +163,48 @@ class SocialControllerTest {
     class SocialFeedTests {
 
         @Test
-        @DisplayName("获取动态列表 - 应返回用户动态")
+        @DisplayName("获取动态列表 - 应返回用户动态与下一页游标")
         void getSocialFeed_ReturnsFeedEntries() throws Exception {
-            mockMvc.perform(get("/api/social/feed"))
+            when(feedService.feed(1001L, null, 20)).thenReturn(FeedPage.builder()
+                    .items(List.of(FeedItemDTO.builder().id(42L).userId(1002L).nickname("Jack")
+                            .content("完成了 HIIT 训练").build()))
+                    .nextCursor("42")
+                    .build());
+
+            mockMvc.perform(get("/api/social/feed").requestAttr("userId", "1001"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.success").value(true))
-                    .andExpect(jsonPath("$.data").isArray())
-                    .andExpect(jsonPath("$.data[0].id").value("f_1"))
-                    .andExpect(jsonPath("$.data[0].user").value("Jack"))
-                    .andExpect(jsonPath("$.data[0].content").value("完成了 HIIT 训练"))
-                    .andExpect(jsonPath("$.data[0].time").value("5分钟前"));
+                    .andExpect(jsonPath("$.data.items").isArray())
+                    .andExpect(jsonPath("$.data.items[0].id").value(42))
+                    .andExpect(jsonPath("$.data.items[0].nickname").value("Jack"))
+                    .andExpect(jsonPath("$.data.items[0].content").value("完成了 HIIT 训练"))
+                    .andExpect(jsonPath("$.data.nextCursor").value("42"));
+        }
+
+        @Test
+        @DisplayName("翻页 - 透传游标并截断 limit")
+        void getSocialFeed_PassesCursor() throws Exception {
+            when(feedService.feed(anyLong(), any(), anyInt()))
+                    .thenReturn(FeedPage.builder().items(List.of()).build());
+
+            mockMvc.perform(get("/api/social/feed").param("cursor", "42").param("limit", "500")
+                    .requestAttr("userId", "1001"))
+                    .andExpect(status().isOk());
+
+            verify(feedService).feed(1001L, "42", 50);
+        }
+
+        @Test
+        @DisplayName("关注与取消关注")
+        void followAndUnfollow() throws Exception {
+            mockMvc.perform(post("/api/social/follow/1002").requestAttr("userId", "1001"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success").value(true));
+            mockMvc.perform(delete("/api/social/follow/1002").requestAttr("userId", "1001"))
+                    .andExpect(status().isOk());
+
+            verify(feedService).follow(1001L, 1002L);
+            verify(feedService).unfollow(1001L, 1002L);
         }
     }
 }
@@ -1,8 +1,12 @@
 package com.example.fitness.data.consumer;
 
+import com.example.fitness.api.dto.ScoringResultEvent;
+import com.example.fitness.data.mapper.ConsumerOffsetMapper;
 import com.example.fitness.data.mapper.UserStatsMapper;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.fitness.data.service.LeaderboardService;
+import com.example.fitness.data.sink.ActionScoreSink;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -12,7 +16,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -23,9 +33,12 @@ import static org.mockito.Mockito.*;
  * 覆盖以下场景:
  * </p>
  * <ul>
- * <li>非评分事件安全忽略</li>
+ * <li>非评分事件与客户端伪造的评分 JSON 安全忽略（均经批量入口 {@code consumeBatch}）</li>
  * <li>边界值处理 (unknown userId, null score)</li>
  * <li>异常处理</li>
+ * <li>批量消费时按 userId 合并积分增量</li>
+ * <li>按 offset 水位线和事件 ID 去重（重复投递不重复计分）</li>
+ * <li>事务提交后才把评分事件交给分析库写入阶段</li>
  * </ul>
  * 
  * @since JDK 21
@@ -38,14 +51,27 @@ class DataCollectionConsumerTest {
     @Mock
     private UserStatsMapper userStatsMapper;
 
-    private ObjectMapper objectMapper;
+    @Mock
+    private ConsumerOffsetMapper consumerOffsetMapper;
+
+    @Mock
+    private ActionScoreSink actionScoreSink;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    private SimpleMeterRegistry meterRegistry;
     private DataCollectionConsumer consumer;
 
     @BeforeEach
     void setUp() {
-        objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        consumer = new DataCollectionConsumer(userStatsMapper, objectMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new DataCollectionConsumer(userStatsMapper, consumerOffsetMapper, meterRegistry,
+                TransactionOperations.withoutTransaction(), actionScoreSink, leaderboardService, 1000);
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, Object value) {
+        return new ConsumerRecord<>("frontend_event_stream", 0, offset, "m_squat", value);
     }
 
     @Nested
@@ -53,71 +79,84 @@ class DataCollectionConsumerTest {
     class EdgeCasesAndExceptionHandling {
 
         @Test
-        @DisplayName("consume - userId 为 'unknown' 不调用 Mapper")
-        void consume_UnknownUserId_SkipsUpdate() {
-            // 包含 "score" 关键词但 userId 为 unknown
-            String json = "{\"userId\":\"unknown\",\"score\":50,\"moveId\":\"m_squat\"}";
-            consumer.consume(json);
+        @DisplayName("consumeBatch - userId 为 'unknown' 不调用 Mapper")
+        void consumeBatch_UnknownUserId_SkipsUpdate() {
+            ScoringResultEvent event = ScoringResultEvent.builder().userId("unknown").moveId("m_squat").score(50)
+                    .build();
+            consumer.consumeBatch(List.of(record(0, event)));
 
-            verify(userStatsMapper, never()).incrementScore(anyLong(), anyInt());
+            verifyNoInteractions(userStatsMapper);
         }
 
         @Test
-        @DisplayName("consume - 非评分事件消息安全忽略 (不含 score 字段)")
-        void consume_NonScoringEvent_IgnoresSafely() {
+        @DisplayName("consumeBatch - 非评分事件消息安全忽略 (不含 score 字段)")
+        void consumeBatch_NonScoringEvent_IgnoresSafely() {
             String nonScoringJson = "{\"eventType\":\"login\",\"userId\":\"123\"}";
 
-            consumer.consume(nonScoringJson);
+            consumer.consumeBatch(List.of(record(0, nonScoringJson)));
 
-            verify(userStatsMapper, never()).incrementScore(anyLong(), anyInt());
+            verifyNoInteractions(userStatsMapper);
         }
 
         @Test
-        @DisplayName("consume - 无效 JSON 不抛出异常")
-        void consume_InvalidJson_HandlesGracefully() {
+        @DisplayName("consumeBatch - 无效 JSON 不抛出异常")
+        void consumeBatch_InvalidJson_HandlesGracefully() {
             String invalidJson = "{ this is not valid json }";
 
             // 不应抛出异常
-            consumer.consume(invalidJson);
+            consumer.consumeBatch(List.of(record(0, invalidJson)));
 
-            verify(userStatsMapper, never()).incrementScore(anyLong(), anyInt());
+            verifyNoInteractions(userStatsMapper);
+            verify(consumerOffsetMapper).upsertWatermark(DataCollectionConsumer.GROUP_ID, "frontend_event_stream", 0, 0L);
         }
 
         @Test
-        @DisplayName("consume - 空字符串消息安全处理")
-        void consume_EmptyString_HandlesGracefully() {
-            consumer.consume("");
+        @DisplayName("consumeBatch - 空字符串消息安全处理")
+        void consumeBatch_EmptyString_HandlesGracefully() {
+            consumer.consumeBatch(List.of(record(0, "")));
 
-            verify(userStatsMapper, never()).incrementScore(anyLong(), anyInt());
+            verifyNoInteractions(userStatsMapper);
         }
 
         @Test
-        @DisplayName("consume - 包含 score 关键词但格式不符的 JSON")
-        void consume_MalformedScoreJson_HandlesGracefully() {
+        @DisplayName("consumeBatch - 包含 score 关键词但格式不符的 JSON")
+        void consumeBatch_MalformedScoreJson_HandlesGracefully() {
             // 包含 "score" 但不是有效的 ScoringResultEvent 格式
             String json = "{\"some_score\":\"text\",\"data\":123}";
 
-            consumer.consume(json);
+            consumer.consumeBatch(List.of(record(0, json)));
 
-            verify(userStatsMapper, never()).incrementScore(anyLong(), anyInt());
+            verifyNoInteractions(userStatsMapper);
         }
 
         @Test
-        @DisplayName("consume - 字符串类型消息处理")
-        void consume_StringMessage_ProcessedAsString() {
-            // 消息是一个字符串，不包含 score
-            consumer.consume("simple text message");
+        @DisplayName("consumeBatch - 客户端伪造的评分 JSON 不计分")
+        void consumeBatch_ForgedScoreJson_Ignored() {
+            // 形如评分事件的 JSON 字符串 / Map 不是 AI 服务发布的 ScoringResultEvent，一律不计分
+            String json = "{\"userId\":\"1001\",\"score\":999999,\"moveId\":\"m_squat\"}";
+            Map<String, Object> map = Map.of("userId", "1001", "score", 999999, "moveId", "m_squat");
 
-            verify(userStatsMapper, never()).incrementScore(anyLong(), anyInt());
+            consumer.consumeBatch(List.of(record(0, json), record(1, map)));
+
+            verifyNoInteractions(userStatsMapper, leaderboardService, actionScoreSink);
+            verify(consumerOffsetMapper).upsertWatermark(DataCollectionConsumer.GROUP_ID, "frontend_event_stream", 0, 1L);
         }
 
         @Test
-        @DisplayName("consume - null userId 不调用 Mapper")
-        void consume_NullUserId_SkipsUpdate() {
-            String json = "{\"userId\":null,\"score\":50,\"moveId\":\"m_squat\"}";
-            consumer.consume(json);
+        @DisplayName("consumeBatch - null userId 不调用 Mapper")
+        void consumeBatch_NullUserId_SkipsUpdate() {
+            ScoringResultEvent event = ScoringResultEvent.builder().moveId("m_squat").score(50).build();
+            consumer.consumeBatch(List.of(record(0, event)));
 
-            verify(userStatsMapper, never()).incrementScore(anyLong(), anyInt());
+            verifyNoInteractions(userStatsMapper);
+        }
+
+        @Test
+        @DisplayName("consumeBatch - 空批次直接返回")
+        void consumeBatch_EmptyBatch_NoOp() {
+            consumer.consumeBatch(List.of());
+
+            verifyNoInteractions(userStatsMapper, consumerOffsetMapper, leaderboardService);
         }
     }
 
@@ -126,26 +165,187 @@ class DataCollectionConsumerTest {
     class ObjectMessageTests {
 
         @Test
-        @DisplayName("consume - 非字符串对象消息被序列化处理")
-        void consume_NonStringObject_SerializesToJson() {
+        @DisplayName("consumeBatch - 非评分对象消息安全忽略")
+        void consumeBatch_NonScoringObject_IgnoresSafely() {
             // 创建一个简单的 Map 来模拟对象类型消息
-            java.util.Map<String, Object> message = new java.util.HashMap<>();
+            Map<String, Object> message = new java.util.HashMap<>();
             message.put("eventType", "click");
             message.put("element", "button");
 
-            // 不包含 score 关键词，不会触发处理
-            consumer.consume(message);
+            // 不是 ScoringResultEvent，不会触发处理
+            consumer.consumeBatch(List.of(record(0, message)));
 
-            verify(userStatsMapper, never()).incrementScore(anyLong(), anyInt());
+            verifyNoInteractions(userStatsMapper);
+        }
+
+        @Test
+        @DisplayName("consumeBatch - 已解码的 ScoringResultEvent 直接处理")
+        void consumeBatch_DecodedScoringEvent_UpdatesScore() {
+            ScoringResultEvent event = ScoringResultEvent.builder()
+                    .userId("1001")
+                    .moveId("m_squat")
+                    .score(88)
+                    .build();
+
+            consumer.consumeBatch(List.of(record(0, event)));
+
+            verify(userStatsMapper).incrementScores(Map.of(1001L, 88));
+        }
+
+        @Test
+        @DisplayName("consumeBatch - null 消息值安全处理")
+        void consumeBatch_NullValue_HandlesGracefully() {
+            // 墓碑消息：值为 null
+            consumer.consumeBatch(List.of(record(0, null)));
+
+            verifyNoInteractions(userStatsMapper);
+        }
+    }
+
+    @Nested
+    @DisplayName("批量消费测试")
+    class BatchConsumeTests {
+
+        private ScoringResultEvent event(String userId, Integer score) {
+            return ScoringResultEvent.builder().userId(userId).moveId("m_squat").score(score).build();
         }
 
         @Test
-        @DisplayName("consume - null 消息安全处理")
-        void consume_NullMessage_HandlesGracefully() {
-            // ObjectMapper.writeValueAsString(null) 返回 "null" 字符串
-            consumer.consume(null);
+        @DisplayName("consumeBatch - 同一用户的分数合并为一次写库")
+        void consumeBatch_CoalescesIncrementsPerUser() {
+            when(userStatsMapper.incrementScores(anyMap())).thenReturn(2);
+
+            consumer.consumeBatch(List.of(
+                    record(0, event("1001", 80)),
+                    record(1, event("1002", 70)),
+                    record(2, event("1001", 90)),
+                    record(3, Map.of("eventType", "click")),
+                    record(4, event("unknown", 60)),
+                    record(5, event("1002", null))));
 
+            verify(userStatsMapper, times(1)).incrementScores(Map.of(1001L, 170, 1002L, 70));
             verify(userStatsMapper, never()).incrementScore(anyLong(), anyInt());
+            verify(consumerOffsetMapper).upsertWatermark(DataCollectionConsumer.GROUP_ID, "frontend_event_stream", 0, 5L);
+            assertEquals(6, meterRegistry.get("data.consumer.records").counter().count());
+            assertEquals(1, meterRegistry.get("data.consumer.batch.size").summary().count());
+            assertEquals(1, meterRegistry.get("data.consumer.batch.latency").timer().count());
+        }
+
+        @Test
+        @DisplayName("consumeBatch - 没有评分事件时不写库")
+        void consumeBatch_NoScoringEvents_SkipsWrite() {
+            consumer.consumeBatch(List.of(record(0, "simple text message"), record(1, "{ invalid json }")));
+
+            verifyNoInteractions(userStatsMapper);
+            assertEquals(2, meterRegistry.get("data.consumer.records").counter().count());
+        }
+
+        @Test
+        @DisplayName("consumeBatch - 写库失败时异常上抛，offset 不提交")
+        void consumeBatch_WriteFailure_Propagates() {
+            when(userStatsMapper.incrementScores(anyMap())).thenThrow(new RuntimeException("db down"));
+
+            assertThrows(RuntimeException.class,
+                    () -> consumer.consumeBatch(List.of(record(0, event("1001", 80)))));
+            assertEquals(0, meterRegistry.get("data.consumer.records").counter().count());
+        }
+    }
+
+    @Nested
+    @DisplayName("幂等去重测试")
+    class DeduplicationTests {
+
+        private static final String TOPIC = "frontend_event_stream";
+
+        private ConsumerRecord<String, Object> record(int partition, long offset, Object value) {
+            return new ConsumerRecord<>(TOPIC, partition, offset, "m_squat", value);
+        }
+
+        private ScoringResultEvent event(String eventId, String userId, int score) {
+            return ScoringResultEvent.builder().eventId(eventId).userId(userId).moveId("m_squat").score(score).build();
+        }
+
+        @Test
+        @DisplayName("consumeBatch - 不大于水位线的 offset 视为重复投递并跳过")
+        void consumeBatch_RedeliveredOffsets_Skipped() {
+            when(consumerOffsetMapper.selectWatermarkForUpdate(DataCollectionConsumer.GROUP_ID, TOPIC, 0))
+                    .thenReturn(1L);
+
+            consumer.consumeBatch(List.of(
+                    record(0, 0, event("e0", "1001", 10)),
+                    record(0, 1, event("e1", "1001", 20)),
+                    record(0, 2, event("e2", "1001", 30))));
+
+            verify(userStatsMapper).incrementScores(Map.of(1001L, 30));
+            verify(consumerOffsetMapper).upsertWatermark(DataCollectionConsumer.GROUP_ID, TOPIC, 0, 2L);
+            verify(actionScoreSink, times(1)).offer(any());
+            assertEquals(2, meterRegistry.get("data.consumer.duplicates").tag("reason", "offset").counter().count());
+        }
+
+        @Test
+        @DisplayName("consumeBatch - 整批已计入时不写积分、不回退水位线")
+        void consumeBatch_FullyReplayedBatch_NoOp() {
+            when(consumerOffsetMapper.selectWatermarkForUpdate(DataCollectionConsumer.GROUP_ID, TOPIC, 0))
+                    .thenReturn(10L);
+
+            consumer.consumeBatch(List.of(record(0, 9, event("e9", "1001", 10)), record(0, 10, event("e10", "1001", 10))));
+
+            verifyNoInteractions(userStatsMapper);
+            verify(consumerOffsetMapper, never()).upsertWatermark(anyString(), anyString(), anyInt(), anyLong());
+        }
+
+        @Test
+        @DisplayName("consumeBatch - 每个分区独立推进水位线")
+        void consumeBatch_MultiplePartitions_AdvancesEachWatermark() {
+            consumer.consumeBatch(List.of(
+                    record(1, 7, event("a", "1001", 10)),
+                    record(0, 3, event("b", "1002", 20)),
+                    record(1, 8, event("c", "1001", 5))));
+
+            verify(userStatsMapper).incrementScores(Map.of(1001L, 15, 1002L, 20));
+            verify(consumerOffsetMapper).upsertWatermark(DataCollectionConsumer.GROUP_ID, TOPIC, 0, 3L);
+            verify(consumerOffsetMapper).upsertWatermark(DataCollectionConsumer.GROUP_ID, TOPIC, 1, 8L);
+        }
+
+        @Test
+        @DisplayName("consumeBatch - 生产端重发的同一事件只计一次")
+        void consumeBatch_DuplicateEventId_CountedOnce() {
+            consumer.consumeBatch(List.of(record(0, 0, event("dup", "1001", 50)), record(0, 1, event("dup", "1001", 50))));
+            consumer.consumeBatch(List.of(record(0, 2, event("dup", "1001", 50))));
+
+            verify(userStatsMapper, times(1)).incrementScores(anyMap());
+            verify(userStatsMapper).incrementScores(Map.of(1001L, 50));
+            assertEquals(2, meterRegistry.get("data.consumer.duplicates").tag("reason", "event_id").counter().count());
+        }
+
+        @Test
+        @DisplayName("consumeBatch - 写库失败回滚后重新投递仍会计分")
+        void consumeBatch_RetryAfterRollback_Applies() {
+            when(userStatsMapper.incrementScores(anyMap()))
+                    .thenThrow(new RuntimeException("db down"))
+                    .thenReturn(1);
+            List<ConsumerRecord<?, ?>> batch = List.of(record(0, 0, event("e0", "1001", 40)));
+
+            assertThrows(RuntimeException.class, () -> consumer.consumeBatch(batch));
+            verify(actionScoreSink, never()).offer(any());
+            verifyNoInteractions(leaderboardService);
+            consumer.consumeBatch(batch);
+
+            verify(userStatsMapper, times(2)).incrementScores(Map.of(1001L, 40));
+            verify(actionScoreSink, times(1)).offer(argThat(e -> "e0".equals(e.getEventId())));
+            verify(leaderboardService, times(1)).record(argThat(events -> events.size() == 1));
+        }
+
+        @Test
+        @DisplayName("consumeBatch - 提交后把本批计入的事件一次交给排行榜，重复事件不计入")
+        void consumeBatch_RecordsAppliedEventsToLeaderboard() {
+            consumer.consumeBatch(List.of(
+                    record(0, 0, event("a", "1001", 10)),
+                    record(0, 1, event("a", "1001", 10)),
+                    record(0, 2, event("b", "1002", 20))));
+
+            verify(leaderboardService, times(1)).record(argThat(events -> events.size() == 2
+                    && "a".equals(events.get(0).getEventId()) && "b".equals(events.get(1).getEventId())));
         }
     }
 }
@@ -0,0 +1,122 @@
+package com.example.fitness.data.consumer;
+
+import com.example.fitness.data.model.entity.FeedItem;
+import com.example.fitness.data.service.FeedService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * FeedEventConsumer 训练完成事件消费者单元测试
+ *
+ * <p>
+ * 覆盖以下场景:
+ * </p>
+ * <ul>
+ * <li>一批消息中的训练记录合并为一次发布</li>
+ * <li>缺少用户或 workoutId 的事件被跳过并计数</li>
+ * <li>超出列宽或时间戳越界的事件不拖垮整批</li>
+ * </ul>
+ *
+ * @since JDK 21
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("FeedEventConsumer 单元测试")
+class FeedEventConsumerTest {
+
+    private static final String TOPIC = "frontend_event.workout_complete";
+
+    @Mock
+    private FeedService feedService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FeedEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new FeedEventConsumer(feedService, new ObjectMapper(), meterRegistry);
+    }
+
+    private static ConsumerRecord<?, ?> record(long offset, Object value) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, "s_1", value);
+    }
+
+    @Test
+    @DisplayName("一批消息中的训练记录合并为一次发布，userId 取自消息")
+    @SuppressWarnings("unchecked")
+    void publishesWorkoutsOfBatch() {
+        long timestamp = System.currentTimeMillis() - 60_000L;
+        consumer.consumeBatch(List.of(
+                record(0, Map.of("sessionId", "s_1", "type", "workout_complete", "userId", "1001",
+                        "items", List.of(Map.of("workoutId", "w_1", "sessionName", "HIIT", "duration", 600,
+                                "timestamp", timestamp)))),
+                record(1, "{\"userId\": \"1002\", \"items\": [{\"workoutId\": \"w_2\", \"calories\": 120}]}")));
+
+        ArgumentCaptor<List<FeedItem>> items = ArgumentCaptor.forClass(List.class);
+        verify(feedService).publish(items.capture());
+        assertThat(items.getValue()).extracting(FeedItem::getUserId).containsExactly(1001L, 1002L);
+        assertThat(items.getValue().get(0).getSessionName()).isEqualTo("HIIT");
+        assertThat(items.getValue().get(0).getDuration()).isEqualTo(600);
+        assertThat(items.getValue().get(1).getCalories()).isEqualTo(120);
+        assertThat(items.getValue().get(1).getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("缺少登录用户或 workoutId 的事件跳过并计数")
+    void skipsInvalidEvents() {
+        consumer.consumeBatch(List.of(
+                record(0, Map.of("items", List.of(Map.of("workoutId", "w_1")))),
+                record(1, Map.of("userId", "1001", "items", List.of(Map.of("sessionName", "HIIT")))),
+                record(2, "not-json")));
+
+        verify(feedService, never()).publish(any());
+        assertThat(meterRegistry.get("data.feed.events.invalid").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("超长 workoutId 与越界时间戳计为非法，超长 sessionName 截断，其余事件照常发布")
+    @SuppressWarnings("unchecked")
+    void oversizedFieldsDoNotFailBatch() {
+        long now = System.currentTimeMillis();
+        consumer.consumeBatch(List.of(
+                record(0, Map.of("userId", "1001", "items", List.of(
+                        Map.of("workoutId", "w".repeat(FeedEventConsumer.MAX_WORKOUT_ID_LENGTH + 1)),
+                        Map.of("workoutId", "w_future", "timestamp", now + 3600_000L),
+                        Map.of("workoutId", "w_ancient", "timestamp", Long.MAX_VALUE),
+                        Map.of("workoutId", "w_ok", "sessionName", "课".repeat(500), "duration", 1L << 40)))),
+                record(1, Map.of("userId", "1002", "items", List.of(Map.of("workoutId", "w_2"))))));
+
+        ArgumentCaptor<List<FeedItem>> items = ArgumentCaptor.forClass(List.class);
+        verify(feedService).publish(items.capture());
+        assertThat(items.getValue()).extracting(FeedItem::getWorkoutId).containsExactly("w_ok", "w_2");
+        assertThat(items.getValue().get(0).getSessionName()).hasSize(FeedEventConsumer.MAX_SESSION_NAME_LENGTH);
+        assertThat(items.getValue().get(0).getDuration()).isNull();
+        assertThat(meterRegistry.get("data.feed.events.invalid").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("截断不拆开代理对")
+    void truncateKeepsSurrogatePairs() {
+        assertThat(FeedEventConsumer.truncate("ab😀", 3)).isEqualTo("ab");
+        assertThat(FeedEventConsumer.truncate("abc", 3)).isEqualTo("abc");
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.fitness.data.consumer;
+
+import com.example.fitness.api.dto.ScoringResultEvent;
+import com.example.fitness.api.serializer.ScoringEventBinaryCodec;
+import com.example.fitness.api.serializer.ScoringEventDeserializer;
+import com.example.fitness.api.serializer.ScoringEventSerializer;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 评分事件 Kafka 序列化器/反序列化器单元测试
+ *
+ * <p>
+ * 覆盖二进制编解码往返、记录头协商、无记录头时回退 JSON 以及按配置切回 JSON。
+ * </p>
+ *
+ * @since JDK 21
+ */
+@DisplayName("ScoringEvent 序列化单元测试")
+class ScoringEventSerdeTest {
+
+    private static final String TOPIC = "frontend_event_stream";
+
+    private ScoringEventSerializer serializer;
+    private ScoringEventDeserializer deserializer;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new ScoringEventSerializer();
+        serializer.configure(Map.of(), false);
+        deserializer = new ScoringEventDeserializer();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    private static ScoringResultEvent event() {
+        Map<String, Object> extraData = new LinkedHashMap<>();
+        extraData.put("duration", 5);
+        extraData.put("frames", 1_234_567_890_123L);
+        extraData.put("similarity", 0.875);
+        extraData.put("pro", true);
+        extraData.put("device", "iPhone 15");
+        extraData.put("note", null);
+        return ScoringResultEvent.builder()
+                .eventId("6f1c2a9e-0d4b-4a55-9c1e-5b7f3e2d8a10")
+                .userId("10086")
+                .moveId("m_squat")
+                .score(95)
+                .timestamp(LocalDateTime.of(2026, 3, 1, 8, 30, 15, 123_000_000))
+                .extraData(extraData)
+                .build();
+    }
+
+    @Test
+    @DisplayName("codec - 编码后解码得到相同事件")
+    void codec_RoundTrip_PreservesAllFields() {
+        ScoringResultEvent event = event();
+
+        Assertions.assertEquals(event, ScoringEventBinaryCodec.decode(ScoringEventBinaryCodec.encode(event)));
+
+        ScoringResultEvent empty = new ScoringResultEvent();
+        Assertions.assertEquals(empty, ScoringEventBinaryCodec.decode(ScoringEventBinaryCodec.encode(empty)));
+    }
+
+    @Test
+    @DisplayName("codec - 版本 1（无 eventId）的数据仍可解码")
+    void codec_Version1_StillDecodable() {
+        ScoringResultEvent event = event();
+        event.setEventId(null);
+        byte[] bytes = ScoringEventBinaryCodec.encode(event);
+        bytes[0] = 1;
+
+        Assertions.assertEquals(event, ScoringEventBinaryCodec.decode(bytes));
+
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(ScoringEventBinaryCodec.ENCODING_HEADER, "scoring-event-v1".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(event, deserializer.deserialize(TOPIC, headers, bytes));
+    }
+
+    @Test
+    @DisplayName("codec - 截断或版本未知的数据抛出异常")
+    void codec_CorruptData_Rejected() {
+        byte[] bytes = ScoringEventBinaryCodec.encode(event());
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ScoringEventBinaryCodec.decode(truncated));
+
+        bytes[0] = 99;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ScoringEventBinaryCodec.decode(bytes));
+    }
+
+    @Test
+    @DisplayName("serializer - 评分事件使用二进制编码并写入记录头")
+    void serialize_ScoringEvent_BinaryWithHeader() {
+        RecordHeaders headers = new RecordHeaders();
+        byte[] binary = serializer.serialize(TOPIC, headers, event());
+
+        Assertions.assertEquals(ScoringEventBinaryCodec.ENCODING,
+                new String(headers.lastHeader(ScoringEventBinaryCodec.ENCODING_HEADER).value(),
+                        StandardCharsets.UTF_8));
+        byte[] json = serializer.serialize(TOPIC, event());
+        Assertions.assertTrue(binary.length * 2 < json.length,
+                "二进制编码应明显小于 JSON: " + binary.length + " vs " + json.length);
+
+        Assertions.assertEquals(event(), deserializer.deserialize(TOPIC, headers, binary));
+    }
+
+    @Test
+    @DisplayName("deserializer - 无编码记录头的 JSON 消息仍可消费")
+    void deserialize_WithoutEncodingHeader_FallsBackToJson() {
+        RecordHeaders headers = new RecordHeaders();
+        byte[] json = serializer.serialize(TOPIC, headers, Map.of("eventType", "click", "userId", "1001"));
+
+        Assertions.assertNull(headers.lastHeader(ScoringEventBinaryCodec.ENCODING_HEADER));
+        Object value = deserializer.deserialize(TOPIC, headers, json);
+
+        Assertions.assertInstanceOf(Map.class, value);
+        Assertions.assertEquals("click", ((Map<?, ?>) value).get("eventType"));
+    }
+
+    @Test
+    @DisplayName("serializer - 配置为 json 时评分事件按 JSON 发送")
+    void serialize_JsonEncodingConfigured_NoHeader() {
+        serializer.configure(Map.of(ScoringEventSerializer.ENCODING_CONFIG, "json"), false);
+        RecordHeaders headers = new RecordHeaders();
+
+        byte[] data = serializer.serialize(TOPIC, headers, event());
+
+        Assertions.assertNull(headers.lastHeader(ScoringEventBinaryCodec.ENCODING_HEADER));
+        Assertions.assertTrue(new String(data, StandardCharsets.UTF_8).contains("\"moveId\":\"m_squat\""));
+        Assertions.assertEquals(event(), deserializer.deserialize(TOPIC, headers, data));
+    }
+
+    @Test
+    @DisplayName("deserializer - 未知编码抛出 SerializationException")
+    void deserialize_UnknownEncoding_Rejected() {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(ScoringEventBinaryCodec.ENCODING_HEADER, "scoring-event-v9".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertThrows(SerializationException.class,
+                () -> deserializer.deserialize(TOPIC, headers, new byte[] { 9, 0 }));
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.fitness.data.consumer;
+
+import com.example.fitness.data.mapper.ConsumerOffsetMapper;
+import com.example.fitness.data.mapper.UserDailyStatsMapper;
+import com.example.fitness.data.model.entity.UserDailyStats;
+import com.example.fitness.data.service.TrainingStatsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TrainingStatsConsumer 每日训练汇总消费者单元测试
+ *
+ * <p>
+ * 覆盖以下场景:
+ * </p>
+ * <ul>
+ * <li>一批事件按 (用户, 日期) 合并为一次写入，并写穿统计缓存</li>
+ * <li>offset 不大于水位线的消息不重复累加</li>
+ * <li>同一训练以新的 offset 重复投递时只累加一次</li>
+ * <li>缺少用户或 workoutId 的事件被跳过并计数</li>
+ * </ul>
+ *
+ * @since JDK 21
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("TrainingStatsConsumer 单元测试")
+class TrainingStatsConsumerTest {
+
+    private static final String TOPIC = "frontend_event.workout_complete";
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    @Mock
+    private UserDailyStatsMapper userDailyStatsMapper;
+
+    @Mock
+    private ConsumerOffsetMapper consumerOffsetMapper;
+
+    @Mock
+    private TrainingStatsService trainingStatsService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TrainingStatsConsumer consumer;
+
+    /** 模拟 user_daily_stats_workout 的主键 */
+    private final Set<String> countedWorkouts = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        when(userDailyStatsMapper.markWorkoutCounted(anyLong(), anyString(), any()))
+                .thenAnswer(invocation -> countedWorkouts.add(invocation.getArgument(0) + ":"
+                        + invocation.getArgument(1)) ? 1 : 0);
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new TrainingStatsConsumer(userDailyStatsMapper, consumerOffsetMapper, trainingStatsService,
+                TransactionOperations.withoutTransaction(), new ObjectMapper(), meterRegistry, ZONE.getId());
+    }
+
+    private static ConsumerRecord<?, ?> record(long offset, Object value) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, "s_1", value);
+    }
+
+    @Test
+    @DisplayName("同一用户同一天的训练合并为一行，提交后刷新缓存")
+    @SuppressWarnings("unchecked")
+    void mergesIncrementsPerUserAndDay() {
+        long timestamp = System.currentTimeMillis() - 3600_000L;
+        consumer.consumeBatch(List.of(
+                record(0, Map.of("userId", "1001", "items", List.of(
+                        Map.of("workoutId", "w_1", "duration", 600, "calories", 80, "reps", 30, "timestamp", timestamp),
+                        Map.of("workoutId", "w_2", "duration", 300, "timestamp", timestamp)))),
+                record(1, "{\"userId\": \"1002\", \"items\": [{\"workoutId\": \"w_3\", \"calories\": 120}]}")));
+
+        ArgumentCaptor<Collection<UserDailyStats>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(userDailyStatsMapper).upsertIncrements(rows.capture());
+        List<UserDailyStats> written = new ArrayList<>(rows.getValue());
+        assertThat(written).hasSize(2);
+        assertThat(written.get(0)).isEqualTo(new UserDailyStats(1001L,
+                LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), ZONE), 900, 80, 30, 2));
+        assertThat(written.get(1).getUserId()).isEqualTo(1002L);
+        assertThat(written.get(1).getStatDate()).isEqualTo(LocalDate.now(ZONE));
+        verify(consumerOffsetMapper).upsertWatermark(TrainingStatsConsumer.GROUP_ID, TOPIC, 0, 1);
+        verify(trainingStatsService).refresh(Set.of(1001L, 1002L));
+    }
+
+    @Test
+    @DisplayName("offset 不大于水位线的消息跳过，不写库也不刷新缓存")
+    void skipsRedeliveredRecords() {
+        when(consumerOffsetMapper.selectWatermarkForUpdate(TrainingStatsConsumer.GROUP_ID, TOPIC, 0)).thenReturn(5L);
+
+        consumer.consumeBatch(List.of(record(5, Map.of("userId", "1001", "items", List.of(Map.of("duration", 60))))));
+
+        verify(userDailyStatsMapper, never()).upsertIncrements(any());
+        verify(consumerOffsetMapper, never()).upsertWatermark(anyString(), anyString(), anyInt(), anyLong());
+        verify(trainingStatsService, never()).refresh(any());
+    }
+
+    @Test
+    @DisplayName("缺少登录用户、workoutId 或无法解析的事件跳过并计数")
+    void skipsInvalidEvents() {
+        consumer.consumeBatch(List.of(
+                record(0, Map.of("items", List.of(Map.of("workoutId", "w_1", "duration", 60)))),
+                record(1, "not-json"),
+                record(2, Map.of("userId", "1001", "items", List.of(Map.of("duration", 60))))));
+
+        verify(userDailyStatsMapper, never()).upsertIncrements(any());
+        verify(consumerOffsetMapper).upsertWatermark(TrainingStatsConsumer.GROUP_ID, TOPIC, 0, 2);
+        assertThat(meterRegistry.get("data.stats.events.invalid").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("同一训练以新的 offset 再次投递时只累加一次")
+    @SuppressWarnings("unchecked")
+    void countsSameWorkoutOnceAcrossOffsets() {
+        Map<String, Object> message = Map.of("userId", "1001", "items", List.of(
+                Map.of("workoutId", "w_1", "duration", 600, "calories", 80)));
+
+        // 第一次投递，随后确认超时，溢写重放以新的 offset 再投递一次
+        consumer.consumeBatch(List.of(record(0, message)));
+        consumer.consumeBatch(List.of(record(7, message)));
+
+        ArgumentCaptor<Collection<UserDailyStats>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(userDailyStatsMapper, times(1)).upsertIncrements(rows.capture());
+        assertThat(rows.getValue()).singleElement().satisfies(row -> {
+            assertThat(row.getSessions()).isEqualTo(1);
+            assertThat(row.getDuration()).isEqualTo(600);
+        });
+        verify(consumerOffsetMapper).upsertWatermark(TrainingStatsConsumer.GROUP_ID, TOPIC, 0, 7);
+        verify(trainingStatsService, times(1)).refresh(Set.of(1001L));
+        assertThat(meterRegistry.get("data.stats.events.duplicate").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("单个事件的数值截断到上限，同一天累加不超过每日上限")
+    @SuppressWarnings("unchecked")
+    void clampsClientValues() {
+        consumer.consumeBatch(List.of(record(0, Map.of("userId", "1001", "items", List.of(
+                Map.of("workoutId", "w_1", "duration", Integer.MAX_VALUE, "calories", 1e30, "reps", -5),
+                Map.of("workoutId", "w_2", "duration", Long.MAX_VALUE),
+                Map.of("workoutId", "w_3", "duration", Integer.MAX_VALUE),
+                Map.of("workoutId", "w_4", "duration", Integer.MAX_VALUE),
+                Map.of("workoutId", "w_5", "duration", Integer.MAX_VALUE))))));
+
+        ArgumentCaptor<Collection<UserDailyStats>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(userDailyStatsMapper).upsertIncrements(rows.capture());
+        UserDailyStats row = rows.getValue().iterator().next();
+        assertThat(row.getDuration()).isEqualTo(UserDailyStatsMapper.MAX_DAILY_DURATION);
+        assertThat(row.getCalories()).isEqualTo(TrainingStatsConsumer.MAX_EVENT_CALORIES);
+        assertThat(row.getReps()).isZero();
+        assertThat(row.getSessions()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("时间戳超前或过旧的事件跳过并计数")
+    @SuppressWarnings("unchecked")
+    void rejectsOutOfWindowTimestamps() {
+        long now = System.currentTimeMillis();
+        consumer.consumeBatch(List.of(record(0, Map.of("userId", "1001", "items", List.of(
+                Map.of("workoutId", "w_future", "duration", 60, "timestamp", now + 24 * 3600_000L),
+                Map.of("workoutId", "w_old", "duration", 60, "timestamp", now - 30L * 24 * 3600_000L),
+                Map.of("workoutId", "w_ok", "duration", 60, "timestamp", now))))));
+
+        ArgumentCaptor<Collection<UserDailyStats>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(userDailyStatsMapper).upsertIncrements(rows.capture());
+        assertThat(rows.getValue()).singleElement().extracting(UserDailyStats::getSessions).isEqualTo(1);
+        assertThat(meterRegistry.get("data.stats.events.invalid").counter().count()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.fitness.data.service.impl;
+
+import com.example.fitness.api.dto.CollectBatchResponse;
+import com.example.fitness.api.dto.CollectBatchResponse.EventResult;
+import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.data.spill.SpillQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * CollectBatchServiceImpl 批量采集单元测试
+ *
+ * <p>
+ * 覆盖以下场景:
+ * </p>
+ * <ul>
+ * <li>未压缩 / gzip / zstd 请求体解析</li>
+ * <li>逐条校验与拒绝原因</li>
+ * <li>按类型与会话合批，每批一次 send</li>
+ * <li>Kafka 不可用时写入溢写队列</li>
+ * </ul>
+ *
+ * @since JDK 21
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("CollectBatchServiceImpl 单元测试")
+class CollectBatchServiceImplTest {
+
+    private static final String BODY = """
+            {"sessionId": "s_1", "items": [
+              {"type": "heart_rate", "value": 120, "timestamp": 1706342400000},
+              {"type": "action_score", "payload": {"moveId": "m_squat", "score": 90}},
+              {"type": "heart_rate", "value": 125, "timestamp": 1706342401000},
+              {"type": "heart_rate", "value": 130, "sessionId": "s_2"}
+            ]}
+            """;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private CircuitBreakerFactory<?, ?> circuitBreakerFactory;
+
+    @Mock
+    private CircuitBreaker circuitBreaker;
+
+    @Mock
+    private SpillQueue spillQueue;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CollectBatchServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(circuitBreakerFactory.create(anyString())).thenReturn(circuitBreaker);
+        when(circuitBreaker.run(any(), any())).thenAnswer(invocation -> {
+            Supplier<Object> supplier = invocation.getArgument(0);
+            Function<Throwable, Object> fallback = invocation.getArgument(1);
+            try {
+                return supplier.get();
+            } catch (RuntimeException e) {
+                return fallback.apply(e);
+            }
+        });
+        when(kafkaTemplate.send(anyString(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        service = new CollectBatchServiceImpl(kafkaTemplate, circuitBreakerFactory, spillQueue, new ObjectMapper(),
+                meterRegistry, "frontend_event.", List.of("action_score", "app_event", "heart_rate"), 5, 4096, 1000);
+    }
+
+    private static ByteArrayInputStream raw(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteArrayInputStream gzip(String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private static List<String> reasons(CollectBatchResponse response) {
+        return response.getResults().stream().map(EventResult::getReason).toList();
+    }
+
+    @Nested
+    @DisplayName("解压与解析")
+    class DecodingTests {
+
+        @Test
+        @DisplayName("未压缩、gzip 与 zstd 请求体得到相同结果")
+        void decodesAllEncodings() throws IOException {
+            byte[] zstd = Zstd.compress(BODY.getBytes(StandardCharsets.UTF_8));
+
+            CollectBatchResponse plain = service.collect(raw(BODY), null, null);
+            CollectBatchResponse gzipped = service.collect(gzip(BODY), "gzip", null);
+            CollectBatchResponse zstded = service.collect(new ByteArrayInputStream(zstd), "zstd", null);
+
+            assertThat(plain.getAccepted()).isEqualTo(4);
+            assertThat(gzipped).isEqualTo(plain);
+            assertThat(zstded).isEqualTo(plain);
+        }
+
+        @Test
+        @DisplayName("请求体可以直接是事件数组")
+        void acceptsBareArray() {
+            CollectBatchResponse response = service.collect(
+                    raw("[{\"type\": \"app_event\", \"name\": \"open\"}]"), "", null);
+
+            assertThat(response.getAccepted()).isEqualTo(1);
+            verify(kafkaTemplate).send(eq("frontend_event.app_event"), eq(null), any());
+        }
+
+        @Test
+        @DisplayName("不支持的压缩方式、损坏的请求体与超限请求体返回参数错误")
+        void rejectsBadBodies() {
+            assertThatThrownBy(() -> service.collect(raw(BODY), "br", null)).isInstanceOf(BusinessException.class);
+            assertThatThrownBy(() -> service.collect(raw(BODY), "gzip", null)).isInstanceOf(BusinessException.class);
+            assertThatThrownBy(() -> service.collect(raw("{\"items\": [{\"type\": "), null, null))
+                    .isInstanceOf(BusinessException.class);
+            String large = "[" + "{\"type\": \"app_event\", \"pad\": \"" + "x".repeat(5000) + "\"}]";
+            assertThatThrownBy(() -> service.collect(raw(large), null, null))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessageContaining("超过上限");
+            verifyNoInteractions(kafkaTemplate);
+        }
+    }
+
+    @Nested
+    @DisplayName("校验")
+    class ValidationTests {
+
+        @Test
+        @DisplayName("逐条返回拒绝原因，其余事件照常发送")
+        void reportsPerEventReasons() {
+            String body = """
+                    [{"type": "heart_rate", "value": 120},
+                     "not-an-object",
+                     {"value": 1},
+                     {"type": "heart_rate", "timestamp": "yesterday"},
+                     {"type": "gps"},
+                     {"type": "heart_rate", "value": 121},
+                     {"type": "heart_rate", "value": 122}]
+                    """;
+
+            CollectBatchResponse response = service.collect(raw(body), null, null);
+
+            assertThat(reasons(response)).containsExactly(null,
+                    CollectBatchResponse.REASON_INVALID,
+                    CollectBatchResponse.REASON_INVALID,
+                    CollectBatchResponse.REASON_INVALID,
+                    CollectBatchResponse.REASON_UNSUPPORTED_TYPE,
+                    CollectBatchResponse.REASON_BATCH_LIMIT,
+                    CollectBatchResponse.REASON_BATCH_LIMIT);
+            assertThat(response.getAccepted()).isEqualTo(1);
+            assertThat(response.getRejected()).isEqualTo(6);
+            assertThat(meterRegistry.get("data.collect.events").tag("result", "rejected").counter().count())
+                    .isEqualTo(6);
+        }
+    }
+
+    @Nested
+    @DisplayName("分发")
+    class PublishTests {
+
+        @Test
+        @DisplayName("按类型与会话合批，每批一次 send，以会话 ID 为 key")
+        @SuppressWarnings("unchecked")
+        void sendsOneRecordPerTypeAndSession() {
+            service.collect(raw(BODY), null, null);
+
+            ArgumentCaptor<Object> value = ArgumentCaptor.forClass(Object.class);
+            verify(kafkaTemplate).send(eq("frontend_event.heart_rate"), eq("s_1"), value.capture());
+            verify(kafkaTemplate).send(eq("frontend_event.action_score"), eq("s_1"), any());
+            verify(kafkaTemplate).send(eq("frontend_event.heart_rate"), eq("s_2"), any());
+            verify(kafkaTemplate, times(3)).send(anyString(), any(), any());
+
+            Map<String, Object> message = (Map<String, Object>) value.getValue();
+            assertThat(message).containsEntry("sessionId", "s_1").containsEntry("type", "heart_rate");
+            assertThat((List<?>) message.get("items")).hasSize(2);
+            assertThat(meterRegistry.get("data.collect.records").counter().count()).isEqualTo(3);
+            verify(spillQueue, never()).spill(anyString(), any());
+        }
+
+        @Test
+        @DisplayName("消息带上登录用户 ID")
+        @SuppressWarnings("unchecked")
+        void stampsLoginUser() {
+            service.collect(raw("[{\"type\": \"app_event\", \"name\": \"open\", \"userId\": \"42\"}]"), null, "1001");
+
+            ArgumentCaptor<Object> value = ArgumentCaptor.forClass(Object.class);
+            verify(kafkaTemplate).send(eq("frontend_event.app_event"), eq(null), value.capture());
+            assertThat((Map<String, Object>) value.getValue()).containsEntry("userId", "1001");
+        }
+
+        @Test
+        @DisplayName("发送失败的批次写入溢写队列，事件仍视为已接收")
+        void spillsFailedBatches() {
+            when(kafkaTemplate.send(eq("frontend_event.action_score"), any(), any()))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+            when(spillQueue.spill(anyString(), any())).thenReturn(true);
+
+            CollectBatchResponse response = service.collect(raw(BODY), null, null);
+
+            assertThat(response.getAccepted()).isEqualTo(4);
+            verify(spillQueue).spill(eq("frontend_event.action_score"), any());
+            verify(spillQueue, times(1)).spill(anyString(), any());
+        }
+
+        @Test
+        @DisplayName("Kafka 与溢写队列均不可用时对应事件标记为 UNAVAILABLE")
+        void marksUnavailableWhenSpillFails() {
+            when(circuitBreaker.run(any(), any())).thenAnswer(invocation -> {
+                Function<Throwable, Object> fallback = invocation.getArgument(1);
+                return fallback.apply(new IllegalStateException("CircuitBreaker 'kafkaSender' is OPEN"));
+            });
+            when(spillQueue.spill(eq("frontend_event.heart_rate"), any())).thenReturn(true);
+            when(spillQueue.spill(eq("frontend_event.action_score"), any())).thenReturn(false);
+
+            CollectBatchResponse response = service.collect(raw(BODY), null, null);
+
+            assertThat(reasons(response)).containsExactly(null, CollectBatchResponse.REASON_UNAVAILABLE, null, null);
+            verify(kafkaTemplate, never()).send(anyString(), any(), any());
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.fitness.data.service.impl;
+
+import com.example.fitness.api.dto.FeedItemDTO;
+import com.example.fitness.api.dto.FeedPage;
+import com.example.fitness.api.dto.LeaderboardEntry;
+import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.data.mapper.FeedItemMapper;
+import com.example.fitness.data.mapper.UserFollowMapper;
+import com.example.fitness.data.mapper.UserStatsMapper;
+import com.example.fitness.data.model.entity.FeedItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * FeedServiceImpl 社交动态单元测试
+ *
+ * <p>
+ * 覆盖以下场景:
+ * </p>
+ * <ul>
+ * <li>写扩散：按页推送粉丝收件箱，大V 只写本人收件箱</li>
+ * <li>读取：收件箱与大V 动态合并、游标分页、收件箱缺失时读扩散</li>
+ * <li>关注与粉丝数</li>
+ * </ul>
+ *
+ * @since JDK 21
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("FeedServiceImpl 单元测试")
+class FeedServiceImplTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private RedisOperations<String, String> pipeline;
+
+    @Mock
+    private ZSetOperations<String, String> pipelineZSet;
+
+    @Mock
+    private FeedItemMapper feedItemMapper;
+
+    @Mock
+    private UserFollowMapper userFollowMapper;
+
+    @Mock
+    private UserStatsMapper userStatsMapper;
+
+    private FeedServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(pipeline.opsForZSet()).thenReturn(pipelineZSet);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            SessionCallback<Object> callback = invocation.getArgument(0);
+            callback.execute(pipeline);
+            return List.of();
+        });
+        service = new FeedServiceImpl(redisTemplate, feedItemMapper, userFollowMapper, userStatsMapper,
+                TransactionOperations.withoutTransaction(), new SimpleMeterRegistry(), 3, 30, 100, 2);
+    }
+
+    private static FeedItem item(long id, long userId) {
+        FeedItem item = new FeedItem();
+        item.setId(id);
+        item.setUserId(userId);
+        item.setWorkoutId("w_" + id);
+        item.setSessionName("HIIT");
+        return item;
+    }
+
+    @Nested
+    @DisplayName("写扩散")
+    class PublishTests {
+
+        @BeforeEach
+        void assignIds() {
+            AtomicLong ids = new AtomicLong(100);
+            doAnswer(invocation -> {
+                FeedItem item = invocation.getArgument(0);
+                item.setId(ids.incrementAndGet());
+                return 1;
+            }).when(feedItemMapper).upsert(any());
+        }
+
+        @Test
+        @DisplayName("按页推送到本人与全部粉丝的收件箱，并截断长度")
+        void fansOutToFollowersPageByPage() {
+            when(userFollowMapper.selectFollowerCount(1L)).thenReturn(3);
+            when(userFollowMapper.selectFollowerIds(1L, 0, 2)).thenReturn(List.of(10L, 11L));
+            when(userFollowMapper.selectFollowerIds(1L, 11L, 2)).thenReturn(List.of(12L));
+
+            FeedItem item = new FeedItem();
+            item.setUserId(1L);
+            item.setWorkoutId("w_1");
+            service.publish(List.of(item));
+
+            for (String key : List.of("feed:inbox:1", "feed:inbox:10", "feed:inbox:11", "feed:inbox:12")) {
+                verify(pipelineZSet).add(key, "101", 101);
+                verify(pipelineZSet).removeRange(key, 0, -4);
+            }
+            verify(redisTemplate, times(3)).executePipelined(any(SessionCallback.class));
+        }
+
+        @Test
+        @DisplayName("大V 只写本人收件箱")
+        void skipsFanOutForHeavyAuthors() {
+            when(userFollowMapper.selectFollowerCount(1L)).thenReturn(100);
+
+            FeedItem item = new FeedItem();
+            item.setUserId(1L);
+            item.setWorkoutId("w_1");
+            service.publish(List.of(item));
+
+            verify(pipelineZSet).add("feed:inbox:1", "101", 101);
+            verify(pipelineZSet, times(1)).add(anyString(), anyString(), anyDouble());
+            verify(userFollowMapper, never()).selectFollowerIds(anyLong(), anyLong(), anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("读取")
+    class ReadTests {
+
+        @Test
+        @DisplayName("合并收件箱与大V 动态，按 id 倒序分页并返回游标")
+        void mergesInboxAndHeavyAuthors() {
+            when(zSetOperations.reverseRangeByScore("feed:inbox:1", Double.NEGATIVE_INFINITY, 49, 0, 3))
+                    .thenReturn(new LinkedHashSet<>(List.of("45", "40", "30")));
+            when(userFollowMapper.selectHeavyFolloweeIds(1L, 100)).thenReturn(List.of(9L));
+            when(feedItemMapper.selectByAuthors(List.of(9L), 50L, 3)).thenReturn(List.of(item(42, 9)));
+            when(feedItemMapper.selectByIds(List.of(45L, 40L))).thenReturn(List.of(item(45, 2), item(40, 3)));
+            when(userStatsMapper.selectProfiles(any())).thenReturn(List.of(
+                    LeaderboardEntry.builder().userId(9L).nickname("Coach").build()));
+
+            FeedPage page = service.feed(1L, "50", 3);
+
+            assertThat(page.getItems()).extracting(FeedItemDTO::getId).containsExactly(45L, 42L, 40L);
+            assertThat(page.getItems().get(1).getNickname()).isEqualTo("Coach");
+            assertThat(page.getItems().get(1).getContent()).isEqualTo("完成了 HIIT 训练");
+            assertThat(page.getNextCursor()).isEqualTo("40");
+        }
+
+        @Test
+        @DisplayName("不足一页时没有下一页游标")
+        void lastPageHasNoCursor() {
+            when(zSetOperations.reverseRangeByScore(eq("feed:inbox:1"), anyDouble(), anyDouble(), anyLong(),
+                    anyLong())).thenReturn(new LinkedHashSet<>(List.of("5")));
+            when(feedItemMapper.selectByIds(List.of(5L))).thenReturn(List.of(item(5, 2)));
+
+            FeedPage page = service.feed(1L, null, 3);
+
+            assertThat(page.getItems()).hasSize(1);
+            assertThat(page.getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Redis 不可用时对全部关注对象读扩散")
+        void pullsWhenInboxUnavailable() {
+            when(zSetOperations.reverseRangeByScore(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong()))
+                    .thenThrow(new RedisConnectionFailureException("down"));
+            when(userFollowMapper.selectFolloweeIds(1L)).thenReturn(new ArrayList<>(List.of(2L, 3L)));
+            when(feedItemMapper.selectByAuthors(List.of(2L, 3L, 1L), null, 3)).thenReturn(List.of(item(8, 2)));
+
+            FeedPage page = service.feed(1L, null, 3);
+
+            assertThat(page.getItems()).extracting(FeedItemDTO::getId).containsExactly(8L);
+            verify(feedItemMapper, never()).selectByIds(any());
+        }
+
+        @Test
+        @DisplayName("非法游标返回参数错误")
+        void rejectsBadCursor() {
+            assertThatThrownBy(() -> service.feed(1L, "abc", 3)).isInstanceOf(BusinessException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("关注")
+    class FollowTests {
+
+        @Test
+        @DisplayName("新关注时粉丝数 +1，重复关注不变")
+        void followIncrementsFollowerCountOnce() {
+            when(userFollowMapper.insert(1L, 2L)).thenReturn(1, 0);
+            when(userFollowMapper.incrementFollowerCount(2L, 1)).thenReturn(1);
+
+            service.follow(1L, 2L);
+            service.follow(1L, 2L);
+
+            verify(userFollowMapper, times(1)).incrementFollowerCount(2L, 1);
+        }
+
+        @Test
+        @DisplayName("不能关注自己或不存在的用户")
+        void rejectsInvalidFollowee() {
+            when(userFollowMapper.insert(1L, 3L)).thenReturn(1);
+            when(userFollowMapper.incrementFollowerCount(3L, 1)).thenReturn(0);
+
+            assertThatThrownBy(() -> service.follow(1L, 1L)).isInstanceOf(BusinessException.class);
+            assertThatThrownBy(() -> service.follow(1L, 3L)).isInstanceOf(BusinessException.class);
+        }
+
+        @Test
+        @DisplayName("取消关注时粉丝数 -1")
+        void unfollowDecrementsFollowerCount() {
+            when(userFollowMapper.delete(1L, 2L)).thenReturn(1);
+
+            service.unfollow(1L, 2L);
+
+            verify(userFollowMapper).incrementFollowerCount(2L, -1);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.fitness.data.service.impl;
+
+import com.example.fitness.api.dto.LeaderboardEntry;
+import com.example.fitness.api.dto.ScoringResultEvent;
+import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.data.mapper.UserStatsMapper;
+import com.example.fitness.data.model.LeaderboardPeriod;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * LeaderboardServiceImpl 排行榜单元测试
+ *
+ * <p>
+ * 覆盖以下场景:
+ * </p>
+ * <ul>
+ * <li>周期 key 与过期时刻</li>
+ * <li>批量事件合并后一次流水线写入</li>
+ * <li>前 N 名快照缓存与 Redis 故障降级</li>
+ * <li>本人名次查询</li>
+ * </ul>
+ *
+ * @since JDK 21
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("LeaderboardServiceImpl 单元测试")
+class LeaderboardServiceImplTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private RedisOperations<String, String> pipeline;
+
+    @Mock
+    private ZSetOperations<String, String> pipelineZSet;
+
+    @Mock
+    private UserStatsMapper userStatsMapper;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LeaderboardServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(pipeline.opsForZSet()).thenReturn(pipelineZSet);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            SessionCallback<Object> callback = invocation.getArgument(0);
+            callback.execute(pipeline);
+            return List.of();
+        });
+        service = new LeaderboardServiceImpl(redisTemplate, userStatsMapper, meterRegistry, ZONE.getId(), 3, 60_000);
+    }
+
+    private static ScoringResultEvent event(String userId, Integer score) {
+        return ScoringResultEvent.builder().userId(userId).moveId("m_squat").score(score)
+                .timestamp(LocalDateTime.now(ZONE)).build();
+    }
+
+    private static TypedTuple<String> tuple(String member, double score) {
+        return TypedTuple.of(member, score);
+    }
+
+    @Nested
+    @DisplayName("周期")
+    class PeriodTests {
+
+        @Test
+        @DisplayName("按日 / ISO 周 / 月生成 key")
+        void buildsKeys() {
+            LocalDate date = LocalDate.of(2026, 3, 1);
+
+            assertThat(LeaderboardPeriod.DAILY.key(date)).isEqualTo("leaderboard:daily:20260301");
+            assertThat(LeaderboardPeriod.WEEKLY.key(date)).isEqualTo("leaderboard:weekly:2026-W09");
+            assertThat(LeaderboardPeriod.MONTHLY.key(date)).isEqualTo("leaderboard:monthly:202603");
+        }
+
+        @Test
+        @DisplayName("key 保留到下一个周期结束")
+        void expiresAfterNextPeriod() {
+            LocalDate date = LocalDate.of(2026, 3, 1);
+
+            assertThat(LeaderboardPeriod.DAILY.expireAt(date, ZONE))
+                    .isEqualTo(LocalDate.of(2026, 3, 3).atStartOfDay(ZONE).toInstant());
+            assertThat(LeaderboardPeriod.WEEKLY.expireAt(date, ZONE))
+                    .isEqualTo(LocalDate.of(2026, 3, 9).atStartOfDay(ZONE).toInstant());
+            assertThat(LeaderboardPeriod.MONTHLY.expireAt(date, ZONE))
+                    .isEqualTo(LocalDate.of(2026, 5, 1).atStartOfDay(ZONE).toInstant());
+        }
+
+        @Test
+        @DisplayName("类型参数忽略大小写，非法取值返回参数错误")
+        void parsesType() {
+            assertThat(LeaderboardPeriod.fromType("Weekly")).isEqualTo(LeaderboardPeriod.WEEKLY);
+            assertThatThrownBy(() -> LeaderboardPeriod.fromType("yearly")).isInstanceOf(BusinessException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("写入")
+    class RecordTests {
+
+        @Test
+        @DisplayName("同一用户的分数合并，每个 key 一次 ZINCRBY + EXPIREAT")
+        void mergesIncrementsInOnePipeline() {
+            service.record(List.of(event("1001", 80), event("1002", 70), event("1001", 90),
+                    event("unknown", 60), event("abc", 50), event("1003", null)));
+
+            verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+            LocalDate today = LocalDate.now(ZONE);
+            for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+                String key = period.key(today);
+                verify(pipelineZSet).incrementScore(key, "1001", 170);
+                verify(pipelineZSet).incrementScore(key, "1002", 70);
+                verify(pipeline).expireAt(key, period.expireAt(today, ZONE));
+            }
+            verify(pipelineZSet, times(6)).incrementScore(anyString(), anyString(), anyDouble());
+        }
+
+        @Test
+        @DisplayName("已过期周期的旧事件不写入")
+        void skipsExpiredPeriods() {
+            ScoringResultEvent old = event("1001", 80);
+            old.setTimestamp(LocalDateTime.now(ZONE).minusYears(1));
+
+            service.record(List.of(old));
+
+            verify(redisTemplate, never()).executePipelined(any(SessionCallback.class));
+        }
+
+        @Test
+        @DisplayName("Redis 写入失败时只计数，不向上抛出")
+        void countsFailures() {
+            when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                    .thenThrow(new RedisConnectionFailureException("down"));
+
+            service.record(List.of(event("1001", 80)));
+
+            assertThat(meterRegistry.get("data.leaderboard.update.failures").counter().count()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("读取")
+    class ReadTests {
+
+        @Test
+        @DisplayName("前 N 名补充昵称与头像，TTL 内复用快照")
+        void servesTopFromSnapshot() {
+            String key = LeaderboardPeriod.WEEKLY.key(LocalDate.now(ZONE));
+            when(zSetOperations.reverseRangeWithScores(key, 0, 2))
+                    .thenReturn(new LinkedHashSet<>(List.of(tuple("1002", 300), tuple("1001", 200))));
+            when(userStatsMapper.selectProfiles(any())).thenReturn(List.of(
+                    LeaderboardEntry.builder().userId(1001L).nickname("Jack").avatar("a.jpg").build()));
+
+            List<LeaderboardEntry> first = service.top(LeaderboardPeriod.WEEKLY, 10);
+            List<LeaderboardEntry> second = service.top(LeaderboardPeriod.WEEKLY, 1);
+
+            assertThat(first).extracting(LeaderboardEntry::getRank).containsExactly(1L, 2L);
+            assertThat(first).extracting(LeaderboardEntry::getUserId).containsExactly(1002L, 1001L);
+            assertThat(first.get(1).getNickname()).isEqualTo("Jack");
+            assertThat(first.get(1).getScore()).isEqualTo(200L);
+            assertThat(second).hasSize(1);
+            verify(zSetOperations, times(1)).reverseRangeWithScores(anyString(), anyLong(), anyLong());
+        }
+
+        @Test
+        @DisplayName("快照过期后 Redis 不可用时沿用旧快照")
+        void fallsBackToStaleSnapshot() {
+            service = new LeaderboardServiceImpl(redisTemplate, userStatsMapper, meterRegistry, ZONE.getId(), 3, 0);
+            String key = LeaderboardPeriod.DAILY.key(LocalDate.now(ZONE));
+            when(zSetOperations.reverseRangeWithScores(key, 0, 2))
+                    .thenReturn(Set.of(tuple("1001", 100)))
+                    .thenThrow(new RedisConnectionFailureException("down"));
+
+            service.top(LeaderboardPeriod.DAILY, 10);
+            List<LeaderboardEntry> stale = service.top(LeaderboardPeriod.DAILY, 10);
+
+            assertThat(stale).extracting(LeaderboardEntry::getUserId).containsExactly(1001L);
+            verify(zSetOperations, times(2)).reverseRangeWithScores(anyString(), anyLong(), anyLong());
+        }
+
+        @Test
+        @DisplayName("本人名次为 1 起始，未上榜时名次为空")
+        void ranksUser() {
+            String key = LeaderboardPeriod.MONTHLY.key(LocalDate.now(ZONE));
+            when(zSetOperations.reverseRank(key, "1001")).thenReturn(4L);
+            when(zSetOperations.score(key, "1001")).thenReturn(850.0);
+
+            LeaderboardEntry ranked = service.rank(LeaderboardPeriod.MONTHLY, 1001L);
+            LeaderboardEntry unranked = service.rank(LeaderboardPeriod.MONTHLY, 1002L);
+
+            assertThat(ranked.getRank()).isEqualTo(5L);
+            assertThat(ranked.getScore()).isEqualTo(850L);
+            assertThat(unranked.getRank()).isNull();
+            assertThat(unranked.getScore()).isZero();
+            verify(zSetOperations, never()).score(eq(key), eq("1002"));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.fitness.data.service.impl;
+
+import com.example.fitness.api.dto.TrainingStatsDTO;
+import com.example.fitness.data.mapper.UserDailyStatsMapper;
+import com.example.fitness.data.model.entity.UserDailyStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TrainingStatsServiceImpl 训练统计单元测试
+ *
+ * <p>
+ * 覆盖以下场景:
+ * </p>
+ * <ul>
+ * <li>由每日汇总计算周 / 月 / 累计视图、完成率与补零的历史</li>
+ * <li>缓存命中、跨天失效与 Redis 故障降级</li>
+ * <li>写穿刷新以一次流水线覆盖缓存</li>
+ * </ul>
+ *
+ * @since JDK 21
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("TrainingStatsServiceImpl 单元测试")
+class TrainingStatsServiceImplTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private RedisOperations<String, String> pipeline;
+
+    @Mock
+    private ValueOperations<String, String> pipelineValues;
+
+    @Mock
+    private UserDailyStatsMapper userDailyStatsMapper;
+
+    private ObjectMapper objectMapper;
+    private TrainingStatsServiceImpl service;
+    private LocalDate today;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(pipeline.opsForValue()).thenReturn(pipelineValues);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            SessionCallback<Object> callback = invocation.getArgument(0);
+            callback.execute(pipeline);
+            return List.of();
+        });
+        service = new TrainingStatsServiceImpl(redisTemplate, userDailyStatsMapper, objectMapper,
+                new SimpleMeterRegistry(), ZONE.getId(), 3600);
+        today = LocalDate.now(ZONE);
+    }
+
+    private static UserDailyStats row(long userId, LocalDate date, int seconds, int sessions) {
+        return new UserDailyStats(userId, date, seconds, sessions * 100, sessions * 20, sessions);
+    }
+
+    @Nested
+    @DisplayName("计算")
+    class ComputeTests {
+
+        @Test
+        @DisplayName("周 / 月视图按日期边界汇总，累计值取自按用户求和")
+        void aggregatesViewsFromRollups() {
+            LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            LocalDate monthStart = today.withDayOfMonth(1);
+            LocalDate beforeBoth = (weekStart.isBefore(monthStart) ? weekStart : monthStart).minusDays(1);
+            when(userDailyStatsMapper.selectSince(eq(List.of(1001L)), any())).thenReturn(List.of(
+                    row(1001, today, 1800, 1), row(1001, beforeBoth, 3600, 2)));
+            when(userDailyStatsMapper.selectTotals(List.of(1001L))).thenReturn(List.of(
+                    new UserDailyStats(1001L, null, 36000, 5000, 900, 12)));
+
+            TrainingStatsDTO stats = service.getStats(1001L);
+
+            assertThat(stats.getWeeklyDuration()).isEqualTo(30);
+            assertThat(stats.getWeeklySessions()).isEqualTo(1);
+            assertThat(stats.getMonthlyDuration()).isEqualTo(30);
+            assertThat(stats.getTotalDuration()).isEqualTo(600);
+            assertThat(stats.getTotalCalories()).isEqualTo(5000);
+            assertThat(stats.getTotalSessions()).isEqualTo(12);
+            assertThat(stats.getAsOf()).isEqualTo(today);
+        }
+
+        @Test
+        @DisplayName("历史覆盖最近 7 天并补零，完成率为有训练的天数占比")
+        void fillsHistoryAndCompletionRate() {
+            when(userDailyStatsMapper.selectSince(eq(List.of(1001L)), any())).thenReturn(List.of(
+                    row(1001, today, 600, 1), row(1001, today.minusDays(3), 1200, 2),
+                    row(1001, today.minusDays(7), 1200, 1)));
+            when(userDailyStatsMapper.selectTotals(List.of(1001L))).thenReturn(List.of());
+
+            TrainingStatsDTO stats = service.getStats(1001L);
+
+            assertThat(stats.getHistory()).extracting(TrainingStatsDTO.DailyStats::getDate)
+                    .containsExactly(today.minusDays(6), today.minusDays(5), today.minusDays(4), today.minusDays(3),
+                            today.minusDays(2), today.minusDays(1), today);
+            assertThat(stats.getHistory().get(3).getDuration()).isEqualTo(20);
+            assertThat(stats.getHistory().get(0).getSessions()).isZero();
+            assertThat(stats.getCompletionRate()).isEqualTo(2 * 100 / 7);
+            assertThat(stats.getTotalDuration()).isZero();
+        }
+
+        @Test
+        @DisplayName("只按日期下界读取汇总行")
+        void readsRollupsFromEarliestBoundary() {
+            service.getStats(1001L);
+
+            ArgumentCaptor<LocalDate> from = ArgumentCaptor.forClass(LocalDate.class);
+            verify(userDailyStatsMapper).selectSince(eq(List.of(1001L)), from.capture());
+            assertThat(from.getValue()).isBeforeOrEqualTo(today.minusDays(6))
+                    .isBeforeOrEqualTo(today.withDayOfMonth(1));
+        }
+    }
+
+    @Nested
+    @DisplayName("缓存")
+    class CacheTests {
+
+        @Test
+        @DisplayName("当天的缓存直接返回，不查汇总表")
+        void servesTodaysCache() throws Exception {
+            TrainingStatsDTO cached = TrainingStatsDTO.builder().weeklyDuration(42).asOf(today).build();
+            when(valueOperations.get("stats:user:1001")).thenReturn(objectMapper.writeValueAsString(cached));
+
+            TrainingStatsDTO stats = service.getStats(1001L);
+
+            assertThat(stats.getWeeklyDuration()).isEqualTo(42);
+            verify(userDailyStatsMapper, never()).selectSince(any(), any());
+        }
+
+        @Test
+        @DisplayName("跨天的缓存视为未命中，重新计算并覆盖")
+        void recomputesStaleCache() throws Exception {
+            TrainingStatsDTO cached = TrainingStatsDTO.builder().weeklyDuration(42).asOf(today.minusDays(1)).build();
+            when(valueOperations.get("stats:user:1001")).thenReturn(objectMapper.writeValueAsString(cached));
+
+            TrainingStatsDTO stats = service.getStats(1001L);
+
+            assertThat(stats.getAsOf()).isEqualTo(today);
+            verify(pipelineValues).set(eq("stats:user:1001"), anyString(), eq(Duration.ofHours(1)));
+        }
+
+        @Test
+        @DisplayName("Redis 不可用时直接由汇总表计算")
+        void fallsBackWhenRedisDown() {
+            when(valueOperations.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+            when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                    .thenThrow(new RedisConnectionFailureException("down"));
+
+            TrainingStatsDTO stats = service.getStats(1001L);
+
+            assertThat(stats.getAsOf()).isEqualTo(today);
+            verify(userDailyStatsMapper).selectTotals(List.of(1001L));
+        }
+
+        @Test
+        @DisplayName("写穿刷新：一批用户一次查询、一次流水线写入")
+        void refreshesInOnePipeline() {
+            when(userDailyStatsMapper.selectSince(eq(List.of(1001L, 1002L)), any())).thenReturn(List.of(
+                    row(1001, today, 600, 1)));
+
+            service.refresh(List.of(1001L, 1002L));
+
+            verify(userDailyStatsMapper, times(1)).selectSince(any(), any());
+            verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+            verify(pipelineValues).set(eq("stats:user:1001"), anyString(), any(Duration.class));
+            verify(pipelineValues).set(eq("stats:user:1002"), anyString(), any(Duration.class));
+        }
+    }
+}
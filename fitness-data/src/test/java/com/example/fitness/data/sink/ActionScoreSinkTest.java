@@ -0,0 +1,169 @@
+package com.example.fitness.data.sink;
+
+import com.example.fitness.api.dto.ScoringResultEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * ActionScoreSink 分析库写入阶段单元测试
+ *
+ * <p>
+ * 覆盖以下场景:
+ * </p>
+ * <ul>
+ * <li>按批量大小和时间间隔触发写入</li>
+ * <li>写入失败时退避重试并沿用同一 label</li>
+ * <li>重试耗尽后丢弃并计数</li>
+ * <li>队列满时丢弃而不阻塞</li>
+ * </ul>
+ *
+ * @since JDK 21
+ */
+@DisplayName("ActionScoreSink 单元测试")
+class ActionScoreSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ActionScoreSink sink;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (sink != null) {
+            sink.destroy();
+        }
+    }
+
+    private static ScoringResultEvent event(int i) {
+        return ScoringResultEvent.builder()
+                .eventId("e" + i)
+                .userId(String.valueOf(1000 + i))
+                .moveId("m_squat")
+                .score(80)
+                .timestamp(LocalDateTime.of(2026, 3, 1, 8, 30, 15))
+                .build();
+    }
+
+    private static List<String> dataLines(Path file) throws IOException {
+        return Files.readAllLines(file).stream().filter(line -> !line.startsWith("#")).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("批次写满时立即写入，CSV 列与 Doris 表一致")
+    void flushesWhenBatchIsFull() throws IOException {
+        Path file = tempDir.resolve("dwd_action_score.csv");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        sink = new ActionScoreSink(new FileSinkWriter(file), registry, 64, 3, 60_000, 0, 0);
+        sink.afterPropertiesSet();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(sink.offer(event(i))).isTrue();
+        }
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(file) && dataLines(file).size() == 3);
+        assertThat(dataLines(file).get(0)).isEqualTo("e0\t1000\tm_squat\t80\t2026-03-01 08:30:15.000");
+        assertThat(registry.get("data.sink.rows").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("未写满的批次在刷新间隔后写入")
+    void flushesAfterInterval() {
+        Path file = tempDir.resolve("dwd_action_score.csv");
+        sink = new ActionScoreSink(new FileSinkWriter(file), new SimpleMeterRegistry(), 64, 100, 50, 0, 0);
+        sink.afterPropertiesSet();
+
+        sink.offer(event(1));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(file) && dataLines(file).size() == 1);
+    }
+
+    @Test
+    @DisplayName("写入失败后退避重试，重试沿用同一 label")
+    void retriesWithSameLabel() {
+        List<String> labels = new CopyOnWriteArrayList<>();
+        AtomicInteger failures = new AtomicInteger(2);
+        AnalyticsSinkWriter flaky = new AnalyticsSinkWriter() {
+            @Override
+            public void write(ActionScoreBatch batch, String label) throws IOException {
+                labels.add(label);
+                if (failures.getAndDecrement() > 0) {
+                    throw new IOException("doris unavailable");
+                }
+            }
+
+            @Override
+            public String name() {
+                return "flaky";
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        sink = new ActionScoreSink(flaky, registry, 64, 1, 10, 5, 1);
+        sink.afterPropertiesSet();
+
+        sink.offer(event(1));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> registry.get("data.sink.rows").counter().count() == 1);
+        assertThat(labels).hasSize(3);
+        assertThat(labels).containsOnly(labels.get(0));
+        assertThat(registry.get("data.sink.failed").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("重试耗尽后丢弃该批并计数")
+    void dropsBatchAfterMaxRetries() {
+        AtomicInteger attempts = new AtomicInteger();
+        AnalyticsSinkWriter broken = new AnalyticsSinkWriter() {
+            @Override
+            public void write(ActionScoreBatch batch, String label) throws IOException {
+                attempts.incrementAndGet();
+                throw new IOException("doris down");
+            }
+
+            @Override
+            public String name() {
+                return "broken";
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        sink = new ActionScoreSink(broken, registry, 64, 2, 60_000, 2, 1);
+        sink.afterPropertiesSet();
+
+        sink.offer(event(1));
+        sink.offer(event(2));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> registry.get("data.sink.failed").counter().count() == 2);
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("队列满时丢弃而不阻塞")
+    void dropsWhenQueueIsFull() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // 不启动写入线程，队列只进不出
+        sink = new ActionScoreSink(new FileSinkWriter(tempDir.resolve("unused.csv")), registry, 2, 10, 1000, 0, 0);
+
+        assertThat(sink.offer(event(1))).isTrue();
+        assertThat(sink.offer(event(2))).isTrue();
+        assertThat(sink.offer(event(3))).isFalse();
+
+        assertThat(registry.get("data.sink.queue.depth").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("data.sink.dropped").counter().count()).isEqualTo(1);
+        sink = null;
+    }
+}
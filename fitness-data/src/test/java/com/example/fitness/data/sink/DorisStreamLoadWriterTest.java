@@ -0,0 +1,110 @@
+package com.example.fitness.data.sink;
+
+import com.example.fitness.api.dto.ScoringResultEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * DorisStreamLoadWriter 单元测试
+ *
+ * <p>
+ * 使用 JDK 内置 HTTP 服务模拟 Doris FE 的 Stream Load 接口，
+ * 验证请求头、CSV 请求体以及各种响应状态的处理。
+ * </p>
+ *
+ * @since JDK 21
+ */
+@DisplayName("DorisStreamLoadWriter 单元测试")
+class DorisStreamLoadWriterTest {
+
+    private HttpServer server;
+    private final Map<String, String> requestHeaders = new ConcurrentHashMap<>();
+    private final AtomicReference<String> requestBody = new AtomicReference<>();
+    private final AtomicReference<String> responseBody = new AtomicReference<>();
+    private DorisStreamLoadWriter writer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/fitness_dw/dwd_action_score/_stream_load", exchange -> {
+            exchange.getRequestHeaders().forEach((name, values) -> requestHeaders.put(name.toLowerCase(), values.get(0)));
+            requestHeaders.put("method", exchange.getRequestMethod());
+            requestBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            byte[] body = responseBody.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        writer = new DorisStreamLoadWriter(
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/api/fitness_dw/dwd_action_score/_stream_load",
+                "loader", "secret", Duration.ofSeconds(5), new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static ActionScoreBatch batch() {
+        ActionScoreBatch batch = new ActionScoreBatch(4);
+        batch.add(ScoringResultEvent.builder().eventId("e1").userId("1001").moveId("m_squat").score(90)
+                .timestamp(LocalDateTime.of(2026, 3, 1, 8, 30, 15, 250_000_000)).build());
+        batch.add(ScoringResultEvent.builder().eventId("e2").userId("unknown").moveId("m\tlunge")
+                .timestamp(LocalDateTime.of(2026, 3, 1, 8, 31, 0)).build());
+        return batch;
+    }
+
+    @Test
+    @DisplayName("成功导入：请求携带 label、认证和列定义，请求体为 CSV")
+    void write_Success_SendsCsvWithLabel() {
+        responseBody.set("{\"Status\":\"Success\",\"NumberLoadedRows\":2}");
+
+        assertThatCode(() -> writer.write(batch(), "label_1")).doesNotThrowAnyException();
+
+        assertThat(requestHeaders.get("method")).isEqualTo("PUT");
+        assertThat(requestHeaders.get("label")).isEqualTo("label_1");
+        assertThat(requestHeaders.get("columns")).isEqualTo(ActionScoreBatch.COLUMNS);
+        assertThat(requestHeaders.get("authorization")).isEqualTo("Basic bG9hZGVyOnNlY3JldA==");
+        assertThat(requestBody.get()).isEqualTo(
+                "e1\t1001\tm_squat\t90\t2026-03-01 08:30:15.250\n"
+                        + "e2\tunknown\tm lunge\t\\N\t2026-03-01 08:31:00.000\n");
+    }
+
+    @Test
+    @DisplayName("同一 label 已导入完成视为成功")
+    void write_LabelAlreadyFinished_TreatedAsSuccess() {
+        responseBody.set("{\"Status\":\"Label Already Exists\",\"ExistingJobStatus\":\"FINISHED\"}");
+
+        assertThatCode(() -> writer.write(batch(), "label_1")).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("导入失败抛出 IOException 以便重试")
+    void write_Fail_ThrowsIOException() {
+        responseBody.set("{\"Status\":\"Fail\",\"Message\":\"too many filtered rows\"}");
+
+        assertThatThrownBy(() -> writer.write(batch(), "label_1"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("too many filtered rows");
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.fitness.data.spill;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * SpillQueue 降级溢写队列单元测试
+ *
+ * <p>
+ * 覆盖以下场景:
+ * </p>
+ * <ul>
+ * <li>断路器关闭时重放积压记录并提交进度</li>
+ * <li>断路器打开或发送失败时保留积压</li>
+ * <li>磁盘上限写满时丢弃并计数</li>
+ * </ul>
+ *
+ * @since JDK 21
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("SpillQueue 单元测试")
+class SpillQueueTest {
+
+    private static final String TOPIC = "frontend_event_stream";
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private CircuitBreakerFactory<?, ?> circuitBreakerFactory;
+
+    @Mock
+    private CircuitBreaker circuitBreaker;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SpillQueue spillQueue;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        when(circuitBreakerFactory.create(anyString())).thenReturn(circuitBreaker);
+        // 不启动重放线程，由测试直接驱动 replayBatch
+        spillQueue = new SpillQueue(kafkaTemplate, circuitBreakerFactory, new ObjectMapper(), meterRegistry,
+                tempDir.toString(), 4096, 8192, 10, 1000, 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        spillQueue.destroy();
+    }
+
+    private void breakerClosed() {
+        when(circuitBreaker.run(any(), any())).thenAnswer(invocation -> {
+            Supplier<Object> supplier = invocation.getArgument(0);
+            Function<Throwable, Object> fallback = invocation.getArgument(1);
+            try {
+                return supplier.get();
+            } catch (RuntimeException e) {
+                return fallback.apply(e);
+            }
+        });
+    }
+
+    private void breakerOpen() {
+        when(circuitBreaker.run(any(), any())).thenAnswer(invocation -> {
+            Function<Throwable, Object> fallback = invocation.getArgument(1);
+            return fallback.apply(new IllegalStateException("CircuitBreaker 'kafkaSender' is OPEN"));
+        });
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    @Test
+    @DisplayName("断路器关闭时重放积压记录到原 topic 并清空积压")
+    void replaysBacklogWhenBreakerClosed() throws IOException {
+        breakerClosed();
+        when(kafkaTemplate.send(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(spillQueue.spill(TOPIC, Map.of("sessionId", "s1"))).isTrue();
+        assertThat(spillQueue.spill(TOPIC, Map.of("sessionId", "s2"))).isTrue();
+        assertThat(gauge("data.spill.backlog.records")).isEqualTo(2);
+
+        assertThat(spillQueue.replayBatch()).isTrue();
+
+        verify(kafkaTemplate).send(TOPIC, Map.of("sessionId", "s1"));
+        verify(kafkaTemplate).send(TOPIC, Map.of("sessionId", "s2"));
+        assertThat(gauge("data.spill.backlog.records")).isZero();
+        assertThat(gauge("data.spill.backlog.bytes")).isZero();
+        assertThat(meterRegistry.get("data.spill.replayed").counter().count()).isEqualTo(2);
+        assertThat(spillQueue.replayBatch()).isFalse();
+    }
+
+    @Test
+    @DisplayName("断路器打开时不发送，积压保留")
+    void keepsBacklogWhenBreakerOpen() throws IOException {
+        breakerOpen();
+
+        spillQueue.spill(TOPIC, Map.of("sessionId", "s1"));
+
+        assertThat(spillQueue.replayBatch()).isFalse();
+        verify(kafkaTemplate, never()).send(anyString(), any());
+        assertThat(gauge("data.spill.backlog.records")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("发送失败时整批保留，恢复后重发")
+    void keepsBatchWhenSendFails() throws IOException {
+        breakerClosed();
+        when(kafkaTemplate.send(anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        spillQueue.spill(TOPIC, Map.of("sessionId", "s1"));
+
+        assertThat(spillQueue.replayBatch()).isFalse();
+        assertThat(gauge("data.spill.backlog.records")).isEqualTo(1);
+
+        assertThat(spillQueue.replayBatch()).isTrue();
+        verify(kafkaTemplate, times(2)).send(eq(TOPIC), any());
+        assertThat(gauge("data.spill.backlog.records")).isZero();
+    }
+
+    @Test
+    @DisplayName("磁盘上限写满后丢弃并计数")
+    void dropsWhenDiskLimitReached() {
+        String large = "x".repeat(3000);
+
+        assertThat(spillQueue.spill(TOPIC, Map.of("data", large))).isTrue();
+        assertThat(spillQueue.spill(TOPIC, Map.of("data", large))).isTrue();
+        assertThat(spillQueue.spill(TOPIC, Map.of("data", large))).isFalse();
+
+        assertThat(gauge("data.spill.segments")).isEqualTo(2);
+        assertThat(meterRegistry.get("data.spill.written").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("data.spill.dropped").counter().count()).isEqualTo(1);
+    }
+}
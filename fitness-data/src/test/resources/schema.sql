@@ -1,6 +1,55 @@
 CREATE TABLE IF NOT EXISTS `user` (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    nickname VARCHAR(100),
+    avatar VARCHAR(500),
     total_score INT DEFAULT 0,
     total_duration INT DEFAULT 0,
+    follower_count INT DEFAULT 0,
     updated_at TIMESTAMP
 );
+
+CREATE TABLE IF NOT EXISTS `scoring_consumer_offset` (
+    consumer_group VARCHAR(100) NOT NULL,
+    topic VARCHAR(200) NOT NULL,
+    partition_id INT NOT NULL,
+    last_offset BIGINT NOT NULL,
+    updated_at TIMESTAMP,
+    PRIMARY KEY (consumer_group, topic, partition_id)
+);
+
+CREATE TABLE IF NOT EXISTS `user_follow` (
+    follower_id BIGINT NOT NULL,
+    followee_id BIGINT NOT NULL,
+    created_at TIMESTAMP,
+    PRIMARY KEY (follower_id, followee_id)
+);
+
+CREATE TABLE IF NOT EXISTS `feed_item` (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    workout_id VARCHAR(64) NOT NULL,
+    session_name VARCHAR(100),
+    duration INT,
+    calories INT,
+    score INT,
+    created_at TIMESTAMP,
+    UNIQUE (user_id, workout_id)
+);
+
+CREATE TABLE IF NOT EXISTS `user_daily_stats` (
+    user_id BIGINT NOT NULL,
+    stat_date DATE NOT NULL,
+    duration INT DEFAULT 0,
+    calories INT DEFAULT 0,
+    reps INT DEFAULT 0,
+    sessions INT DEFAULT 0,
+    updated_at TIMESTAMP,
+    PRIMARY KEY (user_id, stat_date)
+);
+
+CREATE TABLE IF NOT EXISTS `user_daily_stats_workout` (
+    user_id BIGINT NOT NULL,
+    workout_id VARCHAR(64) NOT NULL,
+    event_time TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, workout_id)
+);
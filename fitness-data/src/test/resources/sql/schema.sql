@@ -9,7 +9,58 @@ CREATE TABLE IF NOT EXISTS `user` (
   `avatar` varchar(255) DEFAULT NULL,
   `total_score` int(11) DEFAULT '0',
   `total_duration` int(11) DEFAULT '0',
+  `follower_count` int(11) NOT NULL DEFAULT '0',
   `created_at` datetime DEFAULT CURRENT_TIMESTAMP,
   `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS `scoring_consumer_offset` (
+  `consumer_group` varchar(100) NOT NULL,
+  `topic` varchar(200) NOT NULL,
+  `partition_id` int(11) NOT NULL,
+  `last_offset` bigint(20) NOT NULL,
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`consumer_group`, `topic`, `partition_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS `user_follow` (
+  `follower_id` bigint(20) NOT NULL,
+  `followee_id` bigint(20) NOT NULL,
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`follower_id`, `followee_id`),
+  KEY `idx_followee_follower` (`followee_id`, `follower_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS `feed_item` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `user_id` bigint(20) NOT NULL,
+  `workout_id` varchar(64) NOT NULL,
+  `session_name` varchar(100) DEFAULT NULL,
+  `duration` int(11) DEFAULT NULL,
+  `calories` int(11) DEFAULT NULL,
+  `score` int(11) DEFAULT NULL,
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_user_workout` (`user_id`, `workout_id`),
+  KEY `idx_user_id` (`user_id`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS `user_daily_stats` (
+  `user_id` bigint(20) NOT NULL,
+  `stat_date` date NOT NULL,
+  `duration` int(11) NOT NULL DEFAULT '0',
+  `calories` int(11) NOT NULL DEFAULT '0',
+  `reps` int(11) NOT NULL DEFAULT '0',
+  `sessions` int(11) NOT NULL DEFAULT '0',
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`user_id`, `stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE IF NOT EXISTS `user_daily_stats_workout` (
+  `user_id` bigint(20) NOT NULL,
+  `workout_id` varchar(64) NOT NULL,
+  `event_time` datetime NOT NULL,
+  PRIMARY KEY (`user_id`, `workout_id`),
+  KEY `idx_event_time` (`event_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
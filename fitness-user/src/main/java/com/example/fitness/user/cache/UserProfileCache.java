@@ -0,0 +1,117 @@
+package com.example.fitness.user.cache;
+
+import com.example.fitness.common.cache.CacheAsideTemplate;
+import com.example.fitness.user.model.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 用户信息两级缓存
+ *
+ * <p>
+ * L1 为进程内 Caffeine 缓存，容量 {@code app.user.cache.local-max-size}、
+ * 写入后 {@code app.user.cache.local-ttl-seconds} 秒过期，承接数秒内的重复读取；
+ * L2 为 Redis {@code user:profile:{userId}}（1 小时过期，在节点间共享），经 {@link CacheAsideTemplate} 读写，
+ * 带单飞合并、提前刷新、过期抖动与空值缓存。读取依次查 L1、L2、数据库，结果回填 L1（不存在的用户只缓存在 L2）。
+ *
+ * <p>
+ * 失效时删除 L2、清除本节点 L1，并在 {@value #INVALIDATION_CHANNEL} 频道广播用户 ID，
+ * 其他节点收到后清除各自的 L1（见 {@code RedisListenerConfig}）。
+ * 广播丢失时（如订阅连接断开），其他节点的 L1 最多在 TTL 内返回旧值。
+ * L1 中的对象由调用方共享，修改后必须调用 {@link #invalidate}。
+ *
+ * <p>
+ * 指标：L1 为 {@code user.profile.cache{level=local, result=hit|miss}}，
+ * L2 为 {@code cache.requests{cache=user-profile}}，各级命中率为 hit / (hit + miss)。
+ */
+@Component
+public class UserProfileCache implements MessageListener {
+
+    /** 失效广播频道，消息体为用户 ID */
+    public static final String INVALIDATION_CHANNEL = "user:profile:invalidate";
+
+    /** L2 缓存名称（指标标签） */
+    private static final String CACHE_NAME = "user-profile";
+
+    /** 用户缓存键前缀 */
+    private static final String CACHE_KEY_PREFIX = "user:profile:";
+
+    /** Redis 缓存过期时间：1 小时 */
+    private static final Duration CACHE_TTL = Duration.ofHours(1);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheAsideTemplate cacheAsideTemplate;
+    private final Cache<String, User> local;
+
+    private final Counter localHitCounter;
+    private final Counter localMissCounter;
+
+    public UserProfileCache(StringRedisTemplate redisTemplate, CacheAsideTemplate cacheAsideTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.user.cache.local-max-size:10000}") long localMaxSize,
+            @Value("${app.user.cache.local-ttl-seconds:10}") long localTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.cacheAsideTemplate = cacheAsideTemplate;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .build();
+
+        this.localHitCounter = Counter.builder("user.profile.cache").tag("level", "local").tag("result", "hit")
+                .description("用户信息缓存读取次数").register(meterRegistry);
+        this.localMissCounter = Counter.builder("user.profile.cache").tag("level", "local").tag("result", "miss")
+                .description("用户信息缓存读取次数").register(meterRegistry);
+        Gauge.builder("user.profile.cache.local.size", local, Cache::estimatedSize)
+                .description("本地用户信息缓存条目数").register(meterRegistry);
+    }
+
+    /**
+     * 依次查询 L1、L2，均未命中时调用 {@code loader} 加载并回写
+     *
+     * @param loader 从数据库加载用户，不存在时返回 {@code null}
+     * @return 用户；不存在时为 {@code null}
+     */
+    public User get(String userId, Supplier<User> loader) {
+        User user = local.getIfPresent(userId);
+        if (user != null) {
+            localHitCounter.increment();
+            return user;
+        }
+        localMissCounter.increment();
+
+        user = cacheAsideTemplate.get(CACHE_NAME, CACHE_KEY_PREFIX + userId, User.class, CACHE_TTL, loader);
+        if (user != null) {
+            local.put(userId, user);
+        }
+        return user;
+    }
+
+    /**
+     * 删除 L2、清除本节点 L1，并通知其他节点清除 L1
+     */
+    public void invalidate(String userId) {
+        cacheAsideTemplate.evict(CACHE_KEY_PREFIX + userId);
+        local.invalidate(userId);
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL, userId);
+    }
+
+    /**
+     * 收到失效广播时清除本节点 L1（包括本节点自己发出的广播）
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        local.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.fitness.user.config;
+
+import com.example.fitness.common.auth.TokenRevocationService;
+import com.example.fitness.user.cache.UserProfileCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis 广播订阅配置类
+ * 所有频道共用一个监听容器（一条订阅连接、一组分发线程）：
+ * 用户信息失效广播清除本节点的本地缓存，Token 吊销广播把其他节点注销的 Token 加入本节点的吊销名单
+ */
+@Configuration
+public class RedisListenerConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+            UserProfileCache userProfileCache, TokenRevocationService tokenRevocationService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(userProfileCache, new ChannelTopic(UserProfileCache.INVALIDATION_CHANNEL));
+        container.addMessageListener(tokenRevocationService,
+                new ChannelTopic(TokenRevocationService.REVOCATION_CHANNEL));
+        return container;
+    }
+}
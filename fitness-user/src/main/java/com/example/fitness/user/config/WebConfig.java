@@ -30,6 +30,7 @@ public class WebConfig implements WebMvcConfigurer {
                         "/v3/api-docs/**", // OpenAPI JSON 定义
                         "/webjars/**", // WebJars 资源
                         "/actuator/**", // Spring Boot Actuator 监控
+                        "/ws/**", // WebSocket 端点，在握手拦截器中鉴权
                         "/error", // 错误页面
                         "/favicon.ico" // 图标
                 );
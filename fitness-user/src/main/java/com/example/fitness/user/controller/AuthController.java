@@ -1,6 +1,8 @@
 package com.example.fitness.user.controller;
 
 import com.example.fitness.api.dto.*;
+import com.example.fitness.common.exception.BusinessException;
+import com.example.fitness.common.result.ErrorCode;
 import com.example.fitness.common.result.Result;
 import com.example.fitness.user.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -93,6 +95,26 @@ public class AuthController {
         return Result.success(userService.loginByWechat(loginRequest));
     }
 
+    /**
+     * 注销接口
+     * 
+     * @param authorization 请求头 Authorization: Bearer <token>
+     * @return 操作结果
+     */
+    @Operation(summary = "注销", description = "吊销当前 Token，之后携带该 Token 的请求返回未授权")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "注销成功"),
+            @ApiResponse(responseCode = "401", description = "Token 缺失或无效")
+    })
+    @PostMapping("/logout")
+    public Result<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new BusinessException(ErrorCode.UNAUTHORIZED);
+        }
+        userService.logout(authorization.substring(7));
+        return Result.success(null);
+    }
+
     /**
      * 用户登录接口 (已废弃，保留向后兼容)
      * 
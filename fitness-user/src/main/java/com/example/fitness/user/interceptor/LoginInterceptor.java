@@ -1,5 +1,6 @@
 package com.example.fitness.user.interceptor;
 
+import com.example.fitness.common.auth.TokenRevocationService;
 import com.example.fitness.common.result.ErrorCode;
 import com.example.fitness.common.exception.BusinessException;
 import com.example.fitness.common.util.JwtUtil;
@@ -13,7 +14,7 @@ import org.springframework.web.servlet.HandlerInterceptor;
 
 /**
  * 登录拦截器
- * 校验请求头中的 Authorization: Bearer <token>
+ * 校验请求头中的 Authorization: Bearer <token>，并拒绝已注销的 Token
  */
 @Slf4j
 @Component
@@ -21,6 +22,7 @@ import org.springframework.web.servlet.HandlerInterceptor;
 public class LoginInterceptor implements HandlerInterceptor {
 
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
@@ -45,17 +47,23 @@ public class LoginInterceptor implements HandlerInterceptor {
             token = token.substring(7);
         }
 
+        JwtUtil.VerifiedToken verified;
         try {
-            // 验证 Token
-            jwtUtil.validateToken(token);
-            // 可以将 userId 放入 request attribute 或 ThreadLocal
-            String userId = jwtUtil.getUserIdFromToken(token);
-            request.setAttribute("userId", userId);
-
-            return true;
+            // 验证 Token（只解析一次，近期验证过的 Token 命中缓存）
+            verified = jwtUtil.verify(token);
         } catch (Exception e) {
             log.warn("Token 验证失败: {}", e.getMessage());
             throw new BusinessException(ErrorCode.UNAUTHORIZED);
         }
+
+        // 检查是否已注销（进程内布隆过滤器，命中时才访问 Redis）
+        if (tokenRevocationService.isRevoked(verified.tokenId(), verified.expiresAtMillis())) {
+            log.warn("Token 已被吊销: userId={}", verified.userId());
+            throw new BusinessException(ErrorCode.UNAUTHORIZED);
+        }
+
+        // 可以将 userId 放入 request attribute 或 ThreadLocal
+        request.setAttribute("userId", verified.userId());
+        return true;
     }
 }
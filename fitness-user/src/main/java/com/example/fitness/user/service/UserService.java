@@ -19,6 +19,11 @@ public interface UserService {
      */
     UserDTO loginByWechat(LoginRequest request);
 
+    /**
+     * 注销：吊销当前 Token，之后携带该 Token 的请求返回未授权
+     */
+    void logout(String token);
+
     /**
      * 首次使用落地流程设置（如难度等级）
      */
@@ -2,15 +2,15 @@ package com.example.fitness.user.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import java.util.concurrent.TimeUnit;
 import com.example.fitness.common.annotation.Idempotent;
 import com.example.fitness.common.annotation.RateLimit;
+import com.example.fitness.common.auth.TokenRevocationService;
 import com.example.fitness.common.exception.BusinessException;
 import com.example.fitness.common.result.ErrorCode;
+import com.example.fitness.api.dto.TrainingStatsDTO;
 import com.example.fitness.api.dto.UserDTO;
+import com.example.fitness.data.service.TrainingStatsService;
+import com.example.fitness.user.cache.UserProfileCache;
 import com.example.fitness.user.mapper.UserMapper;
 import com.example.fitness.user.model.entity.User;
 import com.example.fitness.user.service.UserService;
@@ -26,14 +26,13 @@ import me.chanjar.weixin.common.error.WxErrorException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * 用户服务实现类
  * 
  * <p>
  * 提供用户登录、首次使用落地流程管理和统计数据更新等功能。
- * 使用了 Redis 缓存方案降低数据库负载。
+ * 用户信息经过两级缓存（本地 Caffeine + Redis，见 {@link UserProfileCache}）降低数据库负载。
  * 
  * @author fitness-team
  * @since 1.0.0
@@ -44,16 +43,11 @@ import java.util.Optional;
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
     private final UserMapper userMapper;
-    private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper objectMapper = new ObjectMapper();
     private final JwtUtil jwtUtil;
     private final WxMaService wxMaService;
-
-    /** 用户缓存键前缀 */
-    private static final String USER_CACHE_KEY_PREFIX = "user:profile:";
-
-    /** 缓存过期时间：1 小时 */
-    private static final long USER_CACHE_TTL = 3600;
+    private final TrainingStatsService trainingStatsService;
+    private final UserProfileCache userProfileCache;
+    private final TokenRevocationService tokenRevocationService;
 
     // ==================== 登录相关方法 ====================
 
@@ -84,6 +78,23 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         return convertToDTO(user, token);
     }
 
+    /**
+     * 注销
+     * <p>
+     * 吊销 Token 的 jti 直到其过期；不带 jti 的旧版 Token 无法吊销，只能等待自然过期
+     */
+    @Override
+    public void logout(String token) {
+        JwtUtil.VerifiedToken verified;
+        try {
+            verified = jwtUtil.verify(token);
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.UNAUTHORIZED);
+        }
+        tokenRevocationService.revoke(verified.tokenId(), verified.expiresAtMillis());
+        log.info("用户注销: userId={}", verified.userId());
+    }
+
     // ==================== 用户引导流程 ====================
 
     /**
@@ -219,63 +230,22 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      * 带缓存查询用户信息（Cache-Aside 模式）
      */
     private User getUserForProfile(String userId) {
-        String cacheKey = USER_CACHE_KEY_PREFIX + userId;
-
-        // 1. 尝试从缓存读取
-        Optional<User> cachedUser = readFromCache(cacheKey);
-        if (cachedUser.isPresent()) {
-            log.debug("用户缓存命中: userId={}", userId);
-            return cachedUser.get();
-        }
-
-        // 2. 缓存未命中，查询数据库
-        log.debug("用户缓存未命中，查询数据库: userId={}", userId);
-        User user = userMapper.selectById(userId);
+        // 依次读取本地缓存、Redis；均未命中时查询数据库并回写，同一用户的并发未命中只查一次库
+        User user = userProfileCache.get(userId, () -> {
+            log.debug("用户缓存未命中，查询数据库: userId={}", userId);
+            return userMapper.selectById(userId);
+        });
         if (user == null) {
             throw new BusinessException(ErrorCode.USER_NOT_FOUND);
         }
-
-        // 3. 回写缓存
-        writeToCache(cacheKey, user);
-
         return user;
     }
 
     /**
-     * 从缓存读取用户
-     */
-    private Optional<User> readFromCache(String cacheKey) {
-        String cachedValue = redisTemplate.opsForValue().get(cacheKey);
-        if (cachedValue == null || cachedValue.isEmpty()) {
-            return Optional.empty();
-        }
-
-        try {
-            return Optional.of(objectMapper.readValue(cachedValue, User.class));
-        } catch (JsonProcessingException e) {
-            log.warn("用户缓存解析失败: cacheKey={}, error={}", cacheKey, e.getMessage());
-            return Optional.empty();
-        }
-    }
-
-    /**
-     * 写入用户缓存
-     */
-    private void writeToCache(String cacheKey, User user) {
-        try {
-            String jsonValue = objectMapper.writeValueAsString(user);
-            redisTemplate.opsForValue().set(cacheKey, jsonValue, USER_CACHE_TTL, TimeUnit.SECONDS);
-        } catch (JsonProcessingException e) {
-            log.error("用户数据序列化写入缓存失败: cacheKey={}, error={}", cacheKey, e.getMessage());
-        }
-    }
-
-    /**
-     * 失效用户缓存
+     * 失效用户缓存（包括其他节点的本地缓存）
      */
     private void invalidateUserCache(String userId) {
-        String cacheKey = USER_CACHE_KEY_PREFIX + userId;
-        redisTemplate.delete(cacheKey);
+        userProfileCache.invalidate(userId);
     }
 
     // ==================== 私有辅助方法：数据构建 ====================
@@ -304,19 +274,21 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
     /**
      * 构建用户统计数据
+     * <p>
+     * 积分取自用户表，训练时长、卡路里、完成率与历史取自每日训练汇总（见 {@link TrainingStatsService}）
      */
     private Map<String, Object> buildUserStats(User user) {
         Map<String, Object> stats = new HashMap<>();
-
-        int totalDuration = user.getTotalDuration() != null ? user.getTotalDuration() : 0;
-        int totalScore = user.getTotalScore() != null ? user.getTotalScore() : 0;
-
-        stats.put("totalDuration", totalDuration);
-        stats.put("totalScore", totalScore);
-        stats.put("weeklyDuration", 120);
-        stats.put("totalCalories", totalScore * 10);
-        stats.put("completionRate", 85);
-        stats.put("history", java.util.Collections.emptyList());
+        TrainingStatsDTO training = trainingStatsService.getStats(user.getId());
+
+        stats.put("totalScore", user.getTotalScore() != null ? user.getTotalScore() : 0);
+        stats.put("totalDuration", training.getTotalDuration());
+        stats.put("weeklyDuration", training.getWeeklyDuration());
+        stats.put("monthlyDuration", training.getMonthlyDuration());
+        stats.put("totalCalories", training.getTotalCalories());
+        stats.put("totalSessions", training.getTotalSessions());
+        stats.put("completionRate", training.getCompletionRate());
+        stats.put("history", training.getHistory());
 
         return stats;
     }
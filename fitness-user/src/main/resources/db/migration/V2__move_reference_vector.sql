@@ -0,0 +1,5 @@
+-- 标准动作参考向量，供 AI 评分模块热加载
+ALTER TABLE `move`
+    ADD COLUMN `reference_vector_json` TEXT COMMENT '标准动作参考向量 [x1, y1, ..., x17, y17]' AFTER `scoring_config_json`,
+    ADD COLUMN `updated_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间（模板增量刷新水位线）',
+    ADD INDEX `idx_updated_at` (`updated_at`);
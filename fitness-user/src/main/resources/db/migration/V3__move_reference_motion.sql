@@ -0,0 +1,3 @@
+-- 标准参考动作，供 AI 时序评分（DTW）使用
+ALTER TABLE `move`
+    ADD COLUMN `reference_motion_json` MEDIUMTEXT COMMENT '标准参考动作（一次完整动作的帧序列，每帧 34 个数）' AFTER `reference_vector_json`;
@@ -0,0 +1,9 @@
+-- 评分事件消费进度（每个分区的 offset 水位线），与积分累加在同一事务中更新，保证重放和再均衡幂等
+CREATE TABLE IF NOT EXISTS `scoring_consumer_offset` (
+    `consumer_group` VARCHAR(100) NOT NULL,
+    `topic` VARCHAR(200) NOT NULL,
+    `partition_id` INT NOT NULL,
+    `last_offset` BIGINT NOT NULL COMMENT '已计入积分的最大 offset',
+    `updated_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`consumer_group`, `topic`, `partition_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,24 @@
+-- 社交动态：关注关系、动态条目与粉丝数（大V 判定）
+ALTER TABLE `user` ADD COLUMN `follower_count` INT NOT NULL DEFAULT 0 COMMENT '粉丝数';
+
+CREATE TABLE IF NOT EXISTS `user_follow` (
+    `follower_id` BIGINT NOT NULL COMMENT '关注者',
+    `followee_id` BIGINT NOT NULL COMMENT '被关注者',
+    `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (`follower_id`, `followee_id`),
+    KEY `idx_followee_follower` (`followee_id`, `follower_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 动态条目（由训练完成事件生成），收件箱只保存 id，游标分页按 id 倒序
+CREATE TABLE IF NOT EXISTS `feed_item` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
+    `user_id` BIGINT NOT NULL COMMENT '发布者',
+    `workout_id` VARCHAR(64) NOT NULL COMMENT '客户端生成的训练记录 ID，用于重复投递去重',
+    `session_name` VARCHAR(100) COMMENT '课程名称',
+    `duration` INT COMMENT '训练时长(秒)',
+    `calories` INT COMMENT '消耗卡路里',
+    `score` INT COMMENT '训练得分',
+    `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY `uk_user_workout` (`user_id`, `workout_id`),
+    KEY `idx_user_id` (`user_id`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,11 @@
+-- 用户每日训练汇总（由训练完成事件增量累加），周 / 月统计与训练历史均由此表计算，不扫描原始事件
+CREATE TABLE IF NOT EXISTS `user_daily_stats` (
+    `user_id` BIGINT NOT NULL,
+    `stat_date` DATE NOT NULL COMMENT '统计日期（app.data.stats.zone 时区）',
+    `duration` INT NOT NULL DEFAULT 0 COMMENT '训练时长(秒)',
+    `calories` INT NOT NULL DEFAULT 0 COMMENT '消耗卡路里',
+    `reps` INT NOT NULL DEFAULT 0 COMMENT '完成次数',
+    `sessions` INT NOT NULL DEFAULT 0 COMMENT '完成的训练次数',
+    `updated_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`user_id`, `stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
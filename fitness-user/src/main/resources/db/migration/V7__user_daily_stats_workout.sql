@@ -0,0 +1,8 @@
+-- 已计入每日汇总的训练（至少一次投递下同一训练只累加一次）；早于事件时间窗口的登记由消费者定期清理
+CREATE TABLE IF NOT EXISTS `user_daily_stats_workout` (
+    `user_id` BIGINT NOT NULL,
+    `workout_id` VARCHAR(64) NOT NULL COMMENT '客户端生成的训练 ID',
+    `event_time` DATETIME NOT NULL COMMENT '训练完成时间（app.data.stats.zone 时区）',
+    PRIMARY KEY (`user_id`, `workout_id`),
+    KEY `idx_event_time` (`event_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
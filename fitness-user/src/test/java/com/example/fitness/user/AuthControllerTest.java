@@ -1,6 +1,7 @@
 package com.example.fitness.user;
 
 import com.example.fitness.api.dto.*;
+import com.example.fitness.common.auth.TokenRevocationService;
 import com.example.fitness.common.util.JwtUtil;
 import com.example.fitness.user.controller.AuthController;
 import com.example.fitness.user.service.UserService;
@@ -36,6 +37,9 @@ public class AuthControllerTest {
     @MockitoBean
     private JwtUtil jwtUtil; // Mock JwtUtil for WebConfig/LoginInterceptor
 
+    @MockitoBean
+    private TokenRevocationService tokenRevocationService; // LoginInterceptor 依赖
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -193,4 +197,29 @@ public class AuthControllerTest {
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("不支持的登录类型"));
     }
+
+    /**
+     * 测试注销接口：去掉 Bearer 前缀后交给服务吊销
+     */
+    @Test
+    public void testLogout() throws Exception {
+        mockMvc.perform(post("/api/auth/logout")
+                .header("Authorization", "Bearer token-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+
+        Mockito.verify(userService).logout("token-1");
+    }
+
+    /**
+     * 测试注销接口：缺少 Token 时返回未授权
+     */
+    @Test
+    public void testLogoutWithoutToken() throws Exception {
+        mockMvc.perform(post("/api/auth/logout"))
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.code").value(401));
+
+        Mockito.verify(userService, Mockito.never()).logout(any());
+    }
 }
@@ -70,8 +70,12 @@ public class FullUserScenarioTest {
     private org.springframework.data.redis.core.ValueOperations<String, String> valueOperations;
 
     @org.junit.jupiter.api.BeforeEach
-    public void setup() {
+    public void setup() throws Throwable {
         org.mockito.Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        // 幂等切面为环绕通知，Mock 后需直接执行业务方法
+        org.mockito.Mockito.when(idempotentAspect.doAround(org.mockito.ArgumentMatchers.any(),
+                org.mockito.ArgumentMatchers.any()))
+                .thenAnswer(invocation -> invocation.<org.aspectj.lang.ProceedingJoinPoint>getArgument(0).proceed());
     }
 
     private static String authToken;
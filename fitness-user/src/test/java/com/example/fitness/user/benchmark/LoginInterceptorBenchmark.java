@@ -0,0 +1,101 @@
+package com.example.fitness.user.benchmark;
+
+import com.example.fitness.common.auth.TokenRevocationService;
+import com.example.fitness.common.config.FitnessProperties;
+import com.example.fitness.common.util.JwtUtil;
+import com.example.fitness.user.interceptor.LoginInterceptor;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录拦截器 JMH 基准
+ *
+ * <p>
+ * 同一 Token 反复经过 {@link LoginInterceptor#preHandle}，对应同一会话的连续请求。
+ * {@code tokenCacheSize = 0} 时每次都做 HMAC 校验，{@code 10000} 时命中已验证 Token 缓存；
+ * 吊销名单为空，每次请求都走进程内的布隆过滤器快速路径（不访问 Redis）；
+ * {@code legacyDoubleParse} 复现改造前的路径（每次调用重建密钥与解析器，并解析两次）作为对照。
+ * 运行方式：
+ *
+ * <pre>
+ * mvn -pl fitness-user -am test-compile
+ * mvn -pl fitness-user exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.fitness.user.benchmark.LoginInterceptorBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginInterceptorBenchmark {
+
+    private static final String SECRET = "fitness-demo-bench-secret-key-1234567890";
+
+    @Param({ "0", "10000" })
+    private long tokenCacheSize;
+
+    private LoginInterceptor interceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        FitnessProperties properties = new FitnessProperties();
+        properties.getJwt().setSecret(SECRET);
+        properties.getJwt().setExpiration(3600L);
+        properties.getJwt().setTokenCacheSize(tokenCacheSize);
+        JwtUtil jwtUtil = new JwtUtil(properties);
+        TokenRevocationService revocationService = new TokenRevocationService(new StringRedisTemplate(), properties,
+                new SimpleMeterRegistry());
+        interceptor = new LoginInterceptor(jwtUtil, revocationService);
+
+        token = jwtUtil.generateToken("10001");
+        request = new MockHttpServletRequest("GET", "/api/user/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    /** 当前拦截器路径 */
+    @Benchmark
+    public boolean preHandle() throws Exception {
+        return interceptor.preHandle(request, response, this);
+    }
+
+    /** 改造前：每次重建密钥与解析器，validateToken 与 getUserIdFromToken 各解析一次 */
+    @Benchmark
+    public String legacyDoubleParse() {
+        Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoginInterceptorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
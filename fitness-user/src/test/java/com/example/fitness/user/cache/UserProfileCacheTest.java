@@ -0,0 +1,137 @@
+package com.example.fitness.user.cache;
+
+import com.example.fitness.common.cache.CacheAsideTemplate;
+import com.example.fitness.common.config.FitnessProperties;
+import com.example.fitness.user.model.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户信息两级缓存单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class UserProfileCacheTest {
+
+    private static final String CACHED_JACK =
+            "{\"value\":{\"id\":1,\"nickname\":\"Jack\"},\"expiresAt\":9999999999999,\"loadMillis\":1}";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserProfileCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        CacheAsideTemplate cacheAsideTemplate = new CacheAsideTemplate(redisTemplate, objectMapper,
+                new FitnessProperties(), meterRegistry);
+        cache = new UserProfileCache(redisTemplate, cacheAsideTemplate, meterRegistry, 100, 60);
+    }
+
+    private double localCount(String result) {
+        return meterRegistry.get("user.profile.cache").tag("level", "local").tag("result", result).counter().count();
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    @Test
+    public void testRedisHitFillsLocal() {
+        when(valueOperations.get("user:profile:1")).thenReturn(CACHED_JACK);
+
+        User first = cache.get("1", () -> null);
+        User second = cache.get("1", () -> null);
+
+        assertEquals("Jack", first.getNickname());
+        assertSame(first, second);
+        // 第二次读取由本地缓存承接，不再访问 Redis
+        verify(valueOperations, times(1)).get(anyString());
+        assertEquals(1, localCount("hit"));
+        assertEquals(1, localCount("miss"));
+        assertEquals(1, meterRegistry.get("cache.requests").tag("cache", "user-profile").tag("result", "hit")
+                .counter().count());
+    }
+
+    @Test
+    public void testLoadWritesBothLevels() {
+        User loaded = user(3L);
+        loaded.setCreatedAt(LocalDateTime.of(2024, 1, 20, 8, 30));
+
+        User first = cache.get("3", () -> loaded);
+        User second = cache.get("3", () -> null);
+
+        assertSame(loaded, first);
+        assertSame(loaded, second);
+        verify(valueOperations).set(eq("user:profile:3"), contains("2024-01-20T08:30"), anyLong(),
+                eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testMissingUserNotCachedLocally() {
+        assertNull(cache.get("2", () -> null));
+        assertNull(cache.get("2", () -> null));
+
+        // 不存在的用户只写入 L2 空值，不占用本地缓存
+        verify(valueOperations, times(2)).get("user:profile:2");
+    }
+
+    @Test
+    public void testInvalidateBroadcasts() {
+        cache.get("4", () -> user(4L));
+
+        cache.invalidate("4");
+
+        verify(redisTemplate).delete("user:profile:4");
+        verify(redisTemplate).convertAndSend(UserProfileCache.INVALIDATION_CHANNEL, "4");
+        assertNull(cache.get("4", () -> null));
+    }
+
+    @Test
+    public void testBroadcastEvictsLocal() {
+        cache.get("5", () -> user(5L));
+
+        cache.onMessage(new DefaultMessage(UserProfileCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "5".getBytes(StandardCharsets.UTF_8)), null);
+
+        // 本地已清除，回落到 Redis
+        cache.get("5", () -> null);
+        verify(valueOperations, times(2)).get("user:profile:5");
+    }
+}
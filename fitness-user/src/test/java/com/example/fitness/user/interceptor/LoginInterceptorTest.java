@@ -1,5 +1,6 @@
 package com.example.fitness.user.interceptor;
 
+import com.example.fitness.common.auth.TokenRevocationService;
 import com.example.fitness.common.util.JwtUtil;
 import com.example.fitness.common.exception.BusinessException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,6 +21,9 @@ public class LoginInterceptorTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
     @Mock
     private HttpServletRequest request;
 
@@ -59,10 +63,13 @@ public class LoginInterceptorTest {
     void testValidToken() throws Exception {
         when(request.getRequestURI()).thenReturn("/api/user/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer valid_token");
-        when(jwtUtil.getUserIdFromToken("valid_token")).thenReturn("1");
+        when(jwtUtil.verify("valid_token")).thenReturn(new JwtUtil.VerifiedToken("1", "jti_1", Long.MAX_VALUE));
 
         assertTrue(loginInterceptor.preHandle(request, response, new Object()));
         verify(request).setAttribute(eq("userId"), eq("1"));
+        // Token 只解析一次
+        verify(jwtUtil, times(1)).verify("valid_token");
+        verify(jwtUtil, never()).validateToken(anyString());
     }
 
     @Test
@@ -79,10 +86,23 @@ public class LoginInterceptorTest {
     void testInvalidToken() {
         when(request.getRequestURI()).thenReturn("/api/user/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer invalid_token");
-        doThrow(new RuntimeException("invalid")).when(jwtUtil).validateToken("invalid_token");
+        doThrow(new RuntimeException("invalid")).when(jwtUtil).verify("invalid_token");
+
+        assertThrows(BusinessException.class, () -> {
+            loginInterceptor.preHandle(request, response, new Object());
+        });
+    }
+
+    @Test
+    void testRevokedToken() {
+        when(request.getRequestURI()).thenReturn("/api/user/profile");
+        when(request.getHeader("Authorization")).thenReturn("Bearer revoked_token");
+        when(jwtUtil.verify("revoked_token")).thenReturn(new JwtUtil.VerifiedToken("1", "jti_1", Long.MAX_VALUE));
+        when(tokenRevocationService.isRevoked("jti_1", Long.MAX_VALUE)).thenReturn(true);
 
         assertThrows(BusinessException.class, () -> {
             loginInterceptor.preHandle(request, response, new Object());
         });
+        verify(request, never()).setAttribute(anyString(), any());
     }
 }
@@ -4,15 +4,24 @@ import cn.binarywang.wx.miniapp.api.WxMaService;
 import cn.binarywang.wx.miniapp.api.WxMaUserService;
 import cn.binarywang.wx.miniapp.bean.WxMaJscode2SessionResult;
 import com.example.fitness.api.dto.LoginRequest;
+import com.example.fitness.api.dto.TrainingStatsDTO;
 import com.example.fitness.api.dto.UserDTO;
+import com.example.fitness.common.auth.TokenRevocationService;
+import com.example.fitness.common.cache.CacheAsideTemplate;
+import com.example.fitness.common.config.FitnessProperties;
+import com.example.fitness.common.exception.BusinessException;
 import com.example.fitness.common.util.JwtUtil;
+import com.example.fitness.data.service.TrainingStatsService;
+import com.example.fitness.user.cache.UserProfileCache;
 import com.example.fitness.user.mapper.UserMapper;
 import com.example.fitness.user.model.entity.User;
 import com.example.fitness.user.service.impl.UserServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.util.Map;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -20,6 +29,7 @@ import org.springframework.data.redis.core.ValueOperations;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -47,9 +57,26 @@ public class UserServiceTest {
     @Mock
     private WxMaUserService wxMaUserService;
 
-    @InjectMocks
+    @Mock
+    private TrainingStatsService trainingStatsService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
     private UserServiceImpl userService;
 
+    @BeforeEach
+    public void setUp() {
+        // 两级缓存使用真实实现，L2 读写落到 mock 的 redisTemplate 上
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CacheAsideTemplate cacheAsideTemplate = new CacheAsideTemplate(redisTemplate, new ObjectMapper(),
+                new FitnessProperties(), meterRegistry);
+        UserProfileCache userProfileCache = new UserProfileCache(redisTemplate, cacheAsideTemplate, meterRegistry,
+                100, 10);
+        userService = new UserServiceImpl(userMapper, jwtUtil, wxMaService, trainingStatsService, userProfileCache,
+                tokenRevocationService);
+    }
+
     @Test
     public void testLoginByPhone_NewUser() {
         // Setup
@@ -202,6 +229,29 @@ public class UserServiceTest {
         }
     }
 
+    @Test
+    public void testGetUserStats() {
+        User user = new User();
+        user.setId(800L);
+        user.setTotalScore(950);
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(userMapper.selectById("800")).thenReturn(user);
+        when(trainingStatsService.getStats(800L)).thenReturn(TrainingStatsDTO.builder()
+                .weeklyDuration(45).totalDuration(300).totalCalories(2400).completionRate(57)
+                .history(java.util.List.of()).build());
+
+        Map<String, Object> stats = userService.getUserStats(800L);
+
+        // 积分来自用户表，训练数据来自每日汇总
+        assertEquals(950, stats.get("totalScore"));
+        assertEquals(45, stats.get("weeklyDuration"));
+        assertEquals(300, stats.get("totalDuration"));
+        assertEquals(2400, stats.get("totalCalories"));
+        assertEquals(57, stats.get("completionRate"));
+    }
+
     @Test
     public void testUpdateUserStats_Null() {
         try {
@@ -231,7 +281,8 @@ public class UserServiceTest {
 
         // Cache hit
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get(anyString())).thenReturn("{\"id\":700,\"phone\":\"13700000000\"}");
+        when(valueOperations.get(anyString())).thenReturn(
+                "{\"value\":{\"id\":700,\"phone\":\"13700000000\"},\"expiresAt\":9999999999999,\"loadMillis\":1}");
 
         // Execute
         Map<String, Object> result = userService.onboarding(req);
@@ -371,4 +422,23 @@ public class UserServiceTest {
             assertEquals(500, e.getCode()); // INTERNAL_SERVER_ERROR
         }
     }
+
+    @Test
+    public void testLogout_RevokesTokenId() {
+        when(jwtUtil.verify("token-1")).thenReturn(new JwtUtil.VerifiedToken("100", "jti-1", 1_900_000_000_000L));
+
+        userService.logout("token-1");
+
+        verify(tokenRevocationService).revoke("jti-1", 1_900_000_000_000L);
+    }
+
+    @Test
+    public void testLogout_InvalidToken_Unauthorized() {
+        when(jwtUtil.verify("bad")).thenThrow(new RuntimeException("invalid"));
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> userService.logout("bad"));
+
+        assertEquals(401, ex.getCode());
+        verify(tokenRevocationService, never()).revoke(anyString(), anyLong());
+    }
 }
@@ -23,7 +23,10 @@ CREATE TABLE IF NOT EXISTS `move` (
     `difficulty` VARCHAR(20),
     `model_url` VARCHAR(500),
     `scoring_config_json` TEXT,
-    `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    `reference_vector_json` TEXT,
+    `reference_motion_json` TEXT,
+    `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    `updated_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 -- 用户收藏表
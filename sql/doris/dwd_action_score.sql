@@ -0,0 +1,21 @@
+-- Doris 明细表：动作评分事件（由 fitness-data 的 ActionScoreSink 通过 Stream Load 微批写入）
+CREATE DATABASE IF NOT EXISTS fitness_dw;
+
+CREATE TABLE IF NOT EXISTS fitness_dw.dwd_action_score (
+    `event_time` DATETIME(3) NOT NULL COMMENT '评分时间',
+    `event_id` VARCHAR(64) NOT NULL COMMENT '事件唯一 ID',
+    `user_id` VARCHAR(64) NULL COMMENT '用户 ID（可能为 unknown）',
+    `move_id` VARCHAR(64) NULL COMMENT '动作 ID',
+    `score` INT NULL COMMENT '评分（0 ~ 100）'
+)
+DUPLICATE KEY(`event_time`, `event_id`)
+PARTITION BY RANGE(`event_time`) ()
+DISTRIBUTED BY HASH(`event_id`) BUCKETS 8
+PROPERTIES (
+    "replication_num" = "1",
+    "dynamic_partition.enable" = "true",
+    "dynamic_partition.time_unit" = "DAY",
+    "dynamic_partition.start" = "-90",
+    "dynamic_partition.end" = "3",
+    "dynamic_partition.prefix" = "p"
+);
@@ -28,11 +28,16 @@ CREATE TABLE IF NOT EXISTS `move` (
     `difficulty` VARCHAR(32) NOT NULL,
     `model_url` VARCHAR(255) NOT NULL,
     `scoring_config_json` JSON NOT NULL,
-    `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP
+    `reference_vector_json` JSON DEFAULT NULL COMMENT '标准动作参考向量 [x1, y1, ..., x17, y17]',
+    `reference_motion_json` JSON DEFAULT NULL COMMENT '标准参考动作（一次完整动作的帧序列，每帧 34 个数）',
+    `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
+    `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    KEY `idx_updated_at` (`updated_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
-INSERT INTO `move` (`id`, `name`, `difficulty`, `model_url`, `scoring_config_json`) VALUES 
-('m_squat', 'Squat', 'novice', 'https://oss.example.com/squat.onnx', '{"angleThreshold": 20, "holdTime": 2}');
+INSERT INTO `move` (`id`, `name`, `difficulty`, `model_url`, `scoring_config_json`, `reference_vector_json`) VALUES 
+('m_squat', 'Squat', 'novice', 'https://oss.example.com/squat.onnx', '{"angleThreshold": 20, "holdTime": 2}',
+ '[0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5]');
 
 CREATE TABLE IF NOT EXISTS `training_session` (
     `id` BIGINT AUTO_INCREMENT PRIMARY KEY,